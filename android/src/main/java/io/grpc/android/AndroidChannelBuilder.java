@@ -37,6 +37,7 @@ import io.grpc.ManagedChannel;
 import io.grpc.ManagedChannelBuilder;
 import io.grpc.MethodDescriptor;
 import io.grpc.internal.GrpcUtil;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.GuardedBy;
@@ -287,6 +288,11 @@ public final class AndroidChannelBuilder extends ForwardingChannelBuilder<Androi
       delegate.enterIdle();
     }
 
+    @Override
+    public Future<Void> getWarmUpFuture() {
+      return delegate.getWarmUpFuture();
+    }
+
     /** Respond to changes in the default network. Only used on API levels 24+. */
     @TargetApi(Build.VERSION_CODES.N)
     private class DefaultNetworkCallback extends ConnectivityManager.NetworkCallback {
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Decides, message by message, whether the outbound messages of calls that have compression
+ * enabled are worth compressing. Small messages gain little from compression but still pay for
+ * the compressor's framing, and already-compressed payloads cost CPU without getting smaller.
+ *
+ * <p>A policy is shared by all the calls of a channel or server, so implementations must be
+ * thread-safe and should be cheap, as they are consulted on the thread sending the message.
+ */
+@ExperimentalApi("https://github.com/grpc/grpc-java/issues/1704")
+@ThreadSafe
+public abstract class CompressionPolicy {
+  /**
+   * Returns whether to compress an outbound message. Messages that are not compressed are sent
+   * as is, and reported to {@link StreamTracer#outboundMessageCompressionSkipped}.
+   *
+   * @param fullMethodName the fully qualified name of the method of the call sending the message
+   * @param messageLength the serialized size of the message, or -1 if it is only known after the
+   *     message has been serialized
+   */
+  public abstract boolean shouldCompress(String fullMethodName, int messageLength);
+
+  /**
+   * Reports the sizes of an outbound message that has just been compressed. The default
+   * implementation does nothing.
+   *
+   * @param fullMethodName the fully qualified name of the method of the call sending the message
+   * @param uncompressedSize the serialized size of the message
+   * @param compressedSize the size of the message after compression
+   */
+  public void messageCompressed(String fullMethodName, long uncompressedSize, long compressedSize) {
+  }
+}
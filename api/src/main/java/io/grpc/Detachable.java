@@ -0,0 +1,38 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc;
+
+import java.io.InputStream;
+
+/**
+ * Extension to an {@link InputStream} whose underlying buffers can be handed over to a new stream.
+ *
+ * <p>gRPC closes the message stream it passes to {@link MethodDescriptor.Marshaller#parse} once
+ * {@code parse} returns, releasing the buffers that hold the message. A marshaller that wants to
+ * keep using those buffers after that, without copying them, can call {@link #detach} instead.
+ * Combined with {@link HasByteBuffer}, this lets a marshaller wrap inbound buffers as its message
+ * type and release them when the message is no longer used.
+ */
+@ExperimentalApi("https://github.com/grpc/grpc-java/issues/2222")
+public interface Detachable {
+
+  /**
+   * Moves the unread content of this stream to a new stream and returns it. This stream is left
+   * empty. The caller owns the returned stream, and must close it to release its buffers.
+   */
+  InputStream detach();
+}
@@ -71,6 +71,12 @@ public abstract class ForwardingChannelBuilder<T extends ForwardingChannelBuilde
     return thisT();
   }
 
+  @Override
+  public T virtualThreadExecutor() {
+    delegate().virtualThreadExecutor();
+    return thisT();
+  }
+
   @Override
   public T offloadExecutor(Executor executor) {
     delegate().offloadExecutor(executor);
@@ -151,6 +157,12 @@ public abstract class ForwardingChannelBuilder<T extends ForwardingChannelBuilde
     return thisT();
   }
 
+  @Override
+  public T compressionPolicy(@Nullable CompressionPolicy policy) {
+    delegate().compressionPolicy(policy);
+    return thisT();
+  }
+
   @Override
   public T idleTimeout(long value, TimeUnit unit) {
     delegate().idleTimeout(value, unit);
@@ -235,6 +247,24 @@ public abstract class ForwardingChannelBuilder<T extends ForwardingChannelBuilde
     return thisT();
   }
 
+  @Override
+  public T maxConnectionsPerSubchannel(int maxConnections) {
+    delegate().maxConnectionsPerSubchannel(maxConnections);
+    return thisT();
+  }
+
+  @Override
+  public T warmUp(int connectionsPerSubchannel) {
+    delegate().warmUp(connectionsPerSubchannel);
+    return thisT();
+  }
+
+  @Override
+  public <ReqT> T warmUpCall(MethodDescriptor<ReqT, ?> method, ReqT request) {
+    delegate().warmUpCall(method, request);
+    return thisT();
+  }
+
   @Override
   public T proxyDetector(ProxyDetector proxyDetector) {
     delegate().proxyDetector(proxyDetector);
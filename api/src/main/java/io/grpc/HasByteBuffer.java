@@ -0,0 +1,49 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc;
+
+import java.nio.ByteBuffer;
+import javax.annotation.Nullable;
+
+/**
+ * Extension to an {@link java.io.InputStream} that exposes its content as {@link ByteBuffer}s,
+ * so it can be read without copying.
+ *
+ * <p>Callers read the content by alternating {@link #getByteBuffer} and {@link
+ * java.io.InputStream#skip} with the number of bytes in the returned buffer.
+ */
+@ExperimentalApi("https://github.com/grpc/grpc-java/issues/2222")
+public interface HasByteBuffer {
+
+  /**
+   * Indicates whether or not {@link #getByteBuffer} is supported.
+   */
+  boolean byteBufferSupported();
+
+  /**
+   * Returns a buffer holding some of the bytes to be read next, or {@code null} if the stream has
+   * no more bytes. How many bytes the buffer holds is implementation specific. The position of the
+   * stream is not changed. The content of the returned buffer must not be modified, but its
+   * position, limit and mark may be changed. It is only valid until the stream reads past it, or
+   * until the stream is closed if it was {@linkplain java.io.InputStream#mark marked} before. This
+   * is an optional method, so callers should first check {@link #byteBufferSupported}.
+   *
+   * @throws UnsupportedOperationException if this stream does not support this method
+   */
+  @Nullable
+  ByteBuffer getByteBuffer();
+}
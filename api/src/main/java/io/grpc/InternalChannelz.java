@@ -657,20 +657,39 @@ public final class InternalChannelz {
     public final String cipherSuiteStandardName;
     @Nullable public final Certificate localCert;
     @Nullable public final Certificate remoteCert;
+    /** Whether the handshake resumed an earlier session rather than establishing a new one. */
+    public final boolean sessionResumed;
 
     /**
      * A constructor only for testing.
      */
     public Tls(String cipherSuiteName, Certificate localCert, Certificate remoteCert) {
+      this(cipherSuiteName, localCert, remoteCert, false);
+    }
+
+    /**
+     * A constructor only for testing.
+     */
+    public Tls(
+        String cipherSuiteName, Certificate localCert, Certificate remoteCert,
+        boolean sessionResumed) {
       this.cipherSuiteStandardName = cipherSuiteName;
       this.localCert = localCert;
       this.remoteCert = remoteCert;
+      this.sessionResumed = sessionResumed;
     }
 
     /**
      * Creates an instance.
      */
     public Tls(SSLSession session) {
+      this(session, false);
+    }
+
+    /**
+     * Creates an instance for a handshake that did or did not resume an earlier session.
+     */
+    public Tls(SSLSession session, boolean sessionResumed) {
       String cipherSuiteStandardName = session.getCipherSuite();
       Certificate localCert = null;
       Certificate remoteCert = null;
@@ -695,6 +714,7 @@ public final class InternalChannelz {
       this.cipherSuiteStandardName = cipherSuiteStandardName;
       this.localCert = localCert;
       this.remoteCert = remoteCert;
+      this.sessionResumed = sessionResumed;
     }
   }
 
@@ -112,7 +112,9 @@ public final class InternalMetadata {
 
   /**
    * Creates a new {@link Metadata} instance from serialized data,
-   * with some values pre-parsed. Metadata will mutate the passed in array.
+   * with some values pre-parsed. Metadata takes ownership of the passed in array and mutates it,
+   * replacing well-known names with the arrays returned by {@link #wellKnownName}; the caller
+   * must not use it afterwards.
    *
    * @param usedNames The number of names used.
    * @param namesAndValues An array of interleaved names and values,
@@ -125,4 +127,42 @@ public final class InternalMetadata {
   public static Metadata newMetadataWithParsedValues(int usedNames, Object[] namesAndValues) {
     return new Metadata(usedNames, namesAndValues);
   }
+
+  /**
+   * Returns the number of header names that metadata encodes with shared, canonical byte arrays.
+   * They are indexed from 0.
+   */
+  @Internal
+  public static int wellKnownNameCount() {
+    return WellKnownMetadataNames.count();
+  }
+
+  /**
+   * Returns the index of a well-known header name, or -1 if {@code name} isn't one. Names
+   * returned by {@link #serialize} for well-known keys are always the canonical array returned by
+   * {@link #wellKnownName}.
+   */
+  @Internal
+  public static int wellKnownNameIndex(byte[] name) {
+    return WellKnownMetadataNames.indexOf(name);
+  }
+
+  /**
+   * Returns the index of the well-known header name held in {@code bytes[offset, offset +
+   * length)}, or -1 if it isn't one. Lets transports intern names without copying them out of
+   * their decode buffers first.
+   */
+  @Internal
+  public static int wellKnownNameIndex(byte[] bytes, int offset, int length) {
+    return WellKnownMetadataNames.indexOf(bytes, offset, length);
+  }
+
+  /**
+   * Returns the canonical encoding of a well-known header name. The returned array <em>must
+   * not</em> be modified.
+   */
+  @Internal
+  public static byte[] wellKnownName(int index) {
+    return WellKnownMetadataNames.nameBytes(index);
+  }
 }
@@ -16,6 +16,7 @@
 
 package io.grpc;
 
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.concurrent.ThreadSafe;
 
@@ -143,4 +144,20 @@ public abstract class ManagedChannel extends Channel {
    */
   @ExperimentalApi("https://github.com/grpc/grpc-java/issues/4056")
   public void enterIdle() {}
+
+  /**
+   * Returns a future that completes once a channel built with {@link ManagedChannelBuilder#warmUp}
+   * has first become READY and, if one was set with {@link ManagedChannelBuilder#warmUpCall}, the
+   * warm-up call has succeeded. The future fails with a {@link StatusException} if the warm-up
+   * call fails or the channel is shut down first. It does not time out on its own, so callers
+   * typically bound the wait with {@link Future#get(long, TimeUnit)}.
+   *
+   * @throws IllegalStateException if the channel was not built with warm-up enabled
+   * @throws UnsupportedOperationException if not supported by implementation
+   * @since 1.32.0
+   */
+  @ExperimentalApi("https://github.com/grpc/grpc-java/issues/1771")
+  public Future<Void> getWarmUpFuture() {
+    throw new UnsupportedOperationException("Not implemented");
+  }
 }
@@ -106,6 +106,23 @@ public abstract class ManagedChannelBuilder<T extends ManagedChannelBuilder<T>>
    */
   public abstract T executor(Executor executor);
 
+  /**
+   * Runs application code on virtual threads, starting one whenever a call has callbacks to run,
+   * so that callbacks may block without exhausting a thread pool. Virtual threads
+   * are available starting with Java 21; on older JVMs this falls back to the default executor.
+   *
+   * <p>Calling this method replaces any executor set with {@link #executor(Executor)} or {@link
+   * #directExecutor()}, and vice versa.
+   *
+   * @return this
+   * @throws UnsupportedOperationException if unsupported
+   * @since 1.32.0
+   */
+  @ExperimentalApi("https://github.com/grpc/grpc-java/issues/6279")
+  public T virtualThreadExecutor() {
+    throw new UnsupportedOperationException();
+  }
+
   /**
    * Provides a custom executor that will be used for operations that block or are expensive.
    *
@@ -284,6 +301,20 @@ public abstract class ManagedChannelBuilder<T extends ManagedChannelBuilder<T>>
   @ExperimentalApi("https://github.com/grpc/grpc-java/issues/1704")
   public abstract T compressorRegistry(CompressorRegistry registry);
 
+  /**
+   * Sets the policy deciding, message by message, whether to compress the requests of calls that
+   * have compression enabled. By default, every such message is compressed.
+   *
+   * @param policy the policy, or {@code null} to compress every message
+   * @return this
+   * @throws UnsupportedOperationException if unsupported
+   * @since 1.32.0
+   */
+  @ExperimentalApi("https://github.com/grpc/grpc-java/issues/1704")
+  public T compressionPolicy(@Nullable CompressionPolicy policy) {
+    throw new UnsupportedOperationException();
+  }
+
   /**
    * Set the duration without ongoing RPCs before going to idle mode.
    *
@@ -511,6 +542,56 @@ public abstract class ManagedChannelBuilder<T extends ManagedChannelBuilder<T>>
     throw new UnsupportedOperationException();
   }
 
+  /**
+   * Sets the maximum number of connections each subchannel may open to its address. With the
+   * default of 1, calls beyond the server's {@code MAX_CONCURRENT_STREAMS} setting wait for earlier
+   * calls to finish. With a larger value, the subchannel opens another connection to the same
+   * address when its connections approach that limit, spreads new calls across them, and closes
+   * the extra connections again once they are idle. It has no effect on transports that do not
+   * report the server's limit.
+   *
+   * @return this
+   * @throws IllegalArgumentException if {@code maxConnections} is not positive
+   * @since 1.32.0
+   */
+  @ExperimentalApi("https://github.com/grpc/grpc-java/issues/1771")
+  public T maxConnectionsPerSubchannel(int maxConnections) {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Makes the channel connect as soon as it is built, instead of on its first call, and keeps
+   * {@code connectionsPerSubchannel} connections open on every subchannel once it is READY,
+   * including the subchannels created for addresses found by later name resolutions. Raises {@link
+   * #maxConnectionsPerSubchannel} to {@code connectionsPerSubchannel} if it is lower.
+   *
+   * <p>A warmed-up channel does not enter idle mode on its own, as that would close the
+   * connections it keeps open. Use {@link ManagedChannel#getWarmUpFuture} to learn when the
+   * channel has finished warming up.
+   *
+   * @return this
+   * @throws IllegalArgumentException if {@code connectionsPerSubchannel} is not positive
+   * @since 1.32.0
+   */
+  @ExperimentalApi("https://github.com/grpc/grpc-java/issues/1771")
+  public T warmUp(int connectionsPerSubchannel) {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Sets a unary call the channel sends once it first becomes READY, so that the server and the
+   * channel have done the work of a first call before the application's calls arrive. The call
+   * waits for ready and its response is discarded. Enables {@link #warmUp} with one connection per
+   * subchannel if it was not enabled already.
+   *
+   * @return this
+   * @since 1.32.0
+   */
+  @ExperimentalApi("https://github.com/grpc/grpc-java/issues/1771")
+  public <ReqT> T warmUpCall(MethodDescriptor<ReqT, ?> method, ReqT request) {
+    throw new UnsupportedOperationException();
+  }
+
   /**
    * Sets the proxy detector to be used in addresses name resolution. If <code>null</code> is passed
    * the default proxy detector will be used.  For how proxies work in gRPC, please refer to the
@@ -130,7 +130,8 @@ public final class Metadata {
 
   /**
    * Constructor called by the transport layer when it receives partially-parsed metadata.
-   * Metadata will mutate the passed in array.
+   * Metadata takes ownership of the passed in array: it is kept as the backing store and mutated,
+   * with well-known names replaced by their canonical arrays, so callers must not touch it again.
    *
    * @param usedNames the number of names
    * @param namesAndValues an array of interleaved names and values, with each name
@@ -142,11 +143,23 @@ public final class Metadata {
         : "Odd number of key-value pairs " + namesAndValues.length;
     size = usedNames;
     this.namesAndValues = namesAndValues;
+    for (int i = 0; i < usedNames; i++) {
+      int index = WellKnownMetadataNames.indexOf(name(i));
+      if (index != -1) {
+        // Share the canonical name so later comparisons with keys are identity checks.
+        name(i, WellKnownMetadataNames.nameBytes(index));
+        wellKnownNames |= 1 << index;
+      }
+    }
   }
 
   private Object[] namesAndValues;
   // The unscaled number of headers present.
   private int size;
+  // Bit mask of the well-known names that may be present, indexed as in WellKnownMetadataNames.
+  // A clear bit means the name is absent, letting lookups of missing well-known keys skip the
+  // linear search.
+  private int wellKnownNames;
 
   private byte[] name(int i) {
     return (byte[]) namesAndValues[i * 2];
@@ -221,6 +234,19 @@ public final class Metadata {
     return size;
   }
 
+  /**
+   * Returns {@code true} if {@code key} is well-known and has no values.
+   */
+  private boolean wellKnownAbsent(Key<?> key) {
+    int bit = key.wellKnownBit();
+    return bit != 0 && (wellKnownNames & bit) == 0;
+  }
+
+  private static int wellKnownBit(byte[] name) {
+    int index = WellKnownMetadataNames.indexOf(name);
+    return index != -1 ? 1 << index : 0;
+  }
+
   /**
    * Returns true if a value is defined for the given key.
    *
@@ -228,6 +254,9 @@ public final class Metadata {
    * prefer calling them directly and checking the return value against {@code null}.
    */
   public boolean containsKey(Key<?> key) {
+    if (wellKnownAbsent(key)) {
+      return false;
+    }
     for (int i = 0; i < size; i++) {
       if (bytesEqual(key.asciiName(), name(i))) {
         return true;
@@ -243,6 +272,9 @@ public final class Metadata {
    */
   @Nullable
   public <T> T get(Key<T> key) {
+    if (wellKnownAbsent(key)) {
+      return null;
+    }
     for (int i = size - 1; i >= 0; i--) {
       if (bytesEqual(key.asciiName(), name(i))) {
         return valueAsT(i, key);
@@ -304,6 +336,9 @@ public final class Metadata {
    */
   @Nullable
   public <T> Iterable<T> getAll(final Key<T> key) {
+    if (wellKnownAbsent(key)) {
+      return null;
+    }
     for (int i = 0; i < size; i++) {
       if (bytesEqual(key.asciiName(), name(i))) {
         return new IterableAt<>(key, i);
@@ -347,6 +382,7 @@ public final class Metadata {
       value(size, key.toBytes(value));
     }
     size++;
+    wellKnownNames |= key.wellKnownBit();
   }
 
   private void maybeExpand() {
@@ -390,6 +426,16 @@ public final class Metadata {
       size -= 1;
       name(size, null);
       value(size, (byte[]) null);
+      if (key.wellKnownBit() != 0) {
+        // Other values for the key may remain.
+        wellKnownNames &= ~key.wellKnownBit();
+        for (int j = 0; j < size; j++) {
+          if (bytesEqual(key.asciiName(), name(j))) {
+            wellKnownNames |= key.wellKnownBit();
+            break;
+          }
+        }
+      }
       return true;
     }
     return false;
@@ -417,6 +463,7 @@ public final class Metadata {
     // Multiply by two since namesAndValues is interleaved.
     Arrays.fill(namesAndValues, writeIdx * 2, len(), null);
     size = newSize;
+    wellKnownNames &= ~key.wellKnownBit();
     return ret;
   }
 
@@ -443,6 +490,7 @@ public final class Metadata {
     // Multiply by two since namesAndValues is interleaved.
     Arrays.fill(namesAndValues, writeIdx * 2, len(), null);
     size = newSize;
+    wellKnownNames &= ~key.wellKnownBit();
   }
 
   /**
@@ -511,6 +559,7 @@ public final class Metadata {
     }
     System.arraycopy(other.namesAndValues, 0, namesAndValues, len(), other.len());
     size += other.size;
+    wellKnownNames |= other.wellKnownNames;
   }
 
   /**
@@ -534,6 +583,7 @@ public final class Metadata {
         name(size, other.name(i));
         value(size, other.value(i));
         size++;
+        wellKnownNames |= wellKnownBit(other.name(i));
       }
     }
   }
@@ -713,6 +763,8 @@ public final class Metadata {
 
     private final String name;
     private final byte[] nameBytes;
+    // 1 << the index in WellKnownMetadataNames, or 0 if the name isn't well-known
+    private final int wellKnownBit;
     private final Object marshaller;
 
     private static BitSet generateValidTChars() {
@@ -748,7 +800,14 @@ public final class Metadata {
     private Key(String name, boolean pseudo, Object marshaller) {
       this.originalName = checkNotNull(name, "name");
       this.name = validateName(this.originalName.toLowerCase(Locale.ROOT), pseudo);
-      this.nameBytes = this.name.getBytes(US_ASCII);
+      int wellKnownIndex = WellKnownMetadataNames.indexOf(this.name);
+      if (wellKnownIndex != -1) {
+        this.nameBytes = WellKnownMetadataNames.nameBytes(wellKnownIndex);
+        this.wellKnownBit = 1 << wellKnownIndex;
+      } else {
+        this.nameBytes = this.name.getBytes(US_ASCII);
+        this.wellKnownBit = 0;
+      }
       this.marshaller = marshaller;
     }
 
@@ -779,6 +838,10 @@ public final class Metadata {
       return nameBytes;
     }
 
+    final int wellKnownBit() {
+      return wellKnownBit;
+    }
+
     /**
      * Returns true if the two objects are both Keys, and their names match (case insensitive).
      */
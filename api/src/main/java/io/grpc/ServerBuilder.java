@@ -71,6 +71,23 @@ public abstract class ServerBuilder<T extends ServerBuilder<T>> {
    */
   public abstract T executor(@Nullable Executor executor);
 
+  /**
+   * Runs application code on virtual threads, starting one whenever a call has callbacks to run,
+   * so that service implementations may block without exhausting a thread pool. Virtual threads
+   * are available starting with Java 21; on older JVMs this falls back to the default executor.
+   *
+   * <p>Calling this method replaces any executor set with {@link #executor(Executor)} or {@link
+   * #directExecutor()}, and vice versa.
+   *
+   * @return this
+   * @throws UnsupportedOperationException if unsupported
+   * @since 1.32.0
+   */
+  @ExperimentalApi("https://github.com/grpc/grpc-java/issues/6279")
+  public T virtualThreadExecutor() {
+    throw new UnsupportedOperationException();
+  }
+
   /**
    * Adds a service implementation to the handler registry.
    *
@@ -189,6 +206,20 @@ public abstract class ServerBuilder<T extends ServerBuilder<T>> {
   @ExperimentalApi("https://github.com/grpc/grpc-java/issues/1704")
   public abstract T compressorRegistry(@Nullable CompressorRegistry registry);
 
+  /**
+   * Sets the policy deciding, message by message, whether to compress the responses of calls
+   * that have compression enabled. By default, every such message is compressed.
+   *
+   * @param policy the policy, or {@code null} to compress every message
+   * @return this
+   * @throws UnsupportedOperationException if unsupported
+   * @since 1.32.0
+   */
+  @ExperimentalApi("https://github.com/grpc/grpc-java/issues/1704")
+  public T compressionPolicy(@Nullable CompressionPolicy policy) {
+    throw new UnsupportedOperationException();
+  }
+
   /**
    * Sets the permitted time for new connections to complete negotiation handshakes before being
    * killed.
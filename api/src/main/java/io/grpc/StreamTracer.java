@@ -65,6 +65,17 @@ public abstract class StreamTracer {
   public void outboundMessageSent(int seqNo, long optionalWireSize, long optionalUncompressedSize) {
   }
 
+  /**
+   * The {@link CompressionPolicy} of the stream chose not to compress an outbound message, although
+   * the stream has a compressor and message compression is enabled. This is called before {@link
+   * #outboundMessageSent} for the same message, whose wire size then equals its uncompressed size.
+   *
+   * @param seqNo the sequential number of the message within the stream, starting from 0.  It can
+   *              be used to correlate with {@link #outboundMessage(int)} for the same message.
+   */
+  public void outboundMessageCompressionSkipped(int seqNo) {
+  }
+
   /**
    * An inbound message has been fully read from the transport.
    *
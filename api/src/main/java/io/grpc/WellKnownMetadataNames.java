@@ -0,0 +1,133 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc;
+
+import static com.google.common.base.Charsets.US_ASCII;
+
+import java.util.Arrays;
+
+/**
+ * Header names that gRPC itself sends or reads on most calls. Each has one canonical ASCII
+ * encoding shared by every {@link Metadata.Key} and {@link Metadata} using the name, so that
+ * comparing names is usually an identity check, and an index that lets {@link Metadata} track
+ * which of them it holds in a bit mask.
+ */
+final class WellKnownMetadataNames {
+  private static final String[] NAMES = {
+      "content-type",
+      "user-agent",
+      "te",
+      "authorization",
+      "grpc-timeout",
+      "grpc-encoding",
+      "grpc-accept-encoding",
+      "content-encoding",
+      "accept-encoding",
+      "grpc-status",
+      "grpc-message",
+      "grpc-status-details-bin",
+      "grpc-trace-bin",
+      "grpc-tags-bin",
+      "grpc-previous-rpc-attempts",
+      "grpc-retry-pushback-ms",
+  };
+
+  private static final byte[][] NAME_BYTES = new byte[NAMES.length][];
+  // Indexes of the names of each length, to avoid comparing against every name.
+  private static final int[][] INDEXES_BY_LENGTH;
+
+  static {
+    // Metadata tracks the names in an int.
+    assert NAMES.length <= Integer.SIZE;
+    int maxLength = 0;
+    for (int i = 0; i < NAMES.length; i++) {
+      NAME_BYTES[i] = NAMES[i].getBytes(US_ASCII);
+      maxLength = Math.max(maxLength, NAME_BYTES[i].length);
+    }
+    INDEXES_BY_LENGTH = new int[maxLength + 1][];
+    Arrays.fill(INDEXES_BY_LENGTH, new int[0]);
+    for (int i = 0; i < NAMES.length; i++) {
+      int[] existing = INDEXES_BY_LENGTH[NAME_BYTES[i].length];
+      int[] indexes = Arrays.copyOf(existing, existing.length + 1);
+      indexes[existing.length] = i;
+      INDEXES_BY_LENGTH[NAME_BYTES[i].length] = indexes;
+    }
+  }
+
+  private WellKnownMetadataNames() {}
+
+  static int count() {
+    return NAMES.length;
+  }
+
+  /**
+   * Returns the index of the well-known {@code name}, or -1 if it isn't one.
+   */
+  static int indexOf(byte[] name) {
+    return indexOf(name, 0, name.length);
+  }
+
+  /**
+   * Returns the index of the well-known name held in {@code bytes[offset, offset + length)}, or -1
+   * if it isn't one.
+   */
+  static int indexOf(byte[] bytes, int offset, int length) {
+    if (length >= INDEXES_BY_LENGTH.length) {
+      return -1;
+    }
+    for (int index : INDEXES_BY_LENGTH[length]) {
+      if (regionEquals(NAME_BYTES[index], bytes, offset)) {
+        return index;
+      }
+    }
+    return -1;
+  }
+
+  private static boolean regionEquals(byte[] name, byte[] bytes, int offset) {
+    if (name == bytes && offset == 0) {
+      return true;
+    }
+    for (int i = 0; i < name.length; i++) {
+      if (name[i] != bytes[offset + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the index of the well-known normalized {@code name}, or -1 if it isn't one.
+   */
+  static int indexOf(String name) {
+    if (name.length() >= INDEXES_BY_LENGTH.length) {
+      return -1;
+    }
+    for (int index : INDEXES_BY_LENGTH[name.length()]) {
+      if (NAMES[index].equals(name)) {
+        return index;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the canonical encoding of a name. The returned array <em>must not</em> be modified.
+   */
+  static byte[] nameBytes(int index) {
+    return NAME_BYTES[index];
+  }
+}
@@ -41,7 +41,7 @@ public class LoadBalancerRegistryTest {
   @Test
   public void stockProviders() {
     LoadBalancerRegistry defaultRegistry = LoadBalancerRegistry.getDefaultRegistry();
-    assertThat(defaultRegistry.providers()).hasSize(3);
+    assertThat(defaultRegistry.providers()).hasSize(8);
 
     LoadBalancerProvider pickFirst = defaultRegistry.getProvider("pick_first");
     assertThat(pickFirst).isInstanceOf(PickFirstLoadBalancerProvider.class);
@@ -52,6 +52,31 @@ public class LoadBalancerRegistryTest {
         "io.grpc.util.SecretRoundRobinLoadBalancerProvider$Provider");
     assertThat(roundRobin.getPriority()).isEqualTo(5);
 
+    LoadBalancerProvider leastRequest = defaultRegistry.getProvider("least_request");
+    assertThat(leastRequest.getClass().getName()).isEqualTo(
+        "io.grpc.util.SecretLeastRequestLoadBalancerProvider$Provider");
+    assertThat(leastRequest.getPriority()).isEqualTo(5);
+
+    LoadBalancerProvider peakEwma = defaultRegistry.getProvider("peak_ewma");
+    assertThat(peakEwma.getClass().getName()).isEqualTo(
+        "io.grpc.util.SecretPeakEwmaLoadBalancerProvider$Provider");
+    assertThat(peakEwma.getPriority()).isEqualTo(5);
+
+    LoadBalancerProvider ringHash = defaultRegistry.getProvider("ring_hash");
+    assertThat(ringHash.getClass().getName()).isEqualTo(
+        "io.grpc.util.SecretRingHashLoadBalancerProvider$Provider");
+    assertThat(ringHash.getPriority()).isEqualTo(5);
+
+    LoadBalancerProvider maglev = defaultRegistry.getProvider("maglev");
+    assertThat(maglev.getClass().getName()).isEqualTo(
+        "io.grpc.util.SecretMaglevLoadBalancerProvider$Provider");
+    assertThat(maglev.getPriority()).isEqualTo(5);
+
+    LoadBalancerProvider outlierDetection = defaultRegistry.getProvider("outlier_detection");
+    assertThat(outlierDetection.getClass().getName()).isEqualTo(
+        "io.grpc.util.SecretOutlierDetectionLoadBalancerProvider$Provider");
+    assertThat(outlierDetection.getPriority()).isEqualTo(5);
+
     LoadBalancerProvider grpclb = defaultRegistry.getProvider("grpclb");
     assertThat(grpclb).isInstanceOf(GrpclbLoadBalancerProvider.class);
     assertThat(grpclb.getPriority()).isEqualTo(5);
@@ -36,6 +36,7 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.Locale;
 import org.junit.Rule;
@@ -479,6 +480,46 @@ public class MetadataTest {
     assertSame(anotherSalmon, h2.get(KEY_IMMUTABLE));
   }
 
+  @Test
+  public void wellKnownKeysShareName() {
+    Key<String> encoding = Key.of("grpc-encoding", Metadata.ASCII_STRING_MARSHALLER);
+    Key<String> upperCase = Key.of("Grpc-Encoding", Metadata.ASCII_STRING_MARSHALLER);
+    assertSame(encoding.asciiName(), upperCase.asciiName());
+
+    Metadata h = new Metadata("grpc-encoding".getBytes(US_ASCII), "gzip".getBytes(US_ASCII));
+    assertSame(encoding.asciiName(), h.serialize()[0]);
+    assertEquals("gzip", h.get(encoding));
+  }
+
+  @Test
+  public void wellKnownKeyPresenceTracksMutations() {
+    Key<String> encoding = Key.of("grpc-encoding", Metadata.ASCII_STRING_MARSHALLER);
+    Metadata h = new Metadata();
+    assertFalse(h.containsKey(encoding));
+
+    h.put(encoding, "gzip");
+    h.put(encoding, "snappy");
+    assertTrue(h.containsKey(encoding));
+    assertTrue(h.remove(encoding, "gzip"));
+    assertEquals("snappy", h.get(encoding));
+    assertTrue(h.remove(encoding, "snappy"));
+    assertNull(h.get(encoding));
+    assertNull(h.getAll(encoding));
+
+    h.put(encoding, "gzip");
+    h.discardAll(encoding);
+    assertFalse(h.containsKey(encoding));
+
+    Metadata other = new Metadata();
+    other.put(encoding, "gzip");
+    h.merge(other);
+    assertEquals("gzip", h.get(encoding));
+    h.removeAll(encoding);
+    assertFalse(h.containsKey(encoding));
+    h.merge(other, Collections.<Key<?>>singleton(encoding));
+    assertEquals("gzip", h.get(encoding));
+  }
+
   private static final class Fish {
     private String name;
 
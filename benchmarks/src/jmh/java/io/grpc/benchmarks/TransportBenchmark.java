@@ -64,7 +64,7 @@ import org.openjdk.jmh.annotations.Threads;
 @State(Scope.Benchmark)
 public class TransportBenchmark {
   public enum Transport {
-    INPROCESS, NETTY, NETTY_LOCAL, NETTY_EPOLL, OKHTTP
+    INPROCESS, NETTY, NETTY_LOCAL, NETTY_EPOLL, NETTY_IO_URING, OKHTTP
   }
 
   @Param({"INPROCESS", "NETTY", "OKHTTP"})
@@ -139,6 +139,33 @@ public class TransportBenchmark {
         groupToShutdown = group;
         break;
       }
+      case NETTY_IO_URING:
+      {
+        InetSocketAddress address = new InetSocketAddress("localhost", pickUnusedPort());
+
+        // Reflection used since they are only available on linux, with the io_uring transport
+        // added to the classpath.
+        Class<?> groupClass =
+            Class.forName("io.netty.incubator.channel.uring.IOUringEventLoopGroup");
+        EventLoopGroup group = (EventLoopGroup) groupClass.getConstructor().newInstance();
+
+        Class<? extends ServerChannel> serverChannelClass =
+            Class.forName("io.netty.incubator.channel.uring.IOUringServerSocketChannel")
+              .asSubclass(ServerChannel.class);
+        serverBuilder = NettyServerBuilder.forAddress(address)
+            .bossEventLoopGroup(group)
+            .workerEventLoopGroup(group)
+            .channelType(serverChannelClass);
+        Class<? extends Channel> channelClass =
+            Class.forName("io.netty.incubator.channel.uring.IOUringSocketChannel")
+              .asSubclass(Channel.class);
+        channelBuilder = NettyChannelBuilder.forAddress(address)
+            .eventLoopGroup(group)
+            .channelType(channelClass)
+            .negotiationType(NegotiationType.PLAINTEXT);
+        groupToShutdown = group;
+        break;
+      }
       case OKHTTP:
       {
         int port = pickUnusedPort();
@@ -59,6 +59,8 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.annotation.Nullable;
+import org.HdrHistogram.Histogram;
 
 /**
  * Abstract base class for Netty end-to-end benchmarks.
@@ -374,6 +376,8 @@ public abstract class AbstractBenchmark {
                 })
             .build());
 
+    configureBuilders(serverBuilder, channelBuilder);
+
     // Build and start the clients and servers
     server = serverBuilder.build();
     server.start();
@@ -387,6 +391,14 @@ public abstract class AbstractBenchmark {
     }
   }
 
+  /**
+   * Hook for subclasses to apply extra transport configuration before the server and channels are
+   * built.
+   */
+  protected void configureBuilders(
+      NettyServerBuilder serverBuilder, NettyChannelBuilder channelBuilder) {
+  }
+
   /**
    * Start a continuously executing set of unary calls that will terminate when
    * {@code done.get()} is true. Each completed call will increment the counter by the specified
@@ -396,11 +408,29 @@ public abstract class AbstractBenchmark {
                                  final AtomicLong counter,
                                  final AtomicBoolean done,
                                  final long counterDelta) {
+    startUnaryCalls(callsPerChannel, counter, done, counterDelta, null);
+  }
+
+  /**
+   * Like {@link #startUnaryCalls(int, AtomicLong, AtomicBoolean, long)}, additionally recording
+   * the latency of each call in nanoseconds into {@code latencies} if it is non-{@code null}.
+   */
+  protected void startUnaryCalls(int callsPerChannel,
+                                 final AtomicLong counter,
+                                 final AtomicBoolean done,
+                                 final long counterDelta,
+                                 @Nullable final Histogram latencies) {
     for (final ManagedChannel channel : channels) {
       for (int i = 0; i < callsPerChannel; i++) {
         StreamObserver<ByteBuf> observer = new StreamObserver<ByteBuf>() {
+          long startNanos;
+
           @Override
           public void onNext(ByteBuf value) {
+            if (latencies != null) {
+              latencies.recordValue(
+                  Math.min(System.nanoTime() - startNanos, latencies.getHighestTrackableValue()));
+            }
             counter.addAndGet(counterDelta);
           }
 
@@ -413,6 +443,7 @@ public abstract class AbstractBenchmark {
           public void onCompleted() {
             if (!done.get()) {
               ByteBuf slice = request.slice();
+              startNanos = System.nanoTime();
               ClientCalls.asyncUnaryCall(
                   channel.newCall(unaryMethod, CALL_OPTIONS), slice, this);
             }
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.benchmarks.netty;
+
+import static io.grpc.benchmarks.Utils.HISTOGRAM_MAX_VALUE;
+import static io.grpc.benchmarks.Utils.HISTOGRAM_PRECISION;
+
+import io.grpc.ConnectivityState;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.netty.NegotiationType;
+import io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.NettyServerBuilder;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.HdrHistogram.AtomicHistogram;
+import org.HdrHistogram.Histogram;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmark of a server accepting a storm of new connections, as after clients reconnect
+ * following a deploy. Each invocation connects {@link #STORM_SIZE} channels at once and waits for
+ * all of them to finish the HTTP/2 handshake. The score is accepted connections per second.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ConnectionStormBenchmark {
+
+  private static final int STORM_SIZE = 500;
+
+  /**
+   * Number of {@code SO_REUSEPORT} listen sockets. Values above 1 need the epoll transport.
+   */
+  @Param({"1", "4"})
+  public int acceptors;
+
+  private static Histogram handshakeLatencies;
+
+  private Server server;
+  private EventLoopGroup clientGroup;
+  private InetSocketAddress serverAddress;
+
+  /**
+   * Reports the handshake latency of the connections made during an iteration.
+   */
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class HandshakeLatency {
+
+    @Setup(Level.Iteration)
+    public void clean() {
+      handshakeLatencies.reset();
+    }
+
+    public double p50HandshakeMicros() {
+      return handshakeLatencies.getValueAtPercentile(50) / 1000.0;
+    }
+
+    public double p99HandshakeMicros() {
+      return handshakeLatencies.getValueAtPercentile(99) / 1000.0;
+    }
+  }
+
+  /**
+   * Starts the server, and the event loops shared by the clients.
+   */
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    handshakeLatencies = new AtomicHistogram(HISTOGRAM_MAX_VALUE, HISTOGRAM_PRECISION);
+    server = NettyServerBuilder.forAddress(new InetSocketAddress("127.0.0.1", 0))
+        .reusePortAcceptors(acceptors)
+        .build()
+        .start();
+    serverAddress = new InetSocketAddress("127.0.0.1", server.getPort());
+    clientGroup = new NioEventLoopGroup(0, new DefaultThreadFactory("storm-client", true));
+  }
+
+  /**
+   * Stops the server and the client event loops.
+   */
+  @TearDown(Level.Trial)
+  public void teardown() throws Exception {
+    server.shutdownNow();
+    server.awaitTermination(5, TimeUnit.SECONDS);
+    clientGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).await();
+  }
+
+  /**
+   * Connects {@link #STORM_SIZE} channels at once and waits until all of them are ready.
+   */
+  @Benchmark
+  @OperationsPerInvocation(STORM_SIZE)
+  public void connectionStorm(HandshakeLatency latency) throws Exception {
+    ManagedChannel[] channels = new ManagedChannel[STORM_SIZE];
+    CountDownLatch ready = new CountDownLatch(STORM_SIZE);
+    for (int i = 0; i < STORM_SIZE; i++) {
+      channels[i] = NettyChannelBuilder.forAddress(serverAddress)
+          .eventLoopGroup(clientGroup)
+          .channelType(NioSocketChannel.class)
+          .negotiationType(NegotiationType.PLAINTEXT)
+          .directExecutor()
+          .build();
+    }
+    long startNanos = System.nanoTime();
+    for (ManagedChannel channel : channels) {
+      awaitReady(channel, startNanos, ready);
+    }
+    try {
+      if (!ready.await(30, TimeUnit.SECONDS)) {
+        throw new IllegalStateException("Connections did not become ready");
+      }
+    } finally {
+      for (ManagedChannel channel : channels) {
+        channel.shutdownNow();
+      }
+      for (ManagedChannel channel : channels) {
+        channel.awaitTermination(5, TimeUnit.SECONDS);
+      }
+    }
+  }
+
+  private static void awaitReady(
+      final ManagedChannel channel, final long startNanos, final CountDownLatch ready) {
+    ConnectivityState state = channel.getState(true);
+    if (state == ConnectivityState.READY) {
+      handshakeLatencies.recordValue(
+          Math.min(System.nanoTime() - startNanos, handshakeLatencies.getHighestTrackableValue()));
+      ready.countDown();
+      return;
+    }
+    channel.notifyWhenStateChanged(state, new Runnable() {
+      @Override
+      public void run() {
+        awaitReady(channel, startNanos, ready);
+      }
+    });
+  }
+}
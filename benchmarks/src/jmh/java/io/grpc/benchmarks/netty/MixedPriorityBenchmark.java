@@ -0,0 +1,169 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.benchmarks.netty;
+
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.benchmarks.Utils;
+import io.grpc.benchmarks.proto.BenchmarkServiceGrpc;
+import io.grpc.benchmarks.proto.Messages;
+import io.grpc.benchmarks.qps.AsyncServer;
+import io.grpc.netty.CallPriority;
+import io.grpc.netty.NegotiationType;
+import io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmark of small unary calls sharing a connection with bulk server-streaming calls. The score
+ * is the latency distribution of the unary calls, which are either sent with the same priority as
+ * the bulk calls or with {@link CallPriority#HIGH} while the bulk calls use {@link
+ * CallPriority#LOW}.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MixedPriorityBenchmark {
+
+  private static final int BULK_MESSAGE_BYTES = 1024 * 1024;
+
+  /**
+   * Whether unary calls are prioritized over the bulk calls.
+   */
+  @Param({"false", "true"})
+  public boolean prioritized;
+
+  /**
+   * Number of bulk server-streaming calls running during the benchmark.
+   */
+  @Param({"1", "4"})
+  public int bulkStreams;
+
+  private EventLoopGroup eventLoopGroup;
+  private AsyncServer.BenchmarkServiceImpl serviceImpl;
+  private Server server;
+  private ManagedChannel channel;
+  private BenchmarkServiceGrpc.BenchmarkServiceBlockingStub unaryStub;
+  private Messages.SimpleRequest unaryRequest;
+  private final List<ClientCallStreamObserver<?>> bulkCalls =
+      new ArrayList<ClientCallStreamObserver<?>>();
+
+  /**
+   * Starts the server and the bulk calls that compete with the measured unary calls.
+   */
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    eventLoopGroup = new NioEventLoopGroup(0, new DefaultThreadFactory("mixed-priority", true));
+    serviceImpl = new AsyncServer.BenchmarkServiceImpl();
+    server = NettyServerBuilder.forAddress(new InetSocketAddress("127.0.0.1", 0))
+        .bossEventLoopGroup(eventLoopGroup)
+        .workerEventLoopGroup(eventLoopGroup)
+        .channelType(NioServerSocketChannel.class)
+        .addService(serviceImpl)
+        .build()
+        .start();
+    channel = NettyChannelBuilder.forAddress("127.0.0.1", server.getPort())
+        .eventLoopGroup(eventLoopGroup)
+        .channelType(NioSocketChannel.class)
+        .negotiationType(NegotiationType.PLAINTEXT)
+        .build();
+
+    CallPriority unaryPriority = prioritized ? CallPriority.HIGH : CallPriority.NORMAL;
+    CallPriority bulkPriority = prioritized ? CallPriority.LOW : CallPriority.NORMAL;
+    unaryStub = BenchmarkServiceGrpc.newBlockingStub(channel)
+        .withOption(CallPriority.CALL_OPTION, unaryPriority);
+    unaryRequest = Utils.makeRequest(Messages.PayloadType.COMPRESSABLE, 10, 10);
+
+    BenchmarkServiceGrpc.BenchmarkServiceStub bulkStub = BenchmarkServiceGrpc.newStub(channel)
+        .withOption(CallPriority.CALL_OPTION, bulkPriority);
+    Messages.SimpleRequest bulkRequest =
+        Utils.makeRequest(Messages.PayloadType.COMPRESSABLE, 10, BULK_MESSAGE_BYTES);
+    for (int i = 0; i < bulkStreams; i++) {
+      bulkStub.streamingFromServer(bulkRequest, new BulkResponseObserver());
+    }
+    // Let the bulk calls fill the connection before measuring.
+    unaryStub.unaryCall(unaryRequest);
+  }
+
+  /**
+   * Cancels the bulk calls and stops the channel and server.
+   */
+  @TearDown(Level.Trial)
+  public void teardown() throws Exception {
+    synchronized (bulkCalls) {
+      for (ClientCallStreamObserver<?> call : bulkCalls) {
+        call.cancel("benchmark finished", null);
+      }
+    }
+    serviceImpl.shutdown();
+    channel.shutdownNow();
+    server.shutdownNow();
+    channel.awaitTermination(5, TimeUnit.SECONDS);
+    server.awaitTermination(5, TimeUnit.SECONDS);
+    eventLoopGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).await();
+  }
+
+  /**
+   * Makes one small unary call while the bulk calls are streaming.
+   */
+  @Benchmark
+  public Messages.SimpleResponse unaryCall() {
+    return unaryStub.unaryCall(unaryRequest);
+  }
+
+  private final class BulkResponseObserver
+      implements ClientResponseObserver<Messages.SimpleRequest, Messages.SimpleResponse> {
+
+    @Override
+    public void beforeStart(ClientCallStreamObserver<Messages.SimpleRequest> requestStream) {
+      synchronized (bulkCalls) {
+        bulkCalls.add(requestStream);
+      }
+    }
+
+    @Override
+    public void onNext(Messages.SimpleResponse value) {}
+
+    @Override
+    public void onError(Throwable t) {}
+
+    @Override
+    public void onCompleted() {}
+  }
+}
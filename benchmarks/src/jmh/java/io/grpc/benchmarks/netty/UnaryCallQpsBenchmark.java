@@ -16,8 +16,22 @@
 
 package io.grpc.benchmarks.netty;
 
+import static io.grpc.benchmarks.Utils.HISTOGRAM_MAX_VALUE;
+import static io.grpc.benchmarks.Utils.HISTOGRAM_PRECISION;
+
+import io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.NettyServerBuilder;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import org.HdrHistogram.AtomicHistogram;
+import org.HdrHistogram.Histogram;
 import org.openjdk.jmh.annotations.AuxCounters;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Fork;
@@ -41,7 +55,17 @@ public class UnaryCallQpsBenchmark extends AbstractBenchmark {
   @Param({"10", "100", "1000"})
   public int maxConcurrentStreams = 100;
 
+  /**
+   * Longest time in microseconds that the transports may hold back a flush to coalesce writes, or
+   * 0 to flush after every batch of writes.
+   */
+  @Param({"0", "50"})
+  public int flushCoalescingMicros;
+
+  private static final File PROC_SELF_IO = new File("/proc/self/io");
+
   private static AtomicLong callCounter;
+  private static Histogram latencies;
   private AtomicBoolean completed;
 
   /**
@@ -62,6 +86,42 @@ public class UnaryCallQpsBenchmark extends AbstractBenchmark {
     }
   }
 
+  /**
+   * Per-call costs over an iteration. Reported as events, so they are not normalized by time.
+   */
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class CallCosts {
+    private long startWriteSyscalls;
+
+    @Setup(Level.Iteration)
+    public void clean() {
+      latencies.reset();
+      startWriteSyscalls = writeSyscalls();
+    }
+
+    /**
+     * Write syscalls made by the whole process per completed call, counting both client and
+     * server. Only available on Linux, otherwise always 0.
+     */
+    public double writeSyscallsPerCall() {
+      long calls = callCounter.get();
+      long endWriteSyscalls = writeSyscalls();
+      if (calls == 0 || startWriteSyscalls < 0 || endWriteSyscalls < 0) {
+        return 0;
+      }
+      return (double) (endWriteSyscalls - startWriteSyscalls) / calls;
+    }
+
+    public double p50LatencyMicros() {
+      return latencies.getValueAtPercentile(50) / 1000.0;
+    }
+
+    public double p99LatencyMicros() {
+      return latencies.getValueAtPercentile(99) / 1000.0;
+    }
+  }
+
   /**
    * Setup with direct executors, small payloads and a large flow control window.
    */
@@ -76,8 +136,46 @@ public class UnaryCallQpsBenchmark extends AbstractBenchmark {
         maxConcurrentStreams,
         channelCount);
     callCounter = new AtomicLong();
+    latencies = new AtomicHistogram(HISTOGRAM_MAX_VALUE, HISTOGRAM_PRECISION);
     completed = new AtomicBoolean();
-    startUnaryCalls(maxConcurrentStreams, callCounter, completed, 1);
+    startUnaryCalls(maxConcurrentStreams, callCounter, completed, 1, latencies);
+  }
+
+  @Override
+  protected void configureBuilders(
+      NettyServerBuilder serverBuilder, NettyChannelBuilder channelBuilder) {
+    if (flushCoalescingMicros > 0) {
+      // Let a full window of small responses share a flush.
+      int thresholdBytes = 64 * 1024;
+      serverBuilder.flushCoalescing(flushCoalescingMicros, TimeUnit.MICROSECONDS, thresholdBytes);
+      channelBuilder.flushCoalescing(flushCoalescingMicros, TimeUnit.MICROSECONDS, thresholdBytes);
+    }
+  }
+
+  /**
+   * Returns the number of write syscalls made by this process, or -1 if that is unknown.
+   */
+  private static long writeSyscalls() {
+    if (!PROC_SELF_IO.canRead()) {
+      return -1;
+    }
+    try {
+      BufferedReader reader = new BufferedReader(
+          new InputStreamReader(new FileInputStream(PROC_SELF_IO), StandardCharsets.US_ASCII));
+      try {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          if (line.startsWith("syscw:")) {
+            return Long.parseLong(line.substring("syscw:".length()).trim());
+          }
+        }
+      } finally {
+        reader.close();
+      }
+    } catch (IOException | NumberFormatException e) {
+      // Fall through
+    }
+    return -1;
   }
 
   /**
@@ -96,7 +194,7 @@ public class UnaryCallQpsBenchmark extends AbstractBenchmark {
    * of received responses.
    */
   @Benchmark
-  public void unary(AdditionalCounters counters) throws Exception {
+  public void unary(AdditionalCounters counters, CallCosts costs) throws Exception {
     // No need to do anything, just sleep here.
     Thread.sleep(1001);
   }
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.benchmarks;
+
+import io.grpc.binarylog.v1.GrpcLogEntry;
+import io.grpc.binarylog.v1.GrpcLogEntry.EventType;
+import io.grpc.compression.CompressionDictionary;
+import io.grpc.compression.DeflateDictionaryCodec;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Trains a {@link CompressionDictionary} from the messages recorded in binary log files, as
+ * written by {@code BinaryLogs}. Every tenth message is held out of training and used to report
+ * how the dictionary compares to gzip on unseen traffic.
+ */
+public final class DictionaryTrainer {
+  // The DEFLATE window is 32 KiB, bytes further back in the dictionary are never referenced.
+  private static final int DEFAULT_MAX_SIZE = 32 * 1024;
+  private static final int HOLD_OUT_INTERVAL = 10;
+
+  private DictionaryTrainer() {}
+
+  /**
+   * Train a dictionary from the given binary logs.
+   */
+  public static void main(String[] args) throws Exception {
+    boolean usage = false;
+    List<String> binlogs = new ArrayList<>();
+    String output = null;
+    String method = null;
+    int maxSize = DEFAULT_MAX_SIZE;
+    boolean clientMessages = true;
+    boolean serverMessages = true;
+    for (String arg : args) {
+      if (!arg.startsWith("--")) {
+        System.err.println("All arguments must start with '--': " + arg);
+        usage = true;
+        break;
+      }
+      String[] parts = arg.substring(2).split("=", 2);
+      String key = parts[0];
+      if ("help".equals(key)) {
+        usage = true;
+        break;
+      }
+      if (parts.length != 2) {
+        System.err.println("All arguments must be of the form --arg=value");
+        usage = true;
+        break;
+      }
+      String value = parts[1];
+      if ("binlog".equals(key)) {
+        for (String file : value.split(",")) {
+          binlogs.add(file);
+        }
+      } else if ("output".equals(key)) {
+        output = value;
+      } else if ("method".equals(key)) {
+        method = value.startsWith("/") ? value : "/" + value;
+      } else if ("max_size".equals(key)) {
+        maxSize = Integer.parseInt(value);
+      } else if ("messages".equals(key)) {
+        if ("client".equals(value)) {
+          serverMessages = false;
+        } else if ("server".equals(value)) {
+          clientMessages = false;
+        } else if (!"both".equals(value)) {
+          System.err.println("Unknown message direction: " + value);
+          usage = true;
+          break;
+        }
+      } else {
+        System.err.println("Unknown argument: " + key);
+        usage = true;
+        break;
+      }
+    }
+    if (usage || binlogs.isEmpty() || output == null || maxSize <= 0) {
+      System.err.println(
+          "Usage: [ARGS...]"
+              + "\n"
+              + "\n  --binlog=<file>[,<file>...]"
+              + "\n    Binary log files to read messages from. Required."
+              + "\n  --output=<file>"
+              + "\n    File to write the trained dictionary to. Required."
+              + "\n  --method=<service/method>"
+              + "\n    Only train on messages of this method. Defaults to all methods."
+              + "\n  --messages=client|server|both"
+              + "\n    Which direction of messages to train on. Default: both"
+              + "\n  --max_size=<bytes>"
+              + "\n    Maximum size of the dictionary. Default: " + DEFAULT_MAX_SIZE);
+      System.exit(1);
+    }
+
+    List<byte[]> training = new ArrayList<>();
+    List<byte[]> heldOut = new ArrayList<>();
+    int skipped = 0;
+    for (String binlog : binlogs) {
+      skipped += readMessages(binlog, method, clientMessages, serverMessages, training, heldOut);
+    }
+    if (training.isEmpty()) {
+      System.err.println("No messages found in " + binlogs);
+      System.exit(1);
+    }
+
+    CompressionDictionary dictionary = CompressionDictionary.train(training, maxSize);
+    OutputStream out = new FileOutputStream(output);
+    try {
+      out.write(dictionary.toByteArray());
+    } finally {
+      out.close();
+    }
+
+    DeflateDictionaryCodec codec = new DeflateDictionaryCodec(dictionary);
+    long uncompressed = 0;
+    long gzipped = 0;
+    long dictionaryCompressed = 0;
+    for (byte[] message : heldOut) {
+      uncompressed += message.length;
+      ByteArrayOutputStream gzipOut = new ByteArrayOutputStream();
+      writeAndClose(new GZIPOutputStream(gzipOut), message);
+      gzipped += gzipOut.size();
+      ByteArrayOutputStream dictionaryOut = new ByteArrayOutputStream();
+      writeAndClose(codec.compress(dictionaryOut), message);
+      dictionaryCompressed += dictionaryOut.size();
+    }
+    System.out.println("Trained on " + training.size() + " messages ("
+        + skipped + " truncated messages skipped)");
+    System.out.println("Wrote " + dictionary.size() + " byte dictionary to " + output);
+    System.out.println("Message encoding: " + codec.getMessageEncoding());
+    if (!heldOut.isEmpty()) {
+      System.out.println("Held-out messages: " + heldOut.size());
+      System.out.println("  uncompressed bytes: " + uncompressed);
+      System.out.println("  gzip bytes:         " + gzipped);
+      System.out.println("  dictionary bytes:   " + dictionaryCompressed);
+    }
+  }
+
+  /**
+   * Reads the messages of {@code binlog} into {@code training} and {@code heldOut}, returning the
+   * number of messages skipped because the log only holds a truncated payload.
+   */
+  private static int readMessages(String binlog, String method, boolean clientMessages,
+      boolean serverMessages, List<byte[]> training, List<byte[]> heldOut) throws IOException {
+    // Message entries do not carry the method name, it is only in the call's client header.
+    Set<Long> matchingCalls = new HashSet<>();
+    int skipped = 0;
+    InputStream in = new BufferedInputStream(new FileInputStream(binlog));
+    try {
+      GrpcLogEntry entry;
+      while ((entry = GrpcLogEntry.parseDelimitedFrom(in)) != null) {
+        EventType type = entry.getType();
+        if (type == EventType.EVENT_TYPE_CLIENT_HEADER) {
+          if (method == null || method.equals(entry.getClientHeader().getMethodName())) {
+            matchingCalls.add(entry.getCallId());
+          }
+          continue;
+        }
+        boolean wanted = (type == EventType.EVENT_TYPE_CLIENT_MESSAGE && clientMessages)
+            || (type == EventType.EVENT_TYPE_SERVER_MESSAGE && serverMessages);
+        if (!wanted || !matchingCalls.contains(entry.getCallId())) {
+          continue;
+        }
+        if (entry.getPayloadTruncated()) {
+          skipped++;
+          continue;
+        }
+        byte[] data = entry.getMessage().getData().toByteArray();
+        if ((training.size() + heldOut.size() + 1) % HOLD_OUT_INTERVAL == 0) {
+          heldOut.add(data);
+        } else {
+          training.add(data);
+        }
+      }
+    } finally {
+      in.close();
+    }
+    return skipped;
+  }
+
+  private static void writeAndClose(OutputStream compressor, byte[] message) throws IOException {
+    try {
+      compressor.write(message);
+    } finally {
+      compressor.close();
+    }
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.compression;
+
+import com.google.protobuf.DescriptorProtos;
+import io.grpc.Codec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares the throughput and compression ratio of the codecs on protobuf payloads. The payloads
+ * are serialized descriptors, which mix field tags, varints and identifier strings much like
+ * typical RPC messages do.
+ *
+ * <p>The ratio is {@code compressedBytes / uncompressedBytes} of the {@code compress} benchmark.
+ */
+@State(Scope.Benchmark)
+public class CodecBenchmark {
+  @Param({"gzip", "lz4-block", "snappy", "zstd"})
+  public String encoding;
+
+  /**
+   * {@code small} is a single message descriptor, {@code medium} is a whole file descriptor, and
+   * {@code large} is the file descriptor repeated up to 1 MiB.
+   */
+  @Param({"small", "medium", "large"})
+  public String payload;
+
+  private Codec codec;
+  private byte[] message;
+  private byte[] compressed;
+  private final byte[] readBuffer = new byte[8192];
+
+  @Setup
+  public void setUp() throws IOException {
+    codec = new Codec.Gzip();
+    for (Codec candidate : CompressionCodecs.codecs()) {
+      if (candidate.getMessageEncoding().equals(encoding)) {
+        codec = candidate;
+      }
+    }
+    DescriptorProtos.FileDescriptorProto file = DescriptorProtos.getDescriptor().toProto();
+    if ("small".equals(payload)) {
+      message = file.getMessageType(0).toByteArray();
+    } else if ("medium".equals(payload)) {
+      message = file.toByteArray();
+    } else {
+      // Concatenated serialized messages of the same type form a valid message.
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      while (out.size() < 1024 * 1024) {
+        file.writeTo(out);
+      }
+      message = out.toByteArray();
+    }
+    compressed = compressInto(new ByteArrayOutputStream(message.length)).toByteArray();
+  }
+
+  /**
+   * Bytes in and out of the codec, reported per operation.
+   */
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class SizeCounters {
+    public long uncompressedBytes;
+    public long compressedBytes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      uncompressedBytes = 0;
+      compressedBytes = 0;
+    }
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  public ByteArrayOutputStream compress(SizeCounters counters) throws IOException {
+    ByteArrayOutputStream out = compressInto(new ByteArrayOutputStream(compressed.length));
+    counters.uncompressedBytes += message.length;
+    counters.compressedBytes += out.size();
+    return out;
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  public int decompress() throws IOException {
+    InputStream in = codec.decompress(new ByteArrayInputStream(compressed));
+    int total = 0;
+    int read;
+    while ((read = in.read(readBuffer)) != -1) {
+      total += read;
+    }
+    in.close();
+    return total;
+  }
+
+  private ByteArrayOutputStream compressInto(ByteArrayOutputStream out) throws IOException {
+    OutputStream compressing = codec.compress(out);
+    compressing.write(message);
+    compressing.close();
+    return out;
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.compression;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.io.ByteStreams;
+import io.grpc.Codec;
+import io.grpc.Status;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A codec for compression formats that are only available as whole-block operations. Messages
+ * are buffered in full, compressed as a single block when the compressing stream is closed, and
+ * decompressed in one step on first read.
+ */
+abstract class BlockCodec implements Codec {
+  /** The default limit on the size of a decompressed message, matching gRPC's default. */
+  static final int DEFAULT_MAX_DECOMPRESSED_SIZE = 4 * 1024 * 1024;
+
+  private final int maxDecompressedSize;
+
+  BlockCodec(int maxDecompressedSize) {
+    checkArgument(maxDecompressedSize > 0, "maxDecompressedSize must be positive");
+    this.maxDecompressedSize = maxDecompressedSize;
+  }
+
+  /** Returns an upper bound on the size of a compressed block for {@code length} bytes. */
+  abstract int maxCompressedLength(int length);
+
+  /**
+   * Compresses {@code input[0, length)} into {@code output}, which holds at least {@link
+   * #maxCompressedLength} bytes.
+   *
+   * @return the size of the compressed block
+   */
+  abstract int compressBlock(byte[] input, int length, byte[] output);
+
+  /**
+   * Returns the decompressed size declared by a compressed block, or {@code -1} if the block does
+   * not declare it.
+   */
+  abstract long decompressedLength(byte[] block) throws IOException;
+
+  /**
+   * Decompresses {@code block} into {@code output}, which is exactly {@link #decompressedLength}
+   * bytes long.
+   *
+   * @return the number of bytes decompressed
+   */
+  abstract int decompressBlock(byte[] block, byte[] output) throws IOException;
+
+  @Override
+  public final OutputStream compress(OutputStream os) {
+    return new BlockCompressingStream(os);
+  }
+
+  @Override
+  public final InputStream decompress(InputStream is) {
+    return new BlockDecompressingStream(is);
+  }
+
+  private final class BlockCompressingStream extends ByteArrayOutputStream {
+    private final OutputStream out;
+    private boolean closed;
+
+    BlockCompressingStream(OutputStream out) {
+      this.out = out;
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      try {
+        byte[] block = new byte[maxCompressedLength(count)];
+        int blockLength = compressBlock(buf, count, block);
+        out.write(block, 0, blockLength);
+      } finally {
+        out.close();
+      }
+    }
+  }
+
+  private final class BlockDecompressingStream extends InputStream {
+    private final InputStream in;
+    private ByteArrayInputStream decompressed;
+
+    BlockDecompressingStream(InputStream in) {
+      this.in = in;
+    }
+
+    private ByteArrayInputStream decompressed() throws IOException {
+      if (decompressed != null) {
+        return decompressed;
+      }
+      byte[] block = ByteStreams.toByteArray(in);
+      long length;
+      try {
+        length = decompressedLength(block);
+      } catch (RuntimeException e) {
+        throw new IOException("Malformed " + getMessageEncoding() + " block", e);
+      }
+      if (length < 0) {
+        throw new IOException(
+            getMessageEncoding() + " block does not declare its decompressed size");
+      }
+      if (length > maxDecompressedSize) {
+        throw Status.RESOURCE_EXHAUSTED.withDescription(String.format(
+                "Decompressed gRPC message exceeds maximum size %d: %d",
+                maxDecompressedSize, length)).asRuntimeException();
+      }
+      byte[] output = new byte[(int) length];
+      int outputLength;
+      try {
+        outputLength = decompressBlock(block, output);
+      } catch (RuntimeException e) {
+        throw new IOException("Malformed " + getMessageEncoding() + " block", e);
+      }
+      if (outputLength != length) {
+        throw new IOException("Malformed " + getMessageEncoding() + " block");
+      }
+      decompressed = new ByteArrayInputStream(output);
+      return decompressed;
+    }
+
+    @Override
+    public int read() throws IOException {
+      return decompressed().read();
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      return decompressed().read(b, off, len);
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      return decompressed().skip(n);
+    }
+
+    @Override
+    public int available() {
+      return decompressed == null ? 0 : decompressed.available();
+    }
+
+    @Override
+    public void close() throws IOException {
+      in.close();
+    }
+  }
+
+  /**
+   * Idle compressors or decompressors, which are reused by later calls instead of allocating new
+   * ones along with their scratch tables. An instance is used by one call at a time.
+   */
+  abstract static class InstanceCache<T> {
+    private final AtomicReferenceArray<T> idle =
+        new AtomicReferenceArray<>(Runtime.getRuntime().availableProcessors());
+
+    abstract T create();
+
+    /** Returns an idle instance, or a new one if there is none near this thread. */
+    final T take() {
+      T instance = idle.getAndSet(slot(), null);
+      return instance != null ? instance : create();
+    }
+
+    /**
+     * Returns an instance to the cache after a call used it successfully. Instances that failed
+     * may hold inconsistent state, so they are not returned.
+     */
+    final void release(T instance) {
+      idle.compareAndSet(slot(), null, instance);
+    }
+
+    private int slot() {
+      return (int) (Thread.currentThread().getId() % idle.length());
+    }
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.compression;
+
+import io.grpc.Codec;
+import io.grpc.CompressorRegistry;
+import io.grpc.DecompressorRegistry;
+import io.grpc.ExperimentalApi;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Registers the codecs of this module. For example, to let a server accept and use all of them:
+ *
+ * <pre>
+ *   CompressionCodecs.registerCompressors(CompressorRegistry.getDefaultInstance());
+ *   serverBuilder.decompressorRegistry(
+ *       CompressionCodecs.withDecompressors(DecompressorRegistry.getDefaultInstance()));
+ * </pre>
+ *
+ * <p>Decompressors are advertised in {@code grpc-accept-encoding}, so peers may pick any of them
+ * for the messages they send.
+ */
+@ExperimentalApi("https://github.com/grpc/grpc-java/issues/1704")
+public final class CompressionCodecs {
+  private CompressionCodecs() {}
+
+  /**
+   * Returns new instances of the codecs of this module, fastest first.
+   */
+  public static List<Codec> codecs() {
+    return Collections.unmodifiableList(
+        Arrays.<Codec>asList(new Lz4Codec(), new SnappyCodec(), new ZstdCodec()));
+  }
+
+  /**
+   * Registers the compressors of this module with {@code registry}, so calls may select them
+   * with {@link io.grpc.CallOptions#withCompression} or {@link
+   * io.grpc.ServerCall#setCompression}.
+   */
+  public static void registerCompressors(CompressorRegistry registry) {
+    for (Codec codec : codecs()) {
+      registry.register(codec);
+    }
+  }
+
+  /**
+   * Returns a registry containing the decompressors of {@code registry} along with those of this
+   * module, all advertised.
+   */
+  public static DecompressorRegistry withDecompressors(DecompressorRegistry registry) {
+    for (Codec codec : codecs()) {
+      registry = registry.with(codec, true);
+    }
+    return registry;
+  }
+}
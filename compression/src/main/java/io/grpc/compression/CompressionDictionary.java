@@ -0,0 +1,126 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.compression;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import io.grpc.ExperimentalApi;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A pre-trained compression dictionary. Compressing small messages in isolation gains little
+ * because each message starts with no history to match against; a dictionary of content common
+ * to many messages provides that history up front, on both peers.
+ *
+ * <p>A dictionary is identified by a hash of its content, which codecs include in their message
+ * encoding name. Peers therefore only negotiate a dictionary codec when they hold the exact same
+ * dictionary.
+ */
+@ExperimentalApi("https://github.com/grpc/grpc-java/issues/1704")
+public final class CompressionDictionary {
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+  private static final int ID_BYTES = 8;
+
+  private final byte[] content;
+  private final String id;
+
+  private CompressionDictionary(byte[] content) {
+    this.content = content;
+    this.id = computeId(content);
+  }
+
+  /**
+   * Returns a dictionary with the given content, such as one previously produced by {@link
+   * #train} and loaded from a file.
+   */
+  public static CompressionDictionary fromBytes(byte[] content) {
+    checkNotNull(content, "content");
+    checkArgument(content.length > 0, "content must not be empty");
+    return new CompressionDictionary(content.clone());
+  }
+
+  /**
+   * Trains a dictionary of at most {@code maxSize} bytes from sample messages. The dictionary is
+   * made of the segments of the samples whose substrings recur across the most samples, with the
+   * most valuable segments last, where matches against them are cheapest to encode.
+   *
+   * @throws IllegalArgumentException if the samples have no content in common
+   */
+  public static CompressionDictionary train(List<byte[]> samples, int maxSize) {
+    checkNotNull(samples, "samples");
+    checkArgument(maxSize > 0, "maxSize must be positive");
+    byte[] content = DictionaryTrainer.train(samples, maxSize);
+    checkArgument(content.length > 0, "samples have no content in common");
+    return new CompressionDictionary(content);
+  }
+
+  /** Returns a short hexadecimal identifier derived from the dictionary's content. */
+  public String getId() {
+    return id;
+  }
+
+  /** Returns the size of the dictionary in bytes. */
+  public int size() {
+    return content.length;
+  }
+
+  /** Returns a copy of the dictionary's content. */
+  public byte[] toByteArray() {
+    return content.clone();
+  }
+
+  /** Returns the content without copying. Callers must not modify it. */
+  byte[] content() {
+    return content;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof CompressionDictionary
+        && Arrays.equals(content, ((CompressionDictionary) other).content);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(content);
+  }
+
+  @Override
+  public String toString() {
+    return "CompressionDictionary{id=" + id + ", size=" + content.length + "}";
+  }
+
+  private static String computeId(byte[] content) {
+    byte[] digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256").digest(content);
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform is required to support SHA-256.
+      throw new AssertionError(e);
+    }
+    char[] id = new char[ID_BYTES * 2];
+    for (int i = 0; i < ID_BYTES; i++) {
+      id[i * 2] = HEX_DIGITS[(digest[i] >> 4) & 0xF];
+      id[i * 2 + 1] = HEX_DIGITS[digest[i] & 0xF];
+    }
+    return new String(id);
+  }
+}
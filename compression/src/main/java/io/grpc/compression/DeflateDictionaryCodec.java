@@ -0,0 +1,100 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.compression;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import io.grpc.Codec;
+import io.grpc.ExperimentalApi;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A DEFLATE compressor and decompressor primed with a {@link CompressionDictionary}. Each message
+ * is a raw DEFLATE stream compressed as if the dictionary had been sent just before it; only the
+ * last 32 KiB of the dictionary are used.
+ *
+ * <p>The message encoding is {@code deflate-dict-} followed by the dictionary's id. To use a
+ * dictionary, register the same codec on both peers, in the {@link io.grpc.CompressorRegistry} of
+ * the sender and, advertised, in the {@link io.grpc.DecompressorRegistry} of the receiver:
+ *
+ * <pre>
+ *   Codec codec = new DeflateDictionaryCodec(CompressionDictionary.fromBytes(bytes));
+ *   CompressorRegistry.getDefaultInstance().register(codec);
+ *   serverBuilder.decompressorRegistry(
+ *       DecompressorRegistry.getDefaultInstance().with(codec, true));
+ * </pre>
+ */
+@ExperimentalApi("https://github.com/grpc/grpc-java/issues/1704")
+public final class DeflateDictionaryCodec implements Codec {
+  private static final String ENCODING_PREFIX = "deflate-dict-";
+
+  private final CompressionDictionary dictionary;
+  private final String messageEncoding;
+
+  public DeflateDictionaryCodec(CompressionDictionary dictionary) {
+    this.dictionary = checkNotNull(dictionary, "dictionary");
+    this.messageEncoding = ENCODING_PREFIX + dictionary.getId();
+  }
+
+  /** Returns the dictionary of this codec. */
+  public CompressionDictionary getDictionary() {
+    return dictionary;
+  }
+
+  @Override
+  public String getMessageEncoding() {
+    return messageEncoding;
+  }
+
+  @Override
+  public OutputStream compress(OutputStream os) {
+    Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    deflater.setDictionary(dictionary.content());
+    return new DeflaterOutputStream(os, deflater) {
+      @Override
+      public void close() throws IOException {
+        try {
+          super.close();
+        } finally {
+          def.end();
+        }
+      }
+    };
+  }
+
+  @Override
+  public InputStream decompress(InputStream is) {
+    Inflater inflater = new Inflater(true);
+    inflater.setDictionary(dictionary.content());
+    return new InflaterInputStream(is, inflater) {
+      @Override
+      public void close() throws IOException {
+        try {
+          super.close();
+        } finally {
+          inf.end();
+        }
+      }
+    };
+  }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.compression;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Builds a dictionary by greedily picking the sample segments that cover the most frequent
+ * substrings, in the spirit of zstd's COVER algorithm.
+ *
+ * <p>Substrings are approximated by their {@value #KMER_LENGTH}-byte k-mers, and the frequency of
+ * a k-mer is the number of samples containing it, so that content repeated within a single
+ * message, which the compressor handles on its own, does not count. K-mers found in less than 1%
+ * of the samples are ignored. Once a segment is picked, its k-mers no longer count towards other
+ * segments.
+ */
+final class DictionaryTrainer {
+  static final int KMER_LENGTH = 8;
+  static final int SEGMENT_LENGTH = 64;
+  private static final int SEGMENT_STRIDE = 8;
+  /** K-mers must occur in at least this fraction of the samples to be worth including. */
+  private static final int MIN_FREQUENCY_DIVISOR = 100;
+
+  private DictionaryTrainer() {}
+
+  static byte[] train(List<byte[]> samples, int maxSize) {
+    Map<Long, Integer> frequencies = new HashMap<>();
+    for (byte[] sample : samples) {
+      Set<Long> seen = new HashSet<>();
+      for (int i = 0; i + KMER_LENGTH <= sample.length; i++) {
+        Long kmer = kmer(sample, i);
+        if (seen.add(kmer)) {
+          Integer frequency = frequencies.get(kmer);
+          frequencies.put(kmer, frequency == null ? 1 : frequency + 1);
+        }
+      }
+    }
+
+    // Drop k-mers that are too rare to be worth their space in the dictionary.
+    int minFrequency = Math.max(2, samples.size() / MIN_FREQUENCY_DIVISOR);
+    Iterator<Integer> iterator = frequencies.values().iterator();
+    while (iterator.hasNext()) {
+      if (iterator.next() < minFrequency) {
+        iterator.remove();
+      }
+    }
+
+    // A segment must be worth a full k-mer in every sample of a minimally frequent k-mer, which
+    // filters out segments only matching short, coincidentally common fragments.
+    int minScore = minFrequency * KMER_LENGTH;
+    PriorityQueue<Segment> candidates = new PriorityQueue<>();
+    for (byte[] sample : samples) {
+      for (int start = 0; start + KMER_LENGTH <= sample.length; start += SEGMENT_STRIDE) {
+        Segment segment =
+            new Segment(sample, start, Math.min(start + SEGMENT_LENGTH, sample.length));
+        segment.score = segment.score(frequencies);
+        if (segment.score >= minScore) {
+          candidates.add(segment);
+        }
+        if (segment.end == sample.length) {
+          break;
+        }
+      }
+    }
+
+    List<Segment> picked = new ArrayList<>();
+    int size = 0;
+    while (size < maxSize && !candidates.isEmpty()) {
+      Segment segment = candidates.poll();
+      // Scores only decrease as k-mers get covered, so a stale score is an upper bound.
+      int score = segment.score(frequencies);
+      if (score < minScore) {
+        continue;
+      }
+      if (!candidates.isEmpty() && score < candidates.peek().score) {
+        segment.score = score;
+        candidates.add(segment);
+        continue;
+      }
+      segment = segment.trim(frequencies);
+      picked.add(segment);
+      size += segment.end - segment.start;
+      for (int i = segment.start; i + KMER_LENGTH <= segment.end; i++) {
+        frequencies.remove(kmer(segment.sample, i));
+      }
+    }
+
+    // Write the most valuable segments last, where matches have the shortest distances.
+    ByteArrayOutputStream out = new ByteArrayOutputStream(size);
+    for (int i = picked.size() - 1; i >= 0; i--) {
+      Segment segment = picked.get(i);
+      out.write(segment.sample, segment.start, segment.end - segment.start);
+    }
+    byte[] dictionary = out.toByteArray();
+    if (dictionary.length <= maxSize) {
+      return dictionary;
+    }
+    byte[] truncated = new byte[maxSize];
+    System.arraycopy(dictionary, dictionary.length - maxSize, truncated, 0, maxSize);
+    return truncated;
+  }
+
+  private static long kmer(byte[] bytes, int offset) {
+    long kmer = 0;
+    for (int i = 0; i < KMER_LENGTH; i++) {
+      kmer = (kmer << 8) | (bytes[offset + i] & 0xFF);
+    }
+    return kmer;
+  }
+
+  private static final class Segment implements Comparable<Segment> {
+    final byte[] sample;
+    final int start;
+    final int end;
+    int score;
+
+    Segment(byte[] sample, int start, int end) {
+      this.sample = sample;
+      this.start = start;
+      this.end = end;
+    }
+
+    /** Sums the frequencies of the distinct k-mers of the segment that are still uncovered. */
+    int score(Map<Long, Integer> frequencies) {
+      Set<Long> counted = new HashSet<>();
+      int score = 0;
+      for (int i = start; i + KMER_LENGTH <= end; i++) {
+        Long kmer = kmer(sample, i);
+        Integer frequency = frequencies.get(kmer);
+        if (frequency != null && counted.add(kmer)) {
+          score += frequency;
+        }
+      }
+      return score;
+    }
+
+    /** Returns the part of the segment spanning its uncovered k-mers, which must exist. */
+    Segment trim(Map<Long, Integer> frequencies) {
+      int first = -1;
+      int last = -1;
+      for (int i = start; i + KMER_LENGTH <= end; i++) {
+        if (frequencies.containsKey(kmer(sample, i))) {
+          if (first == -1) {
+            first = i;
+          }
+          last = i;
+        }
+      }
+      return new Segment(sample, first, last + KMER_LENGTH);
+    }
+
+    @Override
+    public int compareTo(Segment other) {
+      // Highest score first.
+      return Integer.compare(other.score, score);
+    }
+  }
+}
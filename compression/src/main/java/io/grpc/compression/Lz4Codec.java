@@ -0,0 +1,116 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.compression;
+
+import io.airlift.compress.lz4.Lz4Compressor;
+import io.airlift.compress.lz4.Lz4Decompressor;
+import io.grpc.ExperimentalApi;
+import java.io.IOException;
+
+/**
+ * An LZ4 compressor and decompressor, for the {@code lz4-block} message encoding. The encoding is
+ * specific to gRPC Java and is not the LZ4 frame format, so it is named apart from the {@code lz4}
+ * encodings of other implementations, and should only be enabled between peers that use this
+ * class.
+ *
+ * <p>Each compressed message is its decompressed length, as a 4-byte big-endian unsigned integer,
+ * followed by a single <a href="https://github.com/lz4/lz4/blob/dev/doc/lz4_Block_format.md">LZ4
+ * block</a> holding the whole message. There is no magic number, checksum or frame header, which
+ * gRPC's own framing makes redundant.
+ *
+ * <p>Messages are compressed and decompressed as a whole, so the decompressed size is limited
+ * up front by {@code maxDecompressedSize} rather than by the call's maximum inbound message size.
+ */
+@ExperimentalApi("https://github.com/grpc/grpc-java/issues/1704")
+public final class Lz4Codec extends BlockCodec {
+  private static final int LENGTH_PREFIX_SIZE = 4;
+  // maxCompressedLength() only computes a bound, so one instance serves all threads.
+  private static final Lz4Compressor LENGTH_BOUND = new Lz4Compressor();
+
+  private final InstanceCache<Lz4Compressor> compressors = new InstanceCache<Lz4Compressor>() {
+    @Override
+    Lz4Compressor create() {
+      return new Lz4Compressor();
+    }
+  };
+  private final InstanceCache<Lz4Decompressor> decompressors =
+      new InstanceCache<Lz4Decompressor>() {
+        @Override
+        Lz4Decompressor create() {
+          return new Lz4Decompressor();
+        }
+      };
+
+  /**
+   * Creates a codec that decompresses messages of up to 4 MiB, the default maximum inbound
+   * message size.
+   */
+  public Lz4Codec() {
+    this(DEFAULT_MAX_DECOMPRESSED_SIZE);
+  }
+
+  /**
+   * Creates a codec that rejects messages whose decompressed size exceeds {@code
+   * maxDecompressedSize} bytes.
+   */
+  public Lz4Codec(int maxDecompressedSize) {
+    super(maxDecompressedSize);
+  }
+
+  @Override
+  public String getMessageEncoding() {
+    return "lz4-block";
+  }
+
+  @Override
+  int maxCompressedLength(int length) {
+    return LENGTH_PREFIX_SIZE + LENGTH_BOUND.maxCompressedLength(length);
+  }
+
+  @Override
+  int compressBlock(byte[] input, int length, byte[] output) {
+    output[0] = (byte) (length >>> 24);
+    output[1] = (byte) (length >>> 16);
+    output[2] = (byte) (length >>> 8);
+    output[3] = (byte) length;
+    Lz4Compressor compressor = compressors.take();
+    int compressedLength = compressor.compress(
+        input, 0, length, output, LENGTH_PREFIX_SIZE, output.length - LENGTH_PREFIX_SIZE);
+    compressors.release(compressor);
+    return LENGTH_PREFIX_SIZE + compressedLength;
+  }
+
+  @Override
+  long decompressedLength(byte[] block) throws IOException {
+    if (block.length < LENGTH_PREFIX_SIZE) {
+      throw new IOException("lz4-block message is missing its length prefix");
+    }
+    return (block[0] & 0xFFL) << 24
+        | (block[1] & 0xFFL) << 16
+        | (block[2] & 0xFFL) << 8
+        | (block[3] & 0xFFL);
+  }
+
+  @Override
+  int decompressBlock(byte[] block, byte[] output) {
+    Lz4Decompressor decompressor = decompressors.take();
+    int decompressedLength = decompressor.decompress(
+        block, LENGTH_PREFIX_SIZE, block.length - LENGTH_PREFIX_SIZE, output, 0, output.length);
+    decompressors.release(decompressor);
+    return decompressedLength;
+  }
+}
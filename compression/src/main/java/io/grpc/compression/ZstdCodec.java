@@ -0,0 +1,97 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.compression;
+
+import io.airlift.compress.zstd.ZstdCompressor;
+import io.airlift.compress.zstd.ZstdDecompressor;
+import io.grpc.ExperimentalApi;
+
+/**
+ * A <a href="https://tools.ietf.org/html/rfc8478">zstd</a> compressor and decompressor. Each
+ * message is encoded as a single standard zstd frame that declares its content size.
+ *
+ * <p>Messages are compressed and decompressed as a whole, so the decompressed size is limited
+ * up front by {@code maxDecompressedSize} rather than by the call's maximum inbound message size.
+ * Frames that do not declare their content size are rejected.
+ */
+@ExperimentalApi("https://github.com/grpc/grpc-java/issues/1704")
+public final class ZstdCodec extends BlockCodec {
+  // maxCompressedLength() only computes a bound, so one instance serves all threads.
+  private static final ZstdCompressor LENGTH_BOUND = new ZstdCompressor();
+
+  private final InstanceCache<ZstdCompressor> compressors = new InstanceCache<ZstdCompressor>() {
+    @Override
+    ZstdCompressor create() {
+      return new ZstdCompressor();
+    }
+  };
+  private final InstanceCache<ZstdDecompressor> decompressors =
+      new InstanceCache<ZstdDecompressor>() {
+        @Override
+        ZstdDecompressor create() {
+          return new ZstdDecompressor();
+        }
+      };
+
+  /**
+   * Creates a codec that decompresses messages of up to 4 MiB, the default maximum inbound
+   * message size.
+   */
+  public ZstdCodec() {
+    this(DEFAULT_MAX_DECOMPRESSED_SIZE);
+  }
+
+  /**
+   * Creates a codec that rejects messages whose decompressed size exceeds {@code
+   * maxDecompressedSize} bytes.
+   */
+  public ZstdCodec(int maxDecompressedSize) {
+    super(maxDecompressedSize);
+  }
+
+  @Override
+  public String getMessageEncoding() {
+    return "zstd";
+  }
+
+  @Override
+  int maxCompressedLength(int length) {
+    return LENGTH_BOUND.maxCompressedLength(length);
+  }
+
+  @Override
+  int compressBlock(byte[] input, int length, byte[] output) {
+    ZstdCompressor compressor = compressors.take();
+    int compressedLength = compressor.compress(input, 0, length, output, 0, output.length);
+    compressors.release(compressor);
+    return compressedLength;
+  }
+
+  @Override
+  long decompressedLength(byte[] block) {
+    return ZstdDecompressor.getDecompressedSize(block, 0, block.length);
+  }
+
+  @Override
+  int decompressBlock(byte[] block, byte[] output) {
+    ZstdDecompressor decompressor = decompressors.take();
+    int decompressedLength =
+        decompressor.decompress(block, 0, block.length, output, 0, output.length);
+    decompressors.release(decompressor);
+    return decompressedLength;
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.compression;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import com.google.common.io.ByteStreams;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link BlockCodec}, through {@link Lz4Codec}. */
+@RunWith(JUnit4.class)
+public class BlockCodecTest {
+  @Test
+  public void decompress_exceedsMaxDecompressedSize() throws Exception {
+    byte[] compressed = compress(new Lz4Codec(), new byte[1025]);
+
+    try {
+      ByteStreams.toByteArray(new Lz4Codec(1024).decompress(new ByteArrayInputStream(compressed)));
+      fail("Expected exception");
+    } catch (StatusRuntimeException e) {
+      assertThat(e.getStatus().getCode()).isEqualTo(Status.Code.RESOURCE_EXHAUSTED);
+    }
+  }
+
+  @Test
+  public void decompress_atMaxDecompressedSize() throws Exception {
+    byte[] compressed = compress(new Lz4Codec(), new byte[1024]);
+
+    assertThat(ByteStreams.toByteArray(
+        new Lz4Codec(1024).decompress(new ByteArrayInputStream(compressed))))
+        .isEqualTo(new byte[1024]);
+  }
+
+  @Test
+  public void decompress_truncated() throws Exception {
+    byte[] compressed = compress(new Lz4Codec(), new byte[1024]);
+    compressed = Arrays.copyOf(compressed, compressed.length - 1);
+
+    try {
+      ByteStreams.toByteArray(new Lz4Codec().decompress(new ByteArrayInputStream(compressed)));
+      fail("Expected exception");
+    } catch (IOException expected) {
+      // The block was malformed.
+    }
+  }
+
+  @Test
+  public void lz4_blockPrefixedWithDecompressedLength() throws Exception {
+    Lz4Codec codec = new Lz4Codec();
+    byte[] compressed = compress(codec, new byte[1025]);
+
+    assertThat(codec.getMessageEncoding()).isEqualTo("lz4-block");
+    assertThat(Arrays.copyOf(compressed, 4)).isEqualTo(new byte[] {0, 0, 4, 1});
+  }
+
+  @Test
+  public void decompress_zstdWithoutContentSize() throws Exception {
+    // A frame header with no content size, followed by an empty last raw block.
+    byte[] frame = new byte[] {0x28, (byte) 0xb5, 0x2f, (byte) 0xfd, 0x00, 0x58, 0x01, 0x00, 0x00};
+
+    try {
+      ByteStreams.toByteArray(new ZstdCodec().decompress(new ByteArrayInputStream(frame)));
+      fail("Expected exception");
+    } catch (IOException expected) {
+      assertThat(expected).hasMessageThat().contains("decompressed size");
+    }
+  }
+
+  @Test
+  public void decompress_zstdCorruptFrame() throws Exception {
+    byte[][] frames = {
+        // Only the magic number, without a frame header.
+        {0x28, (byte) 0xb5, 0x2f, (byte) 0xfd},
+        // A frame of 10 bytes with a reserved block type.
+        {0x28, (byte) 0xb5, 0x2f, (byte) 0xfd, 0x20, 0x0a, (byte) 0xff, (byte) 0xff, (byte) 0xff},
+    };
+
+    for (byte[] frame : frames) {
+      try {
+        ByteStreams.toByteArray(new ZstdCodec().decompress(new ByteArrayInputStream(frame)));
+        fail("Expected exception");
+      } catch (IOException expected) {
+        assertThat(expected).hasMessageThat().contains("Malformed zstd block");
+      }
+    }
+  }
+
+  @Test
+  public void codecReusesInstancesAcrossMessages() throws Exception {
+    ZstdCodec codec = new ZstdCodec();
+    for (int i = 0; i < 3; i++) {
+      byte[] message = new byte[1000 * (i + 1)];
+      Arrays.fill(message, (byte) i);
+      byte[] compressed = compress(codec, message);
+
+      assertThat(ByteStreams.toByteArray(codec.decompress(new ByteArrayInputStream(compressed))))
+          .isEqualTo(message);
+    }
+  }
+
+  @Test
+  public void compress_closeIsIdempotent() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    OutputStream compressing = new ZstdCodec().compress(out);
+    compressing.write(new byte[10]);
+    compressing.close();
+    int size = out.size();
+    compressing.close();
+
+    assertThat(out.size()).isEqualTo(size);
+  }
+
+  private static byte[] compress(BlockCodec codec, byte[] message) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    OutputStream compressing = codec.compress(out);
+    compressing.write(message);
+    compressing.close();
+    return out.toByteArray();
+  }
+}
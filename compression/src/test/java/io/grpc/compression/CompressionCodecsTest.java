@@ -0,0 +1,114 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.compression;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.io.ByteStreams;
+import io.grpc.Codec;
+import io.grpc.CompressorRegistry;
+import io.grpc.DecompressorRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+/** Unit tests for {@link CompressionCodecs} and the codecs it registers. */
+@RunWith(Parameterized.class)
+public class CompressionCodecsTest {
+  @Parameters(name = "{0}")
+  public static Collection<Object[]> data() {
+    Collection<Object[]> data = new ArrayList<>();
+    for (Codec codec : CompressionCodecs.codecs()) {
+      data.add(new Object[] {codec.getMessageEncoding(), codec});
+    }
+    return data;
+  }
+
+  @Parameter(0)
+  public String encoding;
+
+  @Parameter(1)
+  public Codec codec;
+
+  @Test
+  public void roundTrip_compressible() throws Exception {
+    byte[] message = new byte[200 * 1024];
+    for (int i = 0; i < message.length; i++) {
+      message[i] = (byte) ("grpc".charAt(i % 4));
+    }
+    byte[] compressed = compress(message);
+
+    assertThat(compressed.length).isLessThan(message.length / 10);
+    assertThat(decompress(compressed)).isEqualTo(message);
+  }
+
+  @Test
+  public void roundTrip_incompressible() throws Exception {
+    byte[] message = new byte[100 * 1024];
+    new Random(1).nextBytes(message);
+
+    assertThat(decompress(compress(message))).isEqualTo(message);
+  }
+
+  @Test
+  public void roundTrip_empty() throws Exception {
+    assertThat(decompress(compress(new byte[0]))).isEmpty();
+  }
+
+  @Test
+  public void registerCompressors() {
+    CompressorRegistry registry = CompressorRegistry.newEmptyInstance();
+    CompressionCodecs.registerCompressors(registry);
+
+    assertThat(registry.lookupCompressor(encoding).getMessageEncoding()).isEqualTo(encoding);
+  }
+
+  @Test
+  public void withDecompressors_advertised() {
+    DecompressorRegistry registry =
+        CompressionCodecs.withDecompressors(DecompressorRegistry.getDefaultInstance());
+
+    assertThat(registry.lookupDecompressor(encoding).getMessageEncoding()).isEqualTo(encoding);
+    assertThat(registry.getAdvertisedMessageEncodings()).containsAtLeast("gzip", encoding);
+  }
+
+  private byte[] compress(byte[] message) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    OutputStream compressing = codec.compress(out);
+    compressing.write(message);
+    compressing.close();
+    return out.toByteArray();
+  }
+
+  private byte[] decompress(byte[] compressed) throws Exception {
+    InputStream in = codec.decompress(new ByteArrayInputStream(compressed));
+    try {
+      return ByteStreams.toByteArray(in);
+    } finally {
+      in.close();
+    }
+  }
+}
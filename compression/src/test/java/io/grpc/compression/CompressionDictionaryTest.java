@@ -0,0 +1,102 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.compression;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link CompressionDictionary}. */
+@RunWith(JUnit4.class)
+public class CompressionDictionaryTest {
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  @Test
+  public void fromBytes_copiesContent() {
+    byte[] content = new byte[] {1, 2, 3};
+    CompressionDictionary dictionary = CompressionDictionary.fromBytes(content);
+    content[0] = 9;
+
+    assertThat(dictionary.toByteArray()).isEqualTo(new byte[] {1, 2, 3});
+    assertThat(dictionary.size()).isEqualTo(3);
+  }
+
+  @Test
+  public void id_dependsOnContent() {
+    CompressionDictionary dictionary = CompressionDictionary.fromBytes(new byte[] {1, 2, 3});
+
+    assertThat(dictionary.getId()).matches("[0-9a-f]{16}");
+    assertThat(CompressionDictionary.fromBytes(new byte[] {1, 2, 3}).getId())
+        .isEqualTo(dictionary.getId());
+    assertThat(CompressionDictionary.fromBytes(new byte[] {1, 2, 4}).getId())
+        .isNotEqualTo(dictionary.getId());
+  }
+
+  @Test
+  public void train_keepsContentCommonToSamples() {
+    List<byte[]> samples = samples(200);
+
+    CompressionDictionary dictionary = CompressionDictionary.train(samples, 1024);
+
+    String content = new String(dictionary.toByteArray(), UTF_8);
+    assertThat(dictionary.size()).isAtMost(1024);
+    assertThat(content).contains("\"region\":\"us-central1-a\"");
+    assertThat(content).contains("\"client_version\":\"android-12.4.1\"");
+  }
+
+  @Test
+  public void train_respectsMaxSize() {
+    CompressionDictionary dictionary = CompressionDictionary.train(samples(200), 16);
+
+    assertThat(dictionary.size()).isEqualTo(16);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void train_nothingInCommon() {
+    Random random = new Random(1);
+    List<byte[]> samples = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      byte[] sample = new byte[100];
+      random.nextBytes(sample);
+      samples.add(sample);
+    }
+
+    CompressionDictionary.train(samples, 1024);
+  }
+
+  /** Returns small messages that mostly differ by a few fields. */
+  static List<byte[]> samples(int count) {
+    Random random = new Random(1);
+    String[] names = {"alice", "bob", "carol", "dave"};
+    List<byte[]> samples = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      String sample = "{\"user_name\":\"" + names[random.nextInt(names.length)] + "\","
+          + "\"account_id\":" + random.nextInt(100000) + ","
+          + "\"region\":\"us-central1-a\","
+          + "\"session\":\"" + Long.toHexString(random.nextLong()) + "\","
+          + "\"client_version\":\"android-12.4.1\"}";
+      samples.add(sample.getBytes(UTF_8));
+    }
+    return samples;
+  }
+}
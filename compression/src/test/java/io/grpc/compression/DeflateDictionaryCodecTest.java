@@ -0,0 +1,97 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.compression;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.io.ByteStreams;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link DeflateDictionaryCodec}. */
+@RunWith(JUnit4.class)
+public class DeflateDictionaryCodecTest {
+  private final List<byte[]> samples = CompressionDictionaryTest.samples(400);
+  private final DeflateDictionaryCodec codec = new DeflateDictionaryCodec(
+      CompressionDictionary.train(samples.subList(0, 200), 4096));
+
+  @Test
+  public void messageEncoding_includesDictionaryId() {
+    assertThat(codec.getMessageEncoding())
+        .isEqualTo("deflate-dict-" + codec.getDictionary().getId());
+  }
+
+  @Test
+  public void roundTrip() throws Exception {
+    for (byte[] message : samples.subList(200, 400)) {
+      assertThat(decompress(codec, compress(codec, message))).isEqualTo(message);
+    }
+  }
+
+  @Test
+  public void roundTrip_messageUnrelatedToDictionary() throws Exception {
+    byte[] message = new byte[10000];
+    for (int i = 0; i < message.length; i++) {
+      message[i] = (byte) (i * 31);
+    }
+
+    assertThat(decompress(codec, compress(codec, message))).isEqualTo(message);
+  }
+
+  @Test
+  public void smallerThanGzip() throws Exception {
+    long withDictionary = 0;
+    long withGzip = 0;
+    for (byte[] message : samples.subList(200, 400)) {
+      withDictionary += compress(codec, message).length;
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      GZIPOutputStream gzip = new GZIPOutputStream(out);
+      gzip.write(message);
+      gzip.close();
+      withGzip += out.size();
+    }
+
+    assertThat(withDictionary).isLessThan(withGzip / 2);
+  }
+
+  private static byte[] compress(DeflateDictionaryCodec codec, byte[] message)
+      throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    OutputStream compressing = codec.compress(out);
+    compressing.write(message);
+    compressing.close();
+    return out.toByteArray();
+  }
+
+  private static byte[] decompress(DeflateDictionaryCodec codec, byte[] compressed)
+      throws IOException {
+    InputStream in = codec.decompress(new ByteArrayInputStream(compressed));
+    try {
+      return ByteStreams.toByteArray(in);
+    } finally {
+      in.close();
+    }
+  }
+}
@@ -16,6 +16,7 @@
 
 package io.grpc.internal;
 
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -25,9 +26,12 @@ import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
 
 /**
  * SerializingExecutor benchmark.
@@ -40,8 +44,35 @@ import org.openjdk.jmh.annotations.TearDown;
 @State(Scope.Thread)
 public class SerializingExecutorBenchmark {
 
+  public enum ExecutorType {
+    SERIALIZING,
+    MPSC,
+    MPSC_SPIN;
+
+    Executor newExecutor(Executor executor) {
+      switch (this) {
+        case SERIALIZING:
+          return new SerializingExecutor(executor);
+        case MPSC:
+          return new MpscSerializingExecutor(executor, 0);
+        case MPSC_SPIN:
+          return new MpscSerializingExecutor(executor, 100);
+        default:
+          throw new AssertionError();
+      }
+    }
+  }
+
+  @Param
+  public ExecutorType executorType;
+
   private ExecutorService executorService = Executors.newSingleThreadExecutor();
-  private Executor executor = new SerializingExecutor(executorService);
+  private Executor executor;
+
+  @Setup
+  public void setUp() {
+    executor = executorType.newExecutor(executorService);
+  }
 
   private static class IncrRunnable implements Runnable {
     int val;
@@ -95,4 +126,57 @@ public class SerializingExecutorBenchmark {
       throw new AssertionError();
     }
   }
+
+  /**
+   * Executor shared by all benchmark threads, so that they contend on enqueueing.
+   */
+  @State(Scope.Benchmark)
+  public static class SharedExecutor {
+    @Param
+    public ExecutorType executorType;
+
+    private ExecutorService executorService;
+    Executor executor;
+
+    @Setup
+    public void setUp() {
+      executorService = Executors.newFixedThreadPool(2);
+      executor = executorType.newExecutor(executorService);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+      executorService.shutdownNow();
+      if (!executorService.awaitTermination(1, TimeUnit.SECONDS)) {
+        throw new RuntimeException("executor failed to shut down in a timely fashion");
+      }
+    }
+  }
+
+  private static final Runnable NOOP_RUNNABLE = new Runnable() {
+    @Override
+    public void run() {}
+  };
+
+  /**
+   * Several producers queue batches onto one executor, as happens when many transport threads
+   * deliver callbacks for the same call. Waiting for the batch to drain keeps the queue bounded.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Threads(4)
+  public void contendedRunnables(SharedExecutor shared) throws Exception {
+    final CountDownLatch latch = new CountDownLatch(1);
+    for (int i = 0; i < 100; i++) {
+      shared.executor.execute(NOOP_RUNNABLE);
+    }
+    shared.executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        latch.countDown();
+      }
+    });
+    latch.await();
+  }
 }
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.util;
+
+import io.grpc.util.ConsistentHashLoadBalancer.Host;
+import io.grpc.util.ConsistentHashLoadBalancer.LookupTable;
+import io.grpc.util.ConsistentHashLoadBalancer.TableFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmark for the lookup tables of the "ring_hash" and "maglev" policies: building a table,
+ * rebuilding it after one address changed, and looking up call hashes in it.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+public class ConsistentHashBenchmark {
+
+  @Param({"ring_hash", "maglev"})
+  public String policy;
+
+  @Param({"10000"})
+  public int endpoints;
+
+  /** The minimum ring size of "ring_hash", and the table size of "maglev", which is prime. */
+  @Param({"65537", "1000003"})
+  public int tableSize;
+
+  private TableFactory factory;
+  private List<Host> hosts;
+  private List<Host> changedHosts;
+  private LookupTable table;
+  private long hash;
+
+  /**
+   * Builds the hosts and the table to look up.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    if ("ring_hash".equals(policy)) {
+      factory = new RingHashTable.Factory(tableSize, RingHashTable.Factory.MAX_RING_SIZE);
+    } else if ("maglev".equals(policy)) {
+      factory = new MaglevTable.Factory(tableSize);
+    } else {
+      throw new IllegalArgumentException("Unknown policy " + policy);
+    }
+    hosts = new ArrayList<>(endpoints);
+    for (int i = 0; i < endpoints; i++) {
+      hosts.add(new FakeHost(i));
+    }
+    changedHosts = new ArrayList<>(hosts);
+    changedHosts.set(endpoints / 2, new FakeHost(endpoints));
+    table = factory.build(hosts, null);
+  }
+
+  /**
+   * Builds a table from scratch.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public LookupTable buildTable() {
+    return factory.build(hosts, null);
+  }
+
+  /**
+   * Builds a table after one address replaced another, reusing the previous table.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public LookupTable rebuildTableAfterAddressChange() {
+    return factory.build(changedHosts, table);
+  }
+
+  /**
+   * Finds the host of a call hash, as a pick does before checking the host is READY.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public Host lookup() {
+    return table.hostAt(table.position(ConsistentHashLoadBalancer.mix(hash++)));
+  }
+
+  private static final class FakeHost implements Host {
+    private final long hash;
+
+    FakeHost(int id) {
+      this.hash = ConsistentHashLoadBalancer.mix(id);
+    }
+
+    @Override
+    public long hash() {
+      return hash;
+    }
+  }
+}
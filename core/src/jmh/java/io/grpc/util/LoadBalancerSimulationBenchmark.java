@@ -0,0 +1,269 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.util;
+
+import com.google.common.base.Ticker;
+import io.grpc.Attributes;
+import io.grpc.CallOptions;
+import io.grpc.ClientStreamTracer;
+import io.grpc.ConnectivityState;
+import io.grpc.ConnectivityStateInfo;
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.LoadBalancer.CreateSubchannelArgs;
+import io.grpc.LoadBalancer.Helper;
+import io.grpc.LoadBalancer.PickResult;
+import io.grpc.LoadBalancer.ResolvedAddresses;
+import io.grpc.LoadBalancer.Subchannel;
+import io.grpc.LoadBalancer.SubchannelPicker;
+import io.grpc.LoadBalancer.SubchannelStateListener;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.NameResolver;
+import io.grpc.Status;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Simulates calls spread over backends of which one is much slower than the others, to compare
+ * the tail latency of the "round_robin", "least_request" and "peak_ewma" pickers. Each operation
+ * is one call arriving at the next tick of simulated time. JMH reports the cost of picking, while
+ * the simulated latencies are printed at the end of each trial.
+ */
+@State(Scope.Thread)
+@Fork(1)
+public class LoadBalancerSimulationBenchmark {
+  // Ticks a normal backend takes to serve a call, when it has no other calls in flight.
+  private static final int BASE_LATENCY_TICKS = 20;
+  private static final int MAX_SAMPLES = 1 << 20;
+  // The simulated time a tick stands for, as seen by latency-aware pickers.
+  private static final long NANOS_PER_TICK = TimeUnit.MILLISECONDS.toNanos(1);
+  private static final ClientStreamTracer.StreamInfo STREAM_INFO =
+      ClientStreamTracer.StreamInfo.newBuilder().setCallOptions(CallOptions.DEFAULT).build();
+
+  @Param({"round_robin", "least_request", "peak_ewma"})
+  public String policy;
+
+  @Param({"10"})
+  public int backendCount;
+
+  // How many times slower than the others the slow backend is.
+  @Param({"10"})
+  public int slowdown;
+
+  private SubchannelPicker picker;
+  private final List<Subchannel> subchannels = new ArrayList<>();
+  private int[] baseLatencies;
+  private int[] inFlights;
+  private final PriorityQueue<Completion> completions = new PriorityQueue<>();
+  private long now;
+  private long[] latencies;
+  private int calls;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    baseLatencies = new int[backendCount];
+    inFlights = new int[backendCount];
+    for (int i = 0; i < backendCount; i++) {
+      baseLatencies[i] = i == 0 ? BASE_LATENCY_TICKS * slowdown : BASE_LATENCY_TICKS;
+      subchannels.add(new FakeSubchannel(i));
+    }
+    if ("round_robin".equals(policy)) {
+      picker = new RoundRobinLoadBalancer.ReadyPicker(subchannels, 0);
+    } else if ("least_request".equals(policy)) {
+      picker = new LeastRequestLoadBalancer.ReadyPicker(subchannels, 2, new Random(1));
+    } else if ("peak_ewma".equals(policy)) {
+      picker = newPeakEwmaPicker();
+    } else {
+      throw new IllegalArgumentException("Unknown policy " + policy);
+    }
+    latencies = new long[MAX_SAMPLES];
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    long[] samples = Arrays.copyOf(latencies, Math.min(calls, MAX_SAMPLES));
+    Arrays.sort(samples);
+    System.out.printf("%n%s simulated latency over %d calls: p50=%d p99=%d p999=%d ticks%n",
+        policy, calls, percentile(samples, 0.5), percentile(samples, 0.99),
+        percentile(samples, 0.999));
+  }
+
+  /**
+   * Completes the calls due by the next tick, then starts a call on the picked backend. A backend
+   * serves calls concurrently, but each takes a tick longer for every other call in flight there.
+   */
+  @Benchmark
+  public int pickAndServe() {
+    now++;
+    while (!completions.isEmpty() && completions.peek().time <= now) {
+      Completion completion = completions.poll();
+      inFlights[completion.backend]--;
+      if (completion.tracer != null) {
+        completion.tracer.streamClosed(Status.OK);
+      }
+    }
+    // The pickers don't look at the args
+    PickResult result = picker.pickSubchannel(null);
+    Subchannel subchannel = result.getSubchannel();
+    if (subchannel instanceof ForwardingSubchannel) {
+      subchannel = ((ForwardingSubchannel) subchannel).delegate();
+    }
+    int backend = ((FakeSubchannel) subchannel).index;
+    ClientStreamTracer tracer = null;
+    if (result.getStreamTracerFactory() != null) {
+      tracer = result.getStreamTracerFactory().newClientStreamTracer(STREAM_INFO, new Metadata());
+    }
+    int latency = baseLatencies[backend] + inFlights[backend];
+    inFlights[backend]++;
+    completions.add(new Completion(now + latency, backend, tracer));
+    latencies[calls++ & (MAX_SAMPLES - 1)] = latency;
+    return backend;
+  }
+
+  /**
+   * Runs a peak EWMA balancer over the fake subchannels, on simulated time, until they are all
+   * READY.
+   */
+  private SubchannelPicker newPeakEwmaPicker() {
+    final SubchannelPicker[] latestPicker = new SubchannelPicker[1];
+    Helper helper = new Helper() {
+      @Override
+      public Subchannel createSubchannel(CreateSubchannelArgs args) {
+        for (Subchannel subchannel : subchannels) {
+          if (subchannel.getAllAddresses().equals(args.getAddresses())) {
+            ((FakeSubchannel) subchannel).attributes = args.getAttributes();
+            return subchannel;
+          }
+        }
+        throw new AssertionError("Unknown addresses " + args.getAddresses());
+      }
+
+      @Override
+      public void updateBalancingState(ConnectivityState state, SubchannelPicker picker) {
+        latestPicker[0] = picker;
+      }
+
+      @Override
+      public ManagedChannel createOobChannel(EquivalentAddressGroup eag, String authority) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Deprecated
+      @Override
+      public NameResolver.Factory getNameResolverFactory() {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public String getAuthority() {
+        return "simulation";
+      }
+    };
+    Ticker ticker = new Ticker() {
+      @Override
+      public long read() {
+        return now * NANOS_PER_TICK;
+      }
+    };
+    PeakEwmaLoadBalancer loadBalancer = new PeakEwmaLoadBalancer(helper, new Random(1), ticker);
+    List<EquivalentAddressGroup> addresses = new ArrayList<>();
+    for (Subchannel subchannel : subchannels) {
+      addresses.addAll(subchannel.getAllAddresses());
+    }
+    loadBalancer.handleResolvedAddresses(
+        ResolvedAddresses.newBuilder().setAddresses(addresses).build());
+    for (Subchannel subchannel : subchannels) {
+      ((FakeSubchannel) subchannel).listener.onSubchannelState(
+          ConnectivityStateInfo.forNonError(ConnectivityState.READY));
+    }
+    return latestPicker[0];
+  }
+
+  private static long percentile(long[] sortedSamples, double quantile) {
+    if (sortedSamples.length == 0) {
+      return 0;
+    }
+    return sortedSamples[(int) Math.min(sortedSamples.length - 1, sortedSamples.length * quantile)];
+  }
+
+  private static final class Completion implements Comparable<Completion> {
+    final long time;
+    final int backend;
+    final ClientStreamTracer tracer;
+
+    Completion(long time, int backend, ClientStreamTracer tracer) {
+      this.time = time;
+      this.backend = backend;
+      this.tracer = tracer;
+    }
+
+    @Override
+    public int compareTo(Completion other) {
+      return Long.compare(time, other.time);
+    }
+  }
+
+  private static final class FakeSubchannel extends Subchannel {
+    final int index;
+    final List<EquivalentAddressGroup> addresses;
+    Attributes attributes = Attributes.newBuilder()
+        .set(LeastRequestLoadBalancer.IN_FLIGHTS, new AtomicInteger())
+        .build();
+    SubchannelStateListener listener;
+
+    FakeSubchannel(int index) {
+      this.index = index;
+      this.addresses = Arrays.asList(new EquivalentAddressGroup(
+          InetSocketAddress.createUnresolved("backend" + index, 443)));
+    }
+
+    @Override
+    public void start(SubchannelStateListener listener) {
+      this.listener = listener;
+    }
+
+    @Override
+    public void shutdown() {}
+
+    @Override
+    public void requestConnection() {}
+
+    @Override
+    public List<EquivalentAddressGroup> getAllAddresses() {
+      return addresses;
+    }
+
+    @Override
+    public Attributes getAttributes() {
+      return attributes;
+    }
+  }
+}
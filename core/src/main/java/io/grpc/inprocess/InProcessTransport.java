@@ -26,6 +26,7 @@ import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 import io.grpc.Attributes;
 import io.grpc.CallOptions;
+import io.grpc.CompressionPolicy;
 import io.grpc.Compressor;
 import io.grpc.Deadline;
 import io.grpc.Decompressor;
@@ -622,6 +623,9 @@ final class InProcessTransport implements ServerTransport, ConnectionClientTrans
         // noop
       }
 
+      @Override
+      public void setCompressionPolicy(CompressionPolicy policy, String fullMethodName) {}
+
       @Override
       public void optimizeForDirectExecutor() {}
 
@@ -797,6 +801,9 @@ final class InProcessTransport implements ServerTransport, ConnectionClientTrans
       @Override
       public void setMessageCompression(boolean enable) {}
 
+      @Override
+      public void setCompressionPolicy(CompressionPolicy policy, String fullMethodName) {}
+
       @Override
       public void setAuthority(String string) {
         InProcessStream.this.authority = string;
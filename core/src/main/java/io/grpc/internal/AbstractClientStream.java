@@ -29,6 +29,7 @@ import com.google.common.io.ByteStreams;
 import io.grpc.Attributes;
 import io.grpc.CallOptions;
 import io.grpc.Codec;
+import io.grpc.CompressionPolicy;
 import io.grpc.Compressor;
 import io.grpc.Deadline;
 import io.grpc.Decompressor;
@@ -537,6 +538,9 @@ public abstract class AbstractClientStream extends AbstractStream
       return this;
     }
 
+    @Override
+    public void setCompressionPolicy(CompressionPolicy policy, String fullMethodName) {}
+
     // TODO(zsurocking): support this
     @Override
     public void setMaxOutboundMessageSize(int maxSize) {}
@@ -24,12 +24,14 @@ import com.google.common.util.concurrent.MoreExecutors;
 import io.grpc.Attributes;
 import io.grpc.BinaryLog;
 import io.grpc.ClientInterceptor;
+import io.grpc.CompressionPolicy;
 import io.grpc.CompressorRegistry;
 import io.grpc.DecompressorRegistry;
 import io.grpc.EquivalentAddressGroup;
 import io.grpc.InternalChannelz;
 import io.grpc.ManagedChannel;
 import io.grpc.ManagedChannelBuilder;
+import io.grpc.MethodDescriptor;
 import io.grpc.NameResolver;
 import io.grpc.NameResolverRegistry;
 import io.grpc.ProxyDetector;
@@ -90,6 +92,9 @@ public abstract class AbstractManagedChannelImplBuilder
   private static final ObjectPool<? extends Executor> DEFAULT_EXECUTOR_POOL =
       SharedResourcePool.forResource(GrpcUtil.SHARED_CHANNEL_EXECUTOR);
 
+  private static final ObjectPool<? extends Executor> VIRTUAL_THREAD_EXECUTOR_POOL =
+      SharedResourcePool.forResource(GrpcUtil.SHARED_VIRTUAL_THREAD_EXECUTOR);
+
   private static final DecompressorRegistry DEFAULT_DECOMPRESSOR_REGISTRY =
       DecompressorRegistry.getDefaultInstance();
 
@@ -129,6 +134,12 @@ public abstract class AbstractManagedChannelImplBuilder
 
   CompressorRegistry compressorRegistry = DEFAULT_COMPRESSOR_REGISTRY;
 
+  @Nullable
+  CompressionPolicy compressionPolicy;
+
+  // Negative to use SerializingExecutor
+  int callExecutorSpinIterations = -1;
+
   long idleTimeoutMillis = IDLE_MODE_DEFAULT_TIMEOUT_MILLIS;
 
   int maxRetryAttempts = 5;
@@ -143,6 +154,11 @@ public abstract class AbstractManagedChannelImplBuilder
 
   InternalChannelz channelz = InternalChannelz.instance();
   int maxTraceEvents;
+  int maxConnectionsPerSubchannel = 1;
+  // 0 means warm-up is disabled
+  int warmUpConnections;
+  @Nullable
+  ChannelWarmUp.WarmUpCall<?> warmUpCall;
 
   @Nullable
   Map<String, ?> defaultServiceConfig;
@@ -222,6 +238,12 @@ public abstract class AbstractManagedChannelImplBuilder
     return thisT();
   }
 
+  @Override
+  public final T virtualThreadExecutor() {
+    this.executorPool = VIRTUAL_THREAD_EXECUTOR_POOL;
+    return thisT();
+  }
+
   @Override
   public final T offloadExecutor(Executor executor) {
     if (executor != null) {
@@ -293,6 +315,28 @@ public abstract class AbstractManagedChannelImplBuilder
     return thisT();
   }
 
+  @Override
+  public final T compressionPolicy(@Nullable CompressionPolicy policy) {
+    this.compressionPolicy = policy;
+    return thisT();
+  }
+
+  /**
+   * Serializes the callbacks of each call with {@link MpscSerializingExecutor} instead of {@link
+   * SerializingExecutor}. Its queue allocates once per batch of tasks instead of once per task, and
+   * after draining it polls up to {@code spinIterations} more times before handing its thread back
+   * to the executor, which avoids resubmitting itself when callbacks arrive in quick succession.
+   * Spinning burns CPU on an executor thread, so keep it small. Has no effect when using {@link
+   * #directExecutor()}.
+   *
+   * @param spinIterations how many times to poll an empty queue before releasing the thread
+   */
+  public final T lockFreeCallExecutor(int spinIterations) {
+    checkArgument(spinIterations >= 0, "spinIterations must not be negative");
+    this.callExecutorSpinIterations = spinIterations;
+    return thisT();
+  }
+
   @Override
   public final T userAgent(@Nullable String userAgent) {
     this.userAgent = userAgent;
@@ -371,6 +415,29 @@ public abstract class AbstractManagedChannelImplBuilder
     return thisT();
   }
 
+  @Override
+  public T maxConnectionsPerSubchannel(int maxConnections) {
+    checkArgument(maxConnections > 0, "maxConnections must be positive");
+    this.maxConnectionsPerSubchannel = maxConnections;
+    return thisT();
+  }
+
+  @Override
+  public T warmUp(int connectionsPerSubchannel) {
+    checkArgument(connectionsPerSubchannel > 0, "connectionsPerSubchannel must be positive");
+    this.warmUpConnections = connectionsPerSubchannel;
+    return thisT();
+  }
+
+  @Override
+  public <ReqT> T warmUpCall(MethodDescriptor<ReqT, ?> method, ReqT request) {
+    this.warmUpCall = new ChannelWarmUp.WarmUpCall<>(method, request);
+    if (warmUpConnections == 0) {
+      warmUpConnections = 1;
+    }
+    return thisT();
+  }
+
   @Override
   public T proxyDetector(@Nullable ProxyDetector proxyDetector) {
     this.proxyDetector = proxyDetector;
@@ -509,14 +576,17 @@ public abstract class AbstractManagedChannelImplBuilder
 
   @Override
   public ManagedChannel build() {
-    return new ManagedChannelOrphanWrapper(new ManagedChannelImpl(
+    ManagedChannelImpl channel = new ManagedChannelImpl(
         this,
         buildTransportFactory(),
         new ExponentialBackoffPolicy.Provider(),
         SharedResourcePool.forResource(GrpcUtil.SHARED_CHANNEL_EXECUTOR),
         GrpcUtil.STOPWATCH_SUPPLIER,
         getEffectiveInterceptors(),
-        TimeProvider.SYSTEM_TIME_PROVIDER));
+        TimeProvider.SYSTEM_TIME_PROVIDER);
+    // Not from the constructor, so that warm-up never sees a partly constructed channel.
+    channel.startWarmUp();
+    return new ManagedChannelOrphanWrapper(channel);
   }
 
   // Temporarily disable retry when stats or tracing is enabled to avoid breakage, until we know
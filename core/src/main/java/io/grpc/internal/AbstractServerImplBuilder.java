@@ -23,6 +23,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.util.concurrent.MoreExecutors;
 import io.grpc.BinaryLog;
 import io.grpc.BindableService;
+import io.grpc.CompressionPolicy;
 import io.grpc.CompressorRegistry;
 import io.grpc.Context;
 import io.grpc.Deadline;
@@ -64,6 +65,8 @@ public abstract class AbstractServerImplBuilder<T extends AbstractServerImplBuil
   // defaults
   private static final ObjectPool<? extends Executor> DEFAULT_EXECUTOR_POOL =
       SharedResourcePool.forResource(GrpcUtil.SHARED_CHANNEL_EXECUTOR);
+  private static final ObjectPool<? extends Executor> VIRTUAL_THREAD_EXECUTOR_POOL =
+      SharedResourcePool.forResource(GrpcUtil.SHARED_VIRTUAL_THREAD_EXECUTOR);
   private static final HandlerRegistry DEFAULT_FALLBACK_REGISTRY = new DefaultFallbackRegistry();
   private static final DecompressorRegistry DEFAULT_DECOMPRESSOR_REGISTRY =
       DecompressorRegistry.getDefaultInstance();
@@ -81,6 +84,10 @@ public abstract class AbstractServerImplBuilder<T extends AbstractServerImplBuil
   ObjectPool<? extends Executor> executorPool = DEFAULT_EXECUTOR_POOL;
   DecompressorRegistry decompressorRegistry = DEFAULT_DECOMPRESSOR_REGISTRY;
   CompressorRegistry compressorRegistry = DEFAULT_COMPRESSOR_REGISTRY;
+  @Nullable
+  CompressionPolicy compressionPolicy;
+  // Negative to use SerializingExecutor
+  int callExecutorSpinIterations = -1;
   long handshakeTimeoutMillis = DEFAULT_HANDSHAKE_TIMEOUT_MILLIS;
   Deadline.Ticker ticker = Deadline.getSystemTicker();
   private boolean statsEnabled = true;
@@ -104,6 +111,12 @@ public abstract class AbstractServerImplBuilder<T extends AbstractServerImplBuil
     return thisT();
   }
 
+  @Override
+  public final T virtualThreadExecutor() {
+    this.executorPool = VIRTUAL_THREAD_EXECUTOR_POOL;
+    return thisT();
+  }
+
   @Override
   public final T addService(ServerServiceDefinition service) {
     registryBuilder.addService(checkNotNull(service, "service"));
@@ -151,6 +164,28 @@ public abstract class AbstractServerImplBuilder<T extends AbstractServerImplBuil
     return thisT();
   }
 
+  @Override
+  public final T compressionPolicy(@Nullable CompressionPolicy policy) {
+    this.compressionPolicy = policy;
+    return thisT();
+  }
+
+  /**
+   * Serializes the callbacks of each call with {@link MpscSerializingExecutor} instead of {@link
+   * SerializingExecutor}. Its queue allocates once per batch of tasks instead of once per task, and
+   * after draining it polls up to {@code spinIterations} more times before handing its thread back
+   * to the executor, which avoids resubmitting itself when callbacks arrive in quick succession.
+   * Spinning burns CPU on an executor thread, so keep it small. Has no effect when using {@link
+   * #directExecutor()}.
+   *
+   * @param spinIterations how many times to poll an empty queue before releasing the thread
+   */
+  public final T lockFreeCallExecutor(int spinIterations) {
+    checkArgument(spinIterations >= 0, "spinIterations must not be negative");
+    this.callExecutorSpinIterations = spinIterations;
+    return thisT();
+  }
+
   @Override
   public final T handshakeTimeout(long timeout, TimeUnit unit) {
     checkArgument(timeout > 0, "handshake timeout is %s, but must be positive", timeout);
@@ -16,11 +16,13 @@
 
 package io.grpc.internal;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 
 import com.google.common.annotations.VisibleForTesting;
 import io.grpc.Codec;
+import io.grpc.CompressionPolicy;
 import io.grpc.Compressor;
 import io.grpc.Decompressor;
 import io.perfmark.Link;
@@ -52,6 +54,11 @@ public abstract class AbstractStream implements Stream {
     framer().setMessageCompression(enable);
   }
 
+  @Override
+  public final void setCompressionPolicy(CompressionPolicy policy, String fullMethodName) {
+    framer().setCompressionPolicy(policy, fullMethodName);
+  }
+
   @Override
   public final void request(int numMessages) {
     transportState().requestMessagesFromDeframer(numMessages);
@@ -157,15 +164,34 @@ public abstract class AbstractStream implements Stream {
           maxMessageSize,
           statsTraceCtx,
           transportTracer);
+      // Each producer handed to the listener costs an executor hop, so deliver everything that
+      // is available at once.
+      rawDeframer.setBatchDelivery(true);
       // TODO(#7168): use MigratingThreadDeframer when enabling retry doesn't break.
       deframer = rawDeframer;
     }
 
     final void optimizeForDirectExecutor() {
       rawDeframer.setListener(this);
+      // With a direct executor there is no hop to save, and delivering each message as soon as it
+      // is deframed lets the application process it sooner.
+      rawDeframer.setBatchDelivery(false);
+      // Messages are read on the transport thread, which must never wait for more bytes.
+      rawDeframer.setStreamingDecompression(null, -1);
       deframer = rawDeframer;
     }
 
+    /**
+     * Lets the application start reading compressed messages of at least {@code minMessageSize}
+     * bytes while they are still arriving, instead of after they have been fully buffered. This
+     * has no effect if the stream is later optimized for a direct executor. Must be called from
+     * the transport thread before any data is deframed.
+     */
+    public final void setStreamingDecompressionThreshold(int minMessageSize) {
+      checkArgument(minMessageSize > 0, "minMessageSize must be positive");
+      rawDeframer.setStreamingDecompression(this, minMessageSize);
+    }
+
     protected void setFullStreamDecompressor(GzipInflatingBuffer fullStreamDecompressor) {
       rawDeframer.setFullStreamDecompressor(fullStreamDecompressor);
       deframer = new ApplicationThreadDeframer(this, this, rawDeframer);
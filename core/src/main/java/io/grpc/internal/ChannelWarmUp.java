@@ -0,0 +1,118 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.ConnectivityState;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import javax.annotation.Nullable;
+
+/**
+ * Drives the warm-up of a channel built with {@link ManagedChannelBuilder#warmUp}: asks the channel
+ * to connect, waits for it to become READY and then sends the warm-up call, if any. Keeping the
+ * configured number of connections open is left to {@link InternalSubchannel}.
+ */
+final class ChannelWarmUp {
+  private final ManagedChannel channel;
+  @Nullable
+  private final WarmUpCall<?> warmUpCall;
+  private final SettableFuture<Void> future = SettableFuture.create();
+
+  private ChannelWarmUp(ManagedChannel channel, @Nullable WarmUpCall<?> warmUpCall) {
+    this.channel = checkNotNull(channel, "channel");
+    this.warmUpCall = warmUpCall;
+  }
+
+  /**
+   * Starts warming up {@code channel}, returning a future that completes once it is warm.
+   */
+  static ListenableFuture<Void> start(ManagedChannel channel, @Nullable WarmUpCall<?> warmUpCall) {
+    ChannelWarmUp warmUp = new ChannelWarmUp(channel, warmUpCall);
+    warmUp.handleState(channel.getState(true));
+    return warmUp.future;
+  }
+
+  private void handleState(ConnectivityState state) {
+    switch (state) {
+      case READY:
+        if (warmUpCall == null) {
+          future.set(null);
+        } else {
+          sendCall(warmUpCall);
+        }
+        return;
+      case SHUTDOWN:
+        future.setException(
+            Status.UNAVAILABLE.withDescription("Channel shut down while warming up").asException());
+        return;
+      default:
+        // Keeps waiting through connection failures, the channel reconnects with backoff.
+        channel.notifyWhenStateChanged(state, new Runnable() {
+          @Override
+          public void run() {
+            // Requests a connection again if the channel went idle meanwhile.
+            handleState(channel.getState(true));
+          }
+        });
+    }
+  }
+
+  private <ReqT> void sendCall(WarmUpCall<ReqT> warmUpCall) {
+    sendCall(warmUpCall.method, warmUpCall.request);
+  }
+
+  private <ReqT, RespT> void sendCall(MethodDescriptor<ReqT, RespT> method, ReqT request) {
+    ClientCall<ReqT, RespT> call = channel.newCall(method, CallOptions.DEFAULT.withWaitForReady());
+    call.start(new ClientCall.Listener<RespT>() {
+      @Override
+      public void onClose(Status status, Metadata trailers) {
+        if (status.isOk()) {
+          future.set(null);
+        } else {
+          future.setException(status.asException(trailers));
+        }
+      }
+    }, new Metadata());
+    // The response is discarded. Asks for one more, as ClientCalls does, so that a misbehaving
+    // server sending two can't stall the call.
+    call.request(2);
+    call.sendMessage(request);
+    call.halfClose();
+  }
+
+  /**
+   * The call set by {@link ManagedChannelBuilder#warmUpCall}.
+   */
+  static final class WarmUpCall<ReqT> {
+    final MethodDescriptor<ReqT, ?> method;
+    final ReqT request;
+
+    WarmUpCall(MethodDescriptor<ReqT, ?> method, ReqT request) {
+      this.method = checkNotNull(method, "method");
+      this.request = request;
+    }
+  }
+}
@@ -34,6 +34,7 @@ import io.grpc.Attributes;
 import io.grpc.CallOptions;
 import io.grpc.ClientCall;
 import io.grpc.Codec;
+import io.grpc.CompressionPolicy;
 import io.grpc.Compressor;
 import io.grpc.CompressorRegistry;
 import io.grpc.Context;
@@ -93,6 +94,8 @@ final class ClientCallImpl<ReqT, RespT> extends ClientCall<ReqT, RespT> {
   private boolean fullStreamDecompression;
   private DecompressorRegistry decompressorRegistry = DecompressorRegistry.getDefaultInstance();
   private CompressorRegistry compressorRegistry = CompressorRegistry.getDefaultInstance();
+  @Nullable
+  private CompressionPolicy compressionPolicy;
   private volatile ScheduledFuture<?> deadlineCancellationNotifyApplicationFuture;
   private volatile ScheduledFuture<?> deadlineCancellationSendToServerFuture;
   private boolean observerClosed = false;
@@ -102,6 +105,20 @@ final class ClientCallImpl<ReqT, RespT> extends ClientCall<ReqT, RespT> {
       ClientStreamProvider clientStreamProvider,
       ScheduledExecutorService deadlineCancellationExecutor,
       CallTracer channelCallsTracer) {
+    this(method, executor, callOptions, clientStreamProvider, deadlineCancellationExecutor,
+        channelCallsTracer, -1);
+  }
+
+  /**
+   * Creates a call whose callbacks are serialized with {@link MpscSerializingExecutor} spinning
+   * {@code callExecutorSpinIterations} times, or with {@link SerializingExecutor} if negative.
+   */
+  ClientCallImpl(
+      MethodDescriptor<ReqT, RespT> method, Executor executor, CallOptions callOptions,
+      ClientStreamProvider clientStreamProvider,
+      ScheduledExecutorService deadlineCancellationExecutor,
+      CallTracer channelCallsTracer,
+      int callExecutorSpinIterations) {
     this.method = method;
     // TODO(carl-mastrangelo): consider moving this construction to ManagedChannelImpl.
     this.tag = PerfMark.createTag(method.getFullMethodName(), System.identityHashCode(this));
@@ -111,9 +128,12 @@ final class ClientCallImpl<ReqT, RespT> extends ClientCall<ReqT, RespT> {
     if (executor == directExecutor()) {
       this.callExecutor = new SerializeReentrantCallsDirectExecutor();
       callExecutorIsDirect = true;
-    } else {
+    } else if (callExecutorSpinIterations < 0) {
       this.callExecutor = new SerializingExecutor(executor);
       callExecutorIsDirect = false;
+    } else {
+      this.callExecutor = new MpscSerializingExecutor(executor, callExecutorSpinIterations);
+      callExecutorIsDirect = false;
     }
     this.channelCallsTracer = channelCallsTracer;
     // Propagate the context from the thread which initiated the call to all callbacks.
@@ -170,6 +190,11 @@ final class ClientCallImpl<ReqT, RespT> extends ClientCall<ReqT, RespT> {
     return this;
   }
 
+  ClientCallImpl<ReqT, RespT> setCompressionPolicy(@Nullable CompressionPolicy compressionPolicy) {
+    this.compressionPolicy = compressionPolicy;
+    return this;
+  }
+
   @VisibleForTesting
   static void prepareHeaders(
       Metadata headers,
@@ -262,6 +287,9 @@ final class ClientCallImpl<ReqT, RespT> extends ClientCall<ReqT, RespT> {
       stream.setDeadline(effectiveDeadline);
     }
     stream.setCompressor(compressor);
+    if (compressionPolicy != null) {
+      stream.setCompressionPolicy(compressionPolicy, method.getFullMethodName());
+    }
     if (fullStreamDecompression) {
       stream.setFullStreamDecompression(fullStreamDecompression);
     }
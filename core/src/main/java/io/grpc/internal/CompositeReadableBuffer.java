@@ -20,8 +20,9 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
+import java.nio.InvalidMarkException;
 import java.util.ArrayDeque;
-import java.util.Queue;
+import java.util.Deque;
 
 /**
  * A {@link ReadableBuffer} that is composed of 0 or more {@link ReadableBuffer}s. This provides a
@@ -29,12 +30,15 @@ import java.util.Queue;
  *
  * <p>When a buffer is added to a composite, its life cycle is controlled by the composite. Once
  * the composite has read past the end of a given buffer, that buffer is automatically closed and
- * removed from the composite.
+ * removed from the composite, unless the composite is {@linkplain #mark marked}.
  */
 public class CompositeReadableBuffer extends AbstractReadableBuffer {
 
   private int readableBytes;
-  private final Queue<ReadableBuffer> buffers = new ArrayDeque<>();
+  private final Deque<ReadableBuffer> buffers = new ArrayDeque<>();
+  // Buffers read past since the mark, kept open so that reset() can return to them
+  private final Deque<ReadableBuffer> rewindableBuffers = new ArrayDeque<>();
+  private boolean marked;
 
   /**
    * Adds a new {@link ReadableBuffer} at the end of the buffer list. After a buffer is added, it is
@@ -155,11 +159,72 @@ public class CompositeReadableBuffer extends AbstractReadableBuffer {
     return newBuffer;
   }
 
+  @Override
+  public boolean markSupported() {
+    for (ReadableBuffer buffer : buffers) {
+      if (!buffer.markSupported()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void mark() {
+    while (!rewindableBuffers.isEmpty()) {
+      rewindableBuffers.remove().close();
+    }
+    marked = true;
+    ReadableBuffer buffer = buffers.peek();
+    if (buffer != null) {
+      buffer.mark();
+    }
+  }
+
+  @Override
+  public void reset() {
+    if (!marked) {
+      throw new InvalidMarkException();
+    }
+    ReadableBuffer buffer = buffers.peek();
+    if (buffer != null) {
+      int previousReadableBytes = buffer.readableBytes();
+      buffer.reset();
+      readableBytes += buffer.readableBytes() - previousReadableBytes;
+    }
+    while ((buffer = rewindableBuffers.pollLast()) != null) {
+      buffer.reset();
+      buffers.addFirst(buffer);
+      readableBytes += buffer.readableBytes();
+    }
+  }
+
+  @Override
+  public boolean byteBufferSupported() {
+    for (ReadableBuffer buffer : buffers) {
+      if (!buffer.byteBufferSupported()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public ByteBuffer getByteBuffer() {
+    while (!buffers.isEmpty() && buffers.peek().readableBytes() == 0) {
+      advanceBufferIfNecessary();
+    }
+    return buffers.isEmpty() ? null : buffers.peek().getByteBuffer();
+  }
+
   @Override
   public void close() {
     while (!buffers.isEmpty()) {
       buffers.remove().close();
     }
+    while (!rewindableBuffers.isEmpty()) {
+      rewindableBuffers.remove().close();
+    }
   }
 
   /**
@@ -199,7 +264,15 @@ public class CompositeReadableBuffer extends AbstractReadableBuffer {
   private void advanceBufferIfNecessary() {
     ReadableBuffer buffer = buffers.peek();
     if (buffer.readableBytes() == 0) {
-      buffers.remove().close();
+      if (marked) {
+        rewindableBuffers.add(buffers.remove());
+        ReadableBuffer next = buffers.peek();
+        if (next != null) {
+          next.mark();
+        }
+      } else {
+        buffers.remove().close();
+      }
     }
   }
 
@@ -21,6 +21,7 @@ import static com.google.common.base.Preconditions.checkState;
 
 import com.google.common.annotations.VisibleForTesting;
 import io.grpc.Attributes;
+import io.grpc.CompressionPolicy;
 import io.grpc.Compressor;
 import io.grpc.Deadline;
 import io.grpc.DecompressorRegistry;
@@ -402,6 +403,21 @@ class DelayedStream implements ClientStream {
     }
   }
 
+  @Override
+  public void setCompressionPolicy(
+      final CompressionPolicy policy, final String fullMethodName) {
+    if (passThrough) {
+      realStream.setCompressionPolicy(policy, fullMethodName);
+    } else {
+      delayOrExecute(new Runnable() {
+        @Override
+        public void run() {
+          realStream.setCompressionPolicy(policy, fullMethodName);
+        }
+      });
+    }
+  }
+
   @VisibleForTesting
   ClientStream getRealStream() {
     return realStream;
@@ -18,6 +18,7 @@ package io.grpc.internal;
 
 import com.google.common.base.MoreObjects;
 import io.grpc.Attributes;
+import io.grpc.CompressionPolicy;
 import io.grpc.Compressor;
 import io.grpc.Deadline;
 import io.grpc.DecompressorRegistry;
@@ -62,6 +63,11 @@ abstract class ForwardingClientStream implements ClientStream {
     delegate().setMessageCompression(enable);
   }
 
+  @Override
+  public void setCompressionPolicy(CompressionPolicy policy, String fullMethodName) {
+    delegate().setCompressionPolicy(policy, fullMethodName);
+  }
+
   @Override
   public void cancel(Status reason) {
     delegate().cancel(reason);
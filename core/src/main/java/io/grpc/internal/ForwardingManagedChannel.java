@@ -22,6 +22,7 @@ import io.grpc.ClientCall;
 import io.grpc.ConnectivityState;
 import io.grpc.ManagedChannel;
 import io.grpc.MethodDescriptor;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 abstract class ForwardingManagedChannel extends ManagedChannel {
@@ -88,6 +89,11 @@ abstract class ForwardingManagedChannel extends ManagedChannel {
     delegate.enterIdle();
   }
 
+  @Override
+  public Future<Void> getWarmUpFuture() {
+    return delegate.getWarmUpFuture();
+  }
+
   @Override
   public String toString() {
     return MoreObjects.toStringHelper(this).add("delegate", delegate).toString();
@@ -16,6 +16,7 @@
 
 package io.grpc.internal;
 
+import io.grpc.CompressionPolicy;
 import io.grpc.Compressor;
 import java.io.InputStream;
 
@@ -46,6 +47,11 @@ public interface Framer {
   /** Set the compressor used for compression. */
   Framer setCompressor(Compressor compressor);
 
+  /**
+   * Set the policy deciding whether to compress each message when compression is enabled.
+   */
+  void setCompressionPolicy(CompressionPolicy policy, String fullMethodName);
+
   /** Set a size limit for each outbound message. */ 
   void setMaxOutboundMessageSize(int maxSize);
 }
@@ -20,6 +20,7 @@ import io.grpc.Attributes;
 import io.grpc.EquivalentAddressGroup;
 import io.grpc.Grpc;
 import io.grpc.SecurityLevel;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Special attributes that are only useful to gRPC.
@@ -42,5 +43,15 @@ public final class GrpcAttributes {
   public static final Attributes.Key<Attributes> ATTR_CLIENT_EAG_ATTRS =
       Attributes.Key.create("io.grpc.internal.GrpcAttributes.clientEagAttrs");
 
+  /**
+   * Attribute key for the server's {@code SETTINGS_MAX_CONCURRENT_STREAMS}. The transport updates
+   * the value whenever the server sends new settings, and holds {@link Long#MAX_VALUE} while the
+   * server sets no limit. This is a client-side-only transport attribute. It is absent if the
+   * transport does not report the limit.
+   */
+  @Grpc.TransportAttr
+  public static final Attributes.Key<AtomicLong> ATTR_PEER_MAX_CONCURRENT_STREAMS =
+      Attributes.Key.create("io.grpc.internal.GrpcAttributes.peerMaxConcurrentStreams");
+
   private GrpcAttributes() {}
 }
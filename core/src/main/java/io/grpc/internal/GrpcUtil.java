@@ -538,6 +538,84 @@ public final class GrpcUtil {
         }
       };
 
+  @Nullable
+  private static final ThreadFactory VIRTUAL_THREAD_FACTORY =
+      createVirtualThreadFactory("grpc-virtual-executor-");
+
+  /**
+   * Returns a factory of virtual threads named with {@code prefix}, or {@code null} if this JVM
+   * doesn't support virtual threads. Reflection is used since they are only available in Java 21
+   * and later.
+   */
+  @Nullable
+  @VisibleForTesting
+  static ThreadFactory createVirtualThreadFactory(String prefix) {
+    try {
+      Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      builder = builderClass.getMethod("name", String.class, long.class)
+          .invoke(builder, prefix, 0L);
+      return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+    } catch (ClassNotFoundException e) {
+      return null;
+    } catch (NoSuchMethodException e) {
+      return null;
+    } catch (IllegalAccessException e) {
+      return null;
+    } catch (InvocationTargetException e) {
+      // Preview releases throw UnsupportedOperationException unless preview features are enabled.
+      log.log(Level.FINE, "Virtual threads are not available", e.getCause());
+      return null;
+    }
+  }
+
+  /**
+   * Returns {@code true} if {@link #SHARED_VIRTUAL_THREAD_EXECUTOR} runs tasks on virtual threads.
+   */
+  public static boolean isVirtualThreadSupported() {
+    return VIRTUAL_THREAD_FACTORY != null;
+  }
+
+  /**
+   * Shared executor starting a new virtual thread for every task. Falls back to the same kind of
+   * executor as {@link #SHARED_CHANNEL_EXECUTOR} if virtual threads are not supported.
+   */
+  public static final Resource<Executor> SHARED_VIRTUAL_THREAD_EXECUTOR =
+      new Resource<Executor>() {
+        private static final String NAME = "grpc-virtual-executor";
+        @Override
+        public Executor create() {
+          final ThreadFactory threadFactory = VIRTUAL_THREAD_FACTORY;
+          if (threadFactory == null) {
+            return SHARED_CHANNEL_EXECUTOR.create();
+          }
+          return new Executor() {
+            @Override
+            public void execute(Runnable command) {
+              threadFactory.newThread(command).start();
+            }
+
+            @Override
+            public String toString() {
+              return NAME;
+            }
+          };
+        }
+
+        @Override
+        public void close(Executor instance) {
+          // Virtual threads need no clean up once their task completes.
+          if (instance instanceof ExecutorService) {
+            ((ExecutorService) instance).shutdown();
+          }
+        }
+
+        @Override
+        public String toString() {
+          return NAME;
+        }
+      };
+
   /**
    * Shared single-threaded executor for managing channel timers.
    */
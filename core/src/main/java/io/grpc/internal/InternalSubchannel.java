@@ -55,6 +55,8 @@ import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 
@@ -75,6 +77,9 @@ final class InternalSubchannel implements InternalInstrumented<ChannelStats>, Tr
   private final CallTracer callsTracer;
   private final ChannelTracer channelTracer;
   private final ChannelLogger channelLogger;
+  private final int maxTransports;
+  // The number of transports kept open in READY state, even without streams.
+  private final int warmTransports;
 
   /**
    * All field must be mutated in the syncContext.
@@ -111,6 +116,15 @@ final class InternalSubchannel implements InternalInstrumented<ChannelStats>, Tr
 
   @Nullable
   private ScheduledHandle reconnectTask;
+
+  /**
+   * The policy to control back off between attempts to start a warm transport. Reset once one is
+   * READY.
+   */
+  @Nullable
+  private BackoffPolicy warmReconnectPolicy;
+  @Nullable
+  private ScheduledHandle warmReconnectTask;
   @Nullable
   private ScheduledHandle shutdownDueToUpdateTask;
   @Nullable
@@ -149,6 +163,19 @@ final class InternalSubchannel implements InternalInstrumented<ChannelStats>, Tr
   @Nullable
   private volatile ManagedClientTransport activeTransport;
 
+  /**
+   * The READY transports that new streams are spread across, starting with {@link
+   * #activeTransport}. Only maintained if {@link #maxTransports} is greater than 1.
+   */
+  private volatile List<CallTracingTransport> readyTransports = Collections.emptyList();
+
+  /**
+   * An additional transport to the current address, which is not ready yet. Only started in READY
+   * state, when the streams on {@link #readyTransports} approach the server's limit.
+   */
+  @Nullable
+  private volatile ConnectionClientTransport pendingExtraTransport;
+
   private volatile ConnectivityStateInfo state = ConnectivityStateInfo.forNonError(IDLE);
 
   private Status shutdownReason;
@@ -158,7 +185,7 @@ final class InternalSubchannel implements InternalInstrumented<ChannelStats>, Tr
       ClientTransportFactory transportFactory, ScheduledExecutorService scheduledExecutor,
       Supplier<Stopwatch> stopwatchSupplier, SynchronizationContext syncContext, Callback callback,
       InternalChannelz channelz, CallTracer callsTracer, ChannelTracer channelTracer,
-      InternalLogId logId, ChannelLogger channelLogger) {
+      InternalLogId logId, ChannelLogger channelLogger, int maxTransports, int warmTransports) {
     Preconditions.checkNotNull(addressGroups, "addressGroups");
     Preconditions.checkArgument(!addressGroups.isEmpty(), "addressGroups is empty");
     checkListHasNoNulls(addressGroups, "addressGroups contains null entry");
@@ -179,6 +206,11 @@ final class InternalSubchannel implements InternalInstrumented<ChannelStats>, Tr
     this.channelTracer = Preconditions.checkNotNull(channelTracer, "channelTracer");
     this.logId = Preconditions.checkNotNull(logId, "logId");
     this.channelLogger = Preconditions.checkNotNull(channelLogger, "channelLogger");
+    Preconditions.checkArgument(maxTransports > 0, "maxTransports must be positive");
+    this.maxTransports = maxTransports;
+    Preconditions.checkArgument(
+        warmTransports <= maxTransports, "warmTransports must not exceed maxTransports");
+    this.warmTransports = warmTransports;
   }
 
   ChannelLogger getChannelLogger() {
@@ -189,6 +221,9 @@ final class InternalSubchannel implements InternalInstrumented<ChannelStats>, Tr
   public ClientTransport obtainActiveTransport() {
     ClientTransport savedTransport = activeTransport;
     if (savedTransport != null) {
+      if (maxTransports > 1) {
+        return pickReadyTransport(savedTransport);
+      }
       return savedTransport;
     }
     syncContext.execute(new Runnable() {
@@ -204,6 +239,171 @@ final class InternalSubchannel implements InternalInstrumented<ChannelStats>, Tr
     return null;
   }
 
+  /**
+   * Returns the READY transport with the fewest active streams. Starts another transport if even
+   * that one is close to the server's limit on concurrent streams.
+   */
+  private ClientTransport pickReadyTransport(ClientTransport savedTransport) {
+    List<CallTracingTransport> transports = readyTransports;
+    CallTracingTransport leastLoaded = null;
+    for (CallTracingTransport transport : transports) {
+      if (leastLoaded == null || transport.activeStreams() < leastLoaded.activeStreams()) {
+        leastLoaded = transport;
+      }
+    }
+    if (leastLoaded == null) {
+      return savedTransport;
+    }
+    if (leastLoaded.isNearStreamLimit() && transports.size() < maxTransports
+        && pendingExtraTransport == null) {
+      syncContext.execute(new Runnable() {
+        @Override
+        public void run() {
+          maybeStartExtraTransport();
+        }
+      });
+    }
+    return leastLoaded;
+  }
+
+  private void maybeStartExtraTransport() {
+    syncContext.throwIfNotInThisSynchronizationContext();
+
+    if (state.getState() != READY || pendingExtraTransport != null
+        || readyTransports.size() >= maxTransports) {
+      return;
+    }
+    channelLogger.log(
+        ChannelLogLevel.INFO, "Streams near the server's limit, starting an extra transport");
+    pendingExtraTransport = startTransport();
+  }
+
+  /**
+   * Starts another transport if fewer than {@link #warmTransports} are READY. Starts them one at a
+   * time, each once the previous one is READY.
+   */
+  private void maybeStartWarmTransport() {
+    syncContext.throwIfNotInThisSynchronizationContext();
+
+    if (state.getState() != READY || pendingExtraTransport != null || warmReconnectTask != null
+        || readyTransportCount() >= warmTransports) {
+      return;
+    }
+    channelLogger.log(ChannelLogLevel.INFO, "Starting a warm transport");
+    pendingExtraTransport = startTransport();
+  }
+
+  /**
+   * Starts another warm transport after a backoff, once one failed to connect.
+   */
+  private void scheduleWarmTransportBackoff(Status status) {
+    syncContext.throwIfNotInThisSynchronizationContext();
+
+    if (state.getState() != READY || readyTransportCount() >= warmTransports) {
+      return;
+    }
+    if (warmReconnectPolicy == null) {
+      warmReconnectPolicy = backoffPolicyProvider.get();
+    }
+    long delayNanos = warmReconnectPolicy.nextBackoffNanos();
+    channelLogger.log(
+        ChannelLogLevel.INFO,
+        "Warm transport failed ({0}). Will retry after {1} ns",
+        printShortStatus(status), delayNanos);
+    warmReconnectTask = syncContext.schedule(
+        new Runnable() {
+          @Override
+          public void run() {
+            warmReconnectTask = null;
+            maybeStartWarmTransport();
+          }
+        },
+        delayNanos,
+        TimeUnit.NANOSECONDS,
+        scheduledExecutor);
+  }
+
+  /**
+   * Returns the number of READY transports. {@link #readyTransports} isn't maintained with a
+   * single transport, which is then {@link #activeTransport}.
+   */
+  private int readyTransportCount() {
+    if (maxTransports > 1) {
+      return readyTransports.size();
+    }
+    return activeTransport != null ? 1 : 0;
+  }
+
+  /**
+   * Shuts down the READY transports other than {@link #activeTransport}, and the pending extra
+   * transport if any.
+   */
+  private void shutdownExtraTransports(Status reason) {
+    syncContext.throwIfNotInThisSynchronizationContext();
+
+    for (CallTracingTransport transport : readyTransports) {
+      if (transport != activeTransport) {
+        transport.shutdown(reason);
+      }
+    }
+    readyTransports = Collections.emptyList();
+    if (pendingExtraTransport != null) {
+      pendingExtraTransport.shutdown(reason);
+      pendingExtraTransport = null;
+    }
+    if (warmReconnectTask != null) {
+      warmReconnectTask.cancel();
+      warmReconnectTask = null;
+    }
+    warmReconnectPolicy = null;
+  }
+
+  private void addReadyTransport(CallTracingTransport transport) {
+    transport.setPeerMaxConcurrentStreams(
+        transport.getAttributes().get(GrpcAttributes.ATTR_PEER_MAX_CONCURRENT_STREAMS));
+    List<CallTracingTransport> newTransports = new ArrayList<>(readyTransports);
+    newTransports.add(transport);
+    readyTransports = Collections.unmodifiableList(newTransports);
+  }
+
+  private boolean removeReadyTransport(ConnectionClientTransport transport) {
+    if (!readyTransports.contains(transport)) {
+      return false;
+    }
+    List<CallTracingTransport> newTransports = new ArrayList<>(readyTransports);
+    newTransports.remove(transport);
+    readyTransports = Collections.unmodifiableList(newTransports);
+    return true;
+  }
+
+  /**
+   * Closes an extra transport that just became idle, unless all the other READY transports are
+   * close to the server's limit on concurrent streams. A stream picked the transport just before
+   * may still be created on it; it is sent to {@link #activeTransport} instead.
+   */
+  private void maybeDrainExtraTransport(CallTracingTransport transport) {
+    syncContext.throwIfNotInThisSynchronizationContext();
+
+    if (transport == activeTransport || !readyTransports.contains(transport)
+        || readyTransports.size() <= warmTransports) {
+      return;
+    }
+    for (CallTracingTransport other : readyTransports) {
+      if (other != transport && !other.isNearStreamLimit()) {
+        if (!transport.tryDrain(activeTransport)) {
+          // A stream was created on it since it went idle
+          return;
+        }
+        removeReadyTransport(transport);
+        channelLogger.log(
+            ChannelLogLevel.INFO, "Draining idle extra transport {0}", transport.getLogId());
+        transport.shutdown(
+            Status.UNAVAILABLE.withDescription("InternalSubchannel drained idle extra transport"));
+        return;
+      }
+    }
+  }
+
   /**
    * Returns a READY transport if there is any, without trying to connect.
    */
@@ -227,6 +427,13 @@ final class InternalSubchannel implements InternalInstrumented<ChannelStats>, Tr
     if (addressIndex.isAtBeginning()) {
       connectingTimer.reset().start();
     }
+    pendingTransport = startTransport();
+  }
+
+  /**
+   * Starts a transport to the current address of {@link #addressIndex}.
+   */
+  private CallTracingTransport startTransport() {
     SocketAddress address = addressIndex.getCurrentAddress();
 
     HttpConnectProxiedSocketAddress proxiedAddr = null;
@@ -247,19 +454,19 @@ final class InternalSubchannel implements InternalInstrumented<ChannelStats>, Tr
     TransportLogger transportLogger = new TransportLogger();
     // In case the transport logs in the constructor, use the subchannel logId
     transportLogger.logId = getLogId();
-    ConnectionClientTransport transport =
+    CallTracingTransport transport =
         new CallTracingTransport(
             transportFactory
                 .newClientTransport(address, options, transportLogger), callsTracer);
     transportLogger.logId = transport.getLogId();
     channelz.addClientSocket(transport);
-    pendingTransport = transport;
     transports.add(transport);
     Runnable runnable = transport.start(new TransportListener(transport, address));
     if (runnable != null) {
       syncContext.executeLater(runnable);
     }
     channelLogger.log(ChannelLogLevel.INFO, "Started transport {0}", transportLogger.logId);
+    return transport;
   }
 
   /**
@@ -353,6 +560,9 @@ final class InternalSubchannel implements InternalInstrumented<ChannelStats>, Tr
           if (!addressIndex.seekTo(previousAddress)) {
             // Forced to drop the connection
             if (state.getState() == READY) {
+              shutdownExtraTransports(
+                  Status.UNAVAILABLE.withDescription(
+                      "InternalSubchannel closed extra transport due to address change"));
               savedTransport = activeTransport;
               activeTransport = null;
               addressIndex.reset();
@@ -410,6 +620,7 @@ final class InternalSubchannel implements InternalInstrumented<ChannelStats>, Tr
           return;
         }
         shutdownReason = reason;
+        shutdownExtraTransports(reason);
         savedActiveTransport = activeTransport;
         savedPendingTransport = pendingTransport;
         activeTransport = null;
@@ -457,11 +668,14 @@ final class InternalSubchannel implements InternalInstrumented<ChannelStats>, Tr
   }
 
   private void handleTransportInUseState(
-      final ConnectionClientTransport transport, final boolean inUse) {
+      final CallTracingTransport transport, final boolean inUse) {
     syncContext.execute(new Runnable() {
       @Override
       public void run() {
         inUseStateAggregator.updateObjectInUse(transport, inUse);
+        if (!inUse && maxTransports > 1) {
+          maybeDrainExtraTransport(transport);
+        }
       }
     });
   }
@@ -531,11 +745,11 @@ final class InternalSubchannel implements InternalInstrumented<ChannelStats>, Tr
 
   /** Listener for real transports. */
   private class TransportListener implements ManagedClientTransport.Listener {
-    final ConnectionClientTransport transport;
+    final CallTracingTransport transport;
     final SocketAddress address;
     boolean shutdownInitiated = false;
 
-    TransportListener(ConnectionClientTransport transport, SocketAddress address) {
+    TransportListener(CallTracingTransport transport, SocketAddress address) {
       this.transport = transport;
       this.address = address;
     }
@@ -555,7 +769,16 @@ final class InternalSubchannel implements InternalInstrumented<ChannelStats>, Tr
           } else if (pendingTransport == transport) {
             activeTransport = transport;
             pendingTransport = null;
+            if (maxTransports > 1) {
+              addReadyTransport(transport);
+            }
             gotoNonErrorState(READY);
+            maybeStartWarmTransport();
+          } else if (pendingExtraTransport == transport) {
+            pendingExtraTransport = null;
+            warmReconnectPolicy = null;
+            addReadyTransport(transport);
+            maybeStartWarmTransport();
           }
         }
       });
@@ -578,9 +801,24 @@ final class InternalSubchannel implements InternalInstrumented<ChannelStats>, Tr
             return;
           }
           if (activeTransport == transport) {
+            removeReadyTransport(transport);
+            if (!readyTransports.isEmpty()) {
+              // Stay READY with one of the extra transports
+              activeTransport = readyTransports.get(0);
+              maybeStartWarmTransport();
+              return;
+            }
+            shutdownExtraTransports(s);
             activeTransport = null;
             addressIndex.reset();
             gotoNonErrorState(IDLE);
+          } else if (pendingExtraTransport == transport) {
+            pendingExtraTransport = null;
+            scheduleWarmTransportBackoff(s);
+          } else if (removeReadyTransport(transport)) {
+            channelLogger.log(
+                ChannelLogLevel.INFO, "Extra transport {0} closed", transport.getLogId());
+            maybeStartWarmTransport();
           } else if (pendingTransport == transport) {
             Preconditions.checkState(state.getState() == CONNECTING,
                 "Expected state is CONNECTING, actual state is %s", state.getState());
@@ -652,8 +890,22 @@ final class InternalSubchannel implements InternalInstrumented<ChannelStats>, Tr
 
   @VisibleForTesting
   static final class CallTracingTransport extends ForwardingConnectionClientTransport {
+    // Value of activeStreams once the transport has been drained
+    private static final int DRAINED = -1;
+
     private final ConnectionClientTransport delegate;
     private final CallTracer callTracer;
+    /**
+     * Streams created and not yet closed, or {@link #DRAINED}. Streams are counted from their
+     * creation rather than their start, so the transport can't be drained between a pick and the
+     * stream it was picked for. A stream that is never started stays counted.
+     */
+    private final AtomicInteger activeStreams = new AtomicInteger();
+    // The server's SETTINGS_MAX_CONCURRENT_STREAMS as updated by the transport, if it reports it
+    @Nullable
+    private volatile AtomicLong peerMaxConcurrentStreams;
+    // Where streams created after draining go
+    private volatile ClientTransport replacement;
 
     private CallTracingTransport(ConnectionClientTransport delegate, CallTracer callTracer) {
       this.delegate = delegate;
@@ -665,10 +917,50 @@ final class InternalSubchannel implements InternalInstrumented<ChannelStats>, Tr
       return delegate;
     }
 
+    int activeStreams() {
+      return activeStreams.get();
+    }
+
+    void setPeerMaxConcurrentStreams(@Nullable AtomicLong peerMaxConcurrentStreams) {
+      this.peerMaxConcurrentStreams = peerMaxConcurrentStreams;
+    }
+
+    boolean isNearStreamLimit() {
+      AtomicLong limit = peerMaxConcurrentStreams;
+      if (limit == null) {
+        return false;
+      }
+      long maxConcurrentStreams = limit.get();
+      // Leave headroom, so an extra transport can connect before new streams have to wait
+      return activeStreams.get() >= maxConcurrentStreams - maxConcurrentStreams / 4;
+    }
+
+    /**
+     * Stops taking streams if there are none, sending streams created afterwards to {@code
+     * replacement}. Returns {@code false}, leaving the transport as it is, if it has streams.
+     */
+    boolean tryDrain(ClientTransport replacement) {
+      this.replacement = replacement;
+      return activeStreams.compareAndSet(0, DRAINED);
+    }
+
     @Override
     public ClientStream newStream(
         MethodDescriptor<?, ?> method, Metadata headers, CallOptions callOptions) {
-      final ClientStream streamDelegate = super.newStream(method, headers, callOptions);
+      int streams;
+      do {
+        streams = activeStreams.get();
+        if (streams == DRAINED) {
+          return replacement.newStream(method, headers, callOptions);
+        }
+      } while (!activeStreams.compareAndSet(streams, streams + 1));
+      final ClientStream streamDelegate;
+      try {
+        streamDelegate = super.newStream(method, headers, callOptions);
+      } catch (RuntimeException e) {
+        activeStreams.decrementAndGet();
+        throw e;
+      }
       return new ForwardingClientStream() {
         @Override
         protected ClientStream delegate() {
@@ -686,6 +978,7 @@ final class InternalSubchannel implements InternalInstrumented<ChannelStats>, Tr
 
             @Override
             public void closed(Status status, Metadata trailers) {
+              activeStreams.decrementAndGet();
               callTracer.reportCallEnded(status.isOk());
               super.closed(status, trailers);
             }
@@ -693,6 +986,7 @@ final class InternalSubchannel implements InternalInstrumented<ChannelStats>, Tr
             @Override
             public void closed(
                 Status status, RpcProgress rpcProgress, Metadata trailers) {
+              activeStreams.decrementAndGet();
               callTracer.reportCallEnded(status.isOk());
               super.closed(status, rpcProgress, trailers);
             }
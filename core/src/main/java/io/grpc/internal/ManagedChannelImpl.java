@@ -40,6 +40,7 @@ import io.grpc.ClientCall;
 import io.grpc.ClientInterceptor;
 import io.grpc.ClientInterceptors;
 import io.grpc.ClientStreamTracer;
+import io.grpc.CompressionPolicy;
 import io.grpc.CompressorRegistry;
 import io.grpc.ConnectivityState;
 import io.grpc.ConnectivityStateInfo;
@@ -147,6 +148,13 @@ final class ManagedChannelImpl extends ManagedChannel implements
   private final ExecutorHolder offloadExecutorHolder;
   private final TimeProvider timeProvider;
   private final int maxTraceEvents;
+  private final int maxConnectionsPerSubchannel;
+  private final int warmUpConnections;
+  @Nullable
+  private final ChannelWarmUp.WarmUpCall<?> warmUpCall;
+  // Only null if warm-up is disabled. Set by startWarmUp().
+  @Nullable
+  private final SettableFuture<Void> warmUpFuture;
 
   @VisibleForTesting
   final SynchronizationContext syncContext = new SynchronizationContext(
@@ -165,6 +173,9 @@ final class ManagedChannelImpl extends ManagedChannel implements
 
   private final DecompressorRegistry decompressorRegistry;
   private final CompressorRegistry compressorRegistry;
+  @Nullable
+  private final CompressionPolicy compressionPolicy;
+  private final int callExecutorSpinIterations;
 
   private final Supplier<Stopwatch> stopwatchSupplier;
   /** The timout before entering idle mode. */
@@ -576,6 +587,8 @@ final class ManagedChannelImpl extends ManagedChannel implements
     this.scheduledExecutor =
         new RestrictedScheduledExecutor(transportFactory.getScheduledExecutorService());
     maxTraceEvents = builder.maxTraceEvents;
+    warmUpConnections = builder.warmUpConnections;
+    maxConnectionsPerSubchannel = Math.max(builder.maxConnectionsPerSubchannel, warmUpConnections);
     channelTracer = new ChannelTracer(
         logId, builder.maxTraceEvents, timeProvider.currentTimeNanos(),
         "Channel for '" + target + "'");
@@ -642,8 +655,9 @@ final class ManagedChannelImpl extends ManagedChannel implements
     }
     this.interceptorChannel = ClientInterceptors.intercept(channel, interceptors);
     this.stopwatchSupplier = checkNotNull(stopwatchSupplier, "stopwatchSupplier");
-    if (builder.idleTimeoutMillis == IDLE_TIMEOUT_MILLIS_DISABLE) {
-      this.idleTimeoutMillis = builder.idleTimeoutMillis;
+    if (builder.idleTimeoutMillis == IDLE_TIMEOUT_MILLIS_DISABLE || warmUpConnections > 0) {
+      // Going idle would close the connections warm-up keeps open.
+      this.idleTimeoutMillis = IDLE_TIMEOUT_MILLIS_DISABLE;
     } else {
       checkArgument(
           builder.idleTimeoutMillis
@@ -660,6 +674,8 @@ final class ManagedChannelImpl extends ManagedChannel implements
     this.fullStreamDecompression = builder.fullStreamDecompression;
     this.decompressorRegistry = checkNotNull(builder.decompressorRegistry, "decompressorRegistry");
     this.compressorRegistry = checkNotNull(builder.compressorRegistry, "compressorRegistry");
+    this.compressionPolicy = builder.compressionPolicy;
+    this.callExecutorSpinIterations = builder.callExecutorSpinIterations;
     this.userAgent = builder.userAgent;
 
     this.channelBufferLimit = builder.retryBufferSize;
@@ -683,6 +699,9 @@ final class ManagedChannelImpl extends ManagedChannel implements
       }
       handleServiceConfigUpdate();
     }
+
+    warmUpCall = builder.warmUpCall;
+    warmUpFuture = warmUpConnections > 0 ? SettableFuture.<Void>create() : null;
   }
 
   // May only be called in constructor or syncContext
@@ -897,10 +916,12 @@ final class ManagedChannelImpl extends ManagedChannel implements
           callOptions,
           transportProvider,
           terminated ? null : transportFactory.getScheduledExecutorService(),
-          channelCallTracer)
+          channelCallTracer,
+          callExecutorSpinIterations)
           .setFullStreamDecompression(fullStreamDecompression)
           .setDecompressorRegistry(decompressorRegistry)
-          .setCompressorRegistry(compressorRegistry);
+          .setCompressorRegistry(compressorRegistry)
+          .setCompressionPolicy(compressionPolicy);
     }
 
     @Override
@@ -1013,6 +1034,22 @@ final class ManagedChannelImpl extends ManagedChannel implements
     syncContext.execute(new PrepareToLoseNetworkRunnable());
   }
 
+  /**
+   * Starts warming up the channel if it was built with warm-up enabled. Called once the channel
+   * is fully constructed, as warm-up may connect and call into the channel right away.
+   */
+  void startWarmUp() {
+    if (warmUpFuture != null) {
+      warmUpFuture.setFuture(ChannelWarmUp.start(this, warmUpCall));
+    }
+  }
+
+  @Override
+  public ListenableFuture<Void> getWarmUpFuture() {
+    checkState(warmUpFuture != null, "Channel was not built with warm-up enabled");
+    return warmUpFuture;
+  }
+
   /**
    * A registry that prevents channel shutdown from killing existing retry attempts that are in
    * backoff.
@@ -1241,7 +1278,9 @@ final class ManagedChannelImpl extends ManagedChannel implements
           callTracerFactory.create(),
           subchannelTracer,
           subchannelLogId,
-          subchannelLogger);
+          subchannelLogger,
+          /* maxTransports= */ 1,
+          /* warmTransports= */ 0);
       oobChannelTracer.reportEvent(new ChannelTrace.Event.Builder()
           .setDescription("Child Subchannel created")
           .setSeverity(ChannelTrace.Event.Severity.CT_INFO)
@@ -1292,7 +1331,7 @@ final class ManagedChannelImpl extends ManagedChannel implements
         @Override
         public ManagedChannel build() {
           // TODO(creamsoup) prevent main channel to shutdown if oob channel is not terminated
-          return new ManagedChannelImpl(
+          ManagedChannelImpl channel = new ManagedChannelImpl(
                   this,
                   transportFactory,
                   backoffPolicyProvider,
@@ -1300,6 +1339,8 @@ final class ManagedChannelImpl extends ManagedChannel implements
                   stopwatchSupplier,
                   Collections.<ClientInterceptor>emptyList(),
                   timeProvider);
+          channel.startWarmUp();
+          return channel;
         }
       }
 
@@ -1614,7 +1655,9 @@ final class ManagedChannelImpl extends ManagedChannel implements
           callTracerFactory.create(),
           subchannelTracer,
           subchannelLogId,
-          subchannelLogger);
+          subchannelLogger,
+          maxConnectionsPerSubchannel,
+          warmUpConnections);
 
       channelTracer.reportEvent(new ChannelTrace.Event.Builder()
           .setDescription("Child Subchannel started")
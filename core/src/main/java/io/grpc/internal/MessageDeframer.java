@@ -28,8 +28,12 @@ import java.io.Closeable;
 import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.zip.DataFormatException;
 import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.NotThreadSafe;
 
 /**
@@ -44,6 +48,12 @@ public class MessageDeframer implements Closeable, Deframer {
   private static final int COMPRESSED_FLAG_MASK = 1;
   private static final int RESERVED_MASK = 0xFE;
   private static final int MAX_BUFFER_SIZE = 1024 * 1024 * 2;
+  private static final int NO_STREAMING_DECOMPRESSION = -1;
+  /**
+   * The maximum number of compressed bytes of a streamed message held by the deframer while the
+   * application has not read them yet. Further bytes are left to transport flow control.
+   */
+  private static final int MAX_STREAMING_BUFFERED_BYTES = 256 * 1024;
 
   /**
    * A listener of deframing events. These methods will be invoked from the deframing thread.
@@ -100,6 +110,14 @@ public class MessageDeframer implements Closeable, Deframer {
   private CompositeReadableBuffer unprocessed = new CompositeReadableBuffer();
   private long pendingDeliveries;
   private boolean inDelivery = false;
+  private boolean batchDelivery = false;
+  @Nullable
+  private List<InputStream> deliveryBatch;
+  private int streamingDecompressionThreshold = NO_STREAMING_DECOMPRESSION;
+  @Nullable
+  private ApplicationThreadDeframerListener.TransportExecutor streamingExecutor;
+  @Nullable
+  private StreamingBody streamingBody;
   private int currentMessageSeqNo = -1;
   private int inboundBodyWireSize;
 
@@ -131,6 +149,39 @@ public class MessageDeframer implements Closeable, Deframer {
     this.listener = listener;
   }
 
+  /**
+   * Enables or disables batch delivery. When enabled, all messages that can be deframed within the
+   * currently requested number of messages are handed to the listener through a single
+   * {@link StreamListener.MessageProducer}, instead of one producer per message. This allows the
+   * listener to drain them with a single executor hop.
+   */
+  void setBatchDelivery(boolean batchDelivery) {
+    this.batchDelivery = batchDelivery;
+  }
+
+  /**
+   * Enables streaming decompression. Compressed messages of at least {@code minMessageSize} bytes
+   * are delivered as soon as their header is read, and are inflated while the compressed bytes
+   * arrive instead of being buffered in full. At most {@link #MAX_STREAMING_BUFFERED_BYTES}
+   * compressed bytes are held per message; once that many are pending, the deframer stops
+   * consuming input until the application reads, which in turn holds back transport flow control.
+   *
+   * <p>Reads from a streamed message block until its bytes arrive, so this must not be used when
+   * messages are read on the transport thread. {@code transportExecutor} is used to resume
+   * deframing after the application has made room.
+   *
+   * @param minMessageSize the minimum compressed message size to stream, or {@code -1} to disable
+   */
+  void setStreamingDecompression(
+      @Nullable ApplicationThreadDeframerListener.TransportExecutor transportExecutor,
+      int minMessageSize) {
+    checkArgument(
+        minMessageSize == NO_STREAMING_DECOMPRESSION || transportExecutor != null,
+        "transportExecutor is required for streaming decompression");
+    this.streamingExecutor = transportExecutor;
+    this.streamingDecompressionThreshold = minMessageSize;
+  }
+
   @Override
   public void setMaxInboundMessageSize(int messageSize) {
     maxInboundMessageSize = messageSize;
@@ -214,6 +265,12 @@ public class MessageDeframer implements Closeable, Deframer {
       return;
     }
     boolean hasPartialMessage = nextFrame != null && nextFrame.readableBytes() > 0;
+    if (streamingBody != null) {
+      hasPartialMessage = true;
+      streamingBody.fail(
+          Status.INTERNAL.withDescription("Stream closed before the message was complete"));
+      streamingBody = null;
+    }
     try {
       if (fullStreamDecompressor != null) {
         hasPartialMessage = hasPartialMessage || fullStreamDecompressor.hasPartialData();
@@ -264,24 +321,35 @@ public class MessageDeframer implements Closeable, Deframer {
     }
     inDelivery = true;
     try {
-      // Process the uncompressed bytes.
-      while (!stopDelivery && pendingDeliveries > 0 && readRequiredBytes()) {
-        switch (state) {
-          case HEADER:
-            processHeader();
-            break;
-          case BODY:
-            // Read the body and deliver the message.
-            processBody();
-
-            // Since we've delivered a message, decrement the number of pending
-            // deliveries remaining.
-            pendingDeliveries--;
-            break;
-          default:
-            throw new AssertionError("Invalid state: " + state);
+      do {
+        // Process the uncompressed bytes.
+        while (!stopDelivery
+            && transferStreamingBody()
+            && pendingDeliveries > 0
+            && readRequiredBytes()) {
+          switch (state) {
+            case HEADER:
+              processHeader();
+              if (streamingBody != null) {
+                // The streamed message has already been delivered.
+                pendingDeliveries--;
+              }
+              break;
+            case BODY:
+              // Read the body and deliver the message.
+              processBody();
+
+              // Since we've delivered a message, decrement the number of pending
+              // deliveries remaining.
+              pendingDeliveries--;
+              break;
+            default:
+              throw new AssertionError("Invalid state: " + state);
+          }
         }
-      }
+        // The listener may have requested more messages while receiving the batch, so keep
+        // deframing until no further messages are produced.
+      } while (deliverBatch());
 
       if (stopDelivery) {
         close();
@@ -300,10 +368,31 @@ public class MessageDeframer implements Closeable, Deframer {
         close();
       }
     } finally {
+      // Messages deframed before a failure are still delivered ahead of the failure.
+      deliverBatch();
       inDelivery = false;
     }
   }
 
+  /**
+   * Hands the pending batch of messages, if any, to the listener.
+   *
+   * @return {@code true} if any messages were delivered.
+   */
+  private boolean deliverBatch() {
+    List<InputStream> batch = deliveryBatch;
+    if (batch == null) {
+      return false;
+    }
+    deliveryBatch = null;
+    if (batch.size() == 1) {
+      listener.messagesAvailable(new SingleMessageProducer(batch.get(0)));
+    } else {
+      listener.messagesAvailable(new BatchMessageProducer(batch));
+    }
+    return true;
+  }
+
   /**
    * Attempts to read the required bytes into nextFrame.
    *
@@ -396,6 +485,78 @@ public class MessageDeframer implements Closeable, Deframer {
     transportTracer.reportMessageReceived();
     // Continue reading the frame body.
     state = State.BODY;
+
+    if (compressedFlag
+        && streamingDecompressionThreshold != NO_STREAMING_DECOMPRESSION
+        && requiredLength >= streamingDecompressionThreshold
+        && decompressor != Codec.Identity.NONE
+        && fullStreamDecompressor == null) {
+      startStreamingBody();
+    }
+  }
+
+  /**
+   * Delivers the message whose header was just read, with a body that is filled by {@link
+   * #transferStreamingBody} as the compressed bytes arrive.
+   */
+  private void startStreamingBody() {
+    nextFrame.close();
+    nextFrame = null;
+    streamingBody = new StreamingBody(requiredLength);
+    deliverMessage(new SizeEnforcingInputStream(
+        new LazyDecompressingInputStream(decompressor, streamingBody),
+        maxInboundMessageSize,
+        statsTraceCtx));
+  }
+
+  /**
+   * Moves as many bytes as possible of the message being streamed, if any, to its body.
+   *
+   * @return {@code true} if no message is being streamed any longer.
+   */
+  private boolean transferStreamingBody() {
+    StreamingBody body = streamingBody;
+    if (body == null) {
+      return true;
+    }
+    int toTransfer =
+        Math.min(body.remainingLength, Math.min(unprocessed.readableBytes(), body.roomFor()));
+    if (toTransfer > 0) {
+      body.add(unprocessed.readBytes(toTransfer));
+      listener.bytesRead(toTransfer);
+      statsTraceCtx.inboundWireSize(toTransfer);
+      inboundBodyWireSize += toTransfer;
+    }
+    if (body.remainingLength > 0) {
+      return false;
+    }
+    body.finish();
+    streamingBody = null;
+    statsTraceCtx.inboundMessageRead(currentMessageSeqNo, inboundBodyWireSize, -1);
+    inboundBodyWireSize = 0;
+    state = State.HEADER;
+    requiredLength = HEADER_LENGTH;
+    return true;
+  }
+
+  /**
+   * Resumes deframing on the transport thread after the application has read from a streamed
+   * message that was holding back input.
+   */
+  private void resumeStreamingFromApplication() {
+    streamingExecutor.runOnTransportThread(new Runnable() {
+      @Override
+      public void run() {
+        if (isClosed()) {
+          return;
+        }
+        try {
+          deliver();
+        } catch (Throwable t) {
+          listener.deframeFailed(t);
+        }
+      }
+    });
   }
 
   /**
@@ -409,13 +570,24 @@ public class MessageDeframer implements Closeable, Deframer {
     inboundBodyWireSize = 0;
     InputStream stream = compressedFlag ? getCompressedBody() : getUncompressedBody();
     nextFrame = null;
-    listener.messagesAvailable(new SingleMessageProducer(stream));
+    deliverMessage(stream);
 
     // Done with this frame, begin processing the next header.
     state = State.HEADER;
     requiredLength = HEADER_LENGTH;
   }
 
+  private void deliverMessage(InputStream stream) {
+    if (batchDelivery) {
+      if (deliveryBatch == null) {
+        deliveryBatch = new ArrayList<>();
+      }
+      deliveryBatch.add(stream);
+    } else {
+      listener.messagesAvailable(new SingleMessageProducer(stream));
+    }
+  }
+
   private InputStream getUncompressedBody() {
     statsTraceCtx.inboundUncompressedSize(nextFrame.readableBytes());
     return ReadableBuffers.openStream(nextFrame, true);
@@ -439,6 +611,194 @@ public class MessageDeframer implements Closeable, Deframer {
     }
   }
 
+  /**
+   * The compressed body of a message that is delivered before it has fully arrived. It is filled
+   * from the deframing thread and read from the application thread, whose reads block until more
+   * bytes arrive.
+   */
+  private final class StreamingBody extends InputStream {
+    private final Object lock = new Object();
+    @GuardedBy("lock")
+    private final CompositeReadableBuffer buffered = new CompositeReadableBuffer();
+    @GuardedBy("lock")
+    private boolean finished;
+    @GuardedBy("lock")
+    private Status failure;
+    @GuardedBy("lock")
+    private boolean closed;
+    @GuardedBy("lock")
+    private boolean awaitingRoom;
+    /** Bytes not yet handed to this body. Only accessed from the deframing thread. */
+    int remainingLength;
+
+    StreamingBody(int length) {
+      this.remainingLength = length;
+    }
+
+    /**
+     * Returns how many more bytes may be added. When there is no room, the next read that frees
+     * enough of it resumes deframing.
+     */
+    int roomFor() {
+      synchronized (lock) {
+        if (closed) {
+          // The application is no longer interested; discard the rest as it arrives.
+          return Integer.MAX_VALUE;
+        }
+        int room = MAX_STREAMING_BUFFERED_BYTES - buffered.readableBytes();
+        awaitingRoom = room <= 0;
+        return Math.max(room, 0);
+      }
+    }
+
+    void add(ReadableBuffer buffer) {
+      remainingLength -= buffer.readableBytes();
+      synchronized (lock) {
+        if (closed) {
+          buffer.close();
+          return;
+        }
+        buffered.addBuffer(buffer);
+        if (buffered.readableBytes() >= MAX_STREAMING_BUFFERED_BYTES) {
+          // The room limited this transfer, so the rest may already be waiting in unprocessed.
+          awaitingRoom = true;
+        }
+        lock.notifyAll();
+      }
+    }
+
+    void finish() {
+      synchronized (lock) {
+        finished = true;
+        lock.notifyAll();
+      }
+    }
+
+    void fail(Status status) {
+      synchronized (lock) {
+        failure = status;
+        lock.notifyAll();
+      }
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] singleByte = new byte[1];
+      int n = read(singleByte, 0, 1);
+      return n == -1 ? -1 : singleByte[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] dest, int destOffset, int length) throws IOException {
+      if (length == 0) {
+        return 0;
+      }
+      boolean resume;
+      int n;
+      synchronized (lock) {
+        while (buffered.readableBytes() == 0 && !finished && failure == null && !closed) {
+          try {
+            lock.wait();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for message bytes");
+          }
+        }
+        if (closed) {
+          throw new IOException("Stream closed");
+        }
+        if (buffered.readableBytes() == 0) {
+          if (failure != null) {
+            throw new IOException(failure.asException());
+          }
+          return -1;
+        }
+        n = Math.min(length, buffered.readableBytes());
+        buffered.readBytes(dest, destOffset, n);
+        // Wait until half of the buffer has been drained before waking up the deframer.
+        resume = awaitingRoom && buffered.readableBytes() <= MAX_STREAMING_BUFFERED_BYTES / 2;
+        if (resume) {
+          awaitingRoom = false;
+        }
+      }
+      if (resume) {
+        resumeStreamingFromApplication();
+      }
+      return n;
+    }
+
+    @Override
+    public int available() {
+      synchronized (lock) {
+        return closed ? 0 : buffered.readableBytes();
+      }
+    }
+
+    @Override
+    public void close() {
+      boolean resume;
+      synchronized (lock) {
+        if (closed) {
+          return;
+        }
+        closed = true;
+        buffered.close();
+        resume = awaitingRoom;
+        awaitingRoom = false;
+        lock.notifyAll();
+      }
+      if (resume) {
+        resumeStreamingFromApplication();
+      }
+    }
+  }
+
+  /**
+   * Delays creating the decompressing stream until the first read, since decompressors may read
+   * a header from the underlying stream on creation, which would block the deframing thread.
+   */
+  private static final class LazyDecompressingInputStream extends InputStream {
+    private final Decompressor decompressor;
+    private final InputStream compressed;
+    private InputStream decompressed;
+
+    LazyDecompressingInputStream(Decompressor decompressor, InputStream compressed) {
+      this.decompressor = decompressor;
+      this.compressed = compressed;
+    }
+
+    private InputStream decompressed() throws IOException {
+      if (decompressed == null) {
+        decompressed = decompressor.decompress(compressed);
+      }
+      return decompressed;
+    }
+
+    @Override
+    public int read() throws IOException {
+      return decompressed().read();
+    }
+
+    @Override
+    public int read(byte[] dest, int destOffset, int length) throws IOException {
+      return decompressed().read(dest, destOffset, length);
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      return decompressed().skip(n);
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (decompressed != null) {
+        decompressed.close();
+      } else {
+        compressed.close();
+      }
+    }
+  }
+
   /**
    * An {@link InputStream} that enforces the {@link #maxMessageSize} limit for compressed frames.
    */
@@ -538,4 +898,24 @@ public class MessageDeframer implements Closeable, Deframer {
       return messageToReturn;
     }
   }
+
+  private static class BatchMessageProducer implements StreamListener.MessageProducer {
+    private final List<InputStream> messages;
+    private int index;
+
+    private BatchMessageProducer(List<InputStream> messages) {
+      this.messages = messages;
+    }
+
+    @Nullable
+    @Override
+    public InputStream next() {
+      if (index == messages.size()) {
+        return null;
+      }
+      InputStream messageToReturn = messages.get(index);
+      messages.set(index++, null);
+      return messageToReturn;
+    }
+  }
 }
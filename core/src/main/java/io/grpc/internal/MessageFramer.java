@@ -23,8 +23,11 @@ import static java.lang.Math.min;
 
 import com.google.common.io.ByteStreams;
 import io.grpc.Codec;
+import io.grpc.CompressionPolicy;
 import io.grpc.Compressor;
+import io.grpc.Detachable;
 import io.grpc.Drainable;
+import io.grpc.HasByteBuffer;
 import io.grpc.KnownLength;
 import io.grpc.Status;
 import java.io.ByteArrayInputStream;
@@ -68,6 +71,8 @@ public class MessageFramer implements Framer {
   private static final int HEADER_LENGTH = 5;
   private static final byte UNCOMPRESSED = 0;
   private static final byte COMPRESSED = 1;
+  // Messages smaller than this are cheaper to copy than to send as separate frames.
+  private static final int MIN_RETAINED_SLICE_LENGTH = 16 * 1024;
 
   private final Sink sink;
   // effectively final.  Can only be set once.
@@ -75,6 +80,9 @@ public class MessageFramer implements Framer {
   private WritableBuffer buffer;
   private Compressor compressor = Codec.Identity.NONE;
   private boolean messageCompression = true;
+  @Nullable
+  private CompressionPolicy compressionPolicy;
+  private String fullMethodName;
   private final OutputStreamAdapter outputStreamAdapter = new OutputStreamAdapter();
   private final byte[] headerScratch = new byte[HEADER_LENGTH];
   private final WritableBufferAllocator bufferAllocator;
@@ -112,6 +120,12 @@ public class MessageFramer implements Framer {
     return this;
   }
 
+  @Override
+  public void setCompressionPolicy(CompressionPolicy policy, String fullMethodName) {
+    this.compressionPolicy = checkNotNull(policy, "policy");
+    this.fullMethodName = checkNotNull(fullMethodName, "fullMethodName");
+  }
+
   @Override
   public void setMaxOutboundMessageSize(int maxSize) {
     checkState(maxOutboundMessageSize == NO_MAX_OUTBOUND_MESSAGE_SIZE, "max size already set");
@@ -135,8 +149,20 @@ public class MessageFramer implements Framer {
     int messageLength = -2;
     try {
       messageLength = getKnownLength(message);
+      if (messageLength != 0 && compressed && compressionPolicy != null
+          && !compressionPolicy.shouldCompress(fullMethodName, messageLength)) {
+        compressed = false;
+        statsTraceCtx.outboundMessageCompressionSkipped(currentMessageSeqNo);
+      }
       if (messageLength != 0 && compressed) {
         written = writeCompressed(message, messageLength);
+        if (compressionPolicy != null) {
+          compressionPolicy.messageCompressed(fullMethodName, written, currentMessageWireSize);
+        }
+      } else if (messageLength >= MIN_RETAINED_SLICE_LENGTH
+          && bufferAllocator instanceof RetainedSliceAllocator
+          && isDetachableWithByteBuffers(message)) {
+        written = writeRetainedSlices(message, messageLength);
       } else {
         written = writeUncompressed(message, messageLength);
       }
@@ -230,6 +256,58 @@ public class MessageFramer implements Framer {
     return writeToOutputStream(message, outputStreamAdapter);
   }
 
+  private static boolean isDetachableWithByteBuffers(InputStream message) {
+    return message instanceof Detachable
+        && message instanceof HasByteBuffer
+        && ((HasByteBuffer) message).byteBufferSupported()
+        && message.markSupported();
+  }
+
+  /**
+   * Write an uncompressed message by detaching its buffers from the stream and linking them into
+   * the frame chain, so only the header is copied. The detached stream is closed once the
+   * transport releases the linked buffers.
+   */
+  private int writeRetainedSlices(InputStream message, int messageLength) throws IOException {
+    if (maxOutboundMessageSize >= 0 && messageLength > maxOutboundMessageSize) {
+      throw Status.RESOURCE_EXHAUSTED
+          .withDescription(
+              String.format("message too large %d > %d", messageLength , maxOutboundMessageSize))
+          .asRuntimeException();
+    }
+    InputStream detached = ((Detachable) message).detach();
+    List<ByteBuffer> slices = new ArrayList<>();
+    int written = 0;
+    WritableBuffer retained;
+    try {
+      // Keeps the buffers skipped below open until the stream is closed
+      detached.mark(Integer.MAX_VALUE);
+      ByteBuffer slice;
+      while ((slice = ((HasByteBuffer) detached).getByteBuffer()) != null) {
+        int length = slice.remaining();
+        slices.add(slice);
+        written += length;
+        detached.skip(length);
+      }
+      retained = ((RetainedSliceAllocator) bufferAllocator).wrapRetainedSlices(slices, detached);
+    } catch (IOException | RuntimeException e) {
+      GrpcUtil.closeQuietly(detached);
+      throw e;
+    }
+    ByteBuffer header = ByteBuffer.wrap(headerScratch);
+    header.put(UNCOMPRESSED);
+    header.putInt(messageLength);
+    writeRaw(headerScratch, 0, header.position());
+    // The current buffer holds at least the header of this message, so the message is not
+    // reported as sent until the retained buffer is committed.
+    sink.deliverFrame(buffer, false, false, messagesBuffered - 1);
+    messagesBuffered = 1;
+    // The retained buffer has no writable bytes, so the next write will commit it to the sink.
+    buffer = retained;
+    currentMessageWireSize = messageLength;
+    return written;
+  }
+
   /**
    * Write a message that has been serialized to a sequence of buffers.
    */
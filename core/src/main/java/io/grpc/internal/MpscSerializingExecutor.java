@@ -0,0 +1,194 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A {@link SerializingExecutor} alternative for executors under heavy handoff load. Tasks are
+ * queued into fixed-size array chunks, so enqueueing allocates once per {@value #CHUNK_SIZE}
+ * tasks rather than once per task, and the draining thread may poll for more work a few times
+ * before giving its slot back, saving a resubmission to the underlying executor when producers
+ * enqueue in quick succession.
+ *
+ * <p>Any number of threads may call {@link #execute}; tasks run one at a time, in the order
+ * {@code execute} claimed their slots in the queue. A task whose slot has been claimed but not yet
+ * written holds back the tasks after it until its producer finishes writing it.
+ */
+public final class MpscSerializingExecutor implements Executor, Runnable {
+  private static final Logger log = Logger.getLogger(MpscSerializingExecutor.class.getName());
+
+  static final int CHUNK_SIZE = 64;
+
+  private static final int STOPPED = 0;
+  private static final int RUNNING = -1;
+
+  /** Replaces a task that could not be scheduled, so that it never runs. */
+  private static final Runnable CANCELLED = new Runnable() {
+    @Override
+    public void run() {}
+  };
+
+  private final Executor executor;
+  private final int spinIterations;
+  private final AtomicInteger runState = new AtomicInteger(STOPPED);
+  /** Chunk producers append to. Only ever advances. */
+  private final AtomicReference<Chunk> tail;
+
+  // Only accessed by the thread currently running this executor.
+  private Chunk head;
+  private int headIndex;
+
+  /**
+   * Creates an executor running tasks using {@code executor}.
+   *
+   * @param executor Executor in which tasks should be run. Must not be null.
+   * @param spinIterations how many times to poll an empty queue before returning the thread to
+   *     {@code executor}. The thread yields between polls. Must not be negative.
+   */
+  public MpscSerializingExecutor(Executor executor, int spinIterations) {
+    this.executor = checkNotNull(executor, "'executor' must not be null.");
+    checkArgument(spinIterations >= 0, "spinIterations must not be negative");
+    this.spinIterations = spinIterations;
+    Chunk first = new Chunk();
+    this.tail = new AtomicReference<>(first);
+    this.head = first;
+  }
+
+  /**
+   * Runs the given runnable strictly after all Runnables whose {@code execute} claimed a slot
+   * before it, and using the {@code executor} passed to the constructor.
+   */
+  @Override
+  public void execute(Runnable r) {
+    checkNotNull(r, "'r' must not be null.");
+    while (true) {
+      Chunk chunk = tail.get();
+      int index = chunk.claimed.getAndIncrement();
+      if (index < CHUNK_SIZE) {
+        chunk.tasks.set(index, r);
+        schedule(chunk, index, r);
+        return;
+      }
+      // The chunk is full. Link a new one, or help whoever already did advance the tail.
+      Chunk next = chunk.next.get();
+      if (next == null) {
+        Chunk created = new Chunk();
+        next = chunk.next.compareAndSet(null, created) ? created : chunk.next.get();
+      }
+      tail.compareAndSet(chunk, next);
+    }
+  }
+
+  private void schedule(Chunk chunk, int index, Runnable r) {
+    if (runState.compareAndSet(STOPPED, RUNNING)) {
+      boolean success = false;
+      try {
+        executor.execute(this);
+        success = true;
+      } finally {
+        if (!success) {
+          // Nothing is running the queue, so the task is still there. Make sure a later successful
+          // schedule doesn't run it anyway, as with SerializingExecutor.
+          if (chunk != null) {
+            chunk.tasks.compareAndSet(index, r, CANCELLED);
+          }
+          runState.set(STOPPED);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void run() {
+    Chunk lastChunk;
+    int lastIndex;
+    try {
+      int spins = 0;
+      while (true) {
+        Runnable r = poll();
+        if (r == null) {
+          if (spins++ >= spinIterations) {
+            break;
+          }
+          // Back off so that producers sharing this core can finish their enqueue.
+          Thread.yield();
+          continue;
+        }
+        spins = 0;
+        try {
+          r.run();
+        } catch (RuntimeException e) {
+          // Log it and keep going.
+          log.log(Level.SEVERE, "Exception while executing runnable " + r, e);
+        }
+      }
+    } finally {
+      // Once stopped, another thread may start draining, so capture the position beforehand.
+      lastChunk = head;
+      lastIndex = headIndex;
+      runState.set(STOPPED);
+    }
+    if (hasTaskAt(lastChunk, lastIndex)) {
+      // we didn't enqueue anything but someone else did.
+      schedule(null, 0, null);
+    }
+  }
+
+  /**
+   * Returns the next task, or {@code null} if there is none yet. A slot that has been claimed but
+   * not yet written reads as empty; its producer schedules the executor once it is written.
+   */
+  private Runnable poll() {
+    if (headIndex == CHUNK_SIZE) {
+      Chunk next = head.next.get();
+      if (next == null) {
+        return null;
+      }
+      head = next;
+      headIndex = 0;
+    }
+    Runnable r = head.tasks.get(headIndex);
+    if (r != null) {
+      head.tasks.lazySet(headIndex, null);
+      headIndex++;
+    }
+    return r;
+  }
+
+  private static boolean hasTaskAt(Chunk chunk, int index) {
+    if (index == CHUNK_SIZE) {
+      Chunk next = chunk.next.get();
+      return next != null && next.tasks.get(0) != null;
+    }
+    return chunk.tasks.get(index) != null;
+  }
+
+  private static final class Chunk {
+    final AtomicReferenceArray<Runnable> tasks = new AtomicReferenceArray<>(CHUNK_SIZE);
+    final AtomicInteger claimed = new AtomicInteger();
+    final AtomicReference<Chunk> next = new AtomicReference<>();
+  }
+}
@@ -17,6 +17,7 @@
 package io.grpc.internal;
 
 import io.grpc.Attributes;
+import io.grpc.CompressionPolicy;
 import io.grpc.Compressor;
 import io.grpc.Deadline;
 import io.grpc.DecompressorRegistry;
@@ -66,6 +67,9 @@ public class NoopClientStream implements ClientStream {
     // noop
   }
 
+  @Override
+  public void setCompressionPolicy(CompressionPolicy policy, String fullMethodName) {}
+
   @Override
   public void optimizeForDirectExecutor() {}
 
@@ -20,6 +20,7 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import javax.annotation.Nullable;
 
 /**
  * Interface for an abstract byte buffer. Buffers are intended to be a read-only, except for the
@@ -123,6 +124,45 @@ public interface ReadableBuffer extends Closeable {
    */
   int arrayOffset();
 
+  /**
+   * Indicates whether or not {@link #mark} and {@link #reset} are supported.
+   */
+  boolean markSupported();
+
+  /**
+   * Marks the current read position. A later {@link #reset} returns to it. The buffer keeps the
+   * content read after the mark, including content returned by {@link #getByteBuffer}, until it is
+   * closed. This is an optional method, so callers should first check {@link #markSupported}.
+   *
+   * @throws UnsupportedOperationException the buffer does not support this method
+   */
+  void mark();
+
+  /**
+   * Moves the read position back to the most recent {@link #mark}. This is an optional method, so
+   * callers should first check {@link #markSupported}.
+   *
+   * @throws UnsupportedOperationException the buffer does not support this method
+   * @throws java.nio.InvalidMarkException if {@link #mark} was not called
+   */
+  void reset();
+
+  /**
+   * Indicates whether or not {@link #getByteBuffer} is supported.
+   */
+  boolean byteBufferSupported();
+
+  /**
+   * Gets a {@link ByteBuffer} holding some of the bytes to be read next, or {@code null} if this
+   * buffer has no readable bytes. The read position of this buffer is not changed. The returned
+   * buffer shares its content with this buffer, so it is only valid until this buffer is closed.
+   * This is an optional method, so callers should first check {@link #byteBufferSupported}.
+   *
+   * @throws UnsupportedOperationException the buffer does not support this method
+   */
+  @Nullable
+  ByteBuffer getByteBuffer();
+
   /**
    * Closes this buffer and releases any resources.
    */
@@ -19,12 +19,15 @@ package io.grpc.internal;
 import static com.google.common.base.Charsets.UTF_8;
 
 import com.google.common.base.Preconditions;
+import io.grpc.Detachable;
+import io.grpc.HasByteBuffer;
 import io.grpc.KnownLength;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
+import java.nio.InvalidMarkException;
 import java.nio.charset.Charset;
 
 /**
@@ -128,6 +131,7 @@ public final class ReadableBuffers {
     int offset;
     final int end;
     final byte[] bytes;
+    int mark = -1;
 
     ByteArrayWrapper(byte[] bytes) {
       this(bytes, 0, bytes.length);
@@ -204,6 +208,37 @@ public final class ReadableBuffers {
     public int arrayOffset() {
       return offset;
     }
+
+    @Override
+    public boolean markSupported() {
+      return true;
+    }
+
+    @Override
+    public void mark() {
+      mark = offset;
+    }
+
+    @Override
+    public void reset() {
+      if (mark == -1) {
+        throw new InvalidMarkException();
+      }
+      offset = mark;
+    }
+
+    @Override
+    public boolean byteBufferSupported() {
+      return true;
+    }
+
+    @Override
+    public ByteBuffer getByteBuffer() {
+      if (offset == end) {
+        return null;
+      }
+      return ByteBuffer.wrap(bytes, offset, end - offset).slice();
+    }
   }
 
   /**
@@ -292,13 +327,42 @@ public final class ReadableBuffers {
     public int arrayOffset() {
       return bytes.arrayOffset() + bytes.position();
     }
+
+    @Override
+    public boolean markSupported() {
+      return true;
+    }
+
+    @Override
+    public void mark() {
+      bytes.mark();
+    }
+
+    @Override
+    public void reset() {
+      bytes.reset();
+    }
+
+    @Override
+    public boolean byteBufferSupported() {
+      return true;
+    }
+
+    @Override
+    public ByteBuffer getByteBuffer() {
+      if (!bytes.hasRemaining()) {
+        return null;
+      }
+      return ((ByteBuffer) bytes).slice();
+    }
   }
 
   /**
    * An {@link InputStream} that is backed by a {@link ReadableBuffer}.
    */
-  private static final class BufferInputStream extends InputStream implements KnownLength {
-    final ReadableBuffer buffer;
+  private static final class BufferInputStream extends InputStream
+      implements KnownLength, HasByteBuffer, Detachable {
+    private ReadableBuffer buffer;
 
     public BufferInputStream(ReadableBuffer buffer) {
       this.buffer = Preconditions.checkNotNull(buffer, "buffer");
@@ -330,6 +394,54 @@ public final class ReadableBuffers {
       return length;
     }
 
+    @Override
+    public long skip(long n) throws IOException {
+      if (n <= 0) {
+        return 0;
+      }
+      int length = (int) Math.min(buffer.readableBytes(), n);
+      buffer.skipBytes(length);
+      return length;
+    }
+
+    @Override
+    public boolean markSupported() {
+      return buffer.markSupported();
+    }
+
+    @Override
+    public void mark(int readLimit) {
+      if (buffer.markSupported()) {
+        buffer.mark();
+      }
+    }
+
+    @Override
+    public void reset() throws IOException {
+      if (!buffer.markSupported()) {
+        throw new IOException("mark/reset not supported");
+      }
+      buffer.reset();
+    }
+
+    @Override
+    public boolean byteBufferSupported() {
+      return buffer.byteBufferSupported();
+    }
+
+    @Override
+    public ByteBuffer getByteBuffer() {
+      return buffer.getByteBuffer();
+    }
+
+    @Override
+    public InputStream detach() {
+      ReadableBuffer detachedBuffer = buffer;
+      // An empty buffer of the same kind, so closing this stream has nothing left to release
+      buffer = buffer.readBytes(0);
+      return new BufferInputStream(detachedBuffer);
+    }
+
     @Override
     public void close() throws IOException {
       buffer.close();
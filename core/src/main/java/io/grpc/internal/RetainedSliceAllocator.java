@@ -0,0 +1,37 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * A {@link WritableBufferAllocator} that is also able to wrap existing memory without copying, so
+ * that already-serialized messages can be linked into the frame chain directly.
+ */
+public interface RetainedSliceAllocator extends WritableBufferAllocator {
+
+  /**
+   * Returns a {@link WritableBuffer} whose readable bytes are the remaining bytes of {@code
+   * slices}, in order. The returned buffer must have no {@link WritableBuffer#writableBytes()
+   * writable bytes}, so that no further data is appended to it. The slices' content must not be
+   * modified until the buffer has been released. {@code owner} holds the memory of the slices and
+   * is closed once the buffer has been released.
+   */
+  WritableBuffer wrapRetainedSlices(List<ByteBuffer> slices, Closeable owner);
+}
@@ -23,6 +23,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Objects;
 import io.grpc.Attributes;
 import io.grpc.ClientStreamTracer;
+import io.grpc.CompressionPolicy;
 import io.grpc.Compressor;
 import io.grpc.Deadline;
 import io.grpc.DecompressorRegistry;
@@ -588,6 +589,19 @@ abstract class RetriableStream<ReqT> implements ClientStream {
     delayOrExecute(new MessageCompressionEntry());
   }
 
+  @Override
+  public final void setCompressionPolicy(
+      final CompressionPolicy policy, final String fullMethodName) {
+    class CompressionPolicyEntry implements BufferEntry {
+      @Override
+      public void runWith(Substream substream) {
+        substream.stream.setCompressionPolicy(policy, fullMethodName);
+      }
+    }
+
+    delayOrExecute(new CompressionPolicyEntry());
+  }
+
   @Override
   public final void halfClose() {
     class HalfCloseEntry implements BufferEntry {
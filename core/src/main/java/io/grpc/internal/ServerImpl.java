@@ -32,6 +32,7 @@ import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 import io.grpc.Attributes;
 import io.grpc.BinaryLog;
+import io.grpc.CompressionPolicy;
 import io.grpc.CompressorRegistry;
 import io.grpc.Context;
 import io.grpc.Deadline;
@@ -71,6 +72,7 @@ import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.GuardedBy;
 
 /**
@@ -121,6 +123,9 @@ public final class ServerImpl extends io.grpc.Server implements InternalInstrume
 
   private final DecompressorRegistry decompressorRegistry;
   private final CompressorRegistry compressorRegistry;
+  @Nullable
+  private final CompressionPolicy compressionPolicy;
+  private final int callExecutorSpinIterations;
   private final BinaryLog binlog;
 
   private final InternalChannelz channelz;
@@ -152,6 +157,8 @@ public final class ServerImpl extends io.grpc.Server implements InternalInstrume
     this.rootContext = Preconditions.checkNotNull(rootContext, "rootContext").fork();
     this.decompressorRegistry = builder.decompressorRegistry;
     this.compressorRegistry = builder.compressorRegistry;
+    this.compressionPolicy = builder.compressionPolicy;
+    this.callExecutorSpinIterations = builder.callExecutorSpinIterations;
     this.transportFilters = Collections.unmodifiableList(
         new ArrayList<>(builder.transportFilters));
     this.interceptors =
@@ -486,8 +493,10 @@ public final class ServerImpl extends io.grpc.Server implements InternalInstrume
       if (executor == directExecutor()) {
         wrappedExecutor = new SerializeReentrantCallsDirectExecutor();
         stream.optimizeForDirectExecutor();
-      } else {
+      } else if (callExecutorSpinIterations < 0) {
         wrappedExecutor = new SerializingExecutor(executor);
+      } else {
+        wrappedExecutor = new MpscSerializingExecutor(executor, callExecutorSpinIterations);
       }
 
       if (headers.containsKey(MESSAGE_ENCODING_KEY)) {
@@ -503,6 +512,9 @@ public final class ServerImpl extends io.grpc.Server implements InternalInstrume
         }
         stream.setDecompressor(decompressor);
       }
+      if (compressionPolicy != null) {
+        stream.setCompressionPolicy(compressionPolicy, methodName);
+      }
 
       final StatsTraceContext statsTraceCtx = Preconditions.checkNotNull(
           stream.statsTraceContext(), "statsTraceCtx not present from stream");
@@ -200,6 +200,17 @@ public final class StatsTraceContext {
     }
   }
 
+  /**
+   * See {@link StreamTracer#outboundMessageCompressionSkipped}.
+   *
+   * <p>Called from {@link io.grpc.internal.Framer}.
+   */
+  public void outboundMessageCompressionSkipped(int seqNo) {
+    for (StreamTracer tracer : tracers) {
+      tracer.outboundMessageCompressionSkipped(seqNo);
+    }
+  }
+
   /**
    * See {@link StreamTracer#inboundMessageRead}.
    *
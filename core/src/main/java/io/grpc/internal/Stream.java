@@ -16,6 +16,7 @@
 
 package io.grpc.internal;
 
+import io.grpc.CompressionPolicy;
 import io.grpc.Compressor;
 import java.io.InputStream;
 
@@ -87,4 +88,14 @@ public interface Stream {
    * but may not have any effect if compression is not enabled on the call.
    */
   void setMessageCompression(boolean enable);
+
+  /**
+   * Sets the policy that decides whether each message is compressed, while per-message
+   * compression is enabled and an encoding has been negotiated. Without a policy, every message is
+   * compressed.
+   *
+   * @param policy the policy to consult
+   * @param fullMethodName the method of the call, passed to the policy
+   */
+  void setCompressionPolicy(CompressionPolicy policy, String fullMethodName);
 }
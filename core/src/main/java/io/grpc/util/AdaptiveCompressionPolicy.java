@@ -0,0 +1,165 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import io.grpc.CompressionPolicy;
+import io.grpc.ExperimentalApi;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A {@link CompressionPolicy} that skips compressing messages smaller than a threshold, and
+ * messages of methods whose recent messages compressed poorly.
+ *
+ * <p>The compression ratio of each method is the ratio of compressed to uncompressed bytes of its
+ * recently compressed messages, with older messages decaying exponentially. While it exceeds the
+ * maximum ratio, messages of the method are sent uncompressed, except for one in every {@code
+ * probeInterval} that is still compressed so the ratio can recover when the payloads change.
+ */
+@ThreadSafe
+@ExperimentalApi("https://github.com/grpc/grpc-java/issues/1704")
+public final class AdaptiveCompressionPolicy extends CompressionPolicy {
+  private static final double DECAY = 0.9;
+
+  private final int minMessageSize;
+  private final double maxCompressionRatio;
+  private final int probeInterval;
+  private final ConcurrentMap<String, MethodStats> methods = new ConcurrentHashMap<>();
+
+  private AdaptiveCompressionPolicy(Builder builder) {
+    this.minMessageSize = builder.minMessageSize;
+    this.maxCompressionRatio = builder.maxCompressionRatio;
+    this.probeInterval = builder.probeInterval;
+  }
+
+  /**
+   * Returns a builder with a minimum message size of 1 KiB, a maximum compression ratio of 0.9 and
+   * a probe interval of 100 messages.
+   */
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  @Override
+  public boolean shouldCompress(String fullMethodName, int messageLength) {
+    if (messageLength != -1 && messageLength < minMessageSize) {
+      return false;
+    }
+    MethodStats stats = methods.get(fullMethodName);
+    return stats == null || stats.shouldCompress();
+  }
+
+  @Override
+  public void messageCompressed(String fullMethodName, long uncompressedSize, long compressedSize) {
+    MethodStats stats = methods.get(fullMethodName);
+    if (stats == null) {
+      MethodStats newStats = new MethodStats();
+      stats = methods.putIfAbsent(fullMethodName, newStats);
+      if (stats == null) {
+        stats = newStats;
+      }
+    }
+    stats.record(uncompressedSize, compressedSize);
+  }
+
+  /**
+   * Returns the recent compression ratio of a method, or -1 if none of its messages have been
+   * compressed yet.
+   */
+  public double getCompressionRatio(String fullMethodName) {
+    MethodStats stats = methods.get(fullMethodName);
+    return stats == null ? -1 : stats.ratio();
+  }
+
+  private final class MethodStats {
+    @GuardedBy("this")
+    private double uncompressedBytes;
+    @GuardedBy("this")
+    private double compressedBytes;
+    @GuardedBy("this")
+    private int skippedSinceProbe;
+
+    synchronized boolean shouldCompress() {
+      if (compressedBytes <= maxCompressionRatio * uncompressedBytes) {
+        return true;
+      }
+      if (++skippedSinceProbe >= probeInterval) {
+        skippedSinceProbe = 0;
+        return true;
+      }
+      return false;
+    }
+
+    synchronized void record(long uncompressedSize, long compressedSize) {
+      uncompressedBytes = uncompressedBytes * DECAY + uncompressedSize;
+      compressedBytes = compressedBytes * DECAY + compressedSize;
+    }
+
+    synchronized double ratio() {
+      return uncompressedBytes == 0 ? -1 : compressedBytes / uncompressedBytes;
+    }
+  }
+
+  /** Builder for {@link AdaptiveCompressionPolicy}. */
+  public static final class Builder {
+    private int minMessageSize = 1024;
+    private double maxCompressionRatio = 0.9;
+    private int probeInterval = 100;
+
+    private Builder() {}
+
+    /**
+     * Sets the size, in bytes, below which messages are never compressed. Messages whose size is
+     * not known before serialization are not subject to it.
+     */
+    public Builder setMinMessageSize(int minMessageSize) {
+      checkArgument(minMessageSize >= 0, "minMessageSize must not be negative");
+      this.minMessageSize = minMessageSize;
+      return this;
+    }
+
+    /**
+     * Sets the ratio of compressed to uncompressed bytes above which a method's messages stop
+     * being compressed. A ratio of 1 only skips messages that compression makes larger.
+     */
+    public Builder setMaxCompressionRatio(double maxCompressionRatio) {
+      checkArgument(
+          maxCompressionRatio > 0 && maxCompressionRatio <= 1,
+          "maxCompressionRatio must be in (0, 1]");
+      this.maxCompressionRatio = maxCompressionRatio;
+      return this;
+    }
+
+    /**
+     * Sets how often a message is compressed anyway, while a method's ratio is too high, to find
+     * out whether it has improved.
+     */
+    public Builder setProbeInterval(int probeInterval) {
+      checkArgument(probeInterval > 0, "probeInterval must be positive");
+      this.probeInterval = probeInterval;
+      return this;
+    }
+
+    public AdaptiveCompressionPolicy build() {
+      return new AdaptiveCompressionPolicy(this);
+    }
+  }
+}
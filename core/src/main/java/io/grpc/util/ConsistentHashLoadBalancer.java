@@ -0,0 +1,400 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.util;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static io.grpc.ConnectivityState.CONNECTING;
+import static io.grpc.ConnectivityState.READY;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+import io.grpc.ConnectivityState;
+import io.grpc.ConnectivityStateInfo;
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.InternalMetadata;
+import io.grpc.LoadBalancer;
+import io.grpc.Metadata;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link LoadBalancer} that sends calls with the same hash to the same backend, so that a
+ * backend caching per-key state sees most of the calls for its keys. The hash of a call comes from
+ * the {@link ConsistentHashing#REQUEST_HASH_KEY} call option, else from a configured request
+ * header, else it is random.
+ *
+ * <p>Backends are placed in a {@link LookupTable} built over all addresses, READY or not, so that
+ * keys stay with their backend while other backends come and go. A call whose backend isn't READY
+ * moves on to the next READY backend in the table. The table is only rebuilt when the addresses
+ * change, reusing what it can of the previous one.
+ *
+ * <p>Subchannels are managed by a round-robin balancer, whose picker is replaced whenever any
+ * subchannel is READY.
+ */
+final class ConsistentHashLoadBalancer extends ForwardingLoadBalancer {
+  private final Set<TrackedSubchannel> subchannels = new HashSet<>();
+  private final Helper helper;
+  private final ThreadSafeRandom random;
+  private final LoadBalancer delegate;
+  private ConsistentHashConfig config;
+  @Nullable private LookupTable table;
+  private boolean tableStale = true;
+  // While the round-robin balancer handles addresses, its updates are held back until it has shut
+  // down the removed subchannels, so that the table is built once, without them.
+  private boolean handlingAddresses;
+  private boolean pickerStale;
+  private ConnectivityState state = CONNECTING;
+  @Nullable private SubchannelPicker delegatePicker;
+
+  ConsistentHashLoadBalancer(Helper helper, ConsistentHashConfig defaultConfig) {
+    this(helper, defaultConfig, ThreadSafeRandom.ThreadSafeRandomImpl.instance);
+  }
+
+  @VisibleForTesting
+  ConsistentHashLoadBalancer(
+      Helper helper, ConsistentHashConfig defaultConfig, ThreadSafeRandom random) {
+    this.helper = checkNotNull(helper, "helper");
+    this.config = checkNotNull(defaultConfig, "defaultConfig");
+    this.random = checkNotNull(random, "random");
+    this.delegate = new RoundRobinLoadBalancer(new HelperImpl(helper));
+  }
+
+  @Override
+  protected LoadBalancer delegate() {
+    return delegate;
+  }
+
+  @Override
+  public void handleResolvedAddresses(ResolvedAddresses resolvedAddresses) {
+    ConsistentHashConfig newConfig =
+        (ConsistentHashConfig) resolvedAddresses.getLoadBalancingPolicyConfig();
+    if (newConfig != null && !newConfig.equals(config)) {
+      if (!newConfig.tableFactory.equals(config.tableFactory)) {
+        tableStale = true;
+      }
+      config = newConfig;
+      pickerStale = true;
+    }
+    handlingAddresses = true;
+    try {
+      super.handleResolvedAddresses(resolvedAddresses);
+    } finally {
+      handlingAddresses = false;
+    }
+    // The round-robin balancer doesn't report address changes that leave its READY set as is.
+    if ((pickerStale || (tableStale && state == READY)) && delegatePicker != null) {
+      updatePicker();
+    }
+  }
+
+  private void updatePicker() {
+    pickerStale = false;
+    SubchannelPicker picker = delegatePicker;
+    if (state == READY) {
+      if (tableStale) {
+        table = config.tableFactory.build(new ArrayList<>(subchannels), table);
+        tableStale = false;
+      }
+      picker = new ConsistentHashPicker(table, config.hashHeaderKey, random);
+    }
+    helper.updateBalancingState(state, picker);
+  }
+
+  private final class HelperImpl extends ForwardingLoadBalancerHelper {
+    private final Helper delegate;
+
+    HelperImpl(Helper delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    protected Helper delegate() {
+      return delegate;
+    }
+
+    @Override
+    public Subchannel createSubchannel(CreateSubchannelArgs args) {
+      TrackedSubchannel subchannel =
+          new TrackedSubchannel(super.createSubchannel(args), hashAddresses(args.getAddresses()));
+      subchannels.add(subchannel);
+      tableStale = true;
+      return subchannel;
+    }
+
+    @Override
+    public void updateBalancingState(ConnectivityState newState, SubchannelPicker newPicker) {
+      // The round-robin balancer reports READY whenever any subchannel is READY.
+      state = newState;
+      delegatePicker = newPicker;
+      pickerStale = true;
+      if (!handlingAddresses) {
+        updatePicker();
+      }
+    }
+  }
+
+  /**
+   * Records whether a subchannel is READY, for pickers to skip it when it isn't.
+   */
+  private final class TrackedSubchannel extends ForwardingSubchannel implements Host {
+    private final Subchannel delegate;
+    private final long hash;
+    // Built once, so that picks don't allocate.
+    final PickResult pickResult;
+    volatile boolean ready;
+
+    TrackedSubchannel(Subchannel delegate, long hash) {
+      this.delegate = checkNotNull(delegate, "subchannel");
+      this.hash = hash;
+      this.pickResult = PickResult.withSubchannel(this);
+    }
+
+    @Override
+    protected Subchannel delegate() {
+      return delegate;
+    }
+
+    @Override
+    public long hash() {
+      return hash;
+    }
+
+    @Override
+    public void start(final SubchannelStateListener listener) {
+      delegate.start(new SubchannelStateListener() {
+          @Override
+          public void onSubchannelState(ConnectivityStateInfo newState) {
+            ready = newState.getState() == READY;
+            listener.onSubchannelState(newState);
+          }
+        });
+    }
+
+    @Override
+    public void shutdown() {
+      subchannels.remove(this);
+      tableStale = true;
+      ready = false;
+      delegate.shutdown();
+    }
+  }
+
+  @VisibleForTesting
+  static final class ConsistentHashPicker extends SubchannelPicker {
+    private final LookupTable table;
+    @Nullable private final Metadata.Key<byte[]> hashHeaderKey;
+    private final ThreadSafeRandom random;
+
+    ConsistentHashPicker(
+        LookupTable table, @Nullable Metadata.Key<byte[]> hashHeaderKey, ThreadSafeRandom random) {
+      this.table = checkNotNull(table, "table");
+      this.hashHeaderKey = hashHeaderKey;
+      this.random = random;
+    }
+
+    @Override
+    public PickResult pickSubchannel(PickSubchannelArgs args) {
+      int size = table.size();
+      int position = table.position(requestHash(args));
+      for (int i = 0; i < size; i++) {
+        TrackedSubchannel subchannel = (TrackedSubchannel) table.hostAt(position);
+        if (subchannel.ready) {
+          return subchannel.pickResult;
+        }
+        if (++position == size) {
+          position = 0;
+        }
+      }
+      // Every subchannel stopped being READY since this picker was built, and the picker of the
+      // round-robin balancer reporting it is on its way.
+      return PickResult.withNoResult();
+    }
+
+    private long requestHash(PickSubchannelArgs args) {
+      Long hash = args.getCallOptions().getOption(ConsistentHashing.REQUEST_HASH_KEY);
+      if (hash != null) {
+        return mix(hash);
+      }
+      if (hashHeaderKey != null) {
+        byte[] value = args.getHeaders().get(hashHeaderKey);
+        if (value != null) {
+          return hashBytes(value);
+        }
+      }
+      return random.nextLong();
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(ConsistentHashPicker.class)
+          .add("table", table)
+          .add("hashHeaderKey", hashHeaderKey)
+          .toString();
+    }
+  }
+
+  /**
+   * A backend placed in a {@link LookupTable} by the hash of its addresses.
+   */
+  interface Host {
+    long hash();
+  }
+
+  /**
+   * Maps the hash of a call to a position in a table of hosts. Positions wrap around, and a call
+   * whose host can't take it goes to the host at the next position.
+   */
+  abstract static class LookupTable {
+    abstract int size();
+
+    abstract int position(long hash);
+
+    abstract Host hostAt(int position);
+  }
+
+  /**
+   * Builds the lookup tables of a policy. Implementations are compared as part of the policy
+   * configuration.
+   */
+  abstract static class TableFactory {
+    /**
+     * Returns a table of {@code hosts}, reusing what it can of {@code previous}, which it must not
+     * modify.
+     */
+    abstract LookupTable build(List<? extends Host> hosts, @Nullable LookupTable previous);
+  }
+
+  /**
+   * Hashes the IP and port of each address, which unlike {@link InetSocketAddress#toString} don't
+   * depend on whether the address came with a host name. Other addresses hash by their string.
+   */
+  @VisibleForTesting
+  static long hashAddresses(List<EquivalentAddressGroup> addressGroups) {
+    long hash = FNV_OFFSET_BASIS;
+    for (EquivalentAddressGroup addressGroup : addressGroups) {
+      for (SocketAddress address : addressGroup.getAddresses()) {
+        InetAddress ip = address instanceof InetSocketAddress
+            ? ((InetSocketAddress) address).getAddress() : null;
+        if (ip != null) {
+          for (byte b : ip.getAddress()) {
+            hash = (hash ^ (b & 0xff)) * FNV_PRIME;
+          }
+          int port = ((InetSocketAddress) address).getPort();
+          hash = (hash ^ (port >>> 8)) * FNV_PRIME;
+          hash = (hash ^ (port & 0xff)) * FNV_PRIME;
+        } else {
+          String string = address.toString();
+          for (int i = 0; i < string.length(); i++) {
+            hash = (hash ^ string.charAt(i)) * FNV_PRIME;
+          }
+        }
+        hash = (hash ^ ',') * FNV_PRIME;
+      }
+    }
+    return mix(hash);
+  }
+
+  private static long hashBytes(byte[] bytes) {
+    long hash = FNV_OFFSET_BASIS;
+    for (byte b : bytes) {
+      hash = (hash ^ (b & 0xff)) * FNV_PRIME;
+    }
+    return mix(hash);
+  }
+
+  /**
+   * The finalizer of MurmurHash3, which spreads every bit of the input over the whole hash, so
+   * that similar inputs, like consecutive ids or addresses, end up far apart.
+   */
+  static long mix(long hash) {
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  /**
+   * Passes header values through as their bytes, so that pickers hash them without decoding or
+   * boxing anything. Parsed values share the array of the {@link Metadata}, so they must not be
+   * modified.
+   */
+  private static final class RawAsciiMarshaller
+      implements InternalMetadata.TrustedAsciiMarshaller<byte[]> {
+    static final RawAsciiMarshaller INSTANCE = new RawAsciiMarshaller();
+
+    @Override
+    public byte[] toAsciiString(byte[] value) {
+      return value;
+    }
+
+    @Override
+    public byte[] parseAsciiString(byte[] serialized) {
+      return serialized;
+    }
+  }
+
+  /**
+   * The parsed configuration of the "ring_hash" and "maglev" policies.
+   */
+  static final class ConsistentHashConfig {
+    @Nullable final String hashHeader;
+    @Nullable final Metadata.Key<byte[]> hashHeaderKey;
+    final TableFactory tableFactory;
+
+    ConsistentHashConfig(@Nullable String hashHeader, TableFactory tableFactory) {
+      this.hashHeader = hashHeader;
+      this.hashHeaderKey = hashHeader == null
+          ? null : InternalMetadata.keyOf(hashHeader, RawAsciiMarshaller.INSTANCE);
+      this.tableFactory = checkNotNull(tableFactory, "tableFactory");
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+      if (!(o instanceof ConsistentHashConfig)) {
+        return false;
+      }
+      ConsistentHashConfig that = (ConsistentHashConfig) o;
+      return Objects.equal(hashHeader, that.hashHeader)
+          && tableFactory.equals(that.tableFactory);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(hashHeader, tableFactory);
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+          .add("hashHeader", hashHeader)
+          .add("tableFactory", tableFactory)
+          .toString();
+    }
+  }
+}
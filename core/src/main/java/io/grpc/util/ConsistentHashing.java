@@ -0,0 +1,38 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.util;
+
+import io.grpc.CallOptions;
+import io.grpc.ExperimentalApi;
+
+/**
+ * Call options of the "ring_hash" and "maglev" balancing policies, which send calls with the same
+ * hash to the same backend while it is available.
+ */
+@ExperimentalApi("https://github.com/grpc/grpc-java/issues/1771")
+public final class ConsistentHashing {
+  /**
+   * The hash of a call, which takes precedence over the request header configured for the policy.
+   * Any value identifying the key of the call will do, like a user id, since it is mixed before
+   * use.
+   */
+  public static final CallOptions.Key<Long> REQUEST_HASH_KEY =
+      CallOptions.Key.create("io.grpc.util.ConsistentHashing.requestHash");
+
+  private ConsistentHashing() {
+  }
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static io.grpc.ConnectivityState.CONNECTING;
+import static io.grpc.ConnectivityState.IDLE;
+import static io.grpc.ConnectivityState.READY;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.MoreObjects;
+import io.grpc.ClientStreamTracer;
+import io.grpc.ClientStreamTracer.StreamInfo;
+import io.grpc.ConnectivityState;
+import io.grpc.ConnectivityStateInfo;
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.LoadBalancer;
+import io.grpc.Metadata;
+import io.grpc.NameResolver;
+import io.grpc.Status;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link LoadBalancer} that sends each call to the READY subchannel with the fewest calls in
+ * flight out of a few chosen at random, among the {@link EquivalentAddressGroup}s from the {@link
+ * NameResolver}. Unlike round-robin, it steers calls away from backends that are slow to finish
+ * them, while the random choice keeps concurrent pickers from all piling onto the same one.
+ *
+ * <p>Subchannels are managed by a round-robin balancer, whose picker is replaced whenever any
+ * subchannel is READY.
+ */
+final class LeastRequestLoadBalancer extends ForwardingLoadBalancer {
+  private final Set<TrackedSubchannel> subchannels = new HashSet<>();
+  private final ThreadSafeRandom random;
+  private final Helper helper;
+  private final LoadBalancer delegate;
+  private int choiceCount = LeastRequestConfig.DEFAULT_CHOICE_COUNT;
+  // While the round-robin balancer handles addresses, its updates are held back until it has shut
+  // down the removed subchannels, so that the picker doesn't include them.
+  private boolean handlingAddresses;
+  private boolean pickerStale;
+  private ConnectivityState state = CONNECTING;
+  @Nullable private SubchannelPicker delegatePicker;
+
+  LeastRequestLoadBalancer(Helper helper) {
+    this(helper, ThreadSafeRandom.ThreadSafeRandomImpl.instance);
+  }
+
+  @VisibleForTesting
+  LeastRequestLoadBalancer(Helper helper, ThreadSafeRandom random) {
+    this.random = checkNotNull(random, "random");
+    this.helper = checkNotNull(helper, "helper");
+    this.delegate = new RoundRobinLoadBalancer(new HelperImpl(helper));
+  }
+
+  @Override
+  protected LoadBalancer delegate() {
+    return delegate;
+  }
+
+  @Override
+  public void handleResolvedAddresses(ResolvedAddresses resolvedAddresses) {
+    LeastRequestConfig config =
+        (LeastRequestConfig) resolvedAddresses.getLoadBalancingPolicyConfig();
+    if (config != null && config.choiceCount != choiceCount) {
+      choiceCount = config.choiceCount;
+      // The round-robin balancer only replaces its picker when subchannels change state.
+      pickerStale = state == READY;
+    }
+    handlingAddresses = true;
+    try {
+      super.handleResolvedAddresses(resolvedAddresses);
+    } finally {
+      handlingAddresses = false;
+    }
+    if (pickerStale && delegatePicker != null) {
+      updatePicker();
+    }
+  }
+
+  private void updatePicker() {
+    pickerStale = false;
+    SubchannelPicker picker = delegatePicker;
+    List<TrackedSubchannel> readyList = readySubchannels();
+    if (!readyList.isEmpty()) {
+      picker = new ReadyPicker(readyList, choiceCount, random);
+    }
+    helper.updateBalancingState(state, picker);
+  }
+
+  private List<TrackedSubchannel> readySubchannels() {
+    List<TrackedSubchannel> readyList = new ArrayList<>(subchannels.size());
+    for (TrackedSubchannel subchannel : subchannels) {
+      if (subchannel.state == READY) {
+        readyList.add(subchannel);
+      }
+    }
+    return readyList;
+  }
+
+  private final class HelperImpl extends ForwardingLoadBalancerHelper {
+    private final Helper delegate;
+
+    HelperImpl(Helper delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    protected Helper delegate() {
+      return delegate;
+    }
+
+    @Override
+    public Subchannel createSubchannel(CreateSubchannelArgs args) {
+      TrackedSubchannel subchannel = new TrackedSubchannel(super.createSubchannel(args));
+      subchannels.add(subchannel);
+      return subchannel;
+    }
+
+    @Override
+    public void updateBalancingState(ConnectivityState newState, SubchannelPicker newPicker) {
+      // The round-robin balancer updates its picker whenever a subchannel becomes or stops being
+      // READY, so the list built from it is always current.
+      state = newState;
+      delegatePicker = newPicker;
+      pickerStale = true;
+      if (!handlingAddresses) {
+        updatePicker();
+      }
+    }
+  }
+
+  /**
+   * Records the state of a subchannel and counts the calls in flight on it.
+   */
+  @VisibleForTesting
+  final class TrackedSubchannel extends ForwardingSubchannel {
+    private final Subchannel delegate;
+    private final AtomicInteger inFlights = new AtomicInteger();
+    // Built once, so that picks don't allocate.
+    final PickResult pickResult;
+    ConnectivityState state = IDLE;
+
+    TrackedSubchannel(Subchannel delegate) {
+      this.delegate = checkNotNull(delegate, "subchannel");
+      this.pickResult = PickResult.withSubchannel(this, new InFlightTracerFactory(inFlights));
+    }
+
+    @Override
+    protected Subchannel delegate() {
+      return delegate;
+    }
+
+    @VisibleForTesting
+    int getInFlights() {
+      return inFlights.get();
+    }
+
+    @Override
+    public void start(final SubchannelStateListener listener) {
+      delegate.start(new SubchannelStateListener() {
+          @Override
+          public void onSubchannelState(ConnectivityStateInfo newState) {
+            state = newState.getState();
+            listener.onSubchannelState(newState);
+          }
+        });
+    }
+
+    @Override
+    public void shutdown() {
+      subchannels.remove(this);
+      delegate.shutdown();
+    }
+  }
+
+  @VisibleForTesting
+  static final class ReadyPicker extends SubchannelPicker {
+    private final List<TrackedSubchannel> list; // non-empty
+    private final int choiceCount;
+    private final ThreadSafeRandom random;
+
+    ReadyPicker(List<TrackedSubchannel> list, int choiceCount, ThreadSafeRandom random) {
+      checkArgument(!list.isEmpty(), "empty list");
+      this.list = list;
+      this.choiceCount = choiceCount;
+      this.random = random;
+    }
+
+    @Override
+    public PickResult pickSubchannel(PickSubchannelArgs args) {
+      int size = list.size();
+      TrackedSubchannel candidate = list.get(random.nextInt(size));
+      for (int i = 1; i < choiceCount; i++) {
+        TrackedSubchannel subchannel = list.get(random.nextInt(size));
+        if (subchannel.inFlights.get() < candidate.inFlights.get()) {
+          candidate = subchannel;
+        }
+      }
+      return candidate.pickResult;
+    }
+
+    @VisibleForTesting
+    List<TrackedSubchannel> getList() {
+      return list;
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(ReadyPicker.class)
+          .add("list", list)
+          .add("choiceCount", choiceCount)
+          .toString();
+    }
+  }
+
+  /**
+   * Counts the calls in flight on a subchannel, from the creation of their stream until it
+   * closes.
+   */
+  private static final class InFlightTracerFactory extends ClientStreamTracer.Factory {
+    private final AtomicInteger inFlights;
+
+    InFlightTracerFactory(AtomicInteger inFlights) {
+      this.inFlights = inFlights;
+    }
+
+    @Override
+    public ClientStreamTracer newClientStreamTracer(StreamInfo info, Metadata headers) {
+      inFlights.incrementAndGet();
+      return new ClientStreamTracer() {
+        @Override
+        public void streamClosed(Status status) {
+          inFlights.decrementAndGet();
+        }
+      };
+    }
+  }
+
+  /**
+   * The parsed configuration of the "least_request" policy.
+   */
+  static final class LeastRequestConfig {
+    static final int DEFAULT_CHOICE_COUNT = 2;
+    // Larger values make little difference, as they pick nearly the least loaded subchannel.
+    static final int MAX_CHOICE_COUNT = 10;
+
+    final int choiceCount;
+
+    LeastRequestConfig(int choiceCount) {
+      checkArgument(choiceCount >= 2, "choiceCount must be at least 2");
+      this.choiceCount = Math.min(choiceCount, MAX_CHOICE_COUNT);
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+      return o instanceof LeastRequestConfig
+          && choiceCount == ((LeastRequestConfig) o).choiceCount;
+    }
+
+    @Override
+    public int hashCode() {
+      return choiceCount;
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this).add("choiceCount", choiceCount).toString();
+    }
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.base.MoreObjects;
+import io.grpc.util.ConsistentHashLoadBalancer.Host;
+import io.grpc.util.ConsistentHashLoadBalancer.LookupTable;
+import io.grpc.util.ConsistentHashLoadBalancer.TableFactory;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link LookupTable} filled by Maglev hashing: hosts take turns claiming the next free entry of
+ * their own permutation of the table, so that they get almost equal shares of the entries, and a
+ * call finds its entry by a single remainder. Removing a host mostly reassigns its own entries.
+ *
+ * <p>The permutations are derived from the hashes the hosts carry, so an address change only
+ * repeats the fill, which takes time proportional to the table size. Hosts beyond the table size
+ * get no entries, so the table should be much larger than the number of hosts.
+ */
+final class MaglevTable extends LookupTable {
+  private final Host[] entries;
+  private final int hostCount;
+
+  private MaglevTable(Host[] entries, int hostCount) {
+    this.entries = entries;
+    this.hostCount = hostCount;
+  }
+
+  @Override
+  int size() {
+    return entries.length;
+  }
+
+  @Override
+  int position(long hash) {
+    return (int) ((hash >>> 1) % entries.length);
+  }
+
+  @Override
+  Host hostAt(int position) {
+    return entries[position];
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("hosts", hostCount)
+        .add("size", entries.length)
+        .toString();
+  }
+
+  static MaglevTable build(List<? extends Host> hosts, int size) {
+    checkArgument(!hosts.isEmpty(), "no hosts");
+    // Every client fills the table in the same order, whatever the order of its addresses.
+    Host[] sorted = hosts.toArray(new Host[0]);
+    Arrays.sort(sorted, new Comparator<Host>() {
+        @Override
+        public int compare(Host a, Host b) {
+          return Long.compare(a.hash(), b.hash());
+        }
+      });
+    // A prime size makes any skip visit every entry.
+    int[] next = new int[sorted.length];
+    int[] skips = new int[sorted.length];
+    for (int i = 0; i < sorted.length; i++) {
+      long hash = sorted[i].hash();
+      next[i] = (int) ((ConsistentHashLoadBalancer.mix(hash ^ OFFSET_SEED) >>> 1) % size);
+      skips[i] = (int) ((ConsistentHashLoadBalancer.mix(hash ^ SKIP_SEED) >>> 1) % (size - 1)) + 1;
+    }
+    Host[] entries = new Host[size];
+    int filled = 0;
+    while (true) {
+      for (int i = 0; i < sorted.length; i++) {
+        int entry = next[i];
+        while (entries[entry] != null) {
+          entry += skips[i];
+          if (entry >= size) {
+            entry -= size;
+          }
+        }
+        entries[entry] = sorted[i];
+        entry += skips[i];
+        next[i] = entry >= size ? entry - size : entry;
+        if (++filled == size) {
+          return new MaglevTable(entries, sorted.length);
+        }
+      }
+    }
+  }
+
+  private static final long OFFSET_SEED = 0x5851f42d4c957f2dL;
+  private static final long SKIP_SEED = 0x14057b7ef767814fL;
+
+  /**
+   * Builds the tables of the "maglev" policy.
+   */
+  static final class Factory extends TableFactory {
+    static final int DEFAULT_TABLE_SIZE = 65537;
+    static final int MAX_TABLE_SIZE = 5000011;
+
+    final int tableSize;
+
+    Factory(int tableSize) {
+      checkArgument(tableSize > 2 && tableSize <= MAX_TABLE_SIZE,
+          "tableSize must be in (2, %s]", MAX_TABLE_SIZE);
+      checkArgument(BigInteger.valueOf(tableSize).isProbablePrime(64), "tableSize must be prime");
+      this.tableSize = tableSize;
+    }
+
+    @Override
+    LookupTable build(List<? extends Host> hosts, @Nullable LookupTable previous) {
+      return MaglevTable.build(hosts, tableSize);
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+      return o instanceof Factory && tableSize == ((Factory) o).tableSize;
+    }
+
+    @Override
+    public int hashCode() {
+      return tableSize;
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this).add("tableSize", tableSize).toString();
+    }
+  }
+}
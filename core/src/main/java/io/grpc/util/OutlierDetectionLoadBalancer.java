@@ -0,0 +1,727 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+import com.google.common.base.Ticker;
+import io.grpc.ClientStreamTracer;
+import io.grpc.ClientStreamTracer.StreamInfo;
+import io.grpc.ConnectivityState;
+import io.grpc.ConnectivityStateInfo;
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.LoadBalancer;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import io.grpc.SynchronizationContext;
+import io.grpc.SynchronizationContext.ScheduledHandle;
+import io.grpc.internal.ServiceConfigUtil.PolicySelection;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link LoadBalancer} wrapping a child policy, which temporarily ejects the addresses whose
+ * calls fail more than those of the other addresses, so that a bad backend stops getting its share
+ * of the calls long before health checks, if any, notice. Every interval, two algorithms may eject
+ * addresses: "success rate", for a success rate too many standard deviations below the mean, and
+ * "failure percentage", for a failure percentage above a threshold. An ejected address comes back
+ * after an ejection time that grows with every consecutive ejection.
+ *
+ * <p>The subchannels of an ejected address report TRANSIENT_FAILURE to the child policy, which
+ * stops picking them without knowing about outlier detection. Call results are counted by a
+ * {@link ClientStreamTracer} added to the picks of the child. Only the addresses of single-address
+ * groups are tracked, since a subchannel with several can't tell which one served a call.
+ */
+final class OutlierDetectionLoadBalancer extends ForwardingLoadBalancer {
+  private final Map<SocketAddress, AddressTracker> trackers = new HashMap<>();
+  private final SynchronizationContext syncContext;
+  private final ScheduledExecutorService timeService;
+  private final Ticker ticker;
+  private final Random random;
+  private final GracefulSwitchLoadBalancer switchLb;
+  private OutlierDetectionConfig config;
+  @Nullable private ScheduledHandle detectionTimer;
+  private long detectionTimerStartNanos;
+
+  OutlierDetectionLoadBalancer(Helper helper) {
+    this(helper, Ticker.systemTicker(), new Random());
+  }
+
+  @VisibleForTesting
+  OutlierDetectionLoadBalancer(Helper helper, Ticker ticker, Random random) {
+    checkNotNull(helper, "helper");
+    this.syncContext = checkNotNull(helper.getSynchronizationContext(), "syncContext");
+    this.timeService =
+        checkNotNull(helper.getScheduledExecutorService(), "scheduledExecutorService");
+    this.ticker = checkNotNull(ticker, "ticker");
+    this.random = checkNotNull(random, "random");
+    this.switchLb = new GracefulSwitchLoadBalancer(new ChildHelper(helper));
+  }
+
+  @Override
+  protected LoadBalancer delegate() {
+    return switchLb;
+  }
+
+  @Override
+  public void handleResolvedAddresses(ResolvedAddresses resolvedAddresses) {
+    config = (OutlierDetectionConfig) resolvedAddresses.getLoadBalancingPolicyConfig();
+
+    Set<SocketAddress> addresses = new HashSet<>();
+    for (EquivalentAddressGroup addressGroup : resolvedAddresses.getAddresses()) {
+      if (addressGroup.getAddresses().size() == 1) {
+        addresses.add(addressGroup.getAddresses().get(0));
+      }
+    }
+    for (Iterator<AddressTracker> it = trackers.values().iterator(); it.hasNext(); ) {
+      AddressTracker tracker = it.next();
+      if (!addresses.contains(tracker.address)) {
+        tracker.uneject();
+        it.remove();
+      }
+    }
+    for (SocketAddress address : addresses) {
+      if (!trackers.containsKey(address)) {
+        trackers.put(address, new AddressTracker(address));
+      }
+    }
+
+    if (config.successRateEjection != null || config.failurePercentageEjection != null) {
+      if (detectionTimer == null) {
+        for (AddressTracker tracker : trackers.values()) {
+          tracker.resetCounters();
+        }
+        detectionTimerStartNanos = ticker.read();
+        scheduleDetection(config.intervalNanos);
+      } else {
+        // The new interval counts from the previous detection.
+        detectionTimer.cancel();
+        scheduleDetection(Math.max(
+            0, config.intervalNanos - (ticker.read() - detectionTimerStartNanos)));
+      }
+    } else if (detectionTimer != null) {
+      detectionTimer.cancel();
+      detectionTimer = null;
+      for (AddressTracker tracker : trackers.values()) {
+        tracker.uneject();
+        tracker.ejectionTimeMultiplier = 0;
+      }
+    }
+
+    switchLb.switchTo(config.childPolicy.getProvider());
+    super.handleResolvedAddresses(resolvedAddresses.toBuilder()
+        .setLoadBalancingPolicyConfig(config.childPolicy.getConfig())
+        .build());
+  }
+
+  @Override
+  public void shutdown() {
+    if (detectionTimer != null) {
+      detectionTimer.cancel();
+      detectionTimer = null;
+    }
+    super.shutdown();
+  }
+
+  private void scheduleDetection(long delayNanos) {
+    detectionTimer = syncContext.schedule(
+        new DetectionTask(), delayNanos, TimeUnit.NANOSECONDS, timeService);
+  }
+
+  @Nullable
+  private AddressTracker trackerOf(List<EquivalentAddressGroup> addressGroups) {
+    if (addressGroups.size() != 1 || addressGroups.get(0).getAddresses().size() != 1) {
+      return null;
+    }
+    return trackers.get(addressGroups.get(0).getAddresses().get(0));
+  }
+
+  private final class DetectionTask implements Runnable {
+    @Override
+    public void run() {
+      long nowNanos = ticker.read();
+      detectionTimerStartNanos = nowNanos;
+      for (AddressTracker tracker : trackers.values()) {
+        tracker.swapCounters();
+      }
+      if (config.successRateEjection != null) {
+        ejectBySuccessRate(config.successRateEjection, nowNanos);
+      }
+      if (config.failurePercentageEjection != null) {
+        ejectByFailurePercentage(config.failurePercentageEjection, nowNanos);
+      }
+      for (AddressTracker tracker : trackers.values()) {
+        if (tracker.ejected) {
+          if (tracker.ejectionExpired(config, nowNanos)) {
+            tracker.uneject();
+          }
+        } else if (tracker.ejectionTimeMultiplier > 0) {
+          tracker.ejectionTimeMultiplier--;
+        }
+      }
+      scheduleDetection(config.intervalNanos);
+    }
+  }
+
+  private void ejectBySuccessRate(SuccessRateEjection ejection, long nowNanos) {
+    List<AddressTracker> candidates = candidates(ejection.requestVolume);
+    if (candidates.isEmpty() || candidates.size() < ejection.minimumHosts) {
+      return;
+    }
+    double mean = 0;
+    for (AddressTracker tracker : candidates) {
+      mean += tracker.successRate();
+    }
+    mean /= candidates.size();
+    double variance = 0;
+    for (AddressTracker tracker : candidates) {
+      double deviation = tracker.successRate() - mean;
+      variance += deviation * deviation;
+    }
+    variance /= candidates.size();
+    double threshold = mean - Math.sqrt(variance) * (ejection.stdevFactor / 1000.0);
+    for (AddressTracker tracker : candidates) {
+      if (ejectedPercentage() >= config.maxEjectionPercent) {
+        return;
+      }
+      if (tracker.successRate() < threshold
+          && random.nextInt(100) < ejection.enforcementPercentage) {
+        tracker.eject(nowNanos);
+      }
+    }
+  }
+
+  private void ejectByFailurePercentage(FailurePercentageEjection ejection, long nowNanos) {
+    List<AddressTracker> candidates = candidates(ejection.requestVolume);
+    if (candidates.isEmpty() || candidates.size() < ejection.minimumHosts) {
+      return;
+    }
+    for (AddressTracker tracker : candidates) {
+      if (ejectedPercentage() >= config.maxEjectionPercent) {
+        return;
+      }
+      if (!tracker.ejected
+          && (1 - tracker.successRate()) * 100 > ejection.threshold
+          && random.nextInt(100) < ejection.enforcementPercentage) {
+        tracker.eject(nowNanos);
+      }
+    }
+  }
+
+  private List<AddressTracker> candidates(int requestVolume) {
+    List<AddressTracker> candidates = new ArrayList<>();
+    for (AddressTracker tracker : trackers.values()) {
+      if (!tracker.ejected && tracker.inactiveCounter.volume() >= requestVolume) {
+        candidates.add(tracker);
+      }
+    }
+    return candidates;
+  }
+
+  private double ejectedPercentage() {
+    int ejected = 0;
+    for (AddressTracker tracker : trackers.values()) {
+      if (tracker.ejected) {
+        ejected++;
+      }
+    }
+    return ejected * 100.0 / trackers.size();
+  }
+
+  private final class ChildHelper extends ForwardingLoadBalancerHelper {
+    private final Helper delegate;
+
+    ChildHelper(Helper delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    protected Helper delegate() {
+      return delegate;
+    }
+
+    @Override
+    public Subchannel createSubchannel(CreateSubchannelArgs args) {
+      OutlierDetectionSubchannel subchannel =
+          new OutlierDetectionSubchannel(super.createSubchannel(args));
+      AddressTracker tracker = trackerOf(args.getAddresses());
+      if (tracker != null) {
+        tracker.add(subchannel);
+      }
+      return subchannel;
+    }
+
+    @Override
+    public void updateBalancingState(ConnectivityState newState, SubchannelPicker newPicker) {
+      super.updateBalancingState(newState, new OutlierDetectionPicker(newPicker));
+    }
+  }
+
+  /**
+   * A subchannel that reports TRANSIENT_FAILURE while its address is ejected, and the state of the
+   * underlying subchannel otherwise.
+   */
+  private final class OutlierDetectionSubchannel extends ForwardingSubchannel {
+    private final Subchannel delegate;
+    @Nullable private AddressTracker tracker;
+    // Counts the results of calls for the tracker, built once so that picks don't allocate. It is
+    // null for untracked addresses.
+    @Nullable volatile PickResult countingPickResult;
+    private boolean ejected;
+    @Nullable private SubchannelStateListener listener;
+    @Nullable private ConnectivityStateInfo lastState;
+
+    OutlierDetectionSubchannel(Subchannel delegate) {
+      this.delegate = checkNotNull(delegate, "subchannel");
+    }
+
+    @Override
+    protected Subchannel delegate() {
+      return delegate;
+    }
+
+    @Override
+    public void start(final SubchannelStateListener listener) {
+      this.listener = listener;
+      delegate.start(new SubchannelStateListener() {
+          @Override
+          public void onSubchannelState(ConnectivityStateInfo newState) {
+            lastState = newState;
+            if (!ejected) {
+              listener.onSubchannelState(newState);
+            }
+          }
+        });
+      if (ejected) {
+        reportEjected();
+      }
+    }
+
+    @Override
+    public void updateAddresses(List<EquivalentAddressGroup> addresses) {
+      AddressTracker newTracker = trackerOf(addresses);
+      if (newTracker != tracker) {
+        if (tracker != null) {
+          tracker.remove(this);
+        }
+        if (newTracker != null) {
+          newTracker.add(this);
+        } else {
+          uneject();
+        }
+      }
+      delegate.updateAddresses(addresses);
+    }
+
+    @Override
+    public void shutdown() {
+      if (tracker != null) {
+        tracker.remove(this);
+      }
+      delegate.shutdown();
+    }
+
+    void setTracker(@Nullable AddressTracker tracker) {
+      this.tracker = tracker;
+      countingPickResult = tracker == null ? null : PickResult.withSubchannel(this, tracker);
+    }
+
+    void eject() {
+      if (!ejected) {
+        ejected = true;
+        reportEjected();
+      }
+    }
+
+    void uneject() {
+      if (ejected) {
+        ejected = false;
+        if (listener != null && lastState != null) {
+          listener.onSubchannelState(lastState);
+        }
+      }
+    }
+
+    private void reportEjected() {
+      if (listener != null) {
+        listener.onSubchannelState(ConnectivityStateInfo.forTransientFailure(
+            Status.UNAVAILABLE.withDescription(
+                "The address of the subchannel was ejected by outlier detection")));
+      }
+    }
+  }
+
+  private static final class OutlierDetectionPicker extends SubchannelPicker {
+    private final SubchannelPicker delegate;
+
+    OutlierDetectionPicker(SubchannelPicker delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public PickResult pickSubchannel(PickSubchannelArgs args) {
+      PickResult result = delegate.pickSubchannel(args);
+      if (!(result.getSubchannel() instanceof OutlierDetectionSubchannel)) {
+        return result;
+      }
+      OutlierDetectionSubchannel subchannel = (OutlierDetectionSubchannel) result.getSubchannel();
+      PickResult countingPickResult = subchannel.countingPickResult;
+      if (countingPickResult == null) {
+        return result;
+      }
+      final ClientStreamTracer.Factory childFactory = result.getStreamTracerFactory();
+      if (childFactory == null) {
+        return countingPickResult;
+      }
+      final AddressTracker tracker = (AddressTracker) countingPickResult.getStreamTracerFactory();
+      return PickResult.withSubchannel(subchannel, new ClientStreamTracer.Factory() {
+          @Override
+          public ClientStreamTracer newClientStreamTracer(StreamInfo info, Metadata headers) {
+            final ClientStreamTracer childTracer =
+                childFactory.newClientStreamTracer(info, headers);
+            return new ForwardingClientStreamTracer() {
+              @Override
+              protected ClientStreamTracer delegate() {
+                return childTracer;
+              }
+
+              @Override
+              public void streamClosed(Status status) {
+                tracker.record(status);
+                super.streamClosed(status);
+              }
+            };
+          }
+        });
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(OutlierDetectionPicker.class)
+          .add("delegate", delegate)
+          .toString();
+    }
+  }
+
+  /**
+   * The call results and ejection state of an address. Results are counted into the active
+   * counter, while the detection looks at the inactive one, which holds the previous interval.
+   */
+  @VisibleForTesting
+  static final class AddressTracker extends ClientStreamTracer.Factory {
+    final SocketAddress address;
+    private final Set<OutlierDetectionSubchannel> subchannels = new HashSet<>();
+    private volatile CallCounter activeCounter = new CallCounter();
+    private CallCounter inactiveCounter = new CallCounter();
+    // The tracer has no state of its own, so every call shares it.
+    private final ClientStreamTracer tracer = new ClientStreamTracer() {
+        @Override
+        public void streamClosed(Status status) {
+          record(status);
+        }
+      };
+    boolean ejected;
+    private long ejectionTimeNanos;
+    int ejectionTimeMultiplier;
+
+    AddressTracker(SocketAddress address) {
+      this.address = address;
+    }
+
+    @Override
+    public ClientStreamTracer newClientStreamTracer(StreamInfo info, Metadata headers) {
+      return tracer;
+    }
+
+    void record(Status status) {
+      if (status.isOk()) {
+        activeCounter.successes.incrementAndGet();
+      } else {
+        activeCounter.failures.incrementAndGet();
+      }
+    }
+
+    void swapCounters() {
+      inactiveCounter.reset();
+      CallCounter counter = activeCounter;
+      activeCounter = inactiveCounter;
+      inactiveCounter = counter;
+    }
+
+    void resetCounters() {
+      activeCounter.reset();
+      inactiveCounter.reset();
+    }
+
+    /** The success rate of the previous interval, which must have had calls. */
+    double successRate() {
+      return inactiveCounter.successes.get() / (double) inactiveCounter.volume();
+    }
+
+    void add(OutlierDetectionSubchannel subchannel) {
+      subchannels.add(subchannel);
+      subchannel.setTracker(this);
+      if (ejected) {
+        subchannel.eject();
+      } else {
+        subchannel.uneject();
+      }
+    }
+
+    void remove(OutlierDetectionSubchannel subchannel) {
+      subchannels.remove(subchannel);
+      subchannel.setTracker(null);
+    }
+
+    void eject(long nowNanos) {
+      ejected = true;
+      ejectionTimeNanos = nowNanos;
+      ejectionTimeMultiplier++;
+      for (OutlierDetectionSubchannel subchannel : subchannels) {
+        subchannel.eject();
+      }
+    }
+
+    void uneject() {
+      ejected = false;
+      for (OutlierDetectionSubchannel subchannel : subchannels) {
+        subchannel.uneject();
+      }
+    }
+
+    boolean ejectionExpired(OutlierDetectionConfig config, long nowNanos) {
+      long maxEjectionTimeNanos =
+          Math.max(config.baseEjectionTimeNanos, config.maxEjectionTimeNanos);
+      long ejectionDurationNanos = Math.min(
+          config.baseEjectionTimeNanos * ejectionTimeMultiplier, maxEjectionTimeNanos);
+      return nowNanos - ejectionTimeNanos >= ejectionDurationNanos;
+    }
+  }
+
+  private static final class CallCounter {
+    final AtomicLong successes = new AtomicLong();
+    final AtomicLong failures = new AtomicLong();
+
+    long volume() {
+      return successes.get() + failures.get();
+    }
+
+    void reset() {
+      successes.set(0);
+      failures.set(0);
+    }
+  }
+
+  /**
+   * The parsed configuration of the "outlier_detection" policy.
+   */
+  static final class OutlierDetectionConfig {
+    static final long DEFAULT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+    static final long DEFAULT_BASE_EJECTION_TIME_NANOS = TimeUnit.SECONDS.toNanos(30);
+    static final long DEFAULT_MAX_EJECTION_TIME_NANOS = TimeUnit.SECONDS.toNanos(300);
+    static final int DEFAULT_MAX_EJECTION_PERCENT = 10;
+
+    final long intervalNanos;
+    final long baseEjectionTimeNanos;
+    final long maxEjectionTimeNanos;
+    final int maxEjectionPercent;
+    @Nullable final SuccessRateEjection successRateEjection;
+    @Nullable final FailurePercentageEjection failurePercentageEjection;
+    final PolicySelection childPolicy;
+
+    OutlierDetectionConfig(long intervalNanos, long baseEjectionTimeNanos,
+        long maxEjectionTimeNanos, int maxEjectionPercent,
+        @Nullable SuccessRateEjection successRateEjection,
+        @Nullable FailurePercentageEjection failurePercentageEjection,
+        PolicySelection childPolicy) {
+      checkArgument(intervalNanos > 0, "interval must be positive");
+      checkArgument(baseEjectionTimeNanos > 0, "baseEjectionTime must be positive");
+      checkArgument(maxEjectionTimeNanos > 0, "maxEjectionTime must be positive");
+      checkPercentage(maxEjectionPercent, "maxEjectionPercent");
+      this.intervalNanos = intervalNanos;
+      this.baseEjectionTimeNanos = baseEjectionTimeNanos;
+      this.maxEjectionTimeNanos = maxEjectionTimeNanos;
+      this.maxEjectionPercent = maxEjectionPercent;
+      this.successRateEjection = successRateEjection;
+      this.failurePercentageEjection = failurePercentageEjection;
+      this.childPolicy = checkNotNull(childPolicy, "childPolicy");
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+      if (!(o instanceof OutlierDetectionConfig)) {
+        return false;
+      }
+      OutlierDetectionConfig that = (OutlierDetectionConfig) o;
+      return intervalNanos == that.intervalNanos
+          && baseEjectionTimeNanos == that.baseEjectionTimeNanos
+          && maxEjectionTimeNanos == that.maxEjectionTimeNanos
+          && maxEjectionPercent == that.maxEjectionPercent
+          && Objects.equal(successRateEjection, that.successRateEjection)
+          && Objects.equal(failurePercentageEjection, that.failurePercentageEjection)
+          && childPolicy.equals(that.childPolicy);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(intervalNanos, baseEjectionTimeNanos, maxEjectionTimeNanos,
+          maxEjectionPercent, successRateEjection, failurePercentageEjection, childPolicy);
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+          .add("intervalNanos", intervalNanos)
+          .add("baseEjectionTimeNanos", baseEjectionTimeNanos)
+          .add("maxEjectionTimeNanos", maxEjectionTimeNanos)
+          .add("maxEjectionPercent", maxEjectionPercent)
+          .add("successRateEjection", successRateEjection)
+          .add("failurePercentageEjection", failurePercentageEjection)
+          .add("childPolicy", childPolicy)
+          .toString();
+    }
+  }
+
+  /**
+   * Ejects the addresses whose success rate is more than {@code stdevFactor / 1000} standard
+   * deviations below the mean success rate of the addresses with enough calls.
+   */
+  static final class SuccessRateEjection {
+    static final int DEFAULT_STDEV_FACTOR = 1900;
+    static final int DEFAULT_ENFORCEMENT_PERCENTAGE = 100;
+    static final int DEFAULT_MINIMUM_HOSTS = 5;
+    static final int DEFAULT_REQUEST_VOLUME = 100;
+
+    final int stdevFactor;
+    final int enforcementPercentage;
+    final int minimumHosts;
+    final int requestVolume;
+
+    SuccessRateEjection(
+        int stdevFactor, int enforcementPercentage, int minimumHosts, int requestVolume) {
+      checkArgument(stdevFactor >= 0, "stdevFactor must not be negative");
+      checkPercentage(enforcementPercentage, "enforcementPercentage");
+      checkArgument(minimumHosts >= 0, "minimumHosts must not be negative");
+      checkArgument(requestVolume >= 0, "requestVolume must not be negative");
+      this.stdevFactor = stdevFactor;
+      this.enforcementPercentage = enforcementPercentage;
+      this.minimumHosts = minimumHosts;
+      this.requestVolume = requestVolume;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+      if (!(o instanceof SuccessRateEjection)) {
+        return false;
+      }
+      SuccessRateEjection that = (SuccessRateEjection) o;
+      return stdevFactor == that.stdevFactor
+          && enforcementPercentage == that.enforcementPercentage
+          && minimumHosts == that.minimumHosts
+          && requestVolume == that.requestVolume;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(stdevFactor, enforcementPercentage, minimumHosts, requestVolume);
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+          .add("stdevFactor", stdevFactor)
+          .add("enforcementPercentage", enforcementPercentage)
+          .add("minimumHosts", minimumHosts)
+          .add("requestVolume", requestVolume)
+          .toString();
+    }
+  }
+
+  /**
+   * Ejects the addresses whose percentage of failed calls is above {@code threshold}, among the
+   * addresses with enough calls.
+   */
+  static final class FailurePercentageEjection {
+    static final int DEFAULT_THRESHOLD = 85;
+    static final int DEFAULT_ENFORCEMENT_PERCENTAGE = 100;
+    static final int DEFAULT_MINIMUM_HOSTS = 5;
+    static final int DEFAULT_REQUEST_VOLUME = 50;
+
+    final int threshold;
+    final int enforcementPercentage;
+    final int minimumHosts;
+    final int requestVolume;
+
+    FailurePercentageEjection(
+        int threshold, int enforcementPercentage, int minimumHosts, int requestVolume) {
+      checkPercentage(threshold, "threshold");
+      checkPercentage(enforcementPercentage, "enforcementPercentage");
+      checkArgument(minimumHosts >= 0, "minimumHosts must not be negative");
+      checkArgument(requestVolume >= 0, "requestVolume must not be negative");
+      this.threshold = threshold;
+      this.enforcementPercentage = enforcementPercentage;
+      this.minimumHosts = minimumHosts;
+      this.requestVolume = requestVolume;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+      if (!(o instanceof FailurePercentageEjection)) {
+        return false;
+      }
+      FailurePercentageEjection that = (FailurePercentageEjection) o;
+      return threshold == that.threshold
+          && enforcementPercentage == that.enforcementPercentage
+          && minimumHosts == that.minimumHosts
+          && requestVolume == that.requestVolume;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(threshold, enforcementPercentage, minimumHosts, requestVolume);
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+          .add("threshold", threshold)
+          .add("enforcementPercentage", enforcementPercentage)
+          .add("minimumHosts", minimumHosts)
+          .add("requestVolume", requestVolume)
+          .toString();
+    }
+  }
+
+  private static void checkPercentage(int value, String name) {
+    checkArgument(value >= 0 && value <= 100, "%s must be in [0, 100]", name);
+  }
+}
@@ -0,0 +1,367 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static io.grpc.ConnectivityState.CONNECTING;
+import static io.grpc.ConnectivityState.IDLE;
+import static io.grpc.ConnectivityState.READY;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Ticker;
+import io.grpc.ClientStreamTracer;
+import io.grpc.ClientStreamTracer.StreamInfo;
+import io.grpc.ConnectivityState;
+import io.grpc.ConnectivityStateInfo;
+import io.grpc.LoadBalancer;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link LoadBalancer} that sends each call to the cheaper of two READY subchannels chosen at
+ * random, where the cost of a subchannel is the moving average of its observed latency multiplied
+ * by its calls in flight ("peak EWMA"). A latency spike raises the average at once, while lower
+ * latencies only pull it down gradually, so a backend that slows down loses traffic immediately
+ * and wins it back as it recovers.
+ *
+ * <p>Subchannels are managed by a round-robin balancer, whose picker is replaced whenever any
+ * subchannel is READY.
+ */
+final class PeakEwmaLoadBalancer extends ForwardingLoadBalancer {
+  // The cost of a subchannel with calls in flight but no latency observed yet. It is above any
+  // plausible latency, so measured subchannels are preferred, yet still orders by calls in flight.
+  @VisibleForTesting
+  static final double PENALTY = Long.MAX_VALUE >> 16;
+
+  private final Set<TrackedSubchannel> subchannels = new HashSet<>();
+  private final ThreadSafeRandom random;
+  private final Ticker ticker;
+  private final Helper helper;
+  private final LoadBalancer delegate;
+  private long decayTimeNanos = PeakEwmaConfig.DEFAULT_DECAY_TIME_NANOS;
+  // While the round-robin balancer handles addresses, its updates are held back until it has shut
+  // down the removed subchannels, so that the picker doesn't include them.
+  private boolean handlingAddresses;
+  private boolean pickerStale;
+  private ConnectivityState state = CONNECTING;
+  @Nullable private SubchannelPicker delegatePicker;
+
+  PeakEwmaLoadBalancer(Helper helper) {
+    this(helper, ThreadSafeRandom.ThreadSafeRandomImpl.instance, Ticker.systemTicker());
+  }
+
+  @VisibleForTesting
+  PeakEwmaLoadBalancer(Helper helper, ThreadSafeRandom random, Ticker ticker) {
+    this.random = checkNotNull(random, "random");
+    this.ticker = checkNotNull(ticker, "ticker");
+    this.helper = checkNotNull(helper, "helper");
+    this.delegate = new RoundRobinLoadBalancer(new HelperImpl(helper));
+  }
+
+  @Override
+  protected LoadBalancer delegate() {
+    return delegate;
+  }
+
+  @Override
+  public void handleResolvedAddresses(ResolvedAddresses resolvedAddresses) {
+    PeakEwmaConfig config = (PeakEwmaConfig) resolvedAddresses.getLoadBalancingPolicyConfig();
+    if (config != null && config.decayTimeNanos != decayTimeNanos) {
+      decayTimeNanos = config.decayTimeNanos;
+      for (TrackedSubchannel subchannel : subchannels) {
+        subchannel.stats.decayTimeNanos = decayTimeNanos;
+      }
+    }
+    handlingAddresses = true;
+    try {
+      super.handleResolvedAddresses(resolvedAddresses);
+    } finally {
+      handlingAddresses = false;
+    }
+    if (pickerStale && delegatePicker != null) {
+      updatePicker();
+    }
+  }
+
+  private void updatePicker() {
+    pickerStale = false;
+    SubchannelPicker picker = delegatePicker;
+    List<TrackedSubchannel> readyList = new ArrayList<>(subchannels.size());
+    for (TrackedSubchannel subchannel : subchannels) {
+      if (subchannel.state == READY) {
+        readyList.add(subchannel);
+      }
+    }
+    if (!readyList.isEmpty()) {
+      picker = new PeakEwmaPicker(readyList, random, ticker);
+    }
+    helper.updateBalancingState(state, picker);
+  }
+
+  private final class HelperImpl extends ForwardingLoadBalancerHelper {
+    private final Helper delegate;
+
+    HelperImpl(Helper delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    protected Helper delegate() {
+      return delegate;
+    }
+
+    @Override
+    public Subchannel createSubchannel(CreateSubchannelArgs args) {
+      TrackedSubchannel subchannel = new TrackedSubchannel(
+          super.createSubchannel(args), new LatencyStats(ticker, decayTimeNanos));
+      subchannels.add(subchannel);
+      return subchannel;
+    }
+
+    @Override
+    public void updateBalancingState(ConnectivityState newState, SubchannelPicker newPicker) {
+      // The round-robin balancer updates its picker whenever a subchannel becomes or stops being
+      // READY, so the list built from it is always current.
+      state = newState;
+      delegatePicker = newPicker;
+      pickerStale = true;
+      if (!handlingAddresses) {
+        updatePicker();
+      }
+    }
+  }
+
+  /**
+   * Records the state of a subchannel and the latency of the calls made on it.
+   */
+  private final class TrackedSubchannel extends ForwardingSubchannel {
+    private final Subchannel delegate;
+    final LatencyStats stats;
+    // Built once, so that picks don't allocate.
+    final PickResult pickResult;
+    ConnectivityState state = IDLE;
+
+    TrackedSubchannel(Subchannel delegate, LatencyStats stats) {
+      this.delegate = checkNotNull(delegate, "subchannel");
+      this.stats = stats;
+      this.pickResult = PickResult.withSubchannel(this, stats);
+    }
+
+    @Override
+    protected Subchannel delegate() {
+      return delegate;
+    }
+
+    @Override
+    public void start(final SubchannelStateListener listener) {
+      delegate.start(new SubchannelStateListener() {
+          @Override
+          public void onSubchannelState(ConnectivityStateInfo newState) {
+            state = newState.getState();
+            listener.onSubchannelState(newState);
+          }
+        });
+    }
+
+    @Override
+    public void shutdown() {
+      subchannels.remove(this);
+      delegate.shutdown();
+    }
+  }
+
+  @VisibleForTesting
+  static final class PeakEwmaPicker extends SubchannelPicker {
+    private final List<TrackedSubchannel> list; // non-empty
+    private final ThreadSafeRandom random;
+    private final Ticker ticker;
+
+    PeakEwmaPicker(List<TrackedSubchannel> list, ThreadSafeRandom random, Ticker ticker) {
+      checkArgument(!list.isEmpty(), "empty list");
+      this.list = list;
+      this.random = random;
+      this.ticker = ticker;
+    }
+
+    @Override
+    public PickResult pickSubchannel(PickSubchannelArgs args) {
+      int size = list.size();
+      int first = random.nextInt(size);
+      TrackedSubchannel candidate = list.get(first);
+      if (size > 1) {
+        // Two distinct subchannels, each pair equally likely.
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+          second++;
+        }
+        TrackedSubchannel other = list.get(second);
+        long nowNanos = ticker.read();
+        if (other.stats.cost(nowNanos) < candidate.stats.cost(nowNanos)) {
+          candidate = other;
+        }
+      }
+      return candidate.pickResult;
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(PeakEwmaPicker.class).add("list", list).toString();
+    }
+  }
+
+  /**
+   * The calls in flight on a subchannel and the moving average of their latency, measured from
+   * the creation of the stream until the response headers arrive, or the stream closes without
+   * them. Updates are lock-free, so concurrent pickers and streams never block each other.
+   */
+  @VisibleForTesting
+  static final class LatencyStats extends ClientStreamTracer.Factory {
+    private final Ticker ticker;
+    private final AtomicInteger inFlights = new AtomicInteger();
+    private final AtomicReference<Ewma> ewma;
+    volatile long decayTimeNanos;
+
+    LatencyStats(Ticker ticker, long decayTimeNanos) {
+      this.ticker = ticker;
+      this.decayTimeNanos = decayTimeNanos;
+      this.ewma = new AtomicReference<>(new Ewma(0, ticker.read()));
+    }
+
+    /**
+     * Returns the expected latency of the subchannel, weighted by its calls in flight. Without new
+     * observations the average decays towards zero, so that an avoided subchannel gets retried.
+     */
+    double cost(long nowNanos) {
+      Ewma current = ewma.get();
+      double latency = current.value * decay(nowNanos - current.timestampNanos);
+      int inFlight = inFlights.get();
+      if (latency == 0 && inFlight != 0) {
+        return PENALTY + inFlight;
+      }
+      return latency * (inFlight + 1);
+    }
+
+    void observe(long latencyNanos) {
+      long nowNanos = ticker.read();
+      Ewma current;
+      Ewma next;
+      do {
+        current = ewma.get();
+        double value;
+        if (latencyNanos > current.value) {
+          value = latencyNanos;
+        } else {
+          double weight = decay(nowNanos - current.timestampNanos);
+          value = current.value * weight + latencyNanos * (1 - weight);
+        }
+        next = new Ewma(value, Math.max(nowNanos, current.timestampNanos));
+      } while (!ewma.compareAndSet(current, next));
+    }
+
+    private double decay(long elapsedNanos) {
+      return Math.exp(-Math.max(elapsedNanos, 0) / (double) decayTimeNanos);
+    }
+
+    @VisibleForTesting
+    int getInFlights() {
+      return inFlights.get();
+    }
+
+    @Override
+    public ClientStreamTracer newClientStreamTracer(StreamInfo info, Metadata headers) {
+      inFlights.incrementAndGet();
+      return new LatencyTracer(ticker.read());
+    }
+
+    private final class LatencyTracer extends ClientStreamTracer {
+      private final long startNanos;
+      // Racing a cancellation at worst records a stream twice, which barely moves the average.
+      private volatile boolean observed;
+
+      LatencyTracer(long startNanos) {
+        this.startNanos = startNanos;
+      }
+
+      @Override
+      public void inboundHeaders() {
+        observeOnce();
+      }
+
+      @Override
+      public void streamClosed(Status status) {
+        observeOnce();
+        inFlights.decrementAndGet();
+      }
+
+      private void observeOnce() {
+        if (!observed) {
+          observed = true;
+          observe(ticker.read() - startNanos);
+        }
+      }
+    }
+  }
+
+  private static final class Ewma {
+    final double value;
+    final long timestampNanos;
+
+    Ewma(double value, long timestampNanos) {
+      this.value = value;
+      this.timestampNanos = timestampNanos;
+    }
+  }
+
+  /**
+   * The parsed configuration of the "peak_ewma" policy.
+   */
+  static final class PeakEwmaConfig {
+    static final long DEFAULT_DECAY_TIME_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    final long decayTimeNanos;
+
+    PeakEwmaConfig(long decayTimeNanos) {
+      checkArgument(decayTimeNanos > 0, "decayTime must be positive");
+      this.decayTimeNanos = decayTimeNanos;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+      return o instanceof PeakEwmaConfig && decayTimeNanos == ((PeakEwmaConfig) o).decayTimeNanos;
+    }
+
+    @Override
+    public int hashCode() {
+      return Long.valueOf(decayTimeNanos).hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this).add("decayTimeNanos", decayTimeNanos).toString();
+    }
+  }
+}
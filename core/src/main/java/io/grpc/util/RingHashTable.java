@@ -0,0 +1,258 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.MoreObjects;
+import io.grpc.util.ConsistentHashLoadBalancer.Host;
+import io.grpc.util.ConsistentHashLoadBalancer.LookupTable;
+import io.grpc.util.ConsistentHashLoadBalancer.TableFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link LookupTable} placing each host at several points on a ring of hashes, where a call goes
+ * to the host at the first point at or after its hash. Adding or removing a host only moves the
+ * calls between its points and the preceding ones.
+ *
+ * <p>Every host gets the same number of points, a power of two that is kept as hosts come and go,
+ * until the ring would fall below half its minimum size or exceed its maximum. Until then, a new
+ * table is the previous one without the points of removed hosts, merged with the sorted points of
+ * added hosts, so an address change costs time linear in the size of the ring rather than a full
+ * sort, and calls only move to or from the hosts that changed.
+ */
+final class RingHashTable extends LookupTable {
+  // Sorted, with hashes[i] the point of hosts[owners[i]].
+  private final long[] hashes;
+  private final int[] owners;
+  private final Host[] hosts;
+  private final Set<Host> members;
+  private final int pointsPerHost;
+  // Where the points with each value of the top bits start, so that a lookup only searches the
+  // few points sharing the top bits of its hash, rather than missing the cache all over the ring.
+  private final int[] bucketStarts;
+  private final int bucketShift;
+
+  private RingHashTable(
+      long[] hashes, int[] owners, Host[] hosts, Set<Host> members, int pointsPerHost) {
+    this.hashes = hashes;
+    this.owners = owners;
+    this.hosts = hosts;
+    this.members = members;
+    this.pointsPerHost = pointsPerHost;
+    int bucketBits = Math.max(1, 31 - Integer.numberOfLeadingZeros(Math.max(hashes.length / 4, 1)));
+    this.bucketShift = 64 - bucketBits;
+    this.bucketStarts = new int[(1 << bucketBits) + 1];
+    int bucket = 0;
+    for (int i = 0; i < hashes.length; i++) {
+      int last = bucketOf(hashes[i]);
+      while (bucket <= last) {
+        bucketStarts[bucket++] = i;
+      }
+    }
+    while (bucket < bucketStarts.length) {
+      bucketStarts[bucket++] = hashes.length;
+    }
+  }
+
+  // Flipping the sign bit orders the buckets like the signed hashes.
+  private int bucketOf(long hash) {
+    return (int) ((hash ^ Long.MIN_VALUE) >>> bucketShift);
+  }
+
+  @Override
+  int size() {
+    return hashes.length;
+  }
+
+  @Override
+  int position(long hash) {
+    int bucket = bucketOf(hash);
+    int position =
+        Arrays.binarySearch(hashes, bucketStarts[bucket], bucketStarts[bucket + 1], hash);
+    if (position < 0) {
+      position = -position - 1;
+    }
+    return position == hashes.length ? 0 : position;
+  }
+
+  @Override
+  Host hostAt(int position) {
+    return hosts[owners[position]];
+  }
+
+  @VisibleForTesting
+  int pointsPerHost() {
+    return pointsPerHost;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("hosts", members.size())
+        .add("pointsPerHost", pointsPerHost)
+        .toString();
+  }
+
+  /**
+   * Returns {@code previousPointsPerHost} if it still fills half of {@code minRingSize} within
+   * {@code maxRingSize}. Otherwise returns the smallest power of two points per host that fills
+   * {@code minRingSize}, or the largest that stays within {@code maxRingSize}, and at least one.
+   */
+  @VisibleForTesting
+  static int pointsPerHost(
+      int hostCount, int minRingSize, int maxRingSize, int previousPointsPerHost) {
+    long previousSize = (long) previousPointsPerHost * hostCount;
+    if (previousPointsPerHost > 0
+        && (previousSize * 2 >= minRingSize || previousSize * 2 > maxRingSize)
+        && (previousSize <= maxRingSize || previousPointsPerHost == 1)) {
+      return previousPointsPerHost;
+    }
+    int points = 1;
+    while ((long) points * hostCount < minRingSize) {
+      points <<= 1;
+    }
+    while (points > 1 && (long) points * hostCount > maxRingSize) {
+      points >>= 1;
+    }
+    return points;
+  }
+
+  static RingHashTable build(
+      List<? extends Host> hosts, int pointsPerHost, @Nullable RingHashTable previous) {
+    checkArgument(!hosts.isEmpty(), "no hosts");
+    Set<Host> members = new HashSet<>(hosts);
+    if (previous == null || previous.pointsPerHost != pointsPerHost) {
+      previous = EMPTY;
+    }
+    // The kept hosts come first in the new table, in their previous order.
+    List<Host> newHosts = new ArrayList<>(members.size());
+    int[] newIndexes = new int[previous.hosts.length];
+    for (int i = 0; i < previous.hosts.length; i++) {
+      if (members.contains(previous.hosts[i])) {
+        newIndexes[i] = newHosts.size();
+        newHosts.add(previous.hosts[i]);
+      } else {
+        newIndexes[i] = -1;
+      }
+    }
+    int keptHostCount = newHosts.size();
+    for (Host host : members) {
+      if (!previous.members.contains(host)) {
+        newHosts.add(host);
+      }
+    }
+    int addedHostCount = newHosts.size() - keptHostCount;
+
+    // The points of the added hosts are sorted as plain longs, with the index of their host in
+    // the low bits. Those bits stay in the points, which only shifts them by a negligible amount.
+    int indexBits = 64 - Long.numberOfLeadingZeros(Math.max(addedHostCount - 1, 1));
+    long indexMask = (1L << indexBits) - 1;
+    long[] addedHashes = new long[addedHostCount * pointsPerHost];
+    int count = 0;
+    for (int i = 0; i < addedHostCount; i++) {
+      long hostHash = newHosts.get(keptHostCount + i).hash();
+      for (int point = 1; point <= pointsPerHost; point++) {
+        long hash = ConsistentHashLoadBalancer.mix(hostHash + point * 0x9e3779b97f4a7c15L);
+        addedHashes[count++] = (hash & ~indexMask) | i;
+      }
+    }
+    Arrays.sort(addedHashes);
+
+    // Merges the kept points, already sorted, with the added ones.
+    long[] hashes = new long[keptHostCount * pointsPerHost + addedHashes.length];
+    int[] owners = new int[hashes.length];
+    int kept = 0;
+    int added = 0;
+    for (int i = 0; i < hashes.length; i++) {
+      while (kept < previous.hashes.length && newIndexes[previous.owners[kept]] < 0) {
+        kept++;
+      }
+      if (added == addedHashes.length
+          || (kept < previous.hashes.length && previous.hashes[kept] <= addedHashes[added])) {
+        hashes[i] = previous.hashes[kept];
+        owners[i] = newIndexes[previous.owners[kept++]];
+      } else {
+        hashes[i] = addedHashes[added];
+        owners[i] = keptHostCount + (int) (addedHashes[added++] & indexMask);
+      }
+    }
+    return new RingHashTable(
+        hashes, owners, newHosts.toArray(new Host[0]), members, pointsPerHost);
+  }
+
+  private static final RingHashTable EMPTY = new RingHashTable(
+      new long[0], new int[0], new Host[0], Collections.<Host>emptySet(), 0);
+
+  /**
+   * Builds the tables of the "ring_hash" policy.
+   */
+  static final class Factory extends TableFactory {
+    static final int DEFAULT_MIN_RING_SIZE = 1024;
+    static final int DEFAULT_MAX_RING_SIZE = 4096;
+    static final int MAX_RING_SIZE = 8 * 1024 * 1024;
+
+    final int minRingSize;
+    final int maxRingSize;
+
+    Factory(int minRingSize, int maxRingSize) {
+      checkArgument(minRingSize > 0, "minRingSize must be positive");
+      checkArgument(maxRingSize >= minRingSize, "maxRingSize must be at least minRingSize");
+      checkArgument(maxRingSize <= MAX_RING_SIZE, "maxRingSize must be at most %s", MAX_RING_SIZE);
+      this.minRingSize = minRingSize;
+      this.maxRingSize = maxRingSize;
+    }
+
+    @Override
+    LookupTable build(List<? extends Host> hosts, @Nullable LookupTable previous) {
+      RingHashTable previousRing =
+          previous instanceof RingHashTable ? (RingHashTable) previous : null;
+      int pointsPerHost = pointsPerHost(hosts.size(), minRingSize, maxRingSize,
+          previousRing != null ? previousRing.pointsPerHost : 0);
+      return RingHashTable.build(hosts, pointsPerHost, previousRing);
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+      if (!(o instanceof Factory)) {
+        return false;
+      }
+      Factory that = (Factory) o;
+      return minRingSize == that.minRingSize && maxRingSize == that.maxRingSize;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * minRingSize + maxRingSize;
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+          .add("minRingSize", minRingSize)
+          .add("maxRingSize", maxRingSize)
+          .toString();
+    }
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.util;
+
+import io.grpc.LoadBalancer;
+import io.grpc.LoadBalancerProvider;
+import io.grpc.NameResolver.ConfigOrError;
+import io.grpc.Status;
+import io.grpc.internal.JsonUtil;
+import io.grpc.util.ConsistentHashLoadBalancer.ConsistentHashConfig;
+import java.util.Map;
+
+/**
+ * Provider for the "maglev" balancing policy.
+ */
+// Make it package-private so that it cannot be directly referenced by users.  Java service loader
+// requires the provider to be public, but we can hide it under a package-private class.
+final class SecretMaglevLoadBalancerProvider {
+  private SecretMaglevLoadBalancerProvider() {
+  }
+
+  public static final class Provider extends LoadBalancerProvider {
+    private static final ConsistentHashConfig DEFAULT_CONFIG = new ConsistentHashConfig(
+        null, new MaglevTable.Factory(MaglevTable.Factory.DEFAULT_TABLE_SIZE));
+
+    @Override
+    public boolean isAvailable() {
+      return true;
+    }
+
+    @Override
+    public int getPriority() {
+      return 5;
+    }
+
+    @Override
+    public String getPolicyName() {
+      return "maglev";
+    }
+
+    @Override
+    public LoadBalancer newLoadBalancer(LoadBalancer.Helper helper) {
+      return new ConsistentHashLoadBalancer(helper, DEFAULT_CONFIG);
+    }
+
+    @Override
+    public ConfigOrError parseLoadBalancingPolicyConfig(
+        Map<String, ?> rawLoadBalancingPolicyConfig) {
+      try {
+        Integer tableSize = JsonUtil.getNumberAsInteger(rawLoadBalancingPolicyConfig, "tableSize");
+        return ConfigOrError.fromConfig(new ConsistentHashConfig(
+            JsonUtil.getString(rawLoadBalancingPolicyConfig, "hashHeader"),
+            new MaglevTable.Factory(
+                tableSize != null ? tableSize : MaglevTable.Factory.DEFAULT_TABLE_SIZE)));
+      } catch (RuntimeException e) {
+        return ConfigOrError.fromError(
+            Status.INVALID_ARGUMENT.withCause(e).withDescription(
+                "Failed to parse maglev config: " + rawLoadBalancingPolicyConfig));
+      }
+    }
+  }
+}
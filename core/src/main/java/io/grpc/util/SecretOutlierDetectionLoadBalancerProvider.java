@@ -0,0 +1,139 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.util;
+
+import io.grpc.LoadBalancer;
+import io.grpc.LoadBalancerProvider;
+import io.grpc.LoadBalancerRegistry;
+import io.grpc.NameResolver.ConfigOrError;
+import io.grpc.Status;
+import io.grpc.internal.JsonUtil;
+import io.grpc.internal.ServiceConfigUtil;
+import io.grpc.internal.ServiceConfigUtil.LbConfig;
+import io.grpc.internal.ServiceConfigUtil.PolicySelection;
+import io.grpc.util.OutlierDetectionLoadBalancer.FailurePercentageEjection;
+import io.grpc.util.OutlierDetectionLoadBalancer.OutlierDetectionConfig;
+import io.grpc.util.OutlierDetectionLoadBalancer.SuccessRateEjection;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Provider for the "outlier_detection" balancing policy.
+ */
+// Make it package-private so that it cannot be directly referenced by users.  Java service loader
+// requires the provider to be public, but we can hide it under a package-private class.
+final class SecretOutlierDetectionLoadBalancerProvider {
+  private SecretOutlierDetectionLoadBalancerProvider() {
+  }
+
+  public static final class Provider extends LoadBalancerProvider {
+
+    @Override
+    public boolean isAvailable() {
+      return true;
+    }
+
+    @Override
+    public int getPriority() {
+      return 5;
+    }
+
+    @Override
+    public String getPolicyName() {
+      return "outlier_detection";
+    }
+
+    @Override
+    public LoadBalancer newLoadBalancer(LoadBalancer.Helper helper) {
+      return new OutlierDetectionLoadBalancer(helper);
+    }
+
+    @Override
+    public ConfigOrError parseLoadBalancingPolicyConfig(
+        Map<String, ?> rawLoadBalancingPolicyConfig) {
+      try {
+        List<LbConfig> childConfigs = ServiceConfigUtil.unwrapLoadBalancingConfigList(
+            JsonUtil.getListOfObjects(rawLoadBalancingPolicyConfig, "childPolicy"));
+        if (childConfigs == null || childConfigs.isEmpty()) {
+          return ConfigOrError.fromError(Status.INVALID_ARGUMENT.withDescription(
+              "No child policy in outlier_detection config: " + rawLoadBalancingPolicyConfig));
+        }
+        ConfigOrError childPolicy = ServiceConfigUtil.selectLbPolicyFromList(
+            childConfigs, LoadBalancerRegistry.getDefaultRegistry());
+        if (childPolicy.getError() != null) {
+          return childPolicy;
+        }
+        return ConfigOrError.fromConfig(new OutlierDetectionConfig(
+            getDuration(rawLoadBalancingPolicyConfig, "interval",
+                OutlierDetectionConfig.DEFAULT_INTERVAL_NANOS),
+            getDuration(rawLoadBalancingPolicyConfig, "baseEjectionTime",
+                OutlierDetectionConfig.DEFAULT_BASE_EJECTION_TIME_NANOS),
+            getDuration(rawLoadBalancingPolicyConfig, "maxEjectionTime",
+                OutlierDetectionConfig.DEFAULT_MAX_EJECTION_TIME_NANOS),
+            getInteger(rawLoadBalancingPolicyConfig, "maxEjectionPercent",
+                OutlierDetectionConfig.DEFAULT_MAX_EJECTION_PERCENT),
+            parseSuccessRateEjection(
+                JsonUtil.getObject(rawLoadBalancingPolicyConfig, "successRateEjection")),
+            parseFailurePercentageEjection(
+                JsonUtil.getObject(rawLoadBalancingPolicyConfig, "failurePercentageEjection")),
+            (PolicySelection) childPolicy.getConfig()));
+      } catch (RuntimeException e) {
+        return ConfigOrError.fromError(
+            Status.INVALID_ARGUMENT.withCause(e).withDescription(
+                "Failed to parse outlier_detection config: " + rawLoadBalancingPolicyConfig));
+      }
+    }
+
+    @Nullable
+    private static SuccessRateEjection parseSuccessRateEjection(@Nullable Map<String, ?> raw) {
+      if (raw == null) {
+        return null;
+      }
+      return new SuccessRateEjection(
+          getInteger(raw, "stdevFactor", SuccessRateEjection.DEFAULT_STDEV_FACTOR),
+          getInteger(raw, "enforcementPercentage",
+              SuccessRateEjection.DEFAULT_ENFORCEMENT_PERCENTAGE),
+          getInteger(raw, "minimumHosts", SuccessRateEjection.DEFAULT_MINIMUM_HOSTS),
+          getInteger(raw, "requestVolume", SuccessRateEjection.DEFAULT_REQUEST_VOLUME));
+    }
+
+    @Nullable
+    private static FailurePercentageEjection parseFailurePercentageEjection(
+        @Nullable Map<String, ?> raw) {
+      if (raw == null) {
+        return null;
+      }
+      return new FailurePercentageEjection(
+          getInteger(raw, "threshold", FailurePercentageEjection.DEFAULT_THRESHOLD),
+          getInteger(raw, "enforcementPercentage",
+              FailurePercentageEjection.DEFAULT_ENFORCEMENT_PERCENTAGE),
+          getInteger(raw, "minimumHosts", FailurePercentageEjection.DEFAULT_MINIMUM_HOSTS),
+          getInteger(raw, "requestVolume", FailurePercentageEjection.DEFAULT_REQUEST_VOLUME));
+    }
+
+    private static long getDuration(Map<String, ?> raw, String key, long defaultNanos) {
+      Long nanos = JsonUtil.getStringAsDuration(raw, key);
+      return nanos != null ? nanos : defaultNanos;
+    }
+
+    private static int getInteger(Map<String, ?> raw, String key, int defaultValue) {
+      Integer value = JsonUtil.getNumberAsInteger(raw, key);
+      return value != null ? value : defaultValue;
+    }
+  }
+}
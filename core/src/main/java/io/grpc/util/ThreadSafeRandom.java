@@ -0,0 +1,52 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+import javax.annotation.concurrent.ThreadSafe;
+import org.codehaus.mojo.animal_sniffer.IgnoreJRERequirement;
+
+/**
+ * A source of random numbers for pickers, which may be called from many threads at once.
+ */
+@ThreadSafe // Except for impls/mocks in tests
+interface ThreadSafeRandom {
+  int nextInt(int bound);
+
+  long nextLong();
+
+  final class ThreadSafeRandomImpl implements ThreadSafeRandom {
+
+    static final ThreadSafeRandom instance = new ThreadSafeRandomImpl();
+
+    private ThreadSafeRandomImpl() {}
+
+    // Each thread has its own generator, so that concurrent picks don't contend on a shared seed.
+    // ThreadLocalRandom is available from Android API level 21.
+    @IgnoreJRERequirement
+    @Override
+    public int nextInt(int bound) {
+      return ThreadLocalRandom.current().nextInt(bound);
+    }
+
+    @IgnoreJRERequirement
+    @Override
+    public long nextLong() {
+      return ThreadLocalRandom.current().nextLong();
+    }
+  }
+}
@@ -35,6 +35,7 @@ import io.grpc.CompressorRegistry;
 import io.grpc.DecompressorRegistry;
 import io.grpc.MethodDescriptor;
 import io.grpc.NameResolver;
+import io.grpc.testing.TestMethodDescriptors;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.net.URI;
@@ -96,6 +97,15 @@ public class AbstractManagedChannelImplBuilderTest {
     assertEquals(MoreExecutors.directExecutor(), builder.executorPool.getObject());
   }
 
+  @Test
+  public void virtualThreadExecutor() {
+    ObjectPool<? extends Executor> defaultValue = builder.executorPool;
+    assertEquals(builder, builder.virtualThreadExecutor());
+    assertNotEquals(defaultValue, builder.executorPool);
+    builder.executor(null);
+    assertEquals(defaultValue, builder.executorPool);
+  }
+
   @Test
   public void offloadExecutor_normal() {
     Executor executor = mock(Executor.class);
@@ -171,6 +181,22 @@ public class AbstractManagedChannelImplBuilderTest {
     assertTrue(builder.fullStreamDecompression);
   }
 
+  @Test
+  public void lockFreeCallExecutor_default() {
+    assertEquals(-1, builder.callExecutorSpinIterations);
+  }
+
+  @Test
+  public void lockFreeCallExecutor_enabled() {
+    assertEquals(builder, builder.lockFreeCallExecutor(10));
+    assertEquals(10, builder.callExecutorSpinIterations);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void lockFreeCallExecutor_negative() {
+    builder.lockFreeCallExecutor(-1);
+  }
+
   @Test
   public void decompressorRegistry_default() {
     assertNotNull(builder.decompressorRegistry);
@@ -402,6 +428,49 @@ public class AbstractManagedChannelImplBuilderTest {
     builder.perRpcBufferLimit(0L);
   }
 
+  @Test
+  public void maxConnectionsPerSubchannel() {
+    Builder builder = new Builder("target");
+    assertEquals(1, builder.maxConnectionsPerSubchannel);
+
+    builder.maxConnectionsPerSubchannel(4);
+    assertEquals(4, builder.maxConnectionsPerSubchannel);
+  }
+
+  @Test
+  public void maxConnectionsPerSubchannelInvalidArg() {
+    Builder builder = new Builder("target");
+
+    thrown.expect(IllegalArgumentException.class);
+    builder.maxConnectionsPerSubchannel(0);
+  }
+
+  @Test
+  public void warmUp() {
+    Builder builder = new Builder("target");
+    assertEquals(0, builder.warmUpConnections);
+
+    builder.warmUp(3);
+    assertEquals(3, builder.warmUpConnections);
+  }
+
+  @Test
+  public void warmUpInvalidArg() {
+    Builder builder = new Builder("target");
+
+    thrown.expect(IllegalArgumentException.class);
+    builder.warmUp(0);
+  }
+
+  @Test
+  public void warmUpCall_enablesWarmUp() {
+    Builder builder = new Builder("target");
+
+    builder.warmUpCall(TestMethodDescriptors.voidMethod(), null);
+    assertEquals(1, builder.warmUpConnections);
+    assertNotNull(builder.warmUpCall);
+  }
+
   @Test
   public void disableRetry() {
     Builder builder = new Builder("target");
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+import static io.grpc.ConnectivityState.CONNECTING;
+import static io.grpc.ConnectivityState.IDLE;
+import static io.grpc.ConnectivityState.READY;
+import static io.grpc.ConnectivityState.SHUTDOWN;
+import static io.grpc.ConnectivityState.TRANSIENT_FAILURE;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.ConnectivityState;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.grpc.StatusException;
+import io.grpc.testing.TestMethodDescriptors;
+import java.util.concurrent.ExecutionException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+/** Unit tests for {@link ChannelWarmUp}. */
+@RunWith(JUnit4.class)
+public class ChannelWarmUpTest {
+  @Rule
+  public final MockitoRule mocks = MockitoJUnit.rule();
+
+  private final MethodDescriptor<Void, Void> method = TestMethodDescriptors.voidMethod();
+
+  @Mock
+  private ManagedChannel channel;
+  @Mock
+  private ClientCall<Void, Void> call;
+
+  @Test
+  public void completesOnceReady() {
+    when(channel.getState(true)).thenReturn(IDLE);
+    ListenableFuture<Void> future = ChannelWarmUp.start(channel, null);
+    Runnable callback = captureStateCallback(IDLE);
+    assertFalse(future.isDone());
+
+    when(channel.getState(true)).thenReturn(TRANSIENT_FAILURE);
+    callback.run();
+    callback = captureStateCallback(TRANSIENT_FAILURE);
+    assertFalse(future.isDone());
+
+    when(channel.getState(true)).thenReturn(READY);
+    callback.run();
+    assertTrue(future.isDone());
+  }
+
+  @Test
+  public void failsOnShutdown() throws Exception {
+    when(channel.getState(true)).thenReturn(CONNECTING);
+    ListenableFuture<Void> future = ChannelWarmUp.start(channel, null);
+
+    when(channel.getState(true)).thenReturn(SHUTDOWN);
+    captureStateCallback(CONNECTING).run();
+    try {
+      future.get();
+      fail("Expected exception");
+    } catch (ExecutionException e) {
+      assertThat(e.getCause()).isInstanceOf(StatusException.class);
+    }
+  }
+
+  @Test
+  public void sendsWarmUpCallOnceReady() throws Exception {
+    when(channel.newCall(same(method), any(CallOptions.class))).thenReturn(call);
+    when(channel.getState(true)).thenReturn(CONNECTING);
+    ListenableFuture<Void> future =
+        ChannelWarmUp.start(channel, new ChannelWarmUp.WarmUpCall<>(method, null));
+    verify(channel, never()).newCall(same(method), any(CallOptions.class));
+
+    when(channel.getState(true)).thenReturn(READY);
+    captureStateCallback(CONNECTING).run();
+    ArgumentCaptor<CallOptions> callOptionsCaptor = ArgumentCaptor.forClass(null);
+    verify(channel).newCall(same(method), callOptionsCaptor.capture());
+    assertTrue(callOptionsCaptor.getValue().isWaitForReady());
+    ArgumentCaptor<ClientCall.Listener<Void>> listenerCaptor = ArgumentCaptor.forClass(null);
+    verify(call).start(listenerCaptor.capture(), any(Metadata.class));
+    verify(call).sendMessage(null);
+    verify(call).halfClose();
+    assertFalse(future.isDone());
+
+    listenerCaptor.getValue().onClose(Status.OK, new Metadata());
+    future.get();
+  }
+
+  @Test
+  public void failsWithWarmUpCall() throws Exception {
+    when(channel.newCall(same(method), any(CallOptions.class))).thenReturn(call);
+    when(channel.getState(true)).thenReturn(READY);
+    ListenableFuture<Void> future =
+        ChannelWarmUp.start(channel, new ChannelWarmUp.WarmUpCall<>(method, null));
+    ArgumentCaptor<ClientCall.Listener<Void>> listenerCaptor = ArgumentCaptor.forClass(null);
+    verify(call).start(listenerCaptor.capture(), any(Metadata.class));
+
+    listenerCaptor.getValue().onClose(Status.UNIMPLEMENTED, new Metadata());
+    try {
+      future.get();
+      fail("Expected exception");
+    } catch (ExecutionException e) {
+      assertThat(((StatusException) e.getCause()).getStatus().getCode())
+          .isEqualTo(Status.Code.UNIMPLEMENTED);
+    }
+  }
+
+  private Runnable captureStateCallback(ConnectivityState source) {
+    ArgumentCaptor<Runnable> callbackCaptor = ArgumentCaptor.forClass(null);
+    verify(channel).notifyWhenStateChanged(eq(source), callbackCaptor.capture());
+    return callbackCaptor.getValue();
+  }
+}
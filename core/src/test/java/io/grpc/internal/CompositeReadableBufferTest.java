@@ -18,12 +18,15 @@ package io.grpc.internal;
 
 import static com.google.common.base.Charsets.UTF_8;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -166,6 +169,47 @@ public class CompositeReadableBufferTest {
     verify(mock2).close();
   }
 
+  @Test
+  public void resetShouldRewindAcrossBuffers() {
+    assertEquals('h', composite.readUnsignedByte());
+    composite.mark();
+    byte[] bytes = new byte[EXPECTED_VALUE.length() - 1];
+    composite.readBytes(bytes, 0, bytes.length);
+    assertEquals(0, composite.readableBytes());
+
+    composite.reset();
+    assertEquals(EXPECTED_VALUE.length() - 1, composite.readableBytes());
+    assertEquals(EXPECTED_VALUE.substring(1), ReadableBuffers.readAsStringUtf8(composite));
+  }
+
+  @Test
+  public void markShouldKeepBuffersReadPastOpen() {
+    composite = new CompositeReadableBuffer();
+    final AtomicBoolean closed = new AtomicBoolean();
+    composite.addBuffer(new ForwardingReadableBuffer(ReadableBuffers.wrap(new byte[] {1})) {
+      @Override
+      public void close() {
+        closed.set(true);
+      }
+    });
+    composite.addBuffer(ReadableBuffers.wrap(new byte[] {2}));
+
+    composite.mark();
+    composite.skipBytes(1);
+    assertEquals(2, composite.readUnsignedByte());
+    assertFalse(closed.get());
+
+    composite.close();
+    assertTrue(closed.get());
+  }
+
+  @Test
+  public void getByteBufferShouldNotConsume() {
+    ByteBuffer byteBuffer = composite.getByteBuffer();
+    assertEquals('h', byteBuffer.get());
+    assertEquals(EXPECTED_VALUE.length(), composite.readableBytes());
+  }
+
   private void splitAndAdd(String value) {
     int partLength = Math.max(1, value.length() / 4);
     for (int startIndex = 0, endIndex = 0; startIndex < value.length(); startIndex = endIndex) {
@@ -34,6 +34,11 @@ import io.grpc.Status;
 import io.grpc.internal.ClientStreamListener.RpcProgress;
 import io.grpc.internal.GrpcUtil.Http2Error;
 import io.grpc.testing.TestMethodDescriptors;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -282,4 +287,30 @@ public class GrpcUtilTest {
 
     verify(listener).closed(eq(status), eq(RpcProgress.DROPPED), any(Metadata.class));
   }
+
+  @Test
+  public void virtualThreadFactory_matchesSupport() {
+    ThreadFactory factory = GrpcUtil.createVirtualThreadFactory("test-");
+    assertEquals(GrpcUtil.isVirtualThreadSupported(), factory != null);
+  }
+
+  @Test
+  public void sharedVirtualThreadExecutor_runsTasks() throws Exception {
+    Executor executor = GrpcUtil.SHARED_VIRTUAL_THREAD_EXECUTOR.create();
+    try {
+      final CountDownLatch latch = new CountDownLatch(1);
+      final AtomicReference<Thread> thread = new AtomicReference<>();
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          thread.set(Thread.currentThread());
+          latch.countDown();
+        }
+      });
+      assertTrue(latch.await(5, TimeUnit.SECONDS));
+      assertTrue(thread.get() != Thread.currentThread());
+    } finally {
+      GrpcUtil.SHARED_VIRTUAL_THREAD_EXECUTOR.close(executor);
+    }
+  }
 }
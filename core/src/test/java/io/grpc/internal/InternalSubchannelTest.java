@@ -32,6 +32,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isA;
 import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -41,24 +42,30 @@ import static org.mockito.Mockito.when;
 
 import com.google.common.collect.Iterables;
 import io.grpc.Attributes;
+import io.grpc.CallOptions;
 import io.grpc.ConnectivityStateInfo;
 import io.grpc.EquivalentAddressGroup;
 import io.grpc.InternalChannelz;
 import io.grpc.InternalLogId;
 import io.grpc.InternalWithLogId;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
 import io.grpc.Status;
 import io.grpc.SynchronizationContext;
 import io.grpc.internal.InternalSubchannel.CallTracingTransport;
 import io.grpc.internal.InternalSubchannel.Index;
 import io.grpc.internal.InternalSubchannel.TransportLogger;
 import io.grpc.internal.TestUtils.MockClientTransportInfo;
+import io.grpc.testing.TestMethodDescriptors;
 import java.net.SocketAddress;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
@@ -66,6 +73,7 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
@@ -899,6 +907,242 @@ public class InternalSubchannelTest {
             isA(TransportLogger.class));
   }
 
+  @Test
+  public void multipleTransports_startsExtraTransportNearStreamLimit() {
+    SocketAddress addr = mock(SocketAddress.class);
+    createInternalSubchannel(2, addr);
+
+    internalSubchannel.obtainActiveTransport();
+    MockClientTransportInfo first = transports.poll();
+    readyWithMaxConcurrentStreams(first, 4);
+    assertExactCallbackInvokes("onStateChange:CONNECTING", "onStateChange:READY");
+
+    // Three streams is near the limit of four, but only the next pick notices
+    for (int i = 0; i < 3; i++) {
+      startStream(internalSubchannel.obtainActiveTransport());
+    }
+    assertNull(transports.peek());
+    ClientTransport transport = internalSubchannel.obtainActiveTransport();
+    assertSame(first.transport, ((CallTracingTransport) transport).delegate());
+    MockClientTransportInfo second = transports.poll();
+    assertNotNull(second);
+
+    // Streams keep using the first transport until the extra one is ready
+    assertSame(transport, internalSubchannel.obtainActiveTransport());
+    readyWithMaxConcurrentStreams(second, 4);
+    transport = internalSubchannel.obtainActiveTransport();
+    assertSame(second.transport, ((CallTracingTransport) transport).delegate());
+    assertNoCallbackInvoke();
+
+    // Never more than the configured number of transports
+    for (int i = 0; i < 4; i++) {
+      startStream(internalSubchannel.obtainActiveTransport());
+    }
+    assertNull(transports.peek());
+  }
+
+  @Test
+  public void multipleTransports_drainsIdleExtraTransport() {
+    SocketAddress addr = mock(SocketAddress.class);
+    createInternalSubchannel(2, addr);
+
+    internalSubchannel.obtainActiveTransport();
+    MockClientTransportInfo first = transports.poll();
+    readyWithMaxConcurrentStreams(first, 4);
+    List<ClientStreamListener> firstStreams = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      firstStreams.add(startStream(internalSubchannel.obtainActiveTransport()));
+    }
+    internalSubchannel.obtainActiveTransport();
+    MockClientTransportInfo second = transports.poll();
+    readyWithMaxConcurrentStreams(second, 4);
+    ClientStreamListener secondStream = startStream(internalSubchannel.obtainActiveTransport());
+
+    // Kept while the first transport is near the limit
+    secondStream.closed(Status.OK, new Metadata());
+    second.listener.transportInUse(false);
+    verify(second.transport, never()).shutdown(any(Status.class));
+
+    // Drained once the first transport has room again
+    firstStreams.get(0).closed(Status.OK, new Metadata());
+    second.listener.transportInUse(false);
+    verify(second.transport).shutdown(any(Status.class));
+    verify(first.transport, never()).shutdown(any(Status.class));
+    ClientTransport transport = internalSubchannel.obtainActiveTransport();
+    assertSame(first.transport, ((CallTracingTransport) transport).delegate());
+  }
+
+  @Test
+  public void multipleTransports_streamPickedBeforeDrainGoesToActiveTransport() {
+    SocketAddress addr = mock(SocketAddress.class);
+    createInternalSubchannel(2, addr);
+
+    internalSubchannel.obtainActiveTransport();
+    MockClientTransportInfo first = transports.poll();
+    readyWithMaxConcurrentStreams(first, 4);
+    List<ClientStreamListener> firstStreams = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      firstStreams.add(startStream(internalSubchannel.obtainActiveTransport()));
+    }
+    internalSubchannel.obtainActiveTransport();
+    MockClientTransportInfo second = transports.poll();
+    readyWithMaxConcurrentStreams(second, 4);
+    firstStreams.get(0).closed(Status.OK, new Metadata());
+
+    // The idle extra transport is the least loaded, so it's picked, then drained before use
+    ClientTransport picked = internalSubchannel.obtainActiveTransport();
+    assertSame(second.transport, ((CallTracingTransport) picked).delegate());
+    second.listener.transportInUse(false);
+    verify(second.transport).shutdown(any(Status.class));
+
+    picked.newStream(TestMethodDescriptors.voidMethod(), new Metadata(), CallOptions.DEFAULT);
+    verify(second.transport, never())
+        .newStream(any(MethodDescriptor.class), any(Metadata.class), any(CallOptions.class));
+    verify(first.transport, times(4))
+        .newStream(any(MethodDescriptor.class), any(Metadata.class), any(CallOptions.class));
+  }
+
+  @Test
+  public void multipleTransports_createdStreamKeepsTransportFromDraining() {
+    SocketAddress addr = mock(SocketAddress.class);
+    createInternalSubchannel(2, addr);
+
+    internalSubchannel.obtainActiveTransport();
+    MockClientTransportInfo first = transports.poll();
+    readyWithMaxConcurrentStreams(first, 4);
+    List<ClientStreamListener> firstStreams = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      firstStreams.add(startStream(internalSubchannel.obtainActiveTransport()));
+    }
+    internalSubchannel.obtainActiveTransport();
+    MockClientTransportInfo second = transports.poll();
+    readyWithMaxConcurrentStreams(second, 4);
+    firstStreams.get(0).closed(Status.OK, new Metadata());
+
+    // Created, not started yet, when the transport reports it's idle
+    internalSubchannel.obtainActiveTransport()
+        .newStream(TestMethodDescriptors.voidMethod(), new Metadata(), CallOptions.DEFAULT);
+    second.listener.transportInUse(false);
+    verify(second.transport, never()).shutdown(any(Status.class));
+  }
+
+  @Test
+  public void multipleTransports_followsUpdatedStreamLimit() {
+    SocketAddress addr = mock(SocketAddress.class);
+    createInternalSubchannel(2, addr);
+
+    internalSubchannel.obtainActiveTransport();
+    MockClientTransportInfo first = transports.poll();
+    AtomicLong limit = readyWithMaxConcurrentStreams(first, Long.MAX_VALUE);
+    for (int i = 0; i < 3; i++) {
+      startStream(internalSubchannel.obtainActiveTransport());
+    }
+    internalSubchannel.obtainActiveTransport();
+    assertNull(transports.peek());
+
+    // The server lowered its limit in a later SETTINGS frame
+    limit.set(4);
+    internalSubchannel.obtainActiveTransport();
+    assertNotNull(transports.poll());
+  }
+
+  @Test
+  public void multipleTransports_staysReadyWhenExtraTransportRemains() {
+    SocketAddress addr = mock(SocketAddress.class);
+    createInternalSubchannel(2, addr);
+
+    internalSubchannel.obtainActiveTransport();
+    MockClientTransportInfo first = transports.poll();
+    readyWithMaxConcurrentStreams(first, 4);
+    assertExactCallbackInvokes("onStateChange:CONNECTING", "onStateChange:READY");
+    for (int i = 0; i < 3; i++) {
+      startStream(internalSubchannel.obtainActiveTransport());
+    }
+    internalSubchannel.obtainActiveTransport();
+    MockClientTransportInfo second = transports.poll();
+    readyWithMaxConcurrentStreams(second, 4);
+
+    first.listener.transportShutdown(Status.UNAVAILABLE);
+    assertNoCallbackInvoke();
+    ClientTransport transport = internalSubchannel.obtainActiveTransport();
+    assertSame(second.transport, ((CallTracingTransport) transport).delegate());
+
+    second.listener.transportShutdown(Status.UNAVAILABLE);
+    assertExactCallbackInvokes("onStateChange:IDLE");
+  }
+
+  @Test
+  public void warmTransports_keptOpenWithoutStreams() {
+    SocketAddress addr = mock(SocketAddress.class);
+    createInternalSubchannel(2, 2, addr);
+
+    internalSubchannel.obtainActiveTransport();
+    MockClientTransportInfo first = transports.poll();
+    readyWithMaxConcurrentStreams(first, 100);
+    assertExactCallbackInvokes("onStateChange:CONNECTING", "onStateChange:READY");
+
+    // Started right away, not only near the stream limit
+    MockClientTransportInfo second = transports.poll();
+    assertNotNull(second);
+    readyWithMaxConcurrentStreams(second, 100);
+    assertNull(transports.poll());
+
+    // Not drained while idle
+    second.listener.transportInUse(false);
+    verify(second.transport, never()).shutdown(any(Status.class));
+
+    // Replaced once closed
+    second.listener.transportShutdown(Status.UNAVAILABLE);
+    assertNotNull(transports.poll());
+    assertNoCallbackInvoke();
+  }
+
+  @Test
+  public void warmTransports_retriedWithBackoffAfterFailing() {
+    SocketAddress addr = mock(SocketAddress.class);
+    createInternalSubchannel(2, 2, addr);
+
+    internalSubchannel.obtainActiveTransport();
+    MockClientTransportInfo first = transports.poll();
+    readyWithMaxConcurrentStreams(first, 100);
+    assertExactCallbackInvokes("onStateChange:CONNECTING", "onStateChange:READY");
+    MockClientTransportInfo second = transports.poll();
+    assertNotNull(second);
+
+    // Fails to connect
+    second.listener.transportShutdown(Status.UNAVAILABLE);
+    assertNull(transports.poll());
+    verify(mockBackoffPolicyProvider).get();
+    verify(mockBackoffPolicy1).nextBackoffNanos();
+    fakeClock.forwardNanos(9);
+    assertNull(transports.poll());
+
+    // Re-established after the backoff
+    fakeClock.forwardNanos(1);
+    MockClientTransportInfo third = transports.poll();
+    assertNotNull(third);
+    readyWithMaxConcurrentStreams(third, 100);
+    assertNull(transports.poll());
+    assertNoCallbackInvoke();
+    assertEquals(0, fakeClock.numPendingTasks());
+  }
+
+  @Test
+  public void warmTransports_singleTransportIsTheActiveOne() {
+    SocketAddress addr = mock(SocketAddress.class);
+    createInternalSubchannel(1, 1, addr);
+
+    internalSubchannel.obtainActiveTransport();
+    MockClientTransportInfo transportInfo = transports.poll();
+    transportInfo.listener.transportReady();
+    assertExactCallbackInvokes("onStateChange:CONNECTING", "onStateChange:READY");
+
+    // The active transport already keeps the subchannel warm
+    assertNull(transports.poll());
+    transportInfo.listener.transportInUse(false);
+    assertNull(transports.poll());
+  }
+
   @Test
   public void shutdownWhenReady() throws Exception {
     SocketAddress addr = mock(SocketAddress.class);
@@ -1349,6 +1593,25 @@ public class InternalSubchannelTest {
   }
 
   private void createInternalSubchannel(EquivalentAddressGroup ... addrs) {
+    createInternalSubchannel(1, addrs);
+  }
+
+  private void createInternalSubchannel(int maxTransports, SocketAddress ... addrs) {
+    createInternalSubchannel(maxTransports, new EquivalentAddressGroup(Arrays.asList(addrs)));
+  }
+
+  private void createInternalSubchannel(int maxTransports, EquivalentAddressGroup ... addrs) {
+    createInternalSubchannel(maxTransports, 0, addrs);
+  }
+
+  private void createInternalSubchannel(
+      int maxTransports, int warmTransports, SocketAddress ... addrs) {
+    createInternalSubchannel(
+        maxTransports, warmTransports, new EquivalentAddressGroup(Arrays.asList(addrs)));
+  }
+
+  private void createInternalSubchannel(
+      int maxTransports, int warmTransports, EquivalentAddressGroup ... addrs) {
     List<EquivalentAddressGroup> addressGroups = Arrays.asList(addrs);
     InternalLogId logId = InternalLogId.allocate("Subchannel", /*details=*/ AUTHORITY);
     ChannelTracer subchannelTracer = new ChannelTracer(logId, 10,
@@ -1359,7 +1622,37 @@ public class InternalSubchannelTest {
         channelz, CallTracer.getDefaultFactory().create(),
         subchannelTracer,
         logId,
-        new ChannelLoggerImpl(subchannelTracer, fakeClock.getTimeProvider()));
+        new ChannelLoggerImpl(subchannelTracer, fakeClock.getTimeProvider()),
+        maxTransports,
+        warmTransports);
+  }
+
+  /**
+   * Makes the transport READY, and returns the limit it reports, which the test may update.
+   */
+  private static AtomicLong readyWithMaxConcurrentStreams(
+      MockClientTransportInfo transportInfo, long maxConcurrentStreams) {
+    AtomicLong limit = new AtomicLong(maxConcurrentStreams);
+    when(transportInfo.transport.getAttributes()).thenReturn(
+        Attributes.newBuilder()
+            .set(GrpcAttributes.ATTR_PEER_MAX_CONCURRENT_STREAMS, limit)
+            .build());
+    transportInfo.listener.transportReady();
+    return limit;
+  }
+
+  /**
+   * Starts a stream on the transport, and returns the listener that the stream reports to.
+   */
+  private static ClientStreamListener startStream(ClientTransport transport) {
+    ClientStream stream = transport.newStream(
+        TestMethodDescriptors.voidMethod(), new Metadata(), CallOptions.DEFAULT);
+    stream.start(mock(ClientStreamListener.class));
+    ClientStream delegateStream = ((ForwardingClientStream) stream).delegate();
+    ArgumentCaptor<ClientStreamListener> listenerCaptor =
+        ArgumentCaptor.forClass(ClientStreamListener.class);
+    verify(delegateStream, atLeastOnce()).start(listenerCaptor.capture());
+    return Iterables.getLast(listenerCaptor.getAllValues());
   }
 
   private void assertNoCallbackInvoke() {
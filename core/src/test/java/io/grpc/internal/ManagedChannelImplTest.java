@@ -287,6 +287,7 @@ public class ManagedChannelImplTest {
         channelBuilder, mockTransportFactory, new FakeBackoffPolicyProvider(),
         balancerRpcExecutorPool, timer.getStopwatchSupplier(), Arrays.asList(interceptors),
         timer.getTimeProvider());
+    channel.startWarmUp();
 
     if (requestConnection) {
       int numExpectedTasks = 0;
@@ -2067,6 +2068,38 @@ public class ManagedChannelImplTest {
     verify(mockLoadBalancerProvider).newLoadBalancer(any(Helper.class));
   }
 
+  @Test
+  public void warmUp_connectsWithoutCalls() {
+    channelBuilder.nameResolverFactory(
+        new FakeNameResolverFactory.Builder(expectedUri).setResolvedAtStart(false).build());
+    channelBuilder.warmUp(2);
+    requestConnection = false;
+    createChannel();
+
+    ArgumentCaptor<Helper> helperCaptor = ArgumentCaptor.forClass(null);
+    verify(mockLoadBalancerProvider).newLoadBalancer(helperCaptor.capture());
+    helper = helperCaptor.getValue();
+    // Idle mode is disabled
+    assertEquals(0, timer.numPendingTasks());
+    ListenableFuture<Void> warmUpFuture = channel.getWarmUpFuture();
+    assertFalse(warmUpFuture.isDone());
+
+    updateBalancingStateSafely(helper, CONNECTING, mockPicker);
+    executor.runDueTasks();
+    assertFalse(warmUpFuture.isDone());
+    updateBalancingStateSafely(helper, READY, mockPicker);
+    executor.runDueTasks();
+    assertTrue(warmUpFuture.isDone());
+  }
+
+  @Test
+  public void getWarmUpFuture_failsWithoutWarmUp() {
+    createChannel();
+
+    thrown.expect(IllegalStateException.class);
+    channel.getWarmUpFuture();
+  }
+
   @SuppressWarnings("deprecation")
   @Test
   public void getState_withRequestConnect_IdleWithLbRunning() {
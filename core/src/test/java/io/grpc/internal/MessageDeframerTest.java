@@ -18,9 +18,11 @@ package io.grpc.internal;
 
 import static com.google.common.truth.Truth.assertThat;
 import static io.grpc.internal.GrpcUtil.DEFAULT_MAX_MESSAGE_SIZE;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.junit.Assume.assumeTrue;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.atLeast;
@@ -34,6 +36,7 @@ import static org.mockito.Mockito.verifyNoMoreInteractions;
 import com.google.common.base.Charsets;
 import com.google.common.io.ByteStreams;
 import com.google.common.primitives.Bytes;
+import com.google.common.primitives.Ints;
 import io.grpc.Codec;
 import io.grpc.InternalChannelz.TransportStats;
 import io.grpc.StatusRuntimeException;
@@ -46,9 +49,11 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Random;
 import java.util.concurrent.TimeUnit;
 import java.util.zip.GZIPOutputStream;
 import org.junit.Before;
@@ -150,6 +155,75 @@ public class MessageDeframerTest {
       checkStats(tracer, transportTracer.getStats(), fakeClock, 1, 1, 2, 2);
     }
 
+    @Test
+    public void batchDeliveryCombinesPayloads() {
+      deframer.setBatchDelivery(true);
+      deframer.request(2);
+      fakeClock.forwardTime(10, TimeUnit.MILLISECONDS);
+      deframer.deframe(buffer(new byte[]{0, 0, 0, 0, 1, 3, 0, 0, 0, 0, 2, 14, 15}));
+      verify(listener).messagesAvailable(producer.capture());
+      assertEquals(Bytes.asList(new byte[]{3}), bytes(producer.getValue().next()));
+      assertEquals(Bytes.asList(new byte[]{14, 15}), bytes(producer.getValue().next()));
+      assertNull(producer.getValue().next());
+      verify(listener, atLeastOnce()).bytesRead(anyInt());
+      verifyNoMoreInteractions(listener);
+      checkStats(tracer, transportTracer.getStats(), fakeClock, 1, 1, 2, 2);
+    }
+
+    @Test
+    public void batchDeliveryIsLimitedByRequests() {
+      deframer.setBatchDelivery(true);
+      deframer.request(1);
+      deframer.deframe(buffer(new byte[]{0, 0, 0, 0, 1, 3, 0, 0, 0, 0, 2, 14, 15}));
+      verify(listener).messagesAvailable(producer.capture());
+      assertEquals(Bytes.asList(new byte[]{3}), bytes(producer.getValue().next()));
+      assertNull(producer.getValue().next());
+
+      deframer.request(1);
+      verify(listener, times(2)).messagesAvailable(producer.capture());
+      assertEquals(Bytes.asList(new byte[]{14, 15}), bytes(producer.getValue().next()));
+      assertNull(producer.getValue().next());
+    }
+
+    @Test
+    public void batchDeliveryHandlesReentrantRequest() {
+      deframer.setBatchDelivery(true);
+      final List<List<Byte>> messages = new ArrayList<>();
+      doAnswer(new Answer<Void>() {
+        @Override
+        public Void answer(InvocationOnMock invocation) {
+          StreamListener.MessageProducer producer =
+              (StreamListener.MessageProducer) invocation.getArguments()[0];
+          InputStream message;
+          while ((message = producer.next()) != null) {
+            messages.add(bytes(message));
+            deframer.request(1);
+          }
+          return null;
+        }
+      }).when(listener).messagesAvailable(ArgumentMatchers.<StreamListener.MessageProducer>any());
+      deframer.request(1);
+      deframer.deframe(buffer(new byte[]{0, 0, 0, 0, 1, 3, 0, 0, 0, 0, 2, 14, 15}));
+      verify(listener, times(2))
+          .messagesAvailable(ArgumentMatchers.<StreamListener.MessageProducer>any());
+      assertEquals(
+          Arrays.asList(Bytes.asList(new byte[]{3}), Bytes.asList(new byte[]{14, 15})), messages);
+    }
+
+    @Test
+    public void batchDeliveryDeliversMessagesBeforeFailure() {
+      deframer.setBatchDelivery(true);
+      deframer.request(2);
+      try {
+        deframer.deframe(buffer(new byte[]{0, 0, 0, 0, 1, 3, (byte) 0x80, 0, 0, 0, 1, 14}));
+        fail("Expected exception");
+      } catch (StatusRuntimeException e) {
+        assertThat(e).hasMessageThat().contains("reserved bits not zero");
+      }
+      verify(listener).messagesAvailable(producer.capture());
+      assertEquals(Bytes.asList(new byte[]{3}), bytes(producer.getValue().next()));
+    }
+
     @Test
     public void endOfStreamWithPayloadShouldNotifyEndOfStream() {
       deframer.request(1);
@@ -310,6 +384,84 @@ public class MessageDeframerTest {
       verifyNoMoreInteractions(listener);
     }
 
+    @Test
+    public void compressed_streamedBeforeFullyReceived() throws Exception {
+      deframer = new MessageDeframer(listener, new Codec.Gzip(), DEFAULT_MAX_MESSAGE_SIZE,
+              statsTraceCtx, transportTracer);
+      deframer.setStreamingDecompression(DIRECT_TRANSPORT_EXECUTOR, 10);
+      deframer.request(1);
+
+      byte[] payload = compress(new byte[1000]);
+      byte[] header = new byte[]{1, 0, 0, 0, (byte) payload.length};
+      deframer.deframe(buffer(Bytes.concat(header, Arrays.copyOf(payload, 10))));
+      verify(listener).messagesAvailable(producer.capture());
+      InputStream message = producer.getValue().next();
+
+      deframer.deframe(buffer(Arrays.copyOfRange(payload, 10, payload.length)));
+      assertEquals(Bytes.asList(new byte[1000]), bytes(message));
+      verify(listener, atLeastOnce()).bytesRead(anyInt());
+      verifyNoMoreInteractions(listener);
+    }
+
+    @Test(timeout = 10000)
+    public void compressed_streamedMessageLargerThanBufferReadToEnd() throws Exception {
+      deframer = new MessageDeframer(listener, new Codec.Gzip(), DEFAULT_MAX_MESSAGE_SIZE,
+              statsTraceCtx, transportTracer);
+      deframer.setStreamingDecompression(DIRECT_TRANSPORT_EXECUTOR, 10);
+      deframer.request(1);
+
+      // Random bytes do not compress, so the body is several times the streaming buffer cap.
+      byte[] uncompressed = new byte[1024 * 1024];
+      new Random(1).nextBytes(uncompressed);
+      byte[] payload = compress(uncompressed);
+      byte[] header = Bytes.concat(new byte[] {1}, Ints.toByteArray(payload.length));
+      deframer.deframe(buffer(Bytes.concat(header, payload)));
+      verify(listener).messagesAvailable(producer.capture());
+
+      assertArrayEquals(uncompressed, ByteStreams.toByteArray(producer.getValue().next()));
+    }
+
+    @Test
+    public void compressed_smallMessageNotStreamed() {
+      deframer = new MessageDeframer(listener, new Codec.Gzip(), DEFAULT_MAX_MESSAGE_SIZE,
+              statsTraceCtx, transportTracer);
+      deframer.request(1);
+
+      byte[] payload = compress(new byte[1000]);
+      deframer.setStreamingDecompression(DIRECT_TRANSPORT_EXECUTOR, payload.length + 1);
+      byte[] header = new byte[]{1, 0, 0, 0, (byte) payload.length};
+      deframer.deframe(buffer(Bytes.concat(header, Arrays.copyOf(payload, 10))));
+      verify(listener, atLeastOnce()).bytesRead(anyInt());
+      verifyNoMoreInteractions(listener);
+
+      deframer.deframe(buffer(Arrays.copyOfRange(payload, 10, payload.length)));
+      verify(listener).messagesAvailable(producer.capture());
+      assertEquals(Bytes.asList(new byte[1000]), bytes(producer.getValue().next()));
+    }
+
+    @Test
+    public void compressed_streamedMessageFailsWhenClosedEarly() throws Exception {
+      deframer = new MessageDeframer(listener, new Codec.Gzip(), DEFAULT_MAX_MESSAGE_SIZE,
+              statsTraceCtx, transportTracer);
+      deframer.setStreamingDecompression(DIRECT_TRANSPORT_EXECUTOR, 10);
+      deframer.request(1);
+
+      byte[] payload = compress(new byte[1000]);
+      byte[] header = new byte[]{1, 0, 0, 0, (byte) payload.length};
+      deframer.deframe(buffer(Bytes.concat(header, Arrays.copyOf(payload, 10))));
+      verify(listener).messagesAvailable(producer.capture());
+      InputStream message = producer.getValue().next();
+
+      deframer.close();
+      verify(listener).deframerClosed(true);
+      try {
+        ByteStreams.toByteArray(message);
+        fail("Expected IOException");
+      } catch (IOException expected) {
+        // The message was truncated.
+      }
+    }
+
     @Test
     public void deliverIsReentrantSafe() {
       doAnswer(
@@ -542,6 +694,14 @@ public class MessageDeframerTest {
     }
   }
 
+  private static final ApplicationThreadDeframerListener.TransportExecutor
+      DIRECT_TRANSPORT_EXECUTOR = new ApplicationThreadDeframerListener.TransportExecutor() {
+        @Override
+        public void runOnTransportThread(Runnable r) {
+          r.run();
+        }
+      };
+
   private static ReadableBuffer buffer(byte[] bytes) {
     return ReadableBuffers.wrap(bytes);
   }
@@ -27,13 +27,21 @@ import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.verifyZeroInteractions;
 
 import io.grpc.Codec;
+import io.grpc.CompressionPolicy;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
 import io.grpc.StreamTracer;
 import io.grpc.internal.testing.TestStreamTracer.TestBaseStreamTracer;
 import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -322,6 +330,59 @@ public class MessageFramerTest {
     checkStats(1000, 1000);
   }
 
+  @Test
+  public void dontCompressIfPolicyDeclines() {
+    allocator = new BytesWritableBufferAllocator(100, Integer.MAX_VALUE);
+    RecordingCompressionPolicy policy = new RecordingCompressionPolicy(false);
+    framer = new MessageFramer(sink, allocator, statsTraceCtx)
+        .setCompressor(new Codec.Gzip());
+    framer.setCompressionPolicy(policy, "service/method");
+    writeKnownLength(framer, new byte[1000]);
+    framer.flush();
+    verify(sink).deliverFrame(frameCaptor.capture(), eq(false), eq(true), eq(1));
+
+    ByteWritableBuffer buffer = frameCaptor.getAllValues().get(0);
+    assertEquals(0x0, buffer.data[0]);
+    assertEquals(1005, buffer.data.length);
+    assertEquals("service/method", policy.fullMethodName);
+    assertEquals(1000, policy.messageLength);
+    assertEquals(-1, policy.uncompressedSize);
+    checkStats(1000, 1000);
+  }
+
+  @Test
+  public void compressIfPolicyAccepts_reportsSizes() {
+    allocator = new BytesWritableBufferAllocator(100, Integer.MAX_VALUE);
+    RecordingCompressionPolicy policy = new RecordingCompressionPolicy(true);
+    framer = new MessageFramer(sink, allocator, statsTraceCtx)
+        .setCompressor(new Codec.Gzip());
+    framer.setCompressionPolicy(policy, "service/method");
+    writeUnknownLength(framer, new byte[1000]);
+    framer.flush();
+    verify(sink).deliverFrame(frameCaptor.capture(), eq(false), eq(false), eq(0));
+    verify(sink).deliverFrame(frameCaptor.capture(), eq(false), eq(true), eq(1));
+
+    ByteWritableBuffer header = frameCaptor.getAllValues().get(0);
+    assertEquals(0x1, header.data[0]);
+    int length = frameCaptor.getAllValues().get(1).size();
+    assertEquals(-1, policy.messageLength);
+    assertEquals(1000, policy.uncompressedSize);
+    assertEquals(length, policy.compressedSize);
+    checkStats(length, 1000);
+  }
+
+  @Test
+  public void policyNotConsultedIfNotRequested() {
+    RecordingCompressionPolicy policy = new RecordingCompressionPolicy(true);
+    framer.setCompressor(new Codec.Gzip());
+    framer.setMessageCompression(false);
+    framer.setCompressionPolicy(policy, "service/method");
+    writeKnownLength(framer, new byte[] {3, 14});
+    framer.flush();
+
+    assertNull(policy.fullMethodName);
+  }
+
   @Test
   public void closeIsRentrantSafe() {
     MessageFramer.Sink reentrant = new MessageFramer.Sink() {
@@ -352,6 +413,89 @@ public class MessageFramerTest {
     checkStats(0, 0);
   }
 
+  @Test
+  public void retainedSlicesAreLinkedWithoutCopy() {
+    SliceWritableBufferAllocator sliceAllocator = new SliceWritableBufferAllocator(1000, 1000);
+    framer = new MessageFramer(sink, sliceAllocator, statsTraceCtx);
+    byte[] first = new byte[20000];
+    byte[] second = new byte[10000];
+    Arrays.fill(first, (byte) 1);
+    Arrays.fill(second, (byte) 2);
+    InputStream message = detachableStream(first, second);
+    framer.writePayload(message);
+    framer.flush();
+
+    verify(sink).deliverFrame(
+        toWriteBuffer(new byte[] {0, 0, 0, 0x75, 0x30}), false, false, 0);
+    verify(sink).deliverFrame(toWriteBuffer(concat(first, second)), false, true, 1);
+    verifyNoMoreInteractions(sink);
+    assertEquals(1, sliceAllocator.allocCount);
+    assertEquals(1, sliceAllocator.wrapCount);
+    // The buffers were detached, and are owned by the transport until it releases them.
+    assertEquals(0, message.available());
+    assertEquals(1, sliceAllocator.owners.size());
+    checkStats(30000, 30000);
+  }
+
+  @Test
+  public void nonDetachableLargeMessageIsCopied() {
+    SliceWritableBufferAllocator sliceAllocator = new SliceWritableBufferAllocator(1000, 1000);
+    framer = new MessageFramer(sink, sliceAllocator, statsTraceCtx);
+    framer.writePayload(new ByteArrayInputStream(new byte[20000]));
+    framer.flush();
+
+    assertEquals(0, sliceAllocator.wrapCount);
+    checkStats(20000, 20000);
+  }
+
+  @Test
+  public void retainedSlicesFollowBufferedMessages() {
+    SliceWritableBufferAllocator sliceAllocator = new SliceWritableBufferAllocator(1000, 1000);
+    framer = new MessageFramer(sink, sliceAllocator, statsTraceCtx);
+    byte[] slice = new byte[20000];
+    writeKnownLength(framer, new byte[]{3});
+    framer.writePayload(detachableStream(slice));
+    writeKnownLength(framer, new byte[]{14});
+    framer.flush();
+
+    verify(sink).deliverFrame(
+        toWriteBuffer(new byte[] {0, 0, 0, 0, 1, 3, 0, 0, 0, 0x4e, 0x20}), false, false, 1);
+    // The full slice is committed when the next message starts.
+    verify(sink).deliverFrame(toWriteBuffer(slice), false, false, 2);
+    verify(sink).deliverFrame(toWriteBuffer(new byte[] {0, 0, 0, 0, 1, 14}), false, true, 0);
+    verifyNoMoreInteractions(sink);
+    assertEquals(2, sliceAllocator.allocCount);
+    assertEquals(1, sliceAllocator.wrapCount);
+    checkStats(1, 1, 20000, 20000, 1, 1);
+  }
+
+  @Test
+  public void smallRetainedSliceMessageIsCopied() {
+    SliceWritableBufferAllocator sliceAllocator = new SliceWritableBufferAllocator(1000, 1000);
+    framer = new MessageFramer(sink, sliceAllocator, statsTraceCtx);
+    framer.writePayload(detachableStream(new byte[] {3, 14}));
+    framer.flush();
+
+    verify(sink).deliverFrame(toWriteBuffer(new byte[] {0, 0, 0, 0, 2, 3, 14}), false, true, 1);
+    verifyNoMoreInteractions(sink);
+    assertEquals(0, sliceAllocator.wrapCount);
+    checkStats(2, 2);
+  }
+
+  @Test
+  public void retainedSlicesTooLargeThrows() {
+    SliceWritableBufferAllocator sliceAllocator = new SliceWritableBufferAllocator(1000, 1000);
+    framer = new MessageFramer(sink, sliceAllocator, statsTraceCtx);
+    framer.setMaxOutboundMessageSize(1000);
+    try {
+      framer.writePayload(detachableStream(new byte[20000]));
+      fail("Exception expected");
+    } catch (StatusRuntimeException e) {
+      assertEquals(Status.Code.RESOURCE_EXHAUSTED, Status.fromThrowable(e.getCause()).getCode());
+    }
+    assertEquals(0, sliceAllocator.wrapCount);
+  }
+
   private static WritableBuffer toWriteBuffer(byte[] data) {
     return toWriteBufferWithMinSize(data, 0);
   }
@@ -393,6 +537,32 @@ public class MessageFramerTest {
     assertEquals(expectedUncompressedSize, tracer.getOutboundUncompressedSize());
   }
 
+  private static final class RecordingCompressionPolicy extends CompressionPolicy {
+    private final boolean compress;
+    String fullMethodName;
+    int messageLength = -2;
+    long uncompressedSize = -1;
+    long compressedSize = -1;
+
+    RecordingCompressionPolicy(boolean compress) {
+      this.compress = compress;
+    }
+
+    @Override
+    public boolean shouldCompress(String fullMethodName, int messageLength) {
+      this.fullMethodName = fullMethodName;
+      this.messageLength = messageLength;
+      return compress;
+    }
+
+    @Override
+    public void messageCompressed(
+        String fullMethodName, long uncompressedSize, long compressedSize) {
+      this.uncompressedSize = uncompressedSize;
+      this.compressedSize = compressedSize;
+    }
+  }
+
   static class ByteWritableBuffer implements WritableBuffer {
     byte[] data;
     private int writeIdx;
@@ -466,4 +636,48 @@ public class MessageFramerTest {
       return new ByteWritableBuffer(Math.min(maxSize, Math.max(capacityHint, minSize)));
     }
   }
+
+  static class SliceWritableBufferAllocator extends BytesWritableBufferAllocator
+      implements RetainedSliceAllocator {
+    public int wrapCount = 0;
+    public final List<Closeable> owners = new ArrayList<>();
+
+    SliceWritableBufferAllocator(int minSize, int maxSize) {
+      super(minSize, maxSize);
+    }
+
+    @Override
+    public WritableBuffer wrapRetainedSlices(List<ByteBuffer> slices, Closeable owner) {
+      wrapCount++;
+      owners.add(owner);
+      int length = 0;
+      for (ByteBuffer slice : slices) {
+        length += slice.remaining();
+      }
+      ByteWritableBuffer buffer = new ByteWritableBuffer(length);
+      for (ByteBuffer slice : slices) {
+        byte[] data = new byte[slice.remaining()];
+        slice.get(data);
+        buffer.write(data, 0, data.length);
+      }
+      return buffer;
+    }
+  }
+
+  /** Returns a stream like the ones the deframer produces, over the given slices. */
+  private static InputStream detachableStream(byte[]... slices) {
+    CompositeReadableBuffer buffer = new CompositeReadableBuffer();
+    for (byte[] slice : slices) {
+      buffer.addBuffer(ReadableBuffers.wrap(ByteBuffer.wrap(slice)));
+    }
+    return ReadableBuffers.openStream(buffer, true);
+  }
+
+  private static byte[] concat(byte[]... arrays) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (byte[] array : arrays) {
+      out.write(array, 0, array.length);
+    }
+    return out.toByteArray();
+  }
 }
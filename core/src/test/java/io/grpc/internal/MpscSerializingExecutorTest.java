@@ -0,0 +1,275 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class MpscSerializingExecutorTest {
+  private SingleExecutor singleExecutor = new SingleExecutor();
+  private MpscSerializingExecutor executor = new MpscSerializingExecutor(singleExecutor, 0);
+  private List<Integer> runs = new ArrayList<>();
+
+  private class AddToRuns implements Runnable {
+    private final int val;
+
+    public AddToRuns(int val) {
+      this.val = val;
+    }
+
+    @Override
+    public void run() {
+      runs.add(val);
+    }
+  }
+
+  @Test
+  public void negativeSpinIterations() {
+    try {
+      new MpscSerializingExecutor(singleExecutor, -1);
+      fail("expected exception");
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  @Test
+  public void serial() {
+    executor.execute(new AddToRuns(1));
+    assertEquals(Collections.<Integer>emptyList(), runs);
+    singleExecutor.drain();
+    assertEquals(Arrays.asList(1), runs);
+
+    executor.execute(new AddToRuns(2));
+    assertEquals(Arrays.asList(1), runs);
+    singleExecutor.drain();
+    assertEquals(Arrays.asList(1, 2), runs);
+  }
+
+  @Test
+  public void parallel() {
+    executor.execute(new AddToRuns(1));
+    executor.execute(new AddToRuns(2));
+    executor.execute(new AddToRuns(3));
+    assertEquals(Collections.<Integer>emptyList(), runs);
+    singleExecutor.drain();
+    assertEquals(Arrays.asList(1, 2, 3), runs);
+  }
+
+  @Test
+  public void manyChunks() {
+    List<Integer> expected = new ArrayList<>();
+    for (int i = 0; i < MpscSerializingExecutor.CHUNK_SIZE * 3 + 1; i++) {
+      executor.execute(new AddToRuns(i));
+      expected.add(i);
+    }
+    singleExecutor.drain();
+    assertEquals(expected, runs);
+
+    // Continues from the middle of the last chunk.
+    executor.execute(new AddToRuns(-1));
+    singleExecutor.drain();
+    assertThat(runs).hasSize(expected.size() + 1);
+    assertThat(runs.get(expected.size())).isEqualTo(-1);
+  }
+
+  @Test
+  public void reentrant() {
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        executor.execute(new AddToRuns(3));
+        runs.add(1);
+      }
+    });
+    executor.execute(new AddToRuns(2));
+    singleExecutor.drain();
+    assertEquals(Arrays.asList(1, 2, 3), runs);
+  }
+
+  @Test
+  public void spinningStillReleasesThread() {
+    executor = new MpscSerializingExecutor(singleExecutor, 1000);
+    executor.execute(new AddToRuns(1));
+    singleExecutor.drain();
+    assertEquals(Arrays.asList(1), runs);
+
+    executor.execute(new AddToRuns(2));
+    singleExecutor.drain();
+    assertEquals(Arrays.asList(1, 2), runs);
+  }
+
+  @Test
+  public void lastRunnableThrows() {
+    final RuntimeException ex = new RuntimeException();
+    executor.execute(new AddToRuns(1));
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        runs.add(2);
+        throw ex;
+      }
+    });
+
+    singleExecutor.drain();
+    assertEquals(Arrays.asList(1, 2), runs);
+
+    // Scheduling more still works
+    executor.execute(new AddToRuns(3));
+    singleExecutor.drain();
+    assertEquals(Arrays.asList(1, 2, 3), runs);
+  }
+
+  @Test
+  public void firstExecuteThrows() {
+    final RuntimeException ex = new RuntimeException();
+    ForwardingExecutor forwardingExecutor = new ForwardingExecutor(new Executor() {
+      @Override
+      public void execute(Runnable r) {
+        throw ex;
+      }
+    });
+    executor = new MpscSerializingExecutor(forwardingExecutor, 0);
+    try {
+      executor.execute(new AddToRuns(1));
+      fail("expected exception");
+    } catch (RuntimeException e) {
+      assertSame(ex, e);
+    }
+    assertEquals(Collections.<Integer>emptyList(), runs);
+
+    // The rejected runnable must not run once scheduling works again.
+    forwardingExecutor.executor = singleExecutor;
+    executor.execute(new AddToRuns(2));
+    executor.execute(new AddToRuns(3));
+    assertEquals(Collections.<Integer>emptyList(), runs);
+    singleExecutor.drain();
+    assertEquals(Arrays.asList(2, 3), runs);
+  }
+
+  @Test
+  public void direct() {
+    executor = new MpscSerializingExecutor(MoreExecutors.directExecutor(), 0);
+    executor.execute(new AddToRuns(1));
+    assertEquals(Arrays.asList(1), runs);
+    executor.execute(new AddToRuns(2));
+    assertEquals(Arrays.asList(1, 2), runs);
+  }
+
+  @Test
+  public void multipleProducers() throws Exception {
+    final int producers = 4;
+    final int tasksPerProducer = 10000;
+    ExecutorService executorService = Executors.newFixedThreadPool(2);
+    try {
+      executor = new MpscSerializingExecutor(executorService, 10);
+      final AtomicInteger running = new AtomicInteger();
+      final AtomicBoolean overlapped = new AtomicBoolean();
+      final AtomicBoolean reordered = new AtomicBoolean();
+      final int[] lastSeen = new int[producers];
+      final CountDownLatch done = new CountDownLatch(producers * tasksPerProducer);
+      List<Thread> threads = new ArrayList<>();
+      for (int p = 0; p < producers; p++) {
+        final int producer = p;
+        Thread thread = new Thread(new Runnable() {
+          @Override
+          public void run() {
+            for (int i = 1; i <= tasksPerProducer; i++) {
+              final int seq = i;
+              executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                  if (running.incrementAndGet() != 1) {
+                    overlapped.set(true);
+                  }
+                  if (lastSeen[producer] != seq - 1) {
+                    reordered.set(true);
+                  }
+                  lastSeen[producer] = seq;
+                  running.decrementAndGet();
+                  done.countDown();
+                }
+              });
+            }
+          }
+        });
+        thread.start();
+        threads.add(thread);
+      }
+      for (Thread thread : threads) {
+        thread.join();
+      }
+      assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+      assertFalse(overlapped.get());
+      assertFalse(reordered.get());
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  private static class SingleExecutor implements Executor {
+    private Runnable runnable;
+
+    @Override
+    public void execute(Runnable r) {
+      if (runnable != null) {
+        fail("Already have runnable scheduled");
+      }
+      runnable = r;
+    }
+
+    public void drain() {
+      if (runnable != null) {
+        Runnable r = runnable;
+        runnable = null;
+        r.run();
+      }
+    }
+  }
+
+  private static class ForwardingExecutor implements Executor {
+    Executor executor;
+
+    public ForwardingExecutor(Executor executor) {
+      this.executor = executor;
+    }
+
+    @Override
+    public void execute(Runnable r) {
+      executor.execute(r);
+    }
+  }
+}
@@ -19,12 +19,18 @@ package io.grpc.internal;
 import static com.google.common.base.Charsets.UTF_8;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import io.grpc.Detachable;
+import io.grpc.HasByteBuffer;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -128,4 +134,54 @@ public class ReadableBuffersTest {
     inputStream.close();
     verify(buffer, times(1)).close();
   }
+
+  @Test
+  public void bufferInputStream_skip_advancesBuffer() throws Exception {
+    ReadableBuffer buffer = ReadableBuffers.wrap(MSG_BYTES);
+    InputStream inputStream = ReadableBuffers.openStream(buffer, true);
+    assertEquals(2, inputStream.skip(2));
+    assertEquals((int) 'l', inputStream.read());
+    assertEquals(2, inputStream.skip(10));
+    assertEquals(0, inputStream.skip(1));
+  }
+
+  @Test
+  public void bufferInputStream_getByteBuffer() throws Exception {
+    ReadableBuffer buffer = ReadableBuffers.wrap(MSG_BYTES);
+    InputStream inputStream = ReadableBuffers.openStream(buffer, true);
+    assertTrue(((HasByteBuffer) inputStream).byteBufferSupported());
+    ByteBuffer byteBuffer = ((HasByteBuffer) inputStream).getByteBuffer();
+    assertEquals(5, byteBuffer.remaining());
+    assertEquals((byte) 'h', byteBuffer.get());
+    assertEquals(5, inputStream.available());
+
+    inputStream.skip(5);
+    assertNull(((HasByteBuffer) inputStream).getByteBuffer());
+  }
+
+  @Test
+  public void bufferInputStream_detach_transfersBuffer() throws Exception {
+    ReadableBuffer buffer = ReadableBuffers.wrap(MSG_BYTES);
+    InputStream inputStream = ReadableBuffers.openStream(buffer, true);
+    assertEquals((int) 'h', inputStream.read());
+
+    InputStream detached = ((Detachable) inputStream).detach();
+    assertEquals(0, inputStream.available());
+    assertEquals(-1, inputStream.read());
+    assertEquals(4, detached.available());
+    assertEquals((int) 'e', detached.read());
+  }
+
+  @Test
+  public void bufferInputStream_detach_closeDoesNotCloseDetachedBuffer() throws Exception {
+    ReadableBuffer buffer = mock(ReadableBuffer.class);
+    when(buffer.readBytes(0)).thenReturn(ReadableBuffers.empty());
+    InputStream inputStream = ReadableBuffers.openStream(buffer, true);
+    InputStream detached = ((Detachable) inputStream).detach();
+    inputStream.close();
+    verify(buffer, never()).close();
+
+    detached.close();
+    verify(buffer).close();
+  }
 }
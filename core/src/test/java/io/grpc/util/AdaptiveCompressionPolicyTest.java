@@ -0,0 +1,88 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.util;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link AdaptiveCompressionPolicy}. */
+@RunWith(JUnit4.class)
+public class AdaptiveCompressionPolicyTest {
+  private static final String METHOD = "service/method";
+  private static final String OTHER_METHOD = "service/other";
+
+  private final AdaptiveCompressionPolicy policy = AdaptiveCompressionPolicy.newBuilder()
+      .setMinMessageSize(100)
+      .setMaxCompressionRatio(0.5)
+      .setProbeInterval(3)
+      .build();
+
+  @Test
+  public void skipsSmallMessages() {
+    assertThat(policy.shouldCompress(METHOD, 99)).isFalse();
+    assertThat(policy.shouldCompress(METHOD, 100)).isTrue();
+  }
+
+  @Test
+  public void compressesUnknownLengthMessages() {
+    assertThat(policy.shouldCompress(METHOD, -1)).isTrue();
+  }
+
+  @Test
+  public void compressesWhileRatioIsGood() {
+    policy.messageCompressed(METHOD, 1000, 100);
+
+    assertThat(policy.getCompressionRatio(METHOD)).isWithin(1e-9).of(0.1);
+    assertThat(policy.shouldCompress(METHOD, 1000)).isTrue();
+    assertThat(policy.shouldCompress(METHOD, 1000)).isTrue();
+  }
+
+  @Test
+  public void skipsPoorlyCompressingMethod_probesPeriodically() {
+    policy.messageCompressed(METHOD, 1000, 990);
+
+    assertThat(policy.shouldCompress(METHOD, 1000)).isFalse();
+    assertThat(policy.shouldCompress(METHOD, 1000)).isFalse();
+    assertThat(policy.shouldCompress(METHOD, 1000)).isTrue();
+    assertThat(policy.shouldCompress(METHOD, 1000)).isFalse();
+
+    // Other methods are unaffected.
+    assertThat(policy.shouldCompress(OTHER_METHOD, 1000)).isTrue();
+    assertThat(policy.getCompressionRatio(OTHER_METHOD)).isEqualTo(-1);
+  }
+
+  @Test
+  public void ratioRecovers() {
+    policy.messageCompressed(METHOD, 1000, 990);
+    assertThat(policy.shouldCompress(METHOD, 1000)).isFalse();
+
+    for (int i = 0; i < 10; i++) {
+      policy.messageCompressed(METHOD, 1000, 100);
+    }
+
+    assertThat(policy.getCompressionRatio(METHOD)).isLessThan(0.5);
+    assertThat(policy.shouldCompress(METHOD, 1000)).isTrue();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidMaxCompressionRatio() {
+    AdaptiveCompressionPolicy.newBuilder().setMaxCompressionRatio(1.5);
+  }
+}
@@ -0,0 +1,353 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.util;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.truth.Truth.assertThat;
+import static io.grpc.ConnectivityState.CONNECTING;
+import static io.grpc.ConnectivityState.READY;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableMap;
+import io.grpc.CallOptions;
+import io.grpc.ConnectivityStateInfo;
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.LoadBalancer.CreateSubchannelArgs;
+import io.grpc.LoadBalancer.Helper;
+import io.grpc.LoadBalancer.PickResult;
+import io.grpc.LoadBalancer.PickSubchannelArgs;
+import io.grpc.LoadBalancer.ResolvedAddresses;
+import io.grpc.LoadBalancer.Subchannel;
+import io.grpc.LoadBalancer.SubchannelPicker;
+import io.grpc.LoadBalancer.SubchannelStateListener;
+import io.grpc.Metadata;
+import io.grpc.NameResolver.ConfigOrError;
+import io.grpc.Status;
+import io.grpc.util.ConsistentHashLoadBalancer.ConsistentHashConfig;
+import io.grpc.util.ConsistentHashLoadBalancer.ConsistentHashPicker;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/** Unit test for {@link ConsistentHashLoadBalancer}. */
+@RunWith(JUnit4.class)
+public class ConsistentHashLoadBalancerTest {
+  private static final ConsistentHashConfig RING_HASH_CONFIG =
+      new ConsistentHashConfig(null, new RingHashTable.Factory(1024, 4096));
+  private static final ConsistentHashConfig MAGLEV_CONFIG =
+      new ConsistentHashConfig(null, new MaglevTable.Factory(65537));
+  private static final Metadata.Key<String> SESSION_KEY =
+      Metadata.Key.of("session-id", Metadata.ASCII_STRING_MARSHALLER);
+
+  private ConsistentHashLoadBalancer loadBalancer;
+  private final List<EquivalentAddressGroup> servers = new ArrayList<>();
+  private final Map<List<EquivalentAddressGroup>, Subchannel> subchannels = new LinkedHashMap<>();
+  private final Map<Subchannel, SubchannelStateListener> subchannelStateListeners =
+      new LinkedHashMap<>();
+
+  @Captor
+  private ArgumentCaptor<SubchannelPicker> pickerCaptor;
+  @Mock
+  private Helper mockHelper;
+  @Mock
+  private ThreadSafeRandom mockRandom;
+  @Mock
+  private PickSubchannelArgs mockArgs;
+
+  @Before
+  public void setUp() {
+    MockitoAnnotations.initMocks(this);
+
+    for (int i = 0; i < 4; i++) {
+      EquivalentAddressGroup eag = new EquivalentAddressGroup(new FakeSocketAddress("server" + i));
+      servers.add(eag);
+      subchannels.put(Arrays.asList(eag), mock(Subchannel.class));
+    }
+
+    when(mockHelper.createSubchannel(any(CreateSubchannelArgs.class)))
+        .then(new Answer<Subchannel>() {
+          @Override
+          public Subchannel answer(InvocationOnMock invocation) throws Throwable {
+            CreateSubchannelArgs args = (CreateSubchannelArgs) invocation.getArguments()[0];
+            final Subchannel subchannel = subchannels.get(args.getAddresses());
+            when(subchannel.getAllAddresses()).thenReturn(args.getAddresses());
+            when(subchannel.getAttributes()).thenReturn(args.getAttributes());
+            doAnswer(
+                new Answer<Void>() {
+                  @Override
+                  public Void answer(InvocationOnMock invocation) throws Throwable {
+                    subchannelStateListeners.put(
+                        subchannel, (SubchannelStateListener) invocation.getArguments()[0]);
+                    return null;
+                  }
+                }).when(subchannel).start(any(SubchannelStateListener.class));
+            return subchannel;
+          }
+        });
+    when(mockArgs.getCallOptions()).thenReturn(CallOptions.DEFAULT);
+    when(mockArgs.getHeaders()).thenReturn(new Metadata());
+
+    loadBalancer = new ConsistentHashLoadBalancer(mockHelper, RING_HASH_CONFIG, mockRandom);
+  }
+
+  @Test
+  public void noReadySubchannels_keepsRoundRobinPicker() {
+    loadBalancer.handleResolvedAddresses(
+        ResolvedAddresses.newBuilder().setAddresses(servers).build());
+
+    verify(mockHelper).updateBalancingState(eq(CONNECTING), pickerCaptor.capture());
+    assertThat(pickerCaptor.getValue()).isNotInstanceOf(ConsistentHashPicker.class);
+  }
+
+  @Test
+  public void sameRequestHashSameSubchannel() {
+    SubchannelPicker picker = allReady(RING_HASH_CONFIG);
+    Set<Subchannel> picked = new HashSet<>();
+    for (long key = 0; key < 100; key++) {
+      PickResult result = pickWithHash(picker, key);
+      assertSame(result, pickWithHash(picker, key));
+      picked.add(result.getSubchannel());
+    }
+    assertThat(picked).hasSize(4);
+  }
+
+  @Test
+  public void hashFromHeader() {
+    SubchannelPicker picker =
+        allReady(new ConsistentHashConfig("session-id", new MaglevTable.Factory(65537)));
+    Set<Subchannel> picked = new HashSet<>();
+    for (int session = 0; session < 100; session++) {
+      Metadata headers = new Metadata();
+      headers.put(SESSION_KEY, "session" + session);
+      when(mockArgs.getHeaders()).thenReturn(headers);
+      PickResult result = picker.pickSubchannel(mockArgs);
+      assertSame(result, picker.pickSubchannel(mockArgs));
+      picked.add(result.getSubchannel());
+    }
+    assertThat(picked).hasSize(4);
+  }
+
+  @Test
+  public void headerWrittenWithPolicyKeyHashesTheSame() {
+    ConsistentHashConfig config =
+        new ConsistentHashConfig("session-id", new MaglevTable.Factory(65537));
+    SubchannelPicker picker = allReady(config);
+    Metadata headers = new Metadata();
+    headers.put(SESSION_KEY, "session1");
+    when(mockArgs.getHeaders()).thenReturn(headers);
+    PickResult result = picker.pickSubchannel(mockArgs);
+
+    Metadata rawHeaders = new Metadata();
+    rawHeaders.put(config.hashHeaderKey, "session1".getBytes(UTF_8));
+    when(mockArgs.getHeaders()).thenReturn(rawHeaders);
+    assertSame(result, picker.pickSubchannel(mockArgs));
+  }
+
+  @Test
+  public void hashAddresses_usesIpAndPort() throws Exception {
+    InetAddress ip = InetAddress.getByAddress(new byte[] {10, 0, 0, 1});
+    InetAddress namedIp = InetAddress.getByAddress("backend", new byte[] {10, 0, 0, 1});
+
+    assertEquals(
+        ConsistentHashLoadBalancer.hashAddresses(group(new InetSocketAddress(ip, 443))),
+        ConsistentHashLoadBalancer.hashAddresses(group(new InetSocketAddress(namedIp, 443))));
+    assertNotEquals(
+        ConsistentHashLoadBalancer.hashAddresses(group(new InetSocketAddress(ip, 443))),
+        ConsistentHashLoadBalancer.hashAddresses(group(new InetSocketAddress(ip, 444))));
+  }
+
+  @Test
+  public void randomWithoutHash() {
+    SubchannelPicker picker = allReady(RING_HASH_CONFIG);
+    when(mockRandom.nextLong()).thenReturn(42L);
+    PickResult result = picker.pickSubchannel(mockArgs);
+    verify(mockRandom).nextLong();
+    assertSame(result, picker.pickSubchannel(mockArgs));
+  }
+
+  @Test
+  public void subchannelNotReady_movesOnAndComesBack() {
+    SubchannelPicker picker = allReady(MAGLEV_CONFIG);
+    PickResult result = pickWithHash(picker, 7);
+    Subchannel subchannel = ((ForwardingSubchannel) result.getSubchannel()).delegate();
+
+    deliverSubchannelState(
+        subchannel, ConnectivityStateInfo.forTransientFailure(Status.UNAVAILABLE));
+    verify(mockHelper, atLeastOnce()).updateBalancingState(eq(READY), pickerCaptor.capture());
+    PickResult fallback = pickWithHash(pickerCaptor.getValue(), 7);
+    assertNotEquals(result.getSubchannel(), fallback.getSubchannel());
+
+    deliverSubchannelState(subchannel, ConnectivityStateInfo.forNonError(READY));
+    verify(mockHelper, atLeastOnce()).updateBalancingState(eq(READY), pickerCaptor.capture());
+    assertSame(result, pickWithHash(pickerCaptor.getValue(), 7));
+  }
+
+  @Test
+  public void removingServer_ringHashKeepsOtherKeys() {
+    removingServerKeepsOtherKeys(RING_HASH_CONFIG);
+  }
+
+  @Test
+  public void removingServer_maglevKeepsOtherKeys() {
+    removingServerKeepsOtherKeys(MAGLEV_CONFIG);
+  }
+
+  private void removingServerKeepsOtherKeys(ConsistentHashConfig config) {
+    SubchannelPicker picker = allReady(config);
+    Map<Long, Subchannel> before = new LinkedHashMap<>();
+    for (long key = 0; key < 1000; key++) {
+      before.put(key, pickWithHash(picker, key).getSubchannel());
+    }
+
+    Subchannel removed = before.get(0L);
+    List<EquivalentAddressGroup> remaining = new ArrayList<>(servers);
+    remaining.remove(removed.getAllAddresses().get(0));
+    loadBalancer.handleResolvedAddresses(
+        ResolvedAddresses.newBuilder()
+            .setAddresses(remaining)
+            .setLoadBalancingPolicyConfig(config)
+            .build());
+    verify(mockHelper, atLeastOnce()).updateBalancingState(eq(READY), pickerCaptor.capture());
+    picker = pickerCaptor.getValue();
+
+    int moved = 0;
+    for (Map.Entry<Long, Subchannel> entry : before.entrySet()) {
+      Subchannel subchannel = pickWithHash(picker, entry.getKey()).getSubchannel();
+      assertNotEquals(removed, subchannel);
+      if (entry.getValue() != removed && entry.getValue() != subchannel) {
+        moved++;
+      }
+    }
+    // Maglev may move a few keys between the remaining servers, the ring none.
+    assertThat(moved).isLessThan(50);
+  }
+
+  @Test
+  public void removingConnectingServer_updatesPicker() {
+    loadBalancer.handleResolvedAddresses(
+        ResolvedAddresses.newBuilder().setAddresses(servers).build());
+    Subchannel connecting = subchannels.get(Arrays.asList(servers.get(0)));
+    for (Subchannel subchannel : subchannels.values()) {
+      if (subchannel != connecting) {
+        deliverSubchannelState(subchannel, ConnectivityStateInfo.forNonError(READY));
+      }
+    }
+
+    loadBalancer.handleResolvedAddresses(
+        ResolvedAddresses.newBuilder().setAddresses(servers.subList(1, 4)).build());
+    verify(connecting).shutdown();
+    verify(mockHelper, atLeastOnce()).updateBalancingState(eq(READY), pickerCaptor.capture());
+    assertThat(pickerCaptor.getValue().toString()).contains("hosts=3");
+  }
+
+  @Test
+  public void parseConfig() {
+    SecretRingHashLoadBalancerProvider.Provider ringHash =
+        new SecretRingHashLoadBalancerProvider.Provider();
+    assertEquals(RING_HASH_CONFIG,
+        ringHash.parseLoadBalancingPolicyConfig(ImmutableMap.<String, Object>of()).getConfig());
+    assertEquals(
+        new ConsistentHashConfig("session-id", new RingHashTable.Factory(8192, 8192)),
+        ringHash.parseLoadBalancingPolicyConfig(
+            ImmutableMap.of("hashHeader", "session-id", "minRingSize", 8192.0)).getConfig());
+    ConfigOrError invalid = ringHash.parseLoadBalancingPolicyConfig(
+        ImmutableMap.of("minRingSize", 10.0, "maxRingSize", 5.0));
+    assertNotNull(invalid.getError());
+    assertEquals(Status.Code.INVALID_ARGUMENT, invalid.getError().getCode());
+
+    SecretMaglevLoadBalancerProvider.Provider maglev =
+        new SecretMaglevLoadBalancerProvider.Provider();
+    assertEquals(MAGLEV_CONFIG,
+        maglev.parseLoadBalancingPolicyConfig(ImmutableMap.<String, Object>of()).getConfig());
+    assertEquals(
+        new ConsistentHashConfig(null, new MaglevTable.Factory(251)),
+        maglev.parseLoadBalancingPolicyConfig(ImmutableMap.of("tableSize", 251.0)).getConfig());
+    invalid = maglev.parseLoadBalancingPolicyConfig(ImmutableMap.of("tableSize", 1000.0));
+    assertNotNull(invalid.getError());
+    assertEquals(Status.Code.INVALID_ARGUMENT, invalid.getError().getCode());
+    invalid = maglev.parseLoadBalancingPolicyConfig(ImmutableMap.of("hashHeader", "key-bin"));
+    assertNotNull(invalid.getError());
+  }
+
+  private SubchannelPicker allReady(ConsistentHashConfig config) {
+    loadBalancer.handleResolvedAddresses(
+        ResolvedAddresses.newBuilder()
+            .setAddresses(servers)
+            .setLoadBalancingPolicyConfig(config)
+            .build());
+    for (Subchannel subchannel : subchannels.values()) {
+      deliverSubchannelState(subchannel, ConnectivityStateInfo.forNonError(READY));
+    }
+    verify(mockHelper, atLeastOnce()).updateBalancingState(eq(READY), pickerCaptor.capture());
+    assertThat(pickerCaptor.getValue()).isInstanceOf(ConsistentHashPicker.class);
+    return pickerCaptor.getValue();
+  }
+
+  private PickResult pickWithHash(SubchannelPicker picker, long hash) {
+    when(mockArgs.getCallOptions()).thenReturn(
+        CallOptions.DEFAULT.withOption(ConsistentHashing.REQUEST_HASH_KEY, hash));
+    return picker.pickSubchannel(mockArgs);
+  }
+
+  private void deliverSubchannelState(Subchannel subchannel, ConnectivityStateInfo newState) {
+    subchannelStateListeners.get(subchannel).onSubchannelState(newState);
+  }
+
+  private static List<EquivalentAddressGroup> group(SocketAddress address) {
+    return Arrays.asList(new EquivalentAddressGroup(address));
+  }
+
+  private static class FakeSocketAddress extends SocketAddress {
+    final String name;
+
+    FakeSocketAddress(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public String toString() {
+      return "FakeSocketAddress-" + name;
+    }
+  }
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.util;
+
+import static com.google.common.truth.Truth.assertThat;
+import static io.grpc.ConnectivityState.CONNECTING;
+import static io.grpc.ConnectivityState.READY;
+import static io.grpc.ConnectivityState.TRANSIENT_FAILURE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableMap;
+import io.grpc.CallOptions;
+import io.grpc.ClientStreamTracer;
+import io.grpc.ConnectivityState;
+import io.grpc.ConnectivityStateInfo;
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.LoadBalancer.CreateSubchannelArgs;
+import io.grpc.LoadBalancer.Helper;
+import io.grpc.LoadBalancer.PickResult;
+import io.grpc.LoadBalancer.PickSubchannelArgs;
+import io.grpc.LoadBalancer.ResolvedAddresses;
+import io.grpc.LoadBalancer.Subchannel;
+import io.grpc.LoadBalancer.SubchannelPicker;
+import io.grpc.LoadBalancer.SubchannelStateListener;
+import io.grpc.Metadata;
+import io.grpc.NameResolver.ConfigOrError;
+import io.grpc.Status;
+import io.grpc.util.LeastRequestLoadBalancer.LeastRequestConfig;
+import io.grpc.util.LeastRequestLoadBalancer.ReadyPicker;
+import io.grpc.util.LeastRequestLoadBalancer.TrackedSubchannel;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/** Unit test for {@link LeastRequestLoadBalancer}. */
+@RunWith(JUnit4.class)
+public class LeastRequestLoadBalancerTest {
+  private LeastRequestLoadBalancer loadBalancer;
+  private final List<EquivalentAddressGroup> servers = new ArrayList<>();
+  private final Map<List<EquivalentAddressGroup>, Subchannel> subchannels = new LinkedHashMap<>();
+  private final Map<Subchannel, SubchannelStateListener> subchannelStateListeners =
+      new LinkedHashMap<>();
+  private final ClientStreamTracer.StreamInfo streamInfo =
+      ClientStreamTracer.StreamInfo.newBuilder().setCallOptions(CallOptions.DEFAULT).build();
+
+  @Captor
+  private ArgumentCaptor<SubchannelPicker> pickerCaptor;
+  @Captor
+  private ArgumentCaptor<ConnectivityState> stateCaptor;
+  @Mock
+  private Helper mockHelper;
+  @Mock
+  private ThreadSafeRandom mockRandom;
+  @Mock
+  private PickSubchannelArgs mockArgs;
+
+  @Before
+  public void setUp() {
+    MockitoAnnotations.initMocks(this);
+
+    for (int i = 0; i < 3; i++) {
+      EquivalentAddressGroup eag = new EquivalentAddressGroup(new FakeSocketAddress("server" + i));
+      servers.add(eag);
+      subchannels.put(Arrays.asList(eag), mock(Subchannel.class));
+    }
+
+    when(mockHelper.createSubchannel(any(CreateSubchannelArgs.class)))
+        .then(new Answer<Subchannel>() {
+          @Override
+          public Subchannel answer(InvocationOnMock invocation) throws Throwable {
+            CreateSubchannelArgs args = (CreateSubchannelArgs) invocation.getArguments()[0];
+            final Subchannel subchannel = subchannels.get(args.getAddresses());
+            when(subchannel.getAllAddresses()).thenReturn(args.getAddresses());
+            when(subchannel.getAttributes()).thenReturn(args.getAttributes());
+            doAnswer(
+                new Answer<Void>() {
+                  @Override
+                  public Void answer(InvocationOnMock invocation) throws Throwable {
+                    subchannelStateListeners.put(
+                        subchannel, (SubchannelStateListener) invocation.getArguments()[0]);
+                    return null;
+                  }
+                }).when(subchannel).start(any(SubchannelStateListener.class));
+            return subchannel;
+          }
+        });
+
+    loadBalancer = new LeastRequestLoadBalancer(mockHelper, mockRandom);
+  }
+
+  @Test
+  public void pickAfterResolved() {
+    Subchannel readySubchannel = subchannels.values().iterator().next();
+    loadBalancer.handleResolvedAddresses(
+        ResolvedAddresses.newBuilder().setAddresses(servers).build());
+    deliverSubchannelState(readySubchannel, ConnectivityStateInfo.forNonError(READY));
+
+    for (Subchannel subchannel : subchannels.values()) {
+      verify(subchannel).requestConnection();
+    }
+    verify(mockHelper, times(2))
+        .updateBalancingState(stateCaptor.capture(), pickerCaptor.capture());
+    assertEquals(CONNECTING, stateCaptor.getAllValues().get(0));
+    assertEquals(READY, stateCaptor.getAllValues().get(1));
+    List<TrackedSubchannel> list = ((ReadyPicker) pickerCaptor.getValue()).getList();
+    assertEquals(1, list.size());
+    assertSame(readySubchannel, list.get(0).delegate());
+  }
+
+  @Test
+  public void pickReturnsSameResultForSubchannel() {
+    ReadyPicker picker = allReady();
+    when(mockRandom.nextInt(3)).thenReturn(1);
+    PickResult result = picker.pickSubchannel(mockArgs);
+
+    assertSame(picker.getList().get(1), result.getSubchannel());
+    assertNotNull(result.getStreamTracerFactory());
+    assertSame(result, picker.pickSubchannel(mockArgs));
+  }
+
+  @Test
+  public void picksLessLoadedOfTwoChoices() {
+    ReadyPicker picker = allReady();
+    List<Subchannel> list = picker.getList();
+    when(mockRandom.nextInt(3)).thenReturn(0, 0);
+    PickResult result = picker.pickSubchannel(mockArgs);
+    assertSame(list.get(0), result.getSubchannel());
+    ClientStreamTracer tracer = newStreamTracer(result);
+
+    // list.get(0) now has a call in flight
+    when(mockRandom.nextInt(3)).thenReturn(0, 1);
+    assertSame(list.get(1), picker.pickSubchannel(mockArgs).getSubchannel());
+    when(mockRandom.nextInt(3)).thenReturn(1, 0);
+    assertSame(list.get(1), picker.pickSubchannel(mockArgs).getSubchannel());
+
+    tracer.streamClosed(Status.OK);
+    when(mockRandom.nextInt(3)).thenReturn(1, 0);
+    assertSame(list.get(1), picker.pickSubchannel(mockArgs).getSubchannel());
+    when(mockRandom.nextInt(3)).thenReturn(0, 1);
+    assertSame(list.get(0), picker.pickSubchannel(mockArgs).getSubchannel());
+  }
+
+  @Test
+  public void inFlightsCountedFromStreamCreationUntilClose() {
+    ReadyPicker picker = allReady();
+    when(mockRandom.nextInt(3)).thenReturn(2);
+    PickResult result = picker.pickSubchannel(mockArgs);
+    TrackedSubchannel subchannel = (TrackedSubchannel) result.getSubchannel();
+    assertEquals(0, subchannel.getInFlights());
+
+    ClientStreamTracer first = newStreamTracer(result);
+    ClientStreamTracer second = newStreamTracer(picker.pickSubchannel(mockArgs));
+    assertEquals(2, subchannel.getInFlights());
+
+    first.streamClosed(Status.CANCELLED);
+    second.streamClosed(Status.OK);
+    assertEquals(0, subchannel.getInFlights());
+  }
+
+  @Test
+  public void choiceCountFromConfig() {
+    loadBalancer.handleResolvedAddresses(
+        ResolvedAddresses.newBuilder()
+            .setAddresses(servers)
+            .setLoadBalancingPolicyConfig(new LeastRequestConfig(4))
+            .build());
+    for (Subchannel subchannel : subchannels.values()) {
+      deliverSubchannelState(subchannel, ConnectivityStateInfo.forNonError(READY));
+    }
+    verify(mockHelper, times(3)).updateBalancingState(eq(READY), pickerCaptor.capture());
+
+    pickerCaptor.getValue().pickSubchannel(mockArgs);
+    verify(mockRandom, times(4)).nextInt(3);
+  }
+
+  @Test
+  public void removedAddressLeavesPicker() {
+    allReady();
+    Subchannel removed = subchannels.get(Arrays.asList(servers.get(0)));
+    loadBalancer.handleResolvedAddresses(
+        ResolvedAddresses.newBuilder().setAddresses(servers.subList(1, 3)).build());
+
+    verify(removed).shutdown();
+    verify(mockHelper, times(4)).updateBalancingState(eq(READY), pickerCaptor.capture());
+    List<TrackedSubchannel> list = ((ReadyPicker) pickerCaptor.getValue()).getList();
+    assertEquals(2, list.size());
+    for (TrackedSubchannel subchannel : list) {
+      assertNotSame(removed, subchannel.delegate());
+    }
+  }
+
+  @Test
+  public void choiceCountChangeReplacesReadyPicker() {
+    allReady();
+    loadBalancer.handleResolvedAddresses(
+        ResolvedAddresses.newBuilder()
+            .setAddresses(servers)
+            .setLoadBalancingPolicyConfig(new LeastRequestConfig(3))
+            .build());
+    verify(mockHelper, times(4)).updateBalancingState(eq(READY), pickerCaptor.capture());
+
+    pickerCaptor.getValue().pickSubchannel(mockArgs);
+    verify(mockRandom, times(3)).nextInt(3);
+  }
+
+  @Test
+  public void nameResolutionErrorWithNoReadySubchannels() {
+    Status error = Status.NOT_FOUND.withDescription("nameResolutionError");
+    loadBalancer.handleNameResolutionError(error);
+
+    verify(mockHelper).updateBalancingState(eq(TRANSIENT_FAILURE), pickerCaptor.capture());
+    assertSame(error, pickerCaptor.getValue().pickSubchannel(mockArgs).getStatus());
+  }
+
+  @Test
+  public void parseConfig() {
+    SecretLeastRequestLoadBalancerProvider.Provider provider =
+        new SecretLeastRequestLoadBalancerProvider.Provider();
+
+    ConfigOrError defaultConfig =
+        provider.parseLoadBalancingPolicyConfig(ImmutableMap.<String, Object>of());
+    assertEquals(new LeastRequestConfig(2), defaultConfig.getConfig());
+    ConfigOrError config =
+        provider.parseLoadBalancingPolicyConfig(ImmutableMap.of("choiceCount", 3.0));
+    assertEquals(new LeastRequestConfig(3), config.getConfig());
+    ConfigOrError capped =
+        provider.parseLoadBalancingPolicyConfig(ImmutableMap.of("choiceCount", 100.0));
+    assertEquals(LeastRequestConfig.MAX_CHOICE_COUNT,
+        ((LeastRequestConfig) capped.getConfig()).choiceCount);
+    ConfigOrError invalid =
+        provider.parseLoadBalancingPolicyConfig(ImmutableMap.of("choiceCount", 1.0));
+    assertNotNull(invalid.getError());
+    assertEquals(Status.Code.INVALID_ARGUMENT, invalid.getError().getCode());
+  }
+
+  private ReadyPicker allReady() {
+    loadBalancer.handleResolvedAddresses(
+        ResolvedAddresses.newBuilder().setAddresses(servers).build());
+    for (Subchannel subchannel : subchannels.values()) {
+      deliverSubchannelState(subchannel, ConnectivityStateInfo.forNonError(READY));
+    }
+    verify(mockHelper, times(3)).updateBalancingState(eq(READY), pickerCaptor.capture());
+    return (ReadyPicker) pickerCaptor.getValue();
+  }
+
+  private ClientStreamTracer newStreamTracer(PickResult result) {
+    return result.getStreamTracerFactory().newClientStreamTracer(streamInfo, new Metadata());
+  }
+
+  private void deliverSubchannelState(Subchannel subchannel, ConnectivityStateInfo newState) {
+    subchannelStateListeners.get(subchannel).onSubchannelState(newState);
+  }
+
+  private static class FakeSocketAddress extends SocketAddress {
+    final String name;
+
+    FakeSocketAddress(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public String toString() {
+      return "FakeSocketAddress-" + name;
+    }
+  }
+}
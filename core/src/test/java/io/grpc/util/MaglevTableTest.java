@@ -0,0 +1,80 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.util;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertSame;
+
+import io.grpc.util.ConsistentHashLoadBalancer.Host;
+import io.grpc.util.RingHashTableTest.FakeHost;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit test for {@link MaglevTable}. */
+@RunWith(JUnit4.class)
+public class MaglevTableTest {
+
+  @Test
+  public void hostsGetEqualShares() {
+    MaglevTable table = MaglevTable.build(RingHashTableTest.hosts(0, 7), 65537);
+
+    Map<Host, Integer> counts = new HashMap<>();
+    for (int i = 0; i < table.size(); i++) {
+      Integer count = counts.get(table.hostAt(i));
+      counts.put(table.hostAt(i), count == null ? 1 : count + 1);
+    }
+    assertThat(counts).hasSize(7);
+    assertThat(Collections.max(counts.values()) - Collections.min(counts.values()))
+        .isAtMost(1);
+  }
+
+  @Test
+  public void independentOfHostOrder() {
+    List<FakeHost> hosts = RingHashTableTest.hosts(0, 20);
+    MaglevTable table = MaglevTable.build(hosts, 251);
+    List<FakeHost> reversed = new ArrayList<>(hosts);
+    Collections.reverse(reversed);
+    MaglevTable other = MaglevTable.build(reversed, 251);
+
+    for (int i = 0; i < table.size(); i++) {
+      assertSame(table.hostAt(i), other.hostAt(i));
+    }
+  }
+
+  @Test
+  public void removedHostMostlyMovesItsOwnEntries() {
+    List<FakeHost> hosts = RingHashTableTest.hosts(0, 10);
+    MaglevTable before = MaglevTable.build(hosts, 65537);
+    FakeHost removed = hosts.remove(3);
+    MaglevTable after = MaglevTable.build(hosts, 65537);
+
+    int moved = 0;
+    for (int i = 0; i < before.size(); i++) {
+      assertThat(after.hostAt(i)).isNotSameInstanceAs(removed);
+      if (before.hostAt(i) != removed && before.hostAt(i) != after.hostAt(i)) {
+        moved++;
+      }
+    }
+    assertThat(moved).isLessThan(before.size() / 100);
+  }
+}
@@ -0,0 +1,359 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.util;
+
+import static com.google.common.truth.Truth.assertThat;
+import static io.grpc.ConnectivityState.READY;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.grpc.CallOptions;
+import io.grpc.ClientStreamTracer;
+import io.grpc.ConnectivityStateInfo;
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.LoadBalancer;
+import io.grpc.LoadBalancer.CreateSubchannelArgs;
+import io.grpc.LoadBalancer.Helper;
+import io.grpc.LoadBalancer.PickResult;
+import io.grpc.LoadBalancer.PickSubchannelArgs;
+import io.grpc.LoadBalancer.ResolvedAddresses;
+import io.grpc.LoadBalancer.Subchannel;
+import io.grpc.LoadBalancer.SubchannelPicker;
+import io.grpc.LoadBalancer.SubchannelStateListener;
+import io.grpc.LoadBalancerProvider;
+import io.grpc.Metadata;
+import io.grpc.NameResolver.ConfigOrError;
+import io.grpc.Status;
+import io.grpc.SynchronizationContext;
+import io.grpc.internal.FakeClock;
+import io.grpc.internal.ServiceConfigUtil.PolicySelection;
+import io.grpc.util.OutlierDetectionLoadBalancer.FailurePercentageEjection;
+import io.grpc.util.OutlierDetectionLoadBalancer.OutlierDetectionConfig;
+import io.grpc.util.OutlierDetectionLoadBalancer.SuccessRateEjection;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/** Unit test for {@link OutlierDetectionLoadBalancer}. */
+@RunWith(JUnit4.class)
+public class OutlierDetectionLoadBalancerTest {
+  private static final PolicySelection ROUND_ROBIN =
+      new PolicySelection(new SecretRoundRobinLoadBalancerProvider.Provider(), null, null);
+  private static final long INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+  private static final long BASE_EJECTION_TIME_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+  private OutlierDetectionLoadBalancer loadBalancer;
+  private final FakeClock fakeClock = new FakeClock();
+  private final SynchronizationContext syncContext = new SynchronizationContext(
+      new Thread.UncaughtExceptionHandler() {
+        @Override
+        public void uncaughtException(Thread t, Throwable e) {
+          throw new AssertionError(e);
+        }
+      });
+  private final List<EquivalentAddressGroup> servers = new ArrayList<>();
+  private final Map<List<EquivalentAddressGroup>, Subchannel> subchannels = new LinkedHashMap<>();
+  private final Map<Subchannel, SubchannelStateListener> subchannelStateListeners =
+      new LinkedHashMap<>();
+  private final ClientStreamTracer.StreamInfo streamInfo =
+      ClientStreamTracer.StreamInfo.newBuilder().setCallOptions(CallOptions.DEFAULT).build();
+
+  @Captor
+  private ArgumentCaptor<SubchannelPicker> pickerCaptor;
+  @Mock
+  private Helper mockHelper;
+  @Mock
+  private PickSubchannelArgs mockArgs;
+
+  @Before
+  public void setUp() {
+    MockitoAnnotations.initMocks(this);
+
+    for (int i = 0; i < 5; i++) {
+      EquivalentAddressGroup eag = new EquivalentAddressGroup(new FakeSocketAddress("server" + i));
+      servers.add(eag);
+      subchannels.put(Arrays.asList(eag), mock(Subchannel.class));
+    }
+
+    when(mockHelper.getSynchronizationContext()).thenReturn(syncContext);
+    when(mockHelper.getScheduledExecutorService())
+        .thenReturn(fakeClock.getScheduledExecutorService());
+    when(mockHelper.createSubchannel(any(CreateSubchannelArgs.class)))
+        .then(new Answer<Subchannel>() {
+          @Override
+          public Subchannel answer(InvocationOnMock invocation) throws Throwable {
+            CreateSubchannelArgs args = (CreateSubchannelArgs) invocation.getArguments()[0];
+            final Subchannel subchannel = subchannels.get(args.getAddresses());
+            when(subchannel.getAllAddresses()).thenReturn(args.getAddresses());
+            when(subchannel.getAttributes()).thenReturn(args.getAttributes());
+            doAnswer(
+                new Answer<Void>() {
+                  @Override
+                  public Void answer(InvocationOnMock invocation) throws Throwable {
+                    subchannelStateListeners.put(
+                        subchannel, (SubchannelStateListener) invocation.getArguments()[0]);
+                    return null;
+                  }
+                }).when(subchannel).start(any(SubchannelStateListener.class));
+            return subchannel;
+          }
+        });
+
+    loadBalancer =
+        new OutlierDetectionLoadBalancer(mockHelper, fakeClock.getTicker(), new Random(1));
+  }
+
+  @Test
+  public void childGetsAddressesAndItsConfig() {
+    final LoadBalancer child = mock(LoadBalancer.class);
+    LoadBalancerProvider childProvider = new LoadBalancerProvider() {
+      @Override
+      public boolean isAvailable() {
+        return true;
+      }
+
+      @Override
+      public int getPriority() {
+        return 5;
+      }
+
+      @Override
+      public String getPolicyName() {
+        return "child";
+      }
+
+      @Override
+      public LoadBalancer newLoadBalancer(Helper helper) {
+        return child;
+      }
+    };
+    Object childConfig = new Object();
+    loadBalancer.handleResolvedAddresses(ResolvedAddresses.newBuilder()
+        .setAddresses(servers)
+        .setLoadBalancingPolicyConfig(
+            config(null, null, new PolicySelection(childProvider, null, childConfig)))
+        .build());
+
+    verify(child).handleResolvedAddresses(
+        ResolvedAddresses.newBuilder()
+            .setAddresses(servers)
+            .setLoadBalancingPolicyConfig(childConfig)
+            .build());
+  }
+
+  @Test
+  public void noEjectionAlgorithm_noDetectionTimer() {
+    allReady(config(null, null, ROUND_ROBIN));
+
+    assertThat(fakeClock.getPendingTasks()).isEmpty();
+  }
+
+  @Test
+  public void failurePercentage_ejectsFailingAddressThenBringsItBack() {
+    SubchannelPicker picker =
+        allReady(config(null, new FailurePercentageEjection(50, 100, 5, 10), ROUND_ROBIN));
+    Subchannel failing = subchannels.get(Arrays.asList(servers.get(0)));
+    makeCalls(picker, 100, failing);
+
+    fakeClock.forwardNanos(INTERVAL_NANOS);
+    assertThat(pickedSubchannels()).doesNotContain(failing);
+
+    // Ejected for the base ejection time, checked at the next detection after it.
+    fakeClock.forwardNanos(BASE_EJECTION_TIME_NANOS - INTERVAL_NANOS);
+    assertThat(pickedSubchannels()).doesNotContain(failing);
+    fakeClock.forwardNanos(INTERVAL_NANOS);
+    assertThat(pickedSubchannels()).contains(failing);
+  }
+
+  @Test
+  public void successRate_ejectsOutlier() {
+    SubchannelPicker picker =
+        allReady(config(new SuccessRateEjection(1000, 100, 5, 10), null, ROUND_ROBIN));
+    Subchannel failing = subchannels.get(Arrays.asList(servers.get(2)));
+    makeCalls(picker, 100, failing);
+
+    fakeClock.forwardNanos(INTERVAL_NANOS);
+    assertThat(pickedSubchannels()).doesNotContain(failing);
+    assertThat(pickedSubchannels()).hasSize(4);
+  }
+
+  @Test
+  public void maxEjectionPercent_limitsEjections() {
+    SubchannelPicker picker =
+        allReady(config(null, new FailurePercentageEjection(50, 100, 5, 10), ROUND_ROBIN));
+    makeCalls(picker, 100, subchannels.get(Arrays.asList(servers.get(0))),
+        subchannels.get(Arrays.asList(servers.get(1))));
+
+    fakeClock.forwardNanos(INTERVAL_NANOS);
+    // With five addresses, ejecting one reaches the maximum of 20%.
+    assertThat(pickedSubchannels()).hasSize(4);
+  }
+
+  @Test
+  public void tooFewCalls_noEjection() {
+    SubchannelPicker picker =
+        allReady(config(null, new FailurePercentageEjection(50, 100, 5, 100), ROUND_ROBIN));
+    makeCalls(picker, 100, subchannels.get(Arrays.asList(servers.get(0))));
+
+    fakeClock.forwardNanos(INTERVAL_NANOS);
+    assertThat(pickedSubchannels()).hasSize(5);
+  }
+
+  @Test
+  public void configUpdate_keepsDetectionSchedule() {
+    // A ticker far from zero, as the system ticker is, unlike the one of FakeClock.
+    final long offsetNanos = TimeUnit.DAYS.toNanos(1000);
+    Ticker ticker = new Ticker() {
+      @Override
+      public long read() {
+        return fakeClock.getTicker().read() + offsetNanos;
+      }
+    };
+    loadBalancer = new OutlierDetectionLoadBalancer(mockHelper, ticker, new Random(1));
+    OutlierDetectionConfig config =
+        config(null, new FailurePercentageEjection(50, 100, 5, 10), ROUND_ROBIN);
+    allReady(config);
+    fakeClock.forwardNanos(INTERVAL_NANOS / 2);
+
+    loadBalancer.handleResolvedAddresses(ResolvedAddresses.newBuilder()
+        .setAddresses(servers)
+        .setLoadBalancingPolicyConfig(config)
+        .build());
+
+    // The detection is still due an interval after the timer was first scheduled.
+    assertThat(fakeClock.getPendingTasks()).hasSize(1);
+    assertEquals(INTERVAL_NANOS / 2,
+        fakeClock.getPendingTasks().iterator().next().getDelay(TimeUnit.NANOSECONDS));
+  }
+
+  @Test
+  public void parseConfig() {
+    SecretOutlierDetectionLoadBalancerProvider.Provider provider =
+        new SecretOutlierDetectionLoadBalancerProvider.Provider();
+    ConfigOrError config = provider.parseLoadBalancingPolicyConfig(ImmutableMap.of(
+        "interval", "1s",
+        "successRateEjection", ImmutableMap.of("stdevFactor", 1500.0),
+        "failurePercentageEjection", ImmutableMap.of(),
+        "childPolicy", ImmutableList.of(ImmutableMap.of("round_robin", ImmutableMap.of()))));
+    OutlierDetectionConfig parsed = (OutlierDetectionConfig) config.getConfig();
+    assertEquals(TimeUnit.SECONDS.toNanos(1), parsed.intervalNanos);
+    assertEquals(BASE_EJECTION_TIME_NANOS, parsed.baseEjectionTimeNanos);
+    assertEquals(10, parsed.maxEjectionPercent);
+    assertEquals(new SuccessRateEjection(1500, 100, 5, 100), parsed.successRateEjection);
+    assertEquals(new FailurePercentageEjection(85, 100, 5, 50), parsed.failurePercentageEjection);
+    assertEquals("round_robin", parsed.childPolicy.getProvider().getPolicyName());
+
+    ConfigOrError noChild = provider.parseLoadBalancingPolicyConfig(ImmutableMap.of());
+    assertNotNull(noChild.getError());
+    ConfigOrError invalid = provider.parseLoadBalancingPolicyConfig(ImmutableMap.of(
+        "maxEjectionPercent", 101.0,
+        "childPolicy", ImmutableList.of(ImmutableMap.of("round_robin", ImmutableMap.of()))));
+    assertNotNull(invalid.getError());
+    assertEquals(Status.Code.INVALID_ARGUMENT, invalid.getError().getCode());
+  }
+
+  private static OutlierDetectionConfig config(
+      SuccessRateEjection successRateEjection,
+      FailurePercentageEjection failurePercentageEjection,
+      PolicySelection childPolicy) {
+    return new OutlierDetectionConfig(INTERVAL_NANOS, BASE_EJECTION_TIME_NANOS,
+        TimeUnit.SECONDS.toNanos(300), 20, successRateEjection, failurePercentageEjection,
+        childPolicy);
+  }
+
+  private SubchannelPicker allReady(OutlierDetectionConfig config) {
+    loadBalancer.handleResolvedAddresses(ResolvedAddresses.newBuilder()
+        .setAddresses(servers)
+        .setLoadBalancingPolicyConfig(config)
+        .build());
+    for (Subchannel subchannel : subchannels.values()) {
+      deliverSubchannelState(subchannel, ConnectivityStateInfo.forNonError(READY));
+    }
+    return latestPicker();
+  }
+
+  private SubchannelPicker latestPicker() {
+    verify(mockHelper, atLeastOnce()).updateBalancingState(eq(READY), pickerCaptor.capture());
+    return pickerCaptor.getValue();
+  }
+
+  /** Makes calls over the picker, which fail on the {@code failing} subchannels only. */
+  private void makeCalls(SubchannelPicker picker, int count, Subchannel... failing) {
+    List<Subchannel> failingList = Arrays.asList(failing);
+    for (int i = 0; i < count; i++) {
+      PickResult result = picker.pickSubchannel(mockArgs);
+      Subchannel subchannel = ((ForwardingSubchannel) result.getSubchannel()).delegate();
+      ClientStreamTracer tracer =
+          result.getStreamTracerFactory().newClientStreamTracer(streamInfo, new Metadata());
+      tracer.streamClosed(failingList.contains(subchannel) ? Status.UNAVAILABLE : Status.OK);
+    }
+  }
+
+  private Set<Subchannel> pickedSubchannels() {
+    SubchannelPicker picker = latestPicker();
+    Set<Subchannel> picked = new HashSet<>();
+    for (int i = 0; i < 20; i++) {
+      picked.add(((ForwardingSubchannel) picker.pickSubchannel(mockArgs).getSubchannel())
+          .delegate());
+    }
+    return picked;
+  }
+
+  private void deliverSubchannelState(Subchannel subchannel, ConnectivityStateInfo newState) {
+    subchannelStateListeners.get(subchannel).onSubchannelState(newState);
+  }
+
+  private static class FakeSocketAddress extends SocketAddress {
+    final String name;
+
+    FakeSocketAddress(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public String toString() {
+      return "FakeSocketAddress-" + name;
+    }
+  }
+}
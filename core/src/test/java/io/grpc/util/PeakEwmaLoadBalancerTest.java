@@ -0,0 +1,320 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.util;
+
+import static com.google.common.truth.Truth.assertThat;
+import static io.grpc.ConnectivityState.CONNECTING;
+import static io.grpc.ConnectivityState.READY;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableMap;
+import io.grpc.CallOptions;
+import io.grpc.ClientStreamTracer;
+import io.grpc.ConnectivityStateInfo;
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.LoadBalancer.CreateSubchannelArgs;
+import io.grpc.LoadBalancer.Helper;
+import io.grpc.LoadBalancer.PickResult;
+import io.grpc.LoadBalancer.PickSubchannelArgs;
+import io.grpc.LoadBalancer.ResolvedAddresses;
+import io.grpc.LoadBalancer.Subchannel;
+import io.grpc.LoadBalancer.SubchannelPicker;
+import io.grpc.LoadBalancer.SubchannelStateListener;
+import io.grpc.Metadata;
+import io.grpc.NameResolver.ConfigOrError;
+import io.grpc.Status;
+import io.grpc.internal.FakeClock;
+import io.grpc.util.PeakEwmaLoadBalancer.LatencyStats;
+import io.grpc.util.PeakEwmaLoadBalancer.PeakEwmaConfig;
+import io.grpc.util.PeakEwmaLoadBalancer.PeakEwmaPicker;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/** Unit test for {@link PeakEwmaLoadBalancer}. */
+@RunWith(JUnit4.class)
+public class PeakEwmaLoadBalancerTest {
+  private static final long DECAY_TIME_NANOS = TimeUnit.SECONDS.toNanos(10);
+  private static final double DELTA = 1;
+
+  private PeakEwmaLoadBalancer loadBalancer;
+  private final FakeClock fakeClock = new FakeClock();
+  private final List<EquivalentAddressGroup> servers = new ArrayList<>();
+  private final Map<List<EquivalentAddressGroup>, Subchannel> subchannels = new LinkedHashMap<>();
+  private final Map<Subchannel, SubchannelStateListener> subchannelStateListeners =
+      new LinkedHashMap<>();
+  private final ClientStreamTracer.StreamInfo streamInfo =
+      ClientStreamTracer.StreamInfo.newBuilder().setCallOptions(CallOptions.DEFAULT).build();
+
+  @Captor
+  private ArgumentCaptor<SubchannelPicker> pickerCaptor;
+  @Mock
+  private Helper mockHelper;
+  @Mock
+  private ThreadSafeRandom mockRandom;
+  @Mock
+  private PickSubchannelArgs mockArgs;
+
+  @Before
+  public void setUp() {
+    MockitoAnnotations.initMocks(this);
+
+    for (int i = 0; i < 2; i++) {
+      EquivalentAddressGroup eag = new EquivalentAddressGroup(new FakeSocketAddress("server" + i));
+      servers.add(eag);
+      subchannels.put(Arrays.asList(eag), mock(Subchannel.class));
+    }
+
+    when(mockHelper.createSubchannel(any(CreateSubchannelArgs.class)))
+        .then(new Answer<Subchannel>() {
+          @Override
+          public Subchannel answer(InvocationOnMock invocation) throws Throwable {
+            CreateSubchannelArgs args = (CreateSubchannelArgs) invocation.getArguments()[0];
+            final Subchannel subchannel = subchannels.get(args.getAddresses());
+            when(subchannel.getAllAddresses()).thenReturn(args.getAddresses());
+            when(subchannel.getAttributes()).thenReturn(args.getAttributes());
+            doAnswer(
+                new Answer<Void>() {
+                  @Override
+                  public Void answer(InvocationOnMock invocation) throws Throwable {
+                    subchannelStateListeners.put(
+                        subchannel, (SubchannelStateListener) invocation.getArguments()[0]);
+                    return null;
+                  }
+                }).when(subchannel).start(any(SubchannelStateListener.class));
+            return subchannel;
+          }
+        });
+
+    loadBalancer = new PeakEwmaLoadBalancer(mockHelper, mockRandom, fakeClock.getTicker());
+  }
+
+  @Test
+  public void noReadySubchannels_keepsRoundRobinPicker() {
+    loadBalancer.handleResolvedAddresses(
+        ResolvedAddresses.newBuilder().setAddresses(servers).build());
+
+    verify(mockHelper).updateBalancingState(eq(CONNECTING), pickerCaptor.capture());
+    assertThat(pickerCaptor.getValue()).isNotInstanceOf(PeakEwmaPicker.class);
+  }
+
+  @Test
+  public void pickReturnsSameResultForSubchannel() {
+    PeakEwmaPicker picker = allReady();
+    when(mockRandom.nextInt(2)).thenReturn(0);
+    when(mockRandom.nextInt(1)).thenReturn(0);
+    PickResult result = picker.pickSubchannel(mockArgs);
+
+    assertThat(subchannels.values())
+        .contains(((ForwardingSubchannel) result.getSubchannel()).delegate());
+    assertNotNull(result.getStreamTracerFactory());
+    assertSame(result, picker.pickSubchannel(mockArgs));
+  }
+
+  @Test
+  public void removedAddressLeavesPicker() {
+    allReady();
+    Subchannel removed = subchannels.get(Arrays.asList(servers.get(0)));
+    loadBalancer.handleResolvedAddresses(
+        ResolvedAddresses.newBuilder().setAddresses(servers.subList(1, 2)).build());
+
+    verify(removed).shutdown();
+    verify(mockHelper, times(3)).updateBalancingState(eq(READY), pickerCaptor.capture());
+    PickResult result = pickerCaptor.getValue().pickSubchannel(mockArgs);
+    assertSame(subchannels.get(Arrays.asList(servers.get(1))),
+        ((ForwardingSubchannel) result.getSubchannel()).delegate());
+  }
+
+  @Test
+  public void picksLowerLatencyOfTwo() {
+    PeakEwmaPicker picker = allReady();
+    when(mockRandom.nextInt(1)).thenReturn(0);
+    // Equal costs keep the first choice.
+    when(mockRandom.nextInt(2)).thenReturn(0);
+    PickResult slow = picker.pickSubchannel(mockArgs);
+    when(mockRandom.nextInt(2)).thenReturn(1);
+    PickResult fast = picker.pickSubchannel(mockArgs);
+    assertNotSame(slow.getSubchannel(), fast.getSubchannel());
+
+    completeStream(slow, 100);
+    completeStream(fast, 10);
+
+    when(mockRandom.nextInt(2)).thenReturn(0);
+    assertSame(fast, picker.pickSubchannel(mockArgs));
+    when(mockRandom.nextInt(2)).thenReturn(1);
+    assertSame(fast, picker.pickSubchannel(mockArgs));
+  }
+
+  @Test
+  public void latencySpikeTakesEffectAtOnce() {
+    LatencyStats stats = new LatencyStats(fakeClock.getTicker(), DECAY_TIME_NANOS);
+    observe(stats, 10);
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(10), stats.cost(fakeClock.getTicker().read()),
+        DELTA);
+
+    observe(stats, 100);
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(100), stats.cost(fakeClock.getTicker().read()),
+        DELTA);
+  }
+
+  @Test
+  public void lowerLatencyMovesAverageGradually() {
+    LatencyStats stats = new LatencyStats(fakeClock.getTicker(), DECAY_TIME_NANOS);
+    observe(stats, 100);
+    fakeClock.forwardTime(10, TimeUnit.SECONDS);
+    observe(stats, 10);
+
+    double weight = Math.exp(-(10_010 / 10_000.0));
+    double expected = TimeUnit.MILLISECONDS.toNanos(100) * weight
+        + TimeUnit.MILLISECONDS.toNanos(10) * (1 - weight);
+    assertEquals(expected, stats.cost(fakeClock.getTicker().read()), DELTA);
+  }
+
+  @Test
+  public void costDecaysWithoutObservations() {
+    LatencyStats stats = new LatencyStats(fakeClock.getTicker(), DECAY_TIME_NANOS);
+    observe(stats, 10);
+    fakeClock.forwardTime(10, TimeUnit.SECONDS);
+
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(10) * Math.exp(-1),
+        stats.cost(fakeClock.getTicker().read()), DELTA);
+  }
+
+  @Test
+  public void inFlightsMultiplyCost() {
+    LatencyStats stats = new LatencyStats(fakeClock.getTicker(), DECAY_TIME_NANOS);
+    ClientStreamTracer unmeasured = stats.newClientStreamTracer(streamInfo, new Metadata());
+    assertEquals(1, stats.getInFlights());
+    assertEquals(PeakEwmaLoadBalancer.PENALTY + 1, stats.cost(fakeClock.getTicker().read()),
+        DELTA);
+
+    fakeClock.forwardTime(10, TimeUnit.MILLISECONDS);
+    unmeasured.inboundHeaders();
+    ClientStreamTracer second = stats.newClientStreamTracer(streamInfo, new Metadata());
+    assertEquals(2, stats.getInFlights());
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(10) * 3, stats.cost(fakeClock.getTicker().read()),
+        DELTA);
+
+    unmeasured.streamClosed(Status.OK);
+    second.streamClosed(Status.CANCELLED);
+    assertEquals(0, stats.getInFlights());
+  }
+
+  @Test
+  public void decayTimeFromConfig() {
+    loadBalancer.handleResolvedAddresses(
+        ResolvedAddresses.newBuilder()
+            .setAddresses(servers)
+            .setLoadBalancingPolicyConfig(new PeakEwmaConfig(TimeUnit.SECONDS.toNanos(1)))
+            .build());
+    for (Subchannel subchannel : subchannels.values()) {
+      deliverSubchannelState(subchannel, ConnectivityStateInfo.forNonError(READY));
+    }
+    verify(mockHelper, times(2)).updateBalancingState(eq(READY), pickerCaptor.capture());
+    when(mockRandom.nextInt(2)).thenReturn(0);
+    when(mockRandom.nextInt(1)).thenReturn(0);
+    PickResult result = pickerCaptor.getValue().pickSubchannel(mockArgs);
+    LatencyStats stats = (LatencyStats) result.getStreamTracerFactory();
+    observe(stats, 10);
+    fakeClock.forwardTime(1, TimeUnit.SECONDS);
+
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(10) * Math.exp(-1),
+        stats.cost(fakeClock.getTicker().read()), DELTA);
+  }
+
+  @Test
+  public void parseConfig() {
+    SecretPeakEwmaLoadBalancerProvider.Provider provider =
+        new SecretPeakEwmaLoadBalancerProvider.Provider();
+
+    ConfigOrError defaultConfig =
+        provider.parseLoadBalancingPolicyConfig(ImmutableMap.<String, Object>of());
+    assertEquals(new PeakEwmaConfig(DECAY_TIME_NANOS), defaultConfig.getConfig());
+    ConfigOrError config =
+        provider.parseLoadBalancingPolicyConfig(ImmutableMap.of("decayTime", "2.5s"));
+    assertEquals(new PeakEwmaConfig(TimeUnit.MILLISECONDS.toNanos(2500)), config.getConfig());
+    ConfigOrError invalid =
+        provider.parseLoadBalancingPolicyConfig(ImmutableMap.of("decayTime", "0s"));
+    assertNotNull(invalid.getError());
+    assertEquals(Status.Code.INVALID_ARGUMENT, invalid.getError().getCode());
+  }
+
+  private PeakEwmaPicker allReady() {
+    loadBalancer.handleResolvedAddresses(
+        ResolvedAddresses.newBuilder().setAddresses(servers).build());
+    for (Subchannel subchannel : subchannels.values()) {
+      deliverSubchannelState(subchannel, ConnectivityStateInfo.forNonError(READY));
+    }
+    verify(mockHelper, times(2)).updateBalancingState(eq(READY), pickerCaptor.capture());
+    return (PeakEwmaPicker) pickerCaptor.getValue();
+  }
+
+  private void completeStream(PickResult result, long latencyMillis) {
+    ClientStreamTracer tracer =
+        result.getStreamTracerFactory().newClientStreamTracer(streamInfo, new Metadata());
+    fakeClock.forwardTime(latencyMillis, TimeUnit.MILLISECONDS);
+    tracer.inboundHeaders();
+    tracer.streamClosed(Status.OK);
+  }
+
+  private void observe(LatencyStats stats, long latencyMillis) {
+    ClientStreamTracer tracer = stats.newClientStreamTracer(streamInfo, new Metadata());
+    fakeClock.forwardTime(latencyMillis, TimeUnit.MILLISECONDS);
+    tracer.streamClosed(Status.OK);
+  }
+
+  private void deliverSubchannelState(Subchannel subchannel, ConnectivityStateInfo newState) {
+    subchannelStateListeners.get(subchannel).onSubchannelState(newState);
+  }
+
+  private static class FakeSocketAddress extends SocketAddress {
+    final String name;
+
+    FakeSocketAddress(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public String toString() {
+      return "FakeSocketAddress-" + name;
+    }
+  }
+}
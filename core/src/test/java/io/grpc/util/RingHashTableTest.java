@@ -0,0 +1,124 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.util;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import io.grpc.util.ConsistentHashLoadBalancer.Host;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit test for {@link RingHashTable}. */
+@RunWith(JUnit4.class)
+public class RingHashTableTest {
+
+  @Test
+  public void pointsPerHost() {
+    assertEquals(256, RingHashTable.pointsPerHost(4, 1024, 4096, 0));
+    assertEquals(512, RingHashTable.pointsPerHost(3, 1024, 4096, 0));
+    // Capped by the maximum ring size, but every host keeps a point.
+    assertEquals(256, RingHashTable.pointsPerHost(3, 1024, 1024, 0));
+    assertEquals(1, RingHashTable.pointsPerHost(10000, 1024, 4096, 0));
+  }
+
+  @Test
+  public void pointsPerHostKeptWhileRingSizeFits() {
+    assertEquals(256, RingHashTable.pointsPerHost(3, 1024, 4096, 256));
+    assertEquals(256, RingHashTable.pointsPerHost(2, 1024, 4096, 256));
+    assertEquals(1024, RingHashTable.pointsPerHost(1, 1024, 4096, 256));
+    assertEquals(256, RingHashTable.pointsPerHost(16, 1024, 4096, 256));
+    assertEquals(128, RingHashTable.pointsPerHost(17, 1024, 4096, 256));
+  }
+
+  @Test
+  public void positionsFollowHashesAndWrapAround() {
+    RingHashTable table = RingHashTable.build(hosts(0, 3), 4, null);
+
+    assertEquals(12, table.size());
+    assertEquals(0, table.position(Long.MIN_VALUE));
+    int previous = 0;
+    boolean wrapped = false;
+    for (long hash = Long.MIN_VALUE; hash < Long.MAX_VALUE - (1L << 50); hash += 1L << 50) {
+      int position = table.position(hash);
+      if (position < previous) {
+        // Past the last point, the ring wraps around to the first.
+        assertEquals(0, position);
+        assertThat(wrapped).isFalse();
+        wrapped = true;
+      }
+      previous = position;
+    }
+    assertEquals(0, table.position(Long.MAX_VALUE));
+  }
+
+  @Test
+  public void incrementalBuildMatchesFullBuild() {
+    List<FakeHost> all = hosts(0, 120);
+    RingHashTable previous = RingHashTable.build(all.subList(0, 100), 16, null);
+    List<FakeHost> hosts = all.subList(10, 120);
+
+    RingHashTable incremental = RingHashTable.build(hosts, 16, previous);
+    RingHashTable full = RingHashTable.build(hosts, 16, null);
+
+    assertEquals(110 * 16, incremental.size());
+    assertEquals(full.size(), incremental.size());
+    for (int i = 0; i < full.size(); i++) {
+      assertSame(full.hostAt(i), incremental.hostAt(i));
+    }
+  }
+
+  @Test
+  public void removedHostOnlyMovesItsOwnHashes() {
+    List<FakeHost> hosts = hosts(0, 10);
+    RingHashTable before = RingHashTable.build(hosts, 64, null);
+    FakeHost removed = hosts.remove(3);
+    RingHashTable after = RingHashTable.build(hosts, 64, before);
+
+    for (long hash = Long.MIN_VALUE; hash < Long.MAX_VALUE - (1L << 54); hash += 1L << 54) {
+      Host host = before.hostAt(before.position(hash));
+      if (host != removed) {
+        assertSame(host, after.hostAt(after.position(hash)));
+      }
+    }
+  }
+
+  static List<FakeHost> hosts(int from, int to) {
+    List<FakeHost> hosts = new ArrayList<>();
+    for (int i = from; i < to; i++) {
+      hosts.add(new FakeHost(i));
+    }
+    return hosts;
+  }
+
+  static final class FakeHost implements Host {
+    private final long hash;
+
+    FakeHost(int id) {
+      this.hash = ConsistentHashLoadBalancer.mix(id);
+    }
+
+    @Override
+    public long hash() {
+      return hash;
+    }
+  }
+}
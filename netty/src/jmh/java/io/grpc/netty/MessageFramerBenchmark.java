@@ -0,0 +1,191 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.netty;
+
+import io.grpc.KnownLength;
+import io.grpc.internal.MessageFramer;
+import io.grpc.internal.ReadableBuffers;
+import io.grpc.internal.RetainedSliceAllocator;
+import io.grpc.internal.StatsTraceContext;
+import io.grpc.internal.WritableBuffer;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import java.io.Closeable;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares framing large messages by copying them into pooled buffers against linking their
+ * retained slices into the frame chain. The latter is what happens when a pass-through service,
+ * such as a proxy, sends the message streams it received from the Netty transport.
+ */
+@State(Scope.Benchmark)
+public class MessageFramerBenchmark {
+  @Param({"65536", "1048576", "16777216"})
+  public int messageSize;
+
+  private ByteBuffer payload;
+  private CountingAllocator allocator;
+  private MessageFramer framer;
+
+  @Setup
+  public void setUp() {
+    payload = ByteBuffer.allocateDirect(messageSize);
+    allocator = new CountingAllocator(
+        new NettyWritableBufferAllocator(PooledByteBufAllocator.DEFAULT));
+    framer = new MessageFramer(new ReleasingSink(), allocator, StatsTraceContext.NOOP);
+  }
+
+  /**
+   * Bytes copied into transport buffers, reported per operation.
+   */
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class CopyCounters {
+    public long bytesCopied;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      bytesCopied = 0;
+    }
+  }
+
+  @Benchmark
+  @BenchmarkMode({Mode.SampleTime, Mode.Throughput})
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public void copyingFramer(CopyCounters counters) {
+    framer.writePayload(new PayloadStream(payload.duplicate()));
+    framer.flush();
+    counters.bytesCopied += allocator.drainBytesCopied();
+  }
+
+  @Benchmark
+  @BenchmarkMode({Mode.SampleTime, Mode.Throughput})
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public void retainedSliceFramer(CopyCounters counters) {
+    // Like a message received by the Netty transport, whose buffers the framer can detach.
+    framer.writePayload(ReadableBuffers.openStream(
+        new NettyReadableBuffer(Unpooled.wrappedBuffer(payload.duplicate())), true));
+    framer.flush();
+    counters.bytesCopied += allocator.drainBytesCopied();
+  }
+
+  private static final class ReleasingSink implements MessageFramer.Sink {
+    @Override
+    public void deliverFrame(
+        @Nullable WritableBuffer frame, boolean endOfStream, boolean flush, int numMessages) {
+      if (frame != null) {
+        frame.release();
+      }
+    }
+  }
+
+  /** A message that is only readable through the {@link InputStream} API. */
+  private static final class PayloadStream extends InputStream implements KnownLength {
+    private final ByteBuffer buffer;
+
+    PayloadStream(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      len = Math.min(len, buffer.remaining());
+      buffer.get(b, off, len);
+      return len;
+    }
+
+    @Override
+    public int available() {
+      return buffer.remaining();
+    }
+  }
+
+  private static final class CountingAllocator implements RetainedSliceAllocator {
+    private final RetainedSliceAllocator delegate;
+    private long bytesCopied;
+
+    CountingAllocator(RetainedSliceAllocator delegate) {
+      this.delegate = delegate;
+    }
+
+    long drainBytesCopied() {
+      long copied = bytesCopied;
+      bytesCopied = 0;
+      return copied;
+    }
+
+    @Override
+    public WritableBuffer allocate(int capacityHint) {
+      final WritableBuffer buffer = delegate.allocate(capacityHint);
+      return new WritableBuffer() {
+        @Override
+        public void write(byte[] src, int srcIndex, int length) {
+          bytesCopied += length;
+          buffer.write(src, srcIndex, length);
+        }
+
+        @Override
+        public void write(byte b) {
+          bytesCopied++;
+          buffer.write(b);
+        }
+
+        @Override
+        public int writableBytes() {
+          return buffer.writableBytes();
+        }
+
+        @Override
+        public int readableBytes() {
+          return buffer.readableBytes();
+        }
+
+        @Override
+        public void release() {
+          buffer.release();
+        }
+      };
+    }
+
+    @Override
+    public WritableBuffer wrapRetainedSlices(List<ByteBuffer> slices, Closeable owner) {
+      return delegate.wrapRetainedSlices(slices, owner);
+    }
+  }
+}
@@ -16,8 +16,11 @@
 
 package io.grpc.netty;
 
+import io.grpc.InternalStatus;
 import io.grpc.Metadata;
 import io.grpc.Metadata.AsciiMarshaller;
+import io.grpc.Status;
+import io.grpc.internal.GrpcUtil;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.UnpooledByteBufAllocator;
 import io.netty.handler.codec.http2.DefaultHttp2HeadersEncoder;
@@ -56,6 +59,7 @@ public class OutboundHeadersBenchmark {
   };
 
   private final Metadata metadata = new Metadata();
+  private final Metadata commonMetadata = new Metadata();
   private final AsciiString scheme = new AsciiString("https");
   private final AsciiString defaultPath = new AsciiString("/Service.MethodMethodMethod");
   private final AsciiString authority = new AsciiString("authority.googleapis.bogus");
@@ -68,6 +72,7 @@ public class OutboundHeadersBenchmark {
     for (int i = 0; i < headerCount; i++) {
       metadata.put(Metadata.Key.of("key-" + i, keyMarshaller), UUID.randomUUID().toString());
     }
+    commonMetadata.put(GrpcUtil.MESSAGE_ENCODING_KEY, "gzip");
   }
 
   @Benchmark
@@ -85,6 +90,28 @@ public class OutboundHeadersBenchmark {
     return Utils.convertServerHeaders(metadata);
   }
 
+  /**
+   * Response headers carrying only the well-known encoding header, as most responses do.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public Http2Headers convertCommonServerHeaders() {
+    return Utils.convertServerHeaders(commonMetadata);
+  }
+
+  /**
+   * Trailers of a successful call, built from new metadata as the server does for every call.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public Http2Headers convertOkTrailers() {
+    Metadata trailers = new Metadata();
+    trailers.put(InternalStatus.CODE_KEY, Status.OK);
+    return Utils.convertTrailers(trailers, true);
+  }
+
   /**
    * This will encode the random metadata fields, and repeatedly lookup the default other headers.
    */
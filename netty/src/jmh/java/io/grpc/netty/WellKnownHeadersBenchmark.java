@@ -0,0 +1,100 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.netty;
+
+import io.grpc.Metadata;
+import io.grpc.internal.GrpcUtil;
+import io.grpc.netty.GrpcHttp2HeadersUtils.GrpcHttp2RequestHeaders;
+import io.netty.handler.codec.http2.Http2Headers;
+import io.netty.util.AsciiString;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks converting headers to and from {@link Metadata} and looking up the well-known keys
+ * that the server reads on every call.
+ */
+@State(Scope.Thread)
+public class WellKnownHeadersBenchmark {
+  private static final Metadata.Key<byte[]> TRACE_KEY =
+      Metadata.Key.of("grpc-trace-bin", Metadata.BINARY_BYTE_MARSHALLER);
+  private static final Metadata.Key<byte[]> TAGS_KEY =
+      Metadata.Key.of("grpc-tags-bin", Metadata.BINARY_BYTE_MARSHALLER);
+  private static final Metadata.Key<String> CUSTOM_KEY =
+      Metadata.Key.of("x-custom-header", Metadata.ASCII_STRING_MARSHALLER);
+
+  private static final AsciiString[] requestHeaders = new AsciiString[] {
+      AsciiString.of(":method"), AsciiString.of("POST"),
+      AsciiString.of(":scheme"), AsciiString.of("http"),
+      AsciiString.of(":path"), AsciiString.of("/google.pubsub.v2.PublisherService/CreateTopic"),
+      AsciiString.of(":authority"), AsciiString.of("pubsub.googleapis.com"),
+      AsciiString.of("te"), AsciiString.of("trailers"),
+      AsciiString.of("grpc-timeout"), AsciiString.of("1S"),
+      AsciiString.of("content-type"), AsciiString.of("application/grpc+proto"),
+      AsciiString.of("user-agent"), AsciiString.of("grpc-java-netty/1.32.0"),
+      AsciiString.of("grpc-encoding"), AsciiString.of("gzip"),
+      AsciiString.of("grpc-accept-encoding"), AsciiString.of("gzip"),
+      AsciiString.of("authorization"), AsciiString.of("Bearer y235.wef315yfh138vh31hv93hv8h3v"),
+  };
+
+  private final Metadata responseHeaders = new Metadata();
+
+  {
+    responseHeaders.put(GrpcUtil.MESSAGE_ENCODING_KEY, "gzip");
+    responseHeaders.put(GrpcUtil.MESSAGE_ACCEPT_ENCODING_KEY, "gzip".getBytes(GrpcUtil.US_ASCII));
+  }
+
+  /**
+   * Converts request headers and performs the lookups done while starting a server call, most of
+   * which are for absent keys.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public void inboundLookups(Blackhole bh) {
+    Http2Headers headers = new GrpcHttp2RequestHeaders(4);
+    for (int i = 0; i < requestHeaders.length; i += 2) {
+      headers.add(requestHeaders[i], requestHeaders[i + 1]);
+    }
+    Metadata metadata = Utils.convertHeaders(headers);
+    bh.consume(metadata.get(GrpcUtil.TIMEOUT_KEY));
+    bh.consume(metadata.containsKey(GrpcUtil.MESSAGE_ENCODING_KEY));
+    bh.consume(metadata.get(GrpcUtil.MESSAGE_ENCODING_KEY));
+    bh.consume(metadata.get(GrpcUtil.MESSAGE_ACCEPT_ENCODING_KEY));
+    bh.consume(metadata.get(GrpcUtil.CONTENT_ENCODING_KEY));
+    bh.consume(metadata.get(GrpcUtil.CONTENT_ACCEPT_ENCODING_KEY));
+    bh.consume(metadata.get(TRACE_KEY));
+    bh.consume(metadata.get(TAGS_KEY));
+    bh.consume(metadata.get(CUSTOM_KEY));
+  }
+
+  /**
+   * Converts response headers made of well-known keys.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public Http2Headers outboundConversion() {
+    return Utils.convertServerHeaders(responseHeaders);
+  }
+}
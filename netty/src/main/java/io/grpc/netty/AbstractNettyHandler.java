@@ -39,8 +39,10 @@ import java.util.concurrent.TimeUnit;
 abstract class AbstractNettyHandler extends GrpcHttp2ConnectionHandler {
   private static final long GRACEFUL_SHUTDOWN_NO_TIMEOUT = -1;
   private static final int MAX_ALLOWED_PING = 2;
+  static final int DEFAULT_MAX_FLOW_CONTROL_WINDOW = 8 * 1024 * 1024;
 
   private final int initialConnectionWindow;
+  private final int maxFlowControlWindow;
   private final PingCountingListener pingCountingListener = new PingCountingListener();
   private final FlowControlPinger flowControlPing = new FlowControlPinger(MAX_ALLOWED_PING);
 
@@ -56,6 +58,17 @@ abstract class AbstractNettyHandler extends GrpcHttp2ConnectionHandler {
       Http2ConnectionEncoder encoder,
       Http2Settings initialSettings,
       boolean autoFlowControl) {
+    this(channelUnused, decoder, encoder, initialSettings, autoFlowControl,
+        DEFAULT_MAX_FLOW_CONTROL_WINDOW);
+  }
+
+  AbstractNettyHandler(
+      ChannelPromise channelUnused,
+      Http2ConnectionDecoder decoder,
+      Http2ConnectionEncoder encoder,
+      Http2Settings initialSettings,
+      boolean autoFlowControl,
+      int maxFlowControlWindow) {
     super(channelUnused, decoder, encoder, initialSettings);
 
     // During a graceful shutdown, wait until all streams are closed.
@@ -65,6 +78,7 @@ abstract class AbstractNettyHandler extends GrpcHttp2ConnectionHandler {
     this.initialConnectionWindow = initialSettings.initialWindowSize() == null ? -1 :
             initialSettings.initialWindowSize();
     this.autoTuneFlowControlOn = autoFlowControl;
+    this.maxFlowControlWindow = maxFlowControlWindow;
     if (encoder instanceof ListeningEncoder) {
       ((ListeningEncoder) encoder).setListener(pingCountingListener);
     }
@@ -115,6 +129,14 @@ abstract class AbstractNettyHandler extends GrpcHttp2ConnectionHandler {
     }
   }
 
+  /**
+   * Returns the stream flow control window currently advertised to the remote endpoint. Auto flow
+   * control tuning may have raised it above the initial setting.
+   */
+  final int localFlowControlWindow() {
+    return decoder().flowController().initialWindowSize();
+  }
+
   @VisibleForTesting
   FlowControlPinger flowControlPing() {
     return flowControlPing;
@@ -130,7 +152,6 @@ abstract class AbstractNettyHandler extends GrpcHttp2ConnectionHandler {
    */
   final class FlowControlPinger {
 
-    private static final int MAX_WINDOW_SIZE = 8 * 1024 * 1024;
     private final int maxAllowedPing;
     private int pingCount;
     private int pingReturn;
@@ -149,7 +170,7 @@ abstract class AbstractNettyHandler extends GrpcHttp2ConnectionHandler {
     }
 
     public int maxWindow() {
-      return MAX_WINDOW_SIZE;
+      return maxFlowControlWindow;
     }
 
     public void onDataRead(int dataLength, int paddingLength) {
@@ -175,7 +196,7 @@ abstract class AbstractNettyHandler extends GrpcHttp2ConnectionHandler {
       long bandwidth = (getDataSincePing() * TimeUnit.SECONDS.toNanos(1)) / elapsedTime;
       Http2LocalFlowController fc = decoder().flowController();
       // Calculate new window size by doubling the observed BDP, but cap at max window
-      int targetWindow = Math.min(getDataSincePing() * 2, MAX_WINDOW_SIZE);
+      int targetWindow = (int) Math.min(getDataSincePing() * 2L, maxFlowControlWindow);
       setPinging(false);
       int currentWindow = fc.initialWindowSize(connection().connectionStream());
       if (targetWindow > currentWindow && bandwidth > lastBandwidth) {
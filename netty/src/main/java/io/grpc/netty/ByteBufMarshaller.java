@@ -0,0 +1,225 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.netty;
+
+import io.grpc.Detachable;
+import io.grpc.Drainable;
+import io.grpc.ExperimentalApi;
+import io.grpc.HasByteBuffer;
+import io.grpc.KnownLength;
+import io.grpc.MethodDescriptor.Marshaller;
+import io.grpc.Status;
+import io.grpc.internal.GrpcUtil;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link Marshaller} for raw messages held in Netty {@link ByteBuf}s, for services such as
+ * proxies that pass messages through without parsing them.
+ *
+ * <p>{@link #parse} does not copy messages received by the Netty transport. The returned {@code
+ * ByteBuf} shares memory with the transport's receive buffers, and the application must release it
+ * when done. {@link #stream} takes ownership of the given {@code ByteBuf} and releases it once the
+ * message has been written. The Netty transport writes large messages straight from it, so a
+ * message can be forwarded without being copied.
+ */
+@ExperimentalApi("https://github.com/grpc/grpc-java/issues/1784")
+public final class ByteBufMarshaller implements Marshaller<ByteBuf> {
+  private static final int COPY_CHUNK_SIZE = 8192;
+
+  @Override
+  public InputStream stream(ByteBuf value) {
+    return new ByteBufInputStream(value);
+  }
+
+  @Override
+  public ByteBuf parse(InputStream stream) {
+    try {
+      if (stream instanceof Detachable && stream instanceof HasByteBuffer
+          && ((HasByteBuffer) stream).byteBufferSupported() && stream.markSupported()) {
+        return wrap(((Detachable) stream).detach());
+      }
+      return copy(stream);
+    } catch (IOException e) {
+      throw Status.INTERNAL.withDescription("Failed to read message").withCause(e)
+          .asRuntimeException();
+    }
+  }
+
+  /**
+   * Wraps the buffers of a detached stream without copying. The stream is closed, releasing its
+   * buffers, once the returned {@code ByteBuf} is released.
+   */
+  private static ByteBuf wrap(InputStream detached) throws IOException {
+    HasByteBuffer byteBuffers = (HasByteBuffer) detached;
+    DetachedByteBuf message = new DetachedByteBuf(detached);
+    // Keeps the buffers skipped below open until the stream is closed
+    detached.mark(Integer.MAX_VALUE);
+    try {
+      ByteBuffer buffer;
+      while ((buffer = byteBuffers.getByteBuffer()) != null) {
+        int length = buffer.remaining();
+        message.addComponent(true, Unpooled.wrappedBuffer(buffer));
+        detached.skip(length);
+      }
+    } catch (IOException | RuntimeException e) {
+      message.release();
+      throw e;
+    }
+    return message;
+  }
+
+  private static ByteBuf copy(InputStream stream) throws IOException {
+    ByteBuf message = Unpooled.buffer(stream.available());
+    try {
+      while (message.writeBytes(stream, COPY_CHUNK_SIZE) != -1) {
+        // Keep reading until EOF
+      }
+    } catch (IOException | RuntimeException e) {
+      message.release();
+      throw e;
+    }
+    return message;
+  }
+
+  /**
+   * A {@link CompositeByteBuf} over the buffers of a detached message stream, which closes the
+   * stream when deallocated.
+   */
+  private static final class DetachedByteBuf extends CompositeByteBuf {
+    private final InputStream detached;
+
+    DetachedByteBuf(InputStream detached) {
+      super(UnpooledByteBufAllocator.DEFAULT, /* direct= */ false, Integer.MAX_VALUE);
+      this.detached = detached;
+    }
+
+    @Override
+    protected void deallocate() {
+      super.deallocate();
+      GrpcUtil.closeQuietly(detached);
+    }
+  }
+
+  /**
+   * A {@link Drainable} stream over a {@link ByteBuf}, which releases the {@code ByteBuf} when
+   * closed. Its buffers can be detached, so that a transport can send a large message without
+   * copying it, and release it only once it has been written.
+   */
+  private static final class ByteBufInputStream extends InputStream
+      implements Drainable, KnownLength, HasByteBuffer, Detachable {
+    private ByteBuf buf;
+    private boolean closed;
+
+    ByteBufInputStream(ByteBuf buf) {
+      this.buf = buf;
+    }
+
+    @Override
+    public int drainTo(OutputStream target) throws IOException {
+      int readableBytes = buf.readableBytes();
+      buf.readBytes(target, readableBytes);
+      return readableBytes;
+    }
+
+    @Override
+    public int available() {
+      return closed ? 0 : buf.readableBytes();
+    }
+
+    @Override
+    public int read() {
+      if (available() == 0) {
+        return -1;
+      }
+      return buf.readUnsignedByte();
+    }
+
+    @Override
+    public int read(byte[] dest, int destOffset, int length) {
+      int readableBytes = available();
+      if (readableBytes == 0) {
+        return -1;
+      }
+      length = Math.min(readableBytes, length);
+      buf.readBytes(dest, destOffset, length);
+      return length;
+    }
+
+    @Override
+    public long skip(long n) {
+      if (n <= 0) {
+        return 0;
+      }
+      int length = (int) Math.min(available(), n);
+      buf.skipBytes(length);
+      return length;
+    }
+
+    @Override
+    public boolean markSupported() {
+      return true;
+    }
+
+    @Override
+    public void mark(int readLimit) {
+      buf.markReaderIndex();
+    }
+
+    @Override
+    public void reset() {
+      buf.resetReaderIndex();
+    }
+
+    @Override
+    public boolean byteBufferSupported() {
+      return buf.nioBufferCount() > 0;
+    }
+
+    @Nullable
+    @Override
+    public ByteBuffer getByteBuffer() {
+      if (available() == 0) {
+        return null;
+      }
+      return buf.nioBufferCount() == 1 ? buf.nioBuffer() : buf.nioBuffers()[0];
+    }
+
+    @Override
+    public InputStream detach() {
+      ByteBuf detachedBuf = buf;
+      // Leaves nothing for closing this stream to release
+      buf = Unpooled.EMPTY_BUFFER;
+      return new ByteBufInputStream(detachedBuf);
+    }
+
+    @Override
+    public void close() {
+      if (!closed) {
+        closed = true;
+        buf.release();
+      }
+    }
+  }
+}
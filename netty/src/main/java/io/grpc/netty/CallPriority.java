@@ -0,0 +1,94 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.netty;
+
+import com.google.common.collect.ImmutableMap;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ExperimentalApi;
+import io.grpc.MethodDescriptor;
+import io.netty.handler.codec.http2.Http2CodecUtil;
+import java.util.Map;
+
+/**
+ * Priority class of a call, used to share a connection's bandwidth between its calls. The Netty
+ * client uses it as the HTTP/2 weight of the call's stream: it gives the stream's request data a
+ * share of the connection proportional to that weight, and sends the weight in the stream's
+ * HEADERS frame so that a Netty server does the same for the response data. Small
+ * latency-sensitive messages are then not stuck behind bulk transfers on the same connection.
+ * Weights only matter while several streams have data waiting for the connection's flow control
+ * window.
+ *
+ * <p>Set a call's priority with {@link #CALL_OPTION}, or per method with {@link
+ * #forMethods(Map)}.
+ */
+@ExperimentalApi("https://github.com/grpc/grpc-java/issues/1784")
+public enum CallPriority {
+  /**
+   * Latency-sensitive calls, such as small unary calls.
+   */
+  HIGH(Http2CodecUtil.MAX_WEIGHT),
+  /**
+   * The default, with the default HTTP/2 weight.
+   */
+  NORMAL(Http2CodecUtil.DEFAULT_PRIORITY_WEIGHT),
+  /**
+   * Bulk transfers, which should use the bandwidth other calls leave unused.
+   */
+  LOW(Http2CodecUtil.MIN_WEIGHT);
+
+  /**
+   * Call option holding the priority of a call. Defaults to {@link #NORMAL}.
+   */
+  public static final CallOptions.Key<CallPriority> CALL_OPTION =
+      CallOptions.Key.createWithDefault("io.grpc.netty.CallPriority", NORMAL);
+
+  private final short weight;
+
+  CallPriority(short weight) {
+    this.weight = weight;
+  }
+
+  /**
+   * Returns the HTTP/2 stream weight sent for calls of this priority.
+   */
+  short weight() {
+    return weight;
+  }
+
+  /**
+   * Returns an interceptor applying a priority to calls of the given methods, keyed by full method
+   * name. Calls that set a priority other than {@link #NORMAL} in their {@link CallOptions} keep
+   * it.
+   */
+  public static ClientInterceptor forMethods(Map<String, CallPriority> priorities) {
+    final Map<String, CallPriority> methodPriorities = ImmutableMap.copyOf(priorities);
+    return new ClientInterceptor() {
+      @Override
+      public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+          MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+        CallPriority priority = methodPriorities.get(method.getFullMethodName());
+        if (priority != null && callOptions.getOption(CALL_OPTION) == NORMAL) {
+          callOptions = callOptions.withOption(CALL_OPTION, priority);
+        }
+        return next.newCall(method, callOptions);
+      }
+    };
+  }
+}
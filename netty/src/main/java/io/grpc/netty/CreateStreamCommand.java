@@ -17,6 +17,7 @@
 package io.grpc.netty;
 
 import com.google.common.base.Preconditions;
+import io.netty.handler.codec.http2.Http2CodecUtil;
 import io.netty.handler.codec.http2.Http2Headers;
 
 /**
@@ -28,15 +29,24 @@ class CreateStreamCommand extends WriteQueue.AbstractQueuedCommand {
   private final NettyClientStream.TransportState stream;
   private final boolean shouldBeCountedForInUse;
   private final boolean get;
+  private final short weight;
 
   CreateStreamCommand(
       Http2Headers headers,
       NettyClientStream.TransportState stream,
       boolean shouldBeCountedForInUse, boolean get) {
+    this(headers, stream, shouldBeCountedForInUse, get, Http2CodecUtil.DEFAULT_PRIORITY_WEIGHT);
+  }
+
+  CreateStreamCommand(
+      Http2Headers headers,
+      NettyClientStream.TransportState stream,
+      boolean shouldBeCountedForInUse, boolean get, short weight) {
     this.stream = Preconditions.checkNotNull(stream, "stream");
     this.headers = Preconditions.checkNotNull(headers, "headers");
     this.shouldBeCountedForInUse = shouldBeCountedForInUse;
     this.get = get;
+    this.weight = weight;
   }
 
   NettyClientStream.TransportState stream() {
@@ -54,4 +64,11 @@ class CreateStreamCommand extends WriteQueue.AbstractQueuedCommand {
   boolean isGet() {
     return get;
   }
+
+  /**
+   * Returns the HTTP/2 weight of the stream.
+   */
+  short weight() {
+    return weight;
+  }
 }
@@ -39,6 +39,7 @@ import static io.netty.handler.codec.http2.Http2Exception.connectionError;
 import static io.netty.util.AsciiString.isUpperCase;
 
 import com.google.common.io.BaseEncoding;
+import io.grpc.InternalMetadata;
 import io.grpc.Metadata;
 import io.netty.handler.codec.http2.DefaultHttp2HeadersDecoder;
 import io.netty.handler.codec.http2.Http2Headers;
@@ -103,7 +104,7 @@ class GrpcHttp2HeadersUtils {
     }
 
     protected Http2Headers add(AsciiString name, AsciiString value) {
-      byte[] nameBytes = bytes(name);
+      byte[] nameBytes = nameBytes(name);
       byte[] valueBytes;
       if (!name.endsWith(binaryHeaderSuffix)) {
         valueBytes = bytes(value);
@@ -198,6 +199,16 @@ class GrpcHttp2HeadersUtils {
       return PlatformDependent.equals(bytes0, offset0, bytes1, offset1, length0);
     }
 
+    /**
+     * Returns the canonical array for a well-known name, so it isn't copied out of the decode
+     * buffer and {@link Metadata} finds it by identity, or otherwise the name's bytes.
+     */
+    private static byte[] nameBytes(AsciiString name) {
+      int index = InternalMetadata.wellKnownNameIndex(
+          name.array(), name.arrayOffset(), name.length());
+      return index != -1 ? InternalMetadata.wellKnownName(index) : bytes(name);
+    }
+
     protected static byte[] bytes(AsciiString str) {
       return str.isEntireArrayUsed() ? str.array() : str.toByteArray();
     }
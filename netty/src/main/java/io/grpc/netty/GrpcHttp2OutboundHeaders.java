@@ -16,11 +16,16 @@
 
 package io.grpc.netty;
 
+import static com.google.common.base.Charsets.US_ASCII;
+
+import io.grpc.InternalMetadata;
 import io.netty.handler.codec.http2.Http2Headers;
 import io.netty.util.AsciiString;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Map.Entry;
 import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * A custom implementation of Http2Headers that only includes methods used by gRPC.
@@ -30,6 +35,15 @@ final class GrpcHttp2OutboundHeaders extends AbstractHttp2Headers {
   private final AsciiString[] normalHeaders;
   private final AsciiString[] preHeaders;
   private static final AsciiString[] EMPTY = new AsciiString[]{};
+  // Avoids wrapping the names gRPC sends on most calls anew for every call.
+  private static final AsciiString[] WELL_KNOWN_NAMES =
+      new AsciiString[InternalMetadata.wellKnownNameCount()];
+
+  static {
+    for (int i = 0; i < WELL_KNOWN_NAMES.length; i++) {
+      WELL_KNOWN_NAMES[i] = new AsciiString(InternalMetadata.wellKnownName(i), false);
+    }
+  }
 
   static GrpcHttp2OutboundHeaders clientRequestHeaders(byte[][] serializedMetadata,
       AsciiString authority, AsciiString path, AsciiString method, AsciiString scheme,
@@ -46,26 +60,57 @@ final class GrpcHttp2OutboundHeaders extends AbstractHttp2Headers {
     return new GrpcHttp2OutboundHeaders(preHeaders, serializedMetadata);
   }
 
+  private static final AsciiString[] RESPONSE_PRE_HEADERS = new AsciiString[] {
+      Http2Headers.PseudoHeaderName.STATUS.value(), Utils.STATUS_OK,
+      Utils.CONTENT_TYPE_HEADER, Utils.CONTENT_TYPE_GRPC,
+  };
+  // Most calls respond with the same headers and trailers, differing at most in the status code
+  // and the encodings, so the immutable headers built for one call are shared with the next.
+  private static final SharedHeaders RESPONSE_HEADERS = new SharedHeaders(
+      RESPONSE_PRE_HEADERS, "grpc-encoding", "grpc-accept-encoding", "grpc-status");
+  private static final SharedHeaders RESPONSE_TRAILERS = new SharedHeaders(EMPTY, "grpc-status");
+
   static GrpcHttp2OutboundHeaders serverResponseHeaders(byte[][] serializedMetadata) {
-    AsciiString[] preHeaders = new AsciiString[] {
-        Http2Headers.PseudoHeaderName.STATUS.value(), Utils.STATUS_OK,
-        Utils.CONTENT_TYPE_HEADER, Utils.CONTENT_TYPE_GRPC,
-    };
-    return new GrpcHttp2OutboundHeaders(preHeaders, serializedMetadata);
+    return RESPONSE_HEADERS.get(serializedMetadata);
   }
 
   static GrpcHttp2OutboundHeaders serverResponseTrailers(byte[][] serializedMetadata) {
-    return new GrpcHttp2OutboundHeaders(EMPTY, serializedMetadata);
+    return RESPONSE_TRAILERS.get(serializedMetadata);
   }
 
   private GrpcHttp2OutboundHeaders(AsciiString[] preHeaders, byte[][] serializedMetadata) {
     normalHeaders = new AsciiString[serializedMetadata.length];
-    for (int i = 0; i < normalHeaders.length; i++) {
-      normalHeaders[i] = new AsciiString(serializedMetadata[i], false);
+    for (int i = 0; i < normalHeaders.length; i += 2) {
+      normalHeaders[i] = headerName(serializedMetadata[i]);
+      normalHeaders[i + 1] = new AsciiString(serializedMetadata[i + 1], false);
     }
     this.preHeaders = preHeaders;
   }
 
+  private static AsciiString headerName(byte[] name) {
+    int index = InternalMetadata.wellKnownNameIndex(name);
+    if (index != -1) {
+      return WELL_KNOWN_NAMES[index];
+    }
+    return new AsciiString(name, false);
+  }
+
+  /**
+   * Returns whether these headers carry exactly {@code serializedMetadata} after the pre-headers.
+   */
+  private boolean hasMetadata(byte[][] serializedMetadata) {
+    if (normalHeaders.length != serializedMetadata.length) {
+      return false;
+    }
+    // The values are wrapped without copying, so array() is exactly the serialized bytes.
+    for (int i = 0; i < normalHeaders.length; i++) {
+      if (!Arrays.equals(normalHeaders[i].array(), serializedMetadata[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   @Override
   @SuppressWarnings("ReferenceEquality") // STATUS.value() never changes.
   public CharSequence status() {
@@ -154,4 +199,56 @@ final class GrpcHttp2OutboundHeaders extends AbstractHttp2Headers {
     builder.append(']');
     return builder.toString();
   }
+
+  /**
+   * A small, lossy cache of headers for metadata made only of a few well-known keys, whose values
+   * take a handful of forms. Other metadata always gets new headers, so custom metadata can't
+   * evict the common entries.
+   */
+  private static final class SharedHeaders {
+    // Must be a power of two.
+    private static final int SIZE = 32;
+    private static final int MAX_VALUE_LENGTH = 64;
+
+    private final AsciiString[] preHeaders;
+    private final boolean[] cacheableNames = new boolean[WELL_KNOWN_NAMES.length];
+    private final AtomicReferenceArray<GrpcHttp2OutboundHeaders> entries =
+        new AtomicReferenceArray<>(SIZE);
+
+    SharedHeaders(AsciiString[] preHeaders, String... names) {
+      this.preHeaders = preHeaders;
+      for (String name : names) {
+        int index = InternalMetadata.wellKnownNameIndex(name.getBytes(US_ASCII));
+        if (index == -1) {
+          throw new AssertionError(name + " is not well-known");
+        }
+        cacheableNames[index] = true;
+      }
+    }
+
+    GrpcHttp2OutboundHeaders get(byte[][] serializedMetadata) {
+      int hash = 1;
+      for (int i = 0; i < serializedMetadata.length; i += 2) {
+        int index = InternalMetadata.wellKnownNameIndex(serializedMetadata[i]);
+        byte[] value = serializedMetadata[i + 1];
+        if (index == -1 || !cacheableNames[index] || value.length > MAX_VALUE_LENGTH) {
+          return new GrpcHttp2OutboundHeaders(preHeaders, serializedMetadata);
+        }
+        hash = 31 * (31 * hash + index) + Arrays.hashCode(value);
+      }
+      int slot = (hash ^ (hash >>> 16)) & (SIZE - 1);
+      GrpcHttp2OutboundHeaders headers = entries.get(slot);
+      if (headers == null || !headers.hasMetadata(serializedMetadata)) {
+        // The values are copied since the caller's arrays outlive the call they were made for.
+        byte[][] copy = new byte[serializedMetadata.length][];
+        for (int i = 0; i < copy.length; i += 2) {
+          copy[i] = serializedMetadata[i];
+          copy[i + 1] = serializedMetadata[i + 1].clone();
+        }
+        headers = new GrpcHttp2OutboundHeaders(preHeaders, copy);
+        entries.lazySet(slot, headers);
+      }
+      return headers;
+    }
+  }
 }
@@ -21,15 +21,20 @@ import static com.google.common.base.Preconditions.checkArgument;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import io.grpc.ExperimentalApi;
 import io.grpc.internal.ConscryptLoader;
+import io.grpc.internal.SharedResourceHolder.Resource;
 import io.netty.handler.codec.http2.Http2SecurityUtil;
 import io.netty.handler.ssl.ApplicationProtocolConfig;
 import io.netty.handler.ssl.ApplicationProtocolConfig.Protocol;
 import io.netty.handler.ssl.ApplicationProtocolConfig.SelectedListenerFailureBehavior;
 import io.netty.handler.ssl.ApplicationProtocolConfig.SelectorFailureBehavior;
 import io.netty.handler.ssl.OpenSsl;
+import io.netty.handler.ssl.OpenSslSessionContext;
+import io.netty.handler.ssl.OpenSslSessionTicketKey;
+import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
 import io.netty.handler.ssl.SslProvider;
 import io.netty.handler.ssl.SupportedCipherSuiteFilter;
+import io.netty.util.ReferenceCountUtil;
 import java.io.File;
 import java.io.InputStream;
 import java.security.Provider;
@@ -39,6 +44,8 @@ import java.util.Collections;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLSessionContext;
 
 /**
  * Utility for configuring SslContext for gRPC.
@@ -83,6 +90,34 @@ public class GrpcSslContexts {
 
   private static final String SUN_PROVIDER_NAME = "SunJSSE";
 
+  /**
+   * The client context of channels that were not given one. Channels sharing a context share its
+   * TLS session cache, which is keyed by the host and port of the authority, so that a new
+   * connection to an authority resumes the session of an earlier connection from any channel or
+   * subchannel, rather than doing a full handshake. The context is released once no channel uses
+   * it.
+   */
+  static final Resource<SslContext> SHARED_CLIENT_CONTEXT = new Resource<SslContext>() {
+    @Override
+    public SslContext create() {
+      try {
+        return forClient().build();
+      } catch (SSLException ex) {
+        throw new RuntimeException(ex);
+      }
+    }
+
+    @Override
+    public void close(SslContext instance) {
+      ReferenceCountUtil.release(instance);
+    }
+
+    @Override
+    public String toString() {
+      return "grpc-shared-client-ssl-context";
+    }
+  };
+
   /**
    * Creates an SslContextBuilder with ciphers and APN appropriate for gRPC.
    *
@@ -93,6 +128,25 @@ public class GrpcSslContexts {
     return configure(SslContextBuilder.forClient());
   }
 
+  /**
+   * Sets the keys a server encrypts and decrypts TLS session tickets with, so that servers sharing
+   * the keys resume each other's sessions. The first key encrypts new tickets, and all of them
+   * decrypt tickets. To rotate keys, call this again with the new key first, followed by the keys
+   * whose tickets should still be accepted.
+   *
+   * <p>Only OpenSSL contexts support this. The JDK manages its ticket keys itself.
+   *
+   * @throws IllegalArgumentException if {@code serverContext} is not an OpenSSL server context
+   */
+  public static void setTicketKeys(SslContext serverContext, OpenSslSessionTicketKey... keys) {
+    checkArgument(serverContext.isServer(), "Client SSL context can not set ticket keys");
+    checkArgument(keys.length > 0, "No ticket keys");
+    SSLSessionContext sessionContext = serverContext.sessionContext();
+    checkArgument(sessionContext instanceof OpenSslSessionContext,
+        "Ticket keys can only be set on OpenSSL contexts, not %s", serverContext);
+    ((OpenSslSessionContext) sessionContext).setTicketKeys(keys);
+  }
+
   /**
    * Creates an SslContextBuilder with ciphers and APN appropriate for gRPC.
    *
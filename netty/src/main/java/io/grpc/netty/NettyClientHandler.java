@@ -80,6 +80,7 @@ import io.perfmark.PerfMark;
 import io.perfmark.Tag;
 import java.nio.channels.ClosedChannelException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.annotation.Nullable;
@@ -129,6 +130,8 @@ class NettyClientHandler extends AbstractNettyHandler {
   private Http2Ping ping;
   private Attributes attributes;
   private InternalChannelz.Security securityInfo;
+  // Reported through ATTR_PEER_MAX_CONCURRENT_STREAMS and kept current as SETTINGS arrive
+  private final AtomicLong peerMaxConcurrentStreams = new AtomicLong(Long.MAX_VALUE);
 
   static NettyClientHandler newHandler(
       ClientTransportLifecycleManager lifecycleManager,
@@ -339,7 +342,13 @@ class NettyClientHandler extends AbstractNettyHandler {
   }
 
   void startWriteQueue(Channel channel) {
-    clientWriteQueue = new WriteQueue(channel);
+    startWriteQueue(channel, WriteQueue.COALESCING_DISABLED, 0);
+  }
+
+  void startWriteQueue(
+      Channel channel, long flushCoalescingDelayNanos, int flushCoalescingThresholdBytes) {
+    clientWriteQueue =
+        new WriteQueue(channel, flushCoalescingDelayNanos, flushCoalescingThresholdBytes);
   }
 
   WriteQueue getWriteQueue() {
@@ -560,7 +569,8 @@ class NettyClientHandler extends AbstractNettyHandler {
     PerfMark.linkIn(command.getLink());
     try {
       createStreamTraced(
-          streamId, stream, headers, command.isGet(), command.shouldBeCountedForInUse(), promise);
+          streamId, stream, headers, command.isGet(), command.shouldBeCountedForInUse(),
+          command.weight(), promise);
     } finally {
       PerfMark.stopTask("NettyClientHandler.createStream", stream.tag());
     }
@@ -572,11 +582,26 @@ class NettyClientHandler extends AbstractNettyHandler {
       final Http2Headers headers,
       boolean isGet,
       final boolean shouldBeCountedForInUse,
+      final short weight,
       final ChannelPromise promise) {
     // Create an intermediate promise so that we can intercept the failure reported back to the
     // application.
     ChannelPromise tempPromise = ctx().newPromise();
-    encoder().writeHeaders(ctx(), streamId, headers, 0, isGet, tempPromise)
+    ChannelFuture headersFuture;
+    final boolean weighted = weight != Http2CodecUtil.DEFAULT_PRIORITY_WEIGHT;
+    if (!weighted) {
+      headersFuture = encoder().writeHeaders(ctx(), streamId, headers, 0, isGet, tempPromise);
+    } else {
+      // Sending the weight in HEADERS lets the server prioritize the response.
+      headersFuture = encoder().writeHeaders(
+          ctx(), streamId, headers, Http2CodecUtil.CONNECTION_STREAM_ID, weight,
+          /* exclusive= */ false, 0, isGet, tempPromise);
+    }
+    // The encoder doesn't apply the weight it sends to the local priority tree, so the request's
+    // data frames would otherwise be distributed with the default weight. A stream held back by
+    // StreamBufferingEncoder doesn't exist yet and gets its weight once its headers are written.
+    final boolean weightApplied = weighted && maybeApplyWeight(streamId, weight);
+    headersFuture
         .addListener(new ChannelFutureListener() {
           @Override
           public void operationComplete(ChannelFuture future) throws Exception {
@@ -587,6 +612,9 @@ class NettyClientHandler extends AbstractNettyHandler {
               if (http2Stream != null) {
                 stream.getStatsTraceContext().clientOutboundHeaders();
                 http2Stream.setProperty(streamKey, stream);
+                if (weighted && !weightApplied) {
+                  maybeApplyWeight(streamId, weight);
+                }
 
                 // This delays the in-use state until the I/O completes, which technically may
                 // be later than we would like.
@@ -619,6 +647,19 @@ class NettyClientHandler extends AbstractNettyHandler {
         });
   }
 
+  /**
+   * Sets the weight of an open stream in the local priority tree, which decides how the remote
+   * flow controller shares the connection between streams with pending data.
+   */
+  private boolean maybeApplyWeight(int streamId, short weight) {
+    if (connection().stream(streamId) == null) {
+      return false;
+    }
+    encoder().flowController().updateDependencyTree(
+        streamId, Http2CodecUtil.CONNECTION_STREAM_ID, weight, /* exclusive= */ false);
+    return true;
+  }
+
   /**
    * Cancels this stream.
    */
@@ -849,8 +890,15 @@ class NettyClientHandler extends AbstractNettyHandler {
 
     @Override
     public void onSettingsRead(ChannelHandlerContext ctx, Http2Settings settings) {
+      Long maxConcurrentStreams = settings.maxConcurrentStreams();
+      if (maxConcurrentStreams != null) {
+        peerMaxConcurrentStreams.set(maxConcurrentStreams);
+      }
       if (firstSettings) {
         firstSettings = false;
+        attributes = attributes.toBuilder()
+            .set(GrpcAttributes.ATTR_PEER_MAX_CONCURRENT_STREAMS, peerMaxConcurrentStreams)
+            .build();
         lifecycleManager.notifyReady();
       }
     }
@@ -64,6 +64,7 @@ class NettyClientStream extends AbstractClientStream {
   private AsciiString authority;
   private final AsciiString scheme;
   private final AsciiString userAgent;
+  private final CallPriority priority;
 
   NettyClientStream(
       TransportState state,
@@ -90,6 +91,7 @@ class NettyClientStream extends AbstractClientStream {
     this.authority = checkNotNull(authority, "authority");
     this.scheme = checkNotNull(scheme, "scheme");
     this.userAgent = userAgent;
+    this.priority = callOptions.getOption(CallPriority.CALL_OPTION);
   }
 
   @Override
@@ -163,7 +165,8 @@ class NettyClientStream extends AbstractClientStream {
       };
       // Write the command requesting the creation of the stream.
       writeQueue.enqueue(
-          new CreateStreamCommand(http2Headers, transportState(), shouldBeCountedForInUse(), get),
+          new CreateStreamCommand(
+              http2Headers, transportState(), shouldBeCountedForInUse(), get, priority.weight()),
           !method.getType().clientSendsOneMessage() || get).addListener(failureListener);
     }
 
@@ -16,7 +16,9 @@
 
 package io.grpc.netty;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
 import static io.grpc.netty.NettyServerBuilder.MAX_CONNECTION_AGE_NANOS_DISABLED;
 import static io.netty.channel.ChannelOption.ALLOCATOR;
 import static io.netty.channel.ChannelOption.SO_KEEPALIVE;
@@ -44,6 +46,7 @@ import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.ServerChannel;
 import io.netty.util.AbstractReferenceCounted;
@@ -52,9 +55,12 @@ import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GenericFutureListener;
 import java.io.IOException;
 import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -74,13 +80,21 @@ class NettyServer implements InternalServer, InternalWithLogId {
   private final ObjectPool<? extends EventLoopGroup> bossGroupPool;
   private final ObjectPool<? extends EventLoopGroup> workerGroupPool;
   private final boolean forceHeapBuffer;
+  private final int acceptorCount;
   private EventLoopGroup bossGroup;
   private EventLoopGroup workerGroup;
   private ServerListener listener;
+  // The first listen socket. Its closing marks the server as shut down.
   private Channel channel;
+  // All listen sockets, including channel. Read by shutdown() from any thread.
+  private volatile List<Channel> channels = Collections.emptyList();
   private final boolean autoFlowControl;
   private final int flowControlWindow;
+  private final int maxFlowControlWindow;
   private final int maxMessageSize;
+  private final int streamingDecompressionThreshold;
+  private final long flushCoalescingDelayNanos;
+  private final int flushCoalescingThresholdBytes;
   private final int maxHeaderListSize;
   private final long keepAliveTimeInNanos;
   private final long keepAliveTimeoutInNanos;
@@ -96,6 +110,8 @@ class NettyServer implements InternalServer, InternalWithLogId {
   private final InternalChannelz channelz;
   // Only modified in event loop but safe to read any time.
   private volatile InternalInstrumented<SocketStats> listenSocketStats;
+  private final List<InternalInstrumented<SocketStats>> acceptorSocketStats =
+      Collections.synchronizedList(new ArrayList<InternalInstrumented<SocketStats>>());
 
   NettyServer(
       SocketAddress address, ChannelFactory<? extends ServerChannel> channelFactory,
@@ -104,11 +120,14 @@ class NettyServer implements InternalServer, InternalWithLogId {
       ObjectPool<? extends EventLoopGroup> bossGroupPool,
       ObjectPool<? extends EventLoopGroup> workerGroupPool,
       boolean forceHeapBuffer,
+      int acceptorCount,
       ProtocolNegotiator protocolNegotiator,
       List<? extends ServerStreamTracer.Factory> streamTracerFactories,
       TransportTracer.Factory transportTracerFactory,
       int maxStreamsPerConnection, boolean autoFlowControl, int flowControlWindow,
-      int maxMessageSize, int maxHeaderListSize,
+      int maxFlowControlWindow,
+      int maxMessageSize, int streamingDecompressionThreshold,
+      long flushCoalescingDelayNanos, int flushCoalescingThresholdBytes, int maxHeaderListSize,
       long keepAliveTimeInNanos, long keepAliveTimeoutInNanos,
       long maxConnectionIdleInNanos,
       long maxConnectionAgeInNanos, long maxConnectionAgeGraceInNanos,
@@ -123,7 +142,10 @@ class NettyServer implements InternalServer, InternalWithLogId {
     this.bossGroupPool = checkNotNull(bossGroupPool, "bossGroupPool");
     this.workerGroupPool = checkNotNull(workerGroupPool, "workerGroupPool");
     this.forceHeapBuffer = forceHeapBuffer;
-    this.bossGroup = bossGroupPool.getObject();
+    checkArgument(acceptorCount > 0, "acceptorCount must be positive");
+    this.acceptorCount = acceptorCount;
+    // Acceptors beyond the first are served by worker event loops only.
+    this.bossGroup = acceptorCount == 1 ? bossGroupPool.getObject() : null;
     this.workerGroup = workerGroupPool.getObject();
     this.protocolNegotiator = checkNotNull(protocolNegotiator, "protocolNegotiator");
     this.streamTracerFactories = checkNotNull(streamTracerFactories, "streamTracerFactories");
@@ -131,7 +153,11 @@ class NettyServer implements InternalServer, InternalWithLogId {
     this.maxStreamsPerConnection = maxStreamsPerConnection;
     this.autoFlowControl = autoFlowControl;
     this.flowControlWindow = flowControlWindow;
+    this.maxFlowControlWindow = maxFlowControlWindow;
     this.maxMessageSize = maxMessageSize;
+    this.streamingDecompressionThreshold = streamingDecompressionThreshold;
+    this.flushCoalescingDelayNanos = flushCoalescingDelayNanos;
+    this.flushCoalescingThresholdBytes = flushCoalescingThresholdBytes;
     this.maxHeaderListSize = maxHeaderListSize;
     this.keepAliveTimeInNanos = keepAliveTimeInNanos;
     this.keepAliveTimeoutInNanos = keepAliveTimeoutInNanos;
@@ -163,10 +189,81 @@ class NettyServer implements InternalServer, InternalWithLogId {
   public void start(ServerListener serverListener) throws IOException {
     listener = checkNotNull(serverListener, "serverListener");
 
+    List<Channel> bound;
+    if (acceptorCount == 1) {
+      bound = Collections.singletonList(bind(newBootstrap(bossGroup, workerGroup), address));
+    } else {
+      bound = bindReusePortAcceptors();
+    }
+    channel = bound.get(0);
+    channels = bound;
+    for (final Channel ch : bound) {
+      ch.eventLoop().execute(new Runnable() {
+        @Override
+        public void run() {
+          InternalInstrumented<SocketStats> stats = new ListenSocket(ch);
+          if (ch == channel) {
+            listenSocketStats = stats;
+          } else {
+            acceptorSocketStats.add(stats);
+          }
+          channelz.addListenSocket(stats);
+        }
+      });
+    }
+  }
+
+  /**
+   * Binds one {@code SO_REUSEPORT} listen socket per acceptor. Each is registered with its own
+   * worker event loop, which also serves the connections it accepts.
+   */
+  private List<Channel> bindReusePortAcceptors() throws IOException {
+    ChannelOption<Boolean> reusePort = Utils.maybeGetSoReusePortOption();
+    checkState(reusePort != null, "SO_REUSEPORT requires the epoll transport");
+    List<Channel> acceptors = new ArrayList<>(acceptorCount);
+    SocketAddress bindAddress = address;
+    try {
+      for (int i = 0; i < acceptorCount; i++) {
+        EventLoop loop = workerGroup.next();
+        ServerBootstrap b = newBootstrap(loop, loop);
+        b.option(reusePort, true);
+        Channel acceptor = bind(b, bindAddress);
+        acceptors.add(acceptor);
+        if (!Boolean.TRUE.equals(acceptor.config().getOption(reusePort))) {
+          // Netty ignores options a channel doesn't know, which would leave the port unshared.
+          throw new IOException("SO_REUSEPORT requires an epoll server channel, not "
+              + acceptor.getClass().getName());
+        }
+        // Later acceptors must share the port even if the system picked it.
+        bindAddress = acceptor.localAddress();
+      }
+    } catch (IOException | RuntimeException e) {
+      for (Channel acceptor : acceptors) {
+        acceptor.close().awaitUninterruptibly();
+      }
+      throw e;
+    }
+    return Collections.unmodifiableList(acceptors);
+  }
+
+  private static Channel bind(ServerBootstrap b, SocketAddress address) throws IOException {
+    // Bind and start to accept incoming connections.
+    ChannelFuture future = b.bind(address);
+    // We'd love to observe interruption, but if interrupted we will need to close the channel,
+    // which itself would need an await() to guarantee the port is not used when the method returns.
+    // See #6850
+    future.awaitUninterruptibly();
+    if (!future.isSuccess()) {
+      throw new IOException("Failed to bind", future.cause());
+    }
+    return future.channel();
+  }
+
+  private ServerBootstrap newBootstrap(EventLoopGroup acceptGroup, EventLoopGroup childGroup) {
     ServerBootstrap b = new ServerBootstrap();
     b.option(ALLOCATOR, Utils.getByteBufAllocator(forceHeapBuffer));
     b.childOption(ALLOCATOR, Utils.getByteBufAllocator(forceHeapBuffer));
-    b.group(bossGroup, workerGroup);
+    b.group(acceptGroup, childGroup);
     b.channelFactory(channelFactory);
     // For non-socket based channel, the option will be ignored.
     b.childOption(SO_KEEPALIVE, true);
@@ -210,7 +307,11 @@ class NettyServer implements InternalServer, InternalWithLogId {
                 maxStreamsPerConnection,
                 autoFlowControl,
                 flowControlWindow,
+                maxFlowControlWindow,
                 maxMessageSize,
+                streamingDecompressionThreshold,
+                flushCoalescingDelayNanos,
+                flushCoalescingThresholdBytes,
                 maxHeaderListSize,
                 keepAliveTimeInNanos,
                 keepAliveTimeoutInNanos,
@@ -254,51 +355,51 @@ class NettyServer implements InternalServer, InternalWithLogId {
         ch.closeFuture().addListener(loopReleaser);
       }
     });
-    // Bind and start to accept incoming connections.
-    ChannelFuture future = b.bind(address);
-    // We'd love to observe interruption, but if interrupted we will need to close the channel,
-    // which itself would need an await() to guarantee the port is not used when the method returns.
-    // See #6850
-    future.awaitUninterruptibly();
-    if (!future.isSuccess()) {
-      throw new IOException("Failed to bind", future.cause());
-    }
-    channel = future.channel();
-    channel.eventLoop().execute(new Runnable() {
-      @Override
-      public void run() {
-        listenSocketStats = new ListenSocket(channel);
-        channelz.addListenSocket(listenSocketStats);
-      }
-    });
+    return b;
   }
 
   @Override
   public void shutdown() {
-    if (channel == null || !channel.isOpen()) {
+    List<Channel> channels = this.channels;
+    if (channels.isEmpty() || !channels.get(0).isOpen()) {
       // Already closed.
       return;
     }
-    channel.close().addListener(new ChannelFutureListener() {
+    final AtomicInteger openChannels = new AtomicInteger(channels.size());
+    ChannelFutureListener closeListener = new ChannelFutureListener() {
       @Override
       public void operationComplete(ChannelFuture future) throws Exception {
         if (!future.isSuccess()) {
           log.log(Level.WARNING, "Error shutting down server", future.cause());
         }
+        if (openChannels.decrementAndGet() != 0) {
+          return;
+        }
         InternalInstrumented<SocketStats> stats = listenSocketStats;
         listenSocketStats = null;
         if (stats != null) {
           channelz.removeListenSocket(stats);
         }
+        synchronized (acceptorSocketStats) {
+          for (InternalInstrumented<SocketStats> acceptorStats : acceptorSocketStats) {
+            channelz.removeListenSocket(acceptorStats);
+          }
+          acceptorSocketStats.clear();
+        }
         sharedResourceReferenceCounter.release();
         protocolNegotiator.close();
         synchronized (NettyServer.this) {
           listener.serverShutdown();
         }
       }
-    });
+    };
+    for (Channel ch : channels) {
+      ch.close().addListener(closeListener);
+    }
     try {
-      channel.closeFuture().await();
+      for (Channel ch : channels) {
+        ch.closeFuture().await();
+      }
     } catch (InterruptedException e) {
       log.log(Level.FINE, "Interrupted while shutting down", e);
       Thread.currentThread().interrupt();
@@ -69,6 +69,7 @@ public final class NettyServerBuilder extends AbstractServerImplBuilder<NettySer
   static final long MAX_CONNECTION_IDLE_NANOS_DISABLED = Long.MAX_VALUE;
   static final long MAX_CONNECTION_AGE_NANOS_DISABLED = Long.MAX_VALUE;
   static final long MAX_CONNECTION_AGE_GRACE_NANOS_INFINITE = Long.MAX_VALUE;
+  static final int STREAMING_DECOMPRESSION_DISABLED = -1;
 
   private static final long MIN_KEEPALIVE_TIME_NANO = TimeUnit.MILLISECONDS.toNanos(1L);
   private static final long MIN_KEEPALIVE_TIMEOUT_NANO = TimeUnit.MICROSECONDS.toNanos(499L);
@@ -84,6 +85,9 @@ public final class NettyServerBuilder extends AbstractServerImplBuilder<NettySer
 
   private ChannelFactory<? extends ServerChannel> channelFactory =
       Utils.DEFAULT_SERVER_CHANNEL_FACTORY;
+  // The type of channel channelFactory creates, or null if it's a custom factory.
+  @Nullable
+  private Class<? extends ServerChannel> channelType = Utils.DEFAULT_SERVER_CHANNEL_TYPE;
   private final Map<ChannelOption<?>, Object> channelOptions = new HashMap<>();
   private final Map<ChannelOption<?>, Object> childChannelOptions = new HashMap<>();
   private ObjectPool<? extends EventLoopGroup> bossEventLoopGroupPool =
@@ -91,12 +95,17 @@ public final class NettyServerBuilder extends AbstractServerImplBuilder<NettySer
   private ObjectPool<? extends EventLoopGroup> workerEventLoopGroupPool =
       DEFAULT_WORKER_EVENT_LOOP_GROUP_POOL;
   private boolean forceHeapBuffer;
+  private int reusePortAcceptors = 1;
   private SslContext sslContext;
   private ProtocolNegotiator protocolNegotiator;
   private int maxConcurrentCallsPerConnection = Integer.MAX_VALUE;
   private boolean autoFlowControl = true;
   private int flowControlWindow = DEFAULT_FLOW_CONTROL_WINDOW;
+  private int maxFlowControlWindow = AbstractNettyHandler.DEFAULT_MAX_FLOW_CONTROL_WINDOW;
   private int maxMessageSize = DEFAULT_MAX_MESSAGE_SIZE;
+  private int streamingDecompressionThreshold = STREAMING_DECOMPRESSION_DISABLED;
+  private long flushCoalescingDelayNanos = WriteQueue.COALESCING_DISABLED;
+  private int flushCoalescingThresholdBytes;
   private int maxHeaderListSize = GrpcUtil.DEFAULT_MAX_HEADER_LIST_SIZE;
   private long keepAliveTimeInNanos = DEFAULT_SERVER_KEEPALIVE_TIME_NANOS;
   private long keepAliveTimeoutInNanos = DEFAULT_SERVER_KEEPALIVE_TIMEOUT_NANOS;
@@ -165,7 +174,9 @@ public final class NettyServerBuilder extends AbstractServerImplBuilder<NettySer
    */
   public NettyServerBuilder channelType(Class<? extends ServerChannel> channelType) {
     checkNotNull(channelType, "channelType");
-    return channelFactory(new ReflectiveChannelFactory<>(channelType));
+    channelFactory(new ReflectiveChannelFactory<>(channelType));
+    this.channelType = channelType;
+    return this;
   }
 
   /**
@@ -184,6 +195,7 @@ public final class NettyServerBuilder extends AbstractServerImplBuilder<NettySer
    */
   public NettyServerBuilder channelFactory(ChannelFactory<? extends ServerChannel> channelFactory) {
     this.channelFactory = checkNotNull(channelFactory, "channelFactory");
+    this.channelType = null;
     return this;
   }
 
@@ -282,6 +294,23 @@ public final class NettyServerBuilder extends AbstractServerImplBuilder<NettySer
     return this;
   }
 
+  /**
+   * Binds {@code acceptors} listen sockets to each address using {@code SO_REUSEPORT}, letting the
+   * kernel spread incoming connections across them. Each listen socket is served by its own event
+   * loop of the worker {@link EventLoopGroup}, which both accepts its connections and handles them
+   * afterwards, so accepting is no longer limited by the single boss event loop.
+   *
+   * <p>Requires Linux with the netty-epoll transport, and epoll channel and event loop types. The
+   * worker group should have at least {@code acceptors} event loops. The boss event loop group is
+   * not used when there is more than one acceptor. Defaults to {@code 1}, which binds a single
+   * listen socket served by the boss event loop group.
+   */
+  public NettyServerBuilder reusePortAcceptors(int acceptors) {
+    checkArgument(acceptors > 0, "acceptors must be positive: %s", acceptors);
+    this.reusePortAcceptors = acceptors;
+    return this;
+  }
+
   /**
    * Force using heap buffer when custom allocator is enabled.
    */
@@ -373,6 +402,20 @@ public final class NettyServerBuilder extends AbstractServerImplBuilder<NettySer
     return this;
   }
 
+  /**
+   * Sets the largest flow control window in bytes that auto flow control tuning may grow a
+   * connection's window to. The tuned window bounds the throughput of inbound streams to about
+   * {@code window / RTT}, so connections with a large bandwidth-delay product, such as uploads
+   * across regions, may need a larger maximum. Has no effect when auto flow control tuning is
+   * disabled. If not called, the maximum is 8 MiB.
+   */
+  public NettyServerBuilder maxFlowControlWindow(int maxFlowControlWindow) {
+    checkArgument(maxFlowControlWindow > 0, "maxFlowControlWindow must be positive: %s",
+        maxFlowControlWindow);
+    this.maxFlowControlWindow = maxFlowControlWindow;
+    return this;
+  }
+
   /**
    * Sets the maximum message size allowed to be received on the server. If not called,
    * defaults to 4 MiB. The default provides protection to services who haven't considered the
@@ -395,6 +438,46 @@ public final class NettyServerBuilder extends AbstractServerImplBuilder<NettySer
     return this;
   }
 
+  /**
+   * Sets the size from which compressed inbound messages are decompressed while they are still
+   * arriving. Such messages are handed to the application as soon as their header is received,
+   * and at most 256 KiB of their compressed bytes are buffered per stream; the rest is held back
+   * by flow control until the application has read them. This bounds memory use for large
+   * compressed uploads, at the cost of application reads blocking while waiting for the network.
+   *
+   * <p>Streaming decompression is disabled by default, and is never used for calls running on a
+   * {@link #directExecutor() direct executor}.
+   *
+   * @param bytes the minimum compressed message size, must be positive
+   */
+  public NettyServerBuilder streamingDecompressionThreshold(int bytes) {
+    checkArgument(bytes > 0, "bytes must be positive: %s", bytes);
+    this.streamingDecompressionThreshold = bytes;
+    return this;
+  }
+
+  /**
+   * Enables holding back flushes of outbound data while many calls are writing at once on a
+   * connection, so that their responses share syscalls. A held flush happens after at most {@code
+   * maxDelay}, or as soon as {@code thresholdBytes} of messages are waiting. Flushes are never held
+   * while writes on the connection rarely overlap, so lightly loaded connections see no added
+   * latency.
+   *
+   * <p>Coalescing is disabled by default.
+   *
+   * @param maxDelay longest time a flush may be held back, must be positive
+   * @param unit the time unit of {@code maxDelay}
+   * @param thresholdBytes amount of message data after which to flush right away, must be
+   *     positive
+   */
+  public NettyServerBuilder flushCoalescing(long maxDelay, TimeUnit unit, int thresholdBytes) {
+    checkArgument(maxDelay > 0, "maxDelay must be positive: %s", maxDelay);
+    checkArgument(thresholdBytes > 0, "thresholdBytes must be positive: %s", thresholdBytes);
+    this.flushCoalescingDelayNanos = unit.toNanos(maxDelay);
+    this.flushCoalescingThresholdBytes = thresholdBytes;
+    return this;
+  }
+
   /**
    * Sets the maximum size of header list allowed to be received. This is cumulative size of the
    * headers with some overhead, as defined for
@@ -567,6 +650,11 @@ public final class NettyServerBuilder extends AbstractServerImplBuilder<NettySer
   protected List<NettyServer> buildTransportServers(
       List<? extends ServerStreamTracer.Factory> streamTracerFactories) {
     assertEventLoopsAndChannelType();
+    // A custom channel factory is checked by NettyServer once it has created a channel.
+    checkState(
+        reusePortAcceptors == 1 || channelType == null
+            || Utils.isEpollServerChannelType(channelType),
+        "SO_REUSEPORT acceptors require an epoll server channel type, not %s", channelType);
 
     ProtocolNegotiator negotiator = protocolNegotiator;
     if (negotiator == null) {
@@ -579,10 +667,13 @@ public final class NettyServerBuilder extends AbstractServerImplBuilder<NettySer
     for (SocketAddress listenAddress : listenAddresses) {
       NettyServer transportServer = new NettyServer(
           listenAddress, channelFactory, channelOptions, childChannelOptions,
-          bossEventLoopGroupPool, workerEventLoopGroupPool, forceHeapBuffer, negotiator,
-          streamTracerFactories, getTransportTracerFactory(), maxConcurrentCallsPerConnection,
-          autoFlowControl, flowControlWindow, maxMessageSize, maxHeaderListSize,
-          keepAliveTimeInNanos, keepAliveTimeoutInNanos,
+          bossEventLoopGroupPool, workerEventLoopGroupPool, forceHeapBuffer, reusePortAcceptors,
+          negotiator, streamTracerFactories, getTransportTracerFactory(),
+          maxConcurrentCallsPerConnection,
+          autoFlowControl, flowControlWindow, maxFlowControlWindow, maxMessageSize,
+          streamingDecompressionThreshold,
+          flushCoalescingDelayNanos, flushCoalescingThresholdBytes,
+          maxHeaderListSize, keepAliveTimeInNanos, keepAliveTimeoutInNanos,
           maxConnectionIdleInNanos, maxConnectionAgeInNanos,
           maxConnectionAgeGraceInNanos, permitKeepAliveWithoutCalls, permitKeepAliveTimeInNanos,
           getChannelz());
@@ -22,6 +22,7 @@ import static io.grpc.internal.GrpcUtil.SERVER_KEEPALIVE_TIME_NANOS_DISABLED;
 import static io.grpc.netty.NettyServerBuilder.MAX_CONNECTION_AGE_GRACE_NANOS_INFINITE;
 import static io.grpc.netty.NettyServerBuilder.MAX_CONNECTION_AGE_NANOS_DISABLED;
 import static io.grpc.netty.NettyServerBuilder.MAX_CONNECTION_IDLE_NANOS_DISABLED;
+import static io.grpc.netty.NettyServerBuilder.STREAMING_DECOMPRESSION_DISABLED;
 import static io.grpc.netty.Utils.CONTENT_TYPE_HEADER;
 import static io.grpc.netty.Utils.HTTP_METHOD;
 import static io.grpc.netty.Utils.TE_HEADER;
@@ -108,6 +109,9 @@ class NettyServerHandler extends AbstractNettyHandler {
   private final Http2Connection.PropertyKey streamKey;
   private final ServerTransportListener transportListener;
   private final int maxMessageSize;
+  private final int streamingDecompressionThreshold;
+  private final long flushCoalescingDelayNanos;
+  private final int flushCoalescingThresholdBytes;
   private final long keepAliveTimeInNanos;
   private final long keepAliveTimeoutInNanos;
   private final long maxConnectionAgeInNanos;
@@ -141,8 +145,12 @@ class NettyServerHandler extends AbstractNettyHandler {
       int maxStreams,
       boolean autoFlowControl,
       int flowControlWindow,
+      int maxFlowControlWindow,
       int maxHeaderListSize,
       int maxMessageSize,
+      int streamingDecompressionThreshold,
+      long flushCoalescingDelayNanos,
+      int flushCoalescingThresholdBytes,
       long keepAliveTimeInNanos,
       long keepAliveTimeoutInNanos,
       long maxConnectionIdleInNanos,
@@ -168,8 +176,12 @@ class NettyServerHandler extends AbstractNettyHandler {
         maxStreams,
         autoFlowControl,
         flowControlWindow,
+        maxFlowControlWindow,
         maxHeaderListSize,
         maxMessageSize,
+        streamingDecompressionThreshold,
+        flushCoalescingDelayNanos,
+        flushCoalescingThresholdBytes,
         keepAliveTimeInNanos,
         keepAliveTimeoutInNanos,
         maxConnectionIdleInNanos,
@@ -190,8 +202,12 @@ class NettyServerHandler extends AbstractNettyHandler {
       int maxStreams,
       boolean autoFlowControl,
       int flowControlWindow,
+      int maxFlowControlWindow,
       int maxHeaderListSize,
       int maxMessageSize,
+      int streamingDecompressionThreshold,
+      long flushCoalescingDelayNanos,
+      int flushCoalescingThresholdBytes,
       long keepAliveTimeInNanos,
       long keepAliveTimeoutInNanos,
       long maxConnectionIdleInNanos,
@@ -202,6 +218,8 @@ class NettyServerHandler extends AbstractNettyHandler {
     Preconditions.checkArgument(maxStreams > 0, "maxStreams must be positive: %s", maxStreams);
     Preconditions.checkArgument(flowControlWindow > 0, "flowControlWindow must be positive: %s",
         flowControlWindow);
+    Preconditions.checkArgument(maxFlowControlWindow > 0,
+        "maxFlowControlWindow must be positive: %s", maxFlowControlWindow);
     Preconditions.checkArgument(maxHeaderListSize > 0, "maxHeaderListSize must be positive: %s",
         maxHeaderListSize);
     Preconditions.checkArgument(maxMessageSize > 0, "maxMessageSize must be positive: %s",
@@ -239,11 +257,15 @@ class NettyServerHandler extends AbstractNettyHandler {
         transportTracer,
         decoder, encoder, settings,
         maxMessageSize,
+        streamingDecompressionThreshold,
+        flushCoalescingDelayNanos,
+        flushCoalescingThresholdBytes,
         keepAliveTimeInNanos, keepAliveTimeoutInNanos,
         maxConnectionIdleInNanos,
         maxConnectionAgeInNanos, maxConnectionAgeGraceInNanos,
         keepAliveEnforcer,
-        autoFlowControl);
+        autoFlowControl,
+        maxFlowControlWindow);
   }
 
   private NettyServerHandler(
@@ -256,14 +278,18 @@ class NettyServerHandler extends AbstractNettyHandler {
       Http2ConnectionEncoder encoder,
       Http2Settings settings,
       int maxMessageSize,
+      int streamingDecompressionThreshold,
+      long flushCoalescingDelayNanos,
+      int flushCoalescingThresholdBytes,
       long keepAliveTimeInNanos,
       long keepAliveTimeoutInNanos,
       long maxConnectionIdleInNanos,
       long maxConnectionAgeInNanos,
       long maxConnectionAgeGraceInNanos,
       final KeepAliveEnforcer keepAliveEnforcer,
-      boolean autoFlowControl) {
-    super(channelUnused, decoder, encoder, settings, autoFlowControl);
+      boolean autoFlowControl,
+      int maxFlowControlWindow) {
+    super(channelUnused, decoder, encoder, settings, autoFlowControl, maxFlowControlWindow);
 
     final MaxConnectionIdleManager maxConnectionIdleManager;
     if (maxConnectionIdleInNanos == MAX_CONNECTION_IDLE_NANOS_DISABLED) {
@@ -305,6 +331,9 @@ class NettyServerHandler extends AbstractNettyHandler {
 
     checkArgument(maxMessageSize >= 0, "maxMessageSize must be non-negative: %s", maxMessageSize);
     this.maxMessageSize = maxMessageSize;
+    this.streamingDecompressionThreshold = streamingDecompressionThreshold;
+    this.flushCoalescingDelayNanos = flushCoalescingDelayNanos;
+    this.flushCoalescingThresholdBytes = flushCoalescingThresholdBytes;
     this.keepAliveTimeInNanos = keepAliveTimeInNanos;
     this.keepAliveTimeoutInNanos = keepAliveTimeoutInNanos;
     this.maxConnectionIdleManager = maxConnectionIdleManager;
@@ -328,7 +357,8 @@ class NettyServerHandler extends AbstractNettyHandler {
 
   @Override
   public void handlerAdded(final ChannelHandlerContext ctx) throws Exception {
-    serverWriteQueue = new WriteQueue(ctx.channel());
+    serverWriteQueue = new WriteQueue(
+        ctx.channel(), flushCoalescingDelayNanos, flushCoalescingThresholdBytes);
 
     // init max connection age monitor
     if (maxConnectionAgeInNanos != MAX_CONNECTION_AGE_NANOS_DISABLED) {
@@ -442,6 +472,9 @@ class NettyServerHandler extends AbstractNettyHandler {
           statsTraceCtx,
           transportTracer,
           method);
+      if (streamingDecompressionThreshold != STREAMING_DECOMPRESSION_DISABLED) {
+        state.setStreamingDecompressionThreshold(streamingDecompressionThreshold);
+      }
 
       PerfMark.startTask("NettyServerHandler.onHeadersRead", state.tag());
       try {
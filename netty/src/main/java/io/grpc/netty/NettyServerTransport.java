@@ -22,6 +22,7 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
+import io.grpc.InternalChannelz.SocketOptions;
 import io.grpc.InternalChannelz.SocketStats;
 import io.grpc.InternalLogId;
 import io.grpc.ServerStreamTracer;
@@ -56,6 +57,13 @@ class NettyServerTransport implements ServerTransport {
   private static final ImmutableList<String> QUIET_EXCEPTIONS = ImmutableList.of(
       "NativeIoException" /* Netty exceptions */);
 
+  /**
+   * Name of the channelz socket option reporting the HTTP/2 stream flow control window the server
+   * currently advertises on the connection.
+   */
+  @VisibleForTesting
+  static final String FLOW_CONTROL_WINDOW_OPTION = "SETTINGS_INITIAL_WINDOW_SIZE";
+
   private final InternalLogId logId;
   private final Channel channel;
   private final ChannelPromise channelUnused;
@@ -67,7 +75,11 @@ class NettyServerTransport implements ServerTransport {
   private boolean terminated;
   private final boolean autoFlowControl;
   private final int flowControlWindow;
+  private final int maxFlowControlWindow;
   private final int maxMessageSize;
+  private final int streamingDecompressionThreshold;
+  private final long flushCoalescingDelayNanos;
+  private final int flushCoalescingThresholdBytes;
   private final int maxHeaderListSize;
   private final long keepAliveTimeInNanos;
   private final long keepAliveTimeoutInNanos;
@@ -88,7 +100,11 @@ class NettyServerTransport implements ServerTransport {
       int maxStreams,
       boolean autoFlowControl,
       int flowControlWindow,
+      int maxFlowControlWindow,
       int maxMessageSize,
+      int streamingDecompressionThreshold,
+      long flushCoalescingDelayNanos,
+      int flushCoalescingThresholdBytes,
       int maxHeaderListSize,
       long keepAliveTimeInNanos,
       long keepAliveTimeoutInNanos,
@@ -106,7 +122,11 @@ class NettyServerTransport implements ServerTransport {
     this.maxStreams = maxStreams;
     this.autoFlowControl = autoFlowControl;
     this.flowControlWindow = flowControlWindow;
+    this.maxFlowControlWindow = maxFlowControlWindow;
     this.maxMessageSize = maxMessageSize;
+    this.streamingDecompressionThreshold = streamingDecompressionThreshold;
+    this.flushCoalescingDelayNanos = flushCoalescingDelayNanos;
+    this.flushCoalescingThresholdBytes = flushCoalescingThresholdBytes;
     this.maxHeaderListSize = maxHeaderListSize;
     this.keepAliveTimeInNanos = keepAliveTimeInNanos;
     this.keepAliveTimeoutInNanos = keepAliveTimeoutInNanos;
@@ -234,11 +254,16 @@ class NettyServerTransport implements ServerTransport {
 
   private SocketStats getStatsHelper(Channel ch) {
     Preconditions.checkState(ch.eventLoop().inEventLoop());
+    SocketOptions.Builder options = Utils.getSocketOptionsBuilder(ch);
+    if (grpcHandler != null) {
+      // The window auto flow control tuning has settled on for this connection
+      options.addOption(FLOW_CONTROL_WINDOW_OPTION, grpcHandler.localFlowControlWindow());
+    }
     return new SocketStats(
         transportTracer.getStats(),
         channel.localAddress(),
         channel.remoteAddress(),
-        Utils.getSocketOptions(ch),
+        options.build(),
         grpcHandler == null ? null : grpcHandler.getSecurityInfo());
 
   }
@@ -264,8 +289,12 @@ class NettyServerTransport implements ServerTransport {
         maxStreams,
         autoFlowControl,
         flowControlWindow,
+        maxFlowControlWindow,
         maxHeaderListSize,
         maxMessageSize,
+        streamingDecompressionThreshold,
+        flushCoalescingDelayNanos,
+        flushCoalescingThresholdBytes,
         keepAliveTimeInNanos,
         keepAliveTimeoutInNanos,
         maxConnectionIdleInNanos,
@@ -16,9 +16,15 @@
 
 package io.grpc.netty;
 
+import io.grpc.internal.GrpcUtil;
+import io.grpc.internal.RetainedSliceAllocator;
 import io.grpc.internal.WritableBuffer;
-import io.grpc.internal.WritableBufferAllocator;
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.util.List;
 
 /**
  * The default allocator for {@link NettyWritableBuffer}s used by the Netty transport. We set a
@@ -30,8 +36,11 @@ import io.netty.buffer.ByteBufAllocator;
  *
  * <p>Note: It is assumed that most applications will be using Netty's direct buffer pools for
  * maximum performance.
+ *
+ * <p>Already-serialized messages are wrapped with {@link Unpooled#wrappedBuffer(ByteBuffer)}, so
+ * they reach the channel without being copied into pooled buffers.
  */
-class NettyWritableBufferAllocator implements WritableBufferAllocator {
+class NettyWritableBufferAllocator implements RetainedSliceAllocator {
 
   // Use 4k as our minimum buffer size.
   private static final int MIN_BUFFER = 4 * 1024;
@@ -50,4 +59,31 @@ class NettyWritableBufferAllocator implements WritableBufferAllocator {
     capacityHint = Math.min(MAX_BUFFER, Math.max(MIN_BUFFER, capacityHint));
     return new NettyWritableBuffer(allocator.buffer(capacityHint, capacityHint));
   }
+
+  @Override
+  public WritableBuffer wrapRetainedSlices(List<ByteBuffer> slices, Closeable owner) {
+    RetainedSlicesByteBuf buf = new RetainedSlicesByteBuf(allocator, slices.size(), owner);
+    for (ByteBuffer slice : slices) {
+      buf.addComponent(true, Unpooled.wrappedBuffer(slice));
+    }
+    return new NettyWritableBuffer(buf);
+  }
+
+  /**
+   * A {@link CompositeByteBuf} over retained slices, which closes their owner when deallocated.
+   */
+  private static final class RetainedSlicesByteBuf extends CompositeByteBuf {
+    private final Closeable owner;
+
+    RetainedSlicesByteBuf(ByteBufAllocator alloc, int maxNumComponents, Closeable owner) {
+      super(alloc, /* direct= */ false, Math.max(maxNumComponents, 1));
+      this.owner = owner;
+    }
+
+    @Override
+    protected void deallocate() {
+      super.deallocate();
+      GrpcUtil.closeQuietly(owner);
+    }
+  }
 }
@@ -197,15 +197,18 @@ final class ProtocolNegotiators {
               "Failed protocol negotiation: Unable to find compatible protocol"));
           return;
         }
+        SSLSession session = sslHandler.engine().getSession();
+        boolean resumed = TlsSessionTracker.recordHandshake(sslContext.sessionContext(), session);
         ctx.pipeline().replace(ctx.name(), null, next);
-        fireProtocolNegotiationEvent(ctx, sslHandler.engine().getSession());
+        fireProtocolNegotiationEvent(ctx, session, resumed);
       } else {
         super.userEventTriggered(ctx, evt);
       }
     }
 
-    private void fireProtocolNegotiationEvent(ChannelHandlerContext ctx, SSLSession session) {
-      Security security = new Security(new Tls(session));
+    private void fireProtocolNegotiationEvent(
+        ChannelHandlerContext ctx, SSLSession session, boolean resumed) {
+      Security security = new Security(new Tls(session, resumed));
       Attributes attrs = pne.getAttributes().toBuilder()
           .set(GrpcAttributes.ATTR_SECURITY_LEVEL, SecurityLevel.PRIVACY_AND_INTEGRITY)
           .set(Grpc.TRANSPORT_ATTR_SSL_SESSION, session)
@@ -294,7 +297,23 @@ final class ProtocolNegotiators {
 
     public ClientTlsProtocolNegotiator(SslContext sslContext,
         ObjectPool<? extends Executor> executorPool) {
+      this(sslContext, null, executorPool);
+    }
+
+    /**
+     * Creates a negotiator using a context taken from {@code sslContextPool}, which is returned on
+     * {@link #close}.
+     */
+    ClientTlsProtocolNegotiator(ObjectPool<SslContext> sslContextPool,
+        ObjectPool<? extends Executor> executorPool) {
+      this(sslContextPool.getObject(), sslContextPool, executorPool);
+    }
+
+    private ClientTlsProtocolNegotiator(SslContext sslContext,
+        @Nullable ObjectPool<SslContext> sslContextPool,
+        ObjectPool<? extends Executor> executorPool) {
       this.sslContext = checkNotNull(sslContext, "sslContext");
+      this.sslContextPool = sslContextPool;
       this.executorPool = executorPool;
       if (this.executorPool != null) {
         this.executor = this.executorPool.getObject();
@@ -302,6 +321,8 @@ final class ProtocolNegotiators {
     }
 
     private final SslContext sslContext;
+    @Nullable
+    private final ObjectPool<SslContext> sslContextPool;
     private final ObjectPool<? extends Executor> executorPool;
     private Executor executor;
 
@@ -323,6 +344,9 @@ final class ProtocolNegotiators {
       if (this.executorPool != null && this.executor != null) {
         this.executorPool.returnObject(this.executor);
       }
+      if (this.sslContextPool != null) {
+        this.sslContextPool.returnObject(this.sslContext);
+      }
     }
   }
 
@@ -364,7 +388,12 @@ final class ProtocolNegotiators {
               .contains(handler.applicationProtocol())) {
             // Successfully negotiated the protocol.
             logSslEngineDetails(Level.FINER, ctx, "TLS negotiation succeeded.", null);
-            propagateTlsComplete(ctx, handler.engine().getSession());
+            SSLSession session = handler.engine().getSession();
+            boolean resumed =
+                TlsSessionTracker.recordHandshake(sslContext.sessionContext(), session);
+            negotiationLogger(ctx).log(
+                ChannelLogLevel.INFO, resumed ? "TLS session resumed" : "Full TLS handshake");
+            propagateTlsComplete(ctx, session, resumed);
           } else {
             Exception ex =
                 unavailableException("Failed ALPN negotiation: Unable to find compatible protocol");
@@ -379,8 +408,9 @@ final class ProtocolNegotiators {
       }
     }
 
-    private void propagateTlsComplete(ChannelHandlerContext ctx, SSLSession session) {
-      Security security = new Security(new Tls(session));
+    private void propagateTlsComplete(
+        ChannelHandlerContext ctx, SSLSession session, boolean resumed) {
+      Security security = new Security(new Tls(session, resumed));
       ProtocolNegotiationEvent existingPne = getProtocolNegotiationEvent();
       Attributes attrs = existingPne.getAttributes().toBuilder()
           .set(GrpcAttributes.ATTR_SECURITY_LEVEL, SecurityLevel.PRIVACY_AND_INTEGRITY)
@@ -434,6 +464,15 @@ final class ProtocolNegotiators {
     return tls(sslContext, null);
   }
 
+  /**
+   * Returns a TLS {@link ProtocolNegotiator} like {@link #tls(SslContext, ObjectPool)}, using a
+   * context taken from {@code sslContextPool} that is returned when the negotiator is closed.
+   */
+  static ProtocolNegotiator tls(ObjectPool<SslContext> sslContextPool,
+      ObjectPool<? extends Executor> executorPool) {
+    return new ClientTlsProtocolNegotiator(sslContextPool, executorPool);
+  }
+
   /** A tuple of (host, port). */
   @VisibleForTesting
   static final class HostPort {
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.netty;
+
+import io.grpc.ExperimentalApi;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the TLS handshakes of the Netty clients and servers in this process, by whether they
+ * resumed an earlier session or did a full handshake. Whether a single connection resumed a
+ * session is reported by channelz.
+ *
+ * <p>Resumptions are recognized as well as the TLS provider allows. OpenSSL ones are recognized
+ * however the session was resumed. Of JDK ones, only those by session ID are recognized, so
+ * resumptions from tickets, which include all TLS 1.3 ones, count as full handshakes.
+ */
+@ExperimentalApi("https://github.com/grpc/grpc-java/issues/1784")
+public final class TlsHandshakeStats {
+  private static final AtomicLong resumedHandshakes = new AtomicLong();
+  private static final AtomicLong fullHandshakes = new AtomicLong();
+
+  private TlsHandshakeStats() {}
+
+  /**
+   * Returns the number of successful handshakes that resumed an earlier session.
+   */
+  public static long getResumedHandshakes() {
+    return resumedHandshakes.get();
+  }
+
+  /**
+   * Returns the number of successful handshakes that created a new session.
+   */
+  public static long getFullHandshakes() {
+    return fullHandshakes.get();
+  }
+
+  static void recordHandshake(boolean resumed) {
+    if (resumed) {
+      resumedHandshakes.incrementAndGet();
+    } else {
+      fullHandshakes.incrementAndGet();
+    }
+  }
+}
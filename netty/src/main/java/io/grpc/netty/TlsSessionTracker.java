@@ -0,0 +1,126 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.netty;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.netty.handler.ssl.OpenSslSessionContext;
+import io.netty.handler.ssl.OpenSslSessionStats;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import javax.annotation.concurrent.GuardedBy;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSessionContext;
+
+/**
+ * Tells whether a TLS handshake resumed an earlier session, and counts the handshakes in {@link
+ * TlsHandshakeStats}.
+ *
+ * <p>OpenSSL counts the sessions it resumes, whether by ID, by ticket or, with TLS 1.3, by
+ * pre-shared key, so a handshake with an OpenSSL context resumed a session if the count went up
+ * since the previous handshake. Handshakes that finish at the same time may take each other's
+ * resumption, but every resumption is counted once.
+ *
+ * <p>The JDK offers no such count. A session it resumes by ID keeps that ID, while a full
+ * handshake establishes a new one, so a handshake resumed a session if an earlier handshake with
+ * the same {@link SSLSessionContext} saw its ID. Sessions resumed from tickets, including all TLS
+ * 1.3 resumptions, come with a fresh ID and count as full handshakes.
+ */
+final class TlsSessionTracker {
+  // Sessions older than this many handshakes have most likely left the session cache anyway.
+  private static final int MAX_SESSION_IDS = 1024;
+
+  @GuardedBy("trackers")
+  private static final Map<SSLSessionContext, TlsSessionTracker> trackers =
+      new WeakHashMap<>();
+
+  @GuardedBy("this")
+  private final Set<ByteBuffer> sessionIds = Collections.newSetFromMap(
+      new LinkedHashMap<ByteBuffer, Boolean>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ByteBuffer, Boolean> eldest) {
+          return size() > MAX_SESSION_IDS;
+        }
+      });
+  @GuardedBy("this")
+  private long countedResumptions;
+
+  private TlsSessionTracker() {}
+
+  /**
+   * Records the handshake that established {@code session}, and returns whether it resumed a
+   * session of an earlier handshake with {@code context}.
+   */
+  static boolean recordHandshake(SSLSessionContext context, SSLSession session) {
+    boolean resumed;
+    if (context instanceof OpenSslSessionContext) {
+      resumed = recordResumptions(context, resumptions(((OpenSslSessionContext) context).stats()));
+    } else {
+      resumed = recordSessionId(context, session);
+    }
+    TlsHandshakeStats.recordHandshake(resumed);
+    return resumed;
+  }
+
+  /**
+   * Returns the number of sessions resumed by the context of {@code stats}. OpenSSL counts sessions
+   * resumed from tickets among its hits, while BoringSSL keeps no hits at all, leaving only the
+   * resumptions from the tickets encrypted with keys set by {@link GrpcSslContexts#setTicketKeys}.
+   */
+  private static long resumptions(OpenSslSessionStats stats) {
+    return Math.max(stats.hits(), stats.ticketKeyResume() + stats.ticketKeyRenew());
+  }
+
+  @VisibleForTesting
+  static boolean recordResumptions(SSLSessionContext context, long resumptions) {
+    return tracker(context).countResumption(resumptions);
+  }
+
+  private static boolean recordSessionId(SSLSessionContext context, SSLSession session) {
+    byte[] id = session.getId();
+    if (id == null || id.length == 0) {
+      return false;
+    }
+    return tracker(context).addSessionId(ByteBuffer.wrap(id.clone()));
+  }
+
+  private static TlsSessionTracker tracker(SSLSessionContext context) {
+    synchronized (trackers) {
+      TlsSessionTracker tracker = trackers.get(context);
+      if (tracker == null) {
+        tracker = new TlsSessionTracker();
+        trackers.put(context, tracker);
+      }
+      return tracker;
+    }
+  }
+
+  private synchronized boolean countResumption(long resumptions) {
+    if (resumptions > countedResumptions) {
+      countedResumptions++;
+      return true;
+    }
+    return false;
+  }
+
+  private synchronized boolean addSessionId(ByteBuffer id) {
+    return !sessionIds.add(id);
+  }
+}
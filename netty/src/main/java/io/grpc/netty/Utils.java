@@ -84,9 +84,21 @@ class Utils {
       = new DefaultEventLoopGroupResource(1, "grpc-nio-boss-ELG", EventLoopGroupType.NIO);
   public static final Resource<EventLoopGroup> NIO_WORKER_EVENT_LOOP_GROUP
       = new DefaultEventLoopGroupResource(0, "grpc-nio-worker-ELG", EventLoopGroupType.NIO);
+  public static final Resource<EventLoopGroup> IO_URING_BOSS_EVENT_LOOP_GROUP
+      = new DefaultEventLoopGroupResource(1, "grpc-io_uring-boss-ELG", EventLoopGroupType.IO_URING);
+  public static final Resource<EventLoopGroup> IO_URING_WORKER_EVENT_LOOP_GROUP
+      = new DefaultEventLoopGroupResource(
+          0, "grpc-io_uring-worker-ELG", EventLoopGroupType.IO_URING);
   public static final Resource<EventLoopGroup> DEFAULT_BOSS_EVENT_LOOP_GROUP;
   public static final Resource<EventLoopGroup> DEFAULT_WORKER_EVENT_LOOP_GROUP;
 
+  /**
+   * If set to true, the default channel types and event loop groups use io_uring instead of epoll
+   * when the netty io_uring transport is available.
+   */
+  private static final String USE_IO_URING_PROPERTY = "io.grpc.netty.useIoUring";
+  private static final String IO_URING_PACKAGE = "io.netty.incubator.channel.uring.";
+
   // This class is initialized on first use, thus provides delayed allocator creation.
   private static final class ByteBufAllocatorPreferDirectHolder {
     private static final ByteBufAllocator allocator = createByteBufAllocator(true);
@@ -98,28 +110,41 @@ class Utils {
   }
 
   public static final ChannelFactory<? extends ServerChannel> DEFAULT_SERVER_CHANNEL_FACTORY;
+  // The type of channel DEFAULT_SERVER_CHANNEL_FACTORY creates.
+  static final Class<? extends ServerChannel> DEFAULT_SERVER_CHANNEL_TYPE;
   public static final Class<? extends Channel> DEFAULT_CLIENT_CHANNEL_TYPE;
 
   @Nullable
   private static final Constructor<? extends EventLoopGroup> EPOLL_EVENT_LOOP_GROUP_CONSTRUCTOR;
 
   static {
-    // Decide default channel types and EventLoopGroup based on Epoll availability
-    if (isEpollAvailable()) {
+    boolean epollAvailable = isEpollAvailable();
+    EPOLL_EVENT_LOOP_GROUP_CONSTRUCTOR = epollAvailable ? epollEventLoopGroupConstructor() : null;
+    // Decide default channel types and EventLoopGroup based on io_uring and Epoll availability.
+    // io_uring is only probed when opted into, so that its classes are never loaded otherwise.
+    if (Boolean.getBoolean(USE_IO_URING_PROPERTY) && isIoUringAvailable()) {
+      DEFAULT_CLIENT_CHANNEL_TYPE =
+          loadIoUringClass("IOUringSocketChannel").asSubclass(Channel.class);
+      DEFAULT_SERVER_CHANNEL_TYPE =
+          loadIoUringClass("IOUringServerSocketChannel").asSubclass(ServerChannel.class);
+      DEFAULT_SERVER_CHANNEL_FACTORY = new ReflectiveChannelFactory<>(DEFAULT_SERVER_CHANNEL_TYPE);
+      DEFAULT_BOSS_EVENT_LOOP_GROUP = IO_URING_BOSS_EVENT_LOOP_GROUP;
+      DEFAULT_WORKER_EVENT_LOOP_GROUP = IO_URING_WORKER_EVENT_LOOP_GROUP;
+    } else if (epollAvailable) {
       DEFAULT_CLIENT_CHANNEL_TYPE = epollChannelType();
-      DEFAULT_SERVER_CHANNEL_FACTORY = new ReflectiveChannelFactory<>(epollServerChannelType());
-      EPOLL_EVENT_LOOP_GROUP_CONSTRUCTOR = epollEventLoopGroupConstructor();
+      DEFAULT_SERVER_CHANNEL_TYPE = epollServerChannelType();
+      DEFAULT_SERVER_CHANNEL_FACTORY = new ReflectiveChannelFactory<>(DEFAULT_SERVER_CHANNEL_TYPE);
       DEFAULT_BOSS_EVENT_LOOP_GROUP
         = new DefaultEventLoopGroupResource(1, "grpc-default-boss-ELG", EventLoopGroupType.EPOLL);
       DEFAULT_WORKER_EVENT_LOOP_GROUP
         = new DefaultEventLoopGroupResource(0,"grpc-default-worker-ELG", EventLoopGroupType.EPOLL);
     } else {
       logger.log(Level.FINE, "Epoll is not available, using Nio.", getEpollUnavailabilityCause());
+      DEFAULT_SERVER_CHANNEL_TYPE = NioServerSocketChannel.class;
       DEFAULT_SERVER_CHANNEL_FACTORY = nioServerChannelFactory();
       DEFAULT_CLIENT_CHANNEL_TYPE = NioSocketChannel.class;
       DEFAULT_BOSS_EVENT_LOOP_GROUP = NIO_BOSS_EVENT_LOOP_GROUP;
       DEFAULT_WORKER_EVENT_LOOP_GROUP = NIO_WORKER_EVENT_LOOP_GROUP;
-      EPOLL_EVENT_LOOP_GROUP_CONSTRUCTOR = null;
     }
   }
 
@@ -345,6 +370,56 @@ class Utils {
     }
   }
 
+  @VisibleForTesting
+  static boolean isIoUringAvailable() {
+    try {
+      return (boolean) (Boolean)
+          Class
+              .forName(IO_URING_PACKAGE + "IOUring")
+              .getDeclaredMethod("isAvailable")
+              .invoke(null);
+    } catch (ClassNotFoundException e) {
+      // this is normal if the netty io_uring runtime dependency doesn't exist.
+      return false;
+    } catch (Exception | LinkageError e) {
+      // A broken or mismatched io_uring jar shouldn't keep Netty from falling back to epoll or nio.
+      logger.log(Level.WARNING, "Exception while checking io_uring availability", e);
+      return false;
+    }
+  }
+
+  // Must call when io_uring is available
+  private static Class<?> loadIoUringClass(String simpleName) {
+    try {
+      return Class.forName(IO_URING_PACKAGE + simpleName);
+    } catch (ClassNotFoundException e) {
+      throw new RuntimeException("Cannot load " + simpleName, e);
+    }
+  }
+
+  // Must call when io_uring is available
+  private static Constructor<? extends EventLoopGroup> ioUringEventLoopGroupConstructor() {
+    try {
+      return loadIoUringClass("IOUringEventLoopGroup").asSubclass(EventLoopGroup.class)
+          .getConstructor(Integer.TYPE, ThreadFactory.class);
+    } catch (NoSuchMethodException e) {
+      throw new RuntimeException("IOUringEventLoopGroup constructor not found", e);
+    }
+  }
+
+  private static EventLoopGroup createIoUringEventLoopGroup(
+      int parallelism,
+      ThreadFactory threadFactory) {
+    checkState(isIoUringAvailable(), "io_uring is not available");
+
+    try {
+      return ioUringEventLoopGroupConstructor()
+          .newInstance(parallelism, threadFactory);
+    } catch (Exception e) {
+      throw new RuntimeException("Cannot create io_uring EventLoopGroup", e);
+    }
+  }
+
   private static EventLoopGroup createEpollEventLoopGroup(
       int parallelism,
       ThreadFactory threadFactory) {
@@ -376,6 +451,21 @@ class Utils {
     return getEpollChannelOption("TCP_USER_TIMEOUT");
   }
 
+  /**
+   * Returns SO_REUSEPORT channel option for Epoll channel if Epoll is available, otherwise null.
+   */
+  @Nullable
+  static ChannelOption<Boolean> maybeGetSoReusePortOption() {
+    return getEpollChannelOption("SO_REUSEPORT");
+  }
+
+  /**
+   * Returns true if Epoll is available and {@code channelType} is an Epoll server channel.
+   */
+  static boolean isEpollServerChannelType(Class<? extends ServerChannel> channelType) {
+    return isEpollAvailable() && epollServerChannelType().isAssignableFrom(channelType);
+  }
+
   @Nullable
   @SuppressWarnings("unchecked")
   private static <T> ChannelOption<T> getEpollChannelOption(String optionName) {
@@ -422,6 +512,8 @@ class Utils {
           return new NioEventLoopGroup(numEventLoops, threadFactory);
         case EPOLL:
           return createEpollEventLoopGroup(numEventLoops, threadFactory);
+        case IO_URING:
+          return createIoUringEventLoopGroup(numEventLoops, threadFactory);
         default:
           throw new AssertionError("Unknown/Unsupported EventLoopGroupType: " + eventLoopGroupType);
       }
@@ -439,6 +531,14 @@ class Utils {
   }
 
   static InternalChannelz.SocketOptions getSocketOptions(Channel channel) {
+    return getSocketOptionsBuilder(channel).build();
+  }
+
+  /**
+   * Returns a builder prepopulated with the options of {@code channel}, for callers that report
+   * additional transport-level settings alongside them.
+   */
+  static InternalChannelz.SocketOptions.Builder getSocketOptionsBuilder(Channel channel) {
     ChannelConfig config = channel.config();
     InternalChannelz.SocketOptions.Builder b = new InternalChannelz.SocketOptions.Builder();
 
@@ -474,12 +574,13 @@ class Utils {
         b.addOption(entry.getKey(), entry.getValue());
       }
     }
-    return b.build();
+    return b;
   }
 
   private enum EventLoopGroupType {
     NIO,
-    EPOLL
+    EPOLL,
+    IO_URING
   }
 
   private Utils() {
@@ -26,6 +26,8 @@ import io.perfmark.Link;
 import io.perfmark.PerfMark;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -37,23 +39,64 @@ class WriteQueue {
   @VisibleForTesting
   static final int DEQUE_CHUNK_SIZE = 128;
 
+  static final long COALESCING_DISABLED = 0;
+
+  // Average number of commands per drain at which flushes start being held back. A unary response
+  // alone is about three commands; below a few calls' worth holding flushes would mostly add
+  // latency.
+  @VisibleForTesting
+  static final int MIN_COALESCING_BATCH = 8;
+  private static final double BATCH_DECAY = 0.8;
+
   /**
    * {@link Runnable} used to schedule work onto the tail of the event loop.
    */
   private final Runnable later = new Runnable() {
     @Override
     public void run() {
-      flush();
+      flush(true);
+    }
+  };
+
+  /**
+   * {@link Runnable} flushing writes that were held back for coalescing.
+   */
+  private final Runnable delayedFlush = new Runnable() {
+    @Override
+    public void run() {
+      pendingFlush = null;
+      flushChannel();
     }
   };
 
   private final Channel channel;
   private final Queue<QueuedCommand> queue;
   private final AtomicBoolean scheduled = new AtomicBoolean();
+  private final long maxFlushDelayNanos;
+  private final int flushThresholdBytes;
+
+  // Only accessed from the event loop.
+  private double averageBatch;
+  private int unflushedBytes;
+  private ScheduledFuture<?> pendingFlush;
 
   public WriteQueue(Channel channel) {
+    this(channel, COALESCING_DISABLED, 0);
+  }
+
+  /**
+   * Creates a queue that, while writes arrive concurrently enough to be batched, holds flushes
+   * back for up to {@code maxFlushDelayNanos} or until {@code flushThresholdBytes} of message
+   * data are written, so that more writes share each flush.
+   *
+   * @param maxFlushDelayNanos longest time to hold a flush, or {@link #COALESCING_DISABLED}
+   */
+  public WriteQueue(Channel channel, long maxFlushDelayNanos, int flushThresholdBytes) {
     this.channel = Preconditions.checkNotNull(channel, "channel");
+    Preconditions.checkArgument(maxFlushDelayNanos >= 0, "maxFlushDelayNanos must be >= 0");
     queue = new ConcurrentLinkedQueue<>();
+    this.maxFlushDelayNanos = maxFlushDelayNanos;
+    this.flushThresholdBytes = flushThresholdBytes;
   }
 
   /**
@@ -111,21 +154,27 @@ class WriteQueue {
     if (queue.peek() == null) {
       return;
     }
-    flush();
+    // The caller wants the writes sent out before it continues.
+    flush(false);
   }
 
   /**
    * Process the queue of commands and dispatch them to the stream. This method is only
    * called in the event loop
    */
-  private void flush() {
+  private void flush(boolean mayCoalesce) {
     PerfMark.startTask("WriteQueue.periodicFlush");
     try {
       QueuedCommand cmd;
       int i = 0;
+      int commands = 0;
       boolean flushedOnce = false;
       while ((cmd = queue.poll()) != null) {
+        if (cmd instanceof SendGrpcFrameCommand) {
+          unflushedBytes += ((SendGrpcFrameCommand) cmd).content().readableBytes();
+        }
         cmd.run(channel);
+        commands++;
         if (++i == DEQUE_CHUNK_SIZE) {
           i = 0;
           // Flush each chunk so we are releasing buffers periodically. In theory this loop
@@ -133,20 +182,27 @@ class WriteQueue {
           // flushed in that case we would be guaranteed to OOM.
           PerfMark.startTask("WriteQueue.flush0");
           try {
-            channel.flush();
+            flushChannel();
           } finally {
             PerfMark.stopTask("WriteQueue.flush0");
           }
           flushedOnce = true;
         }
       }
-      // Must flush at least once, even if there were no writes.
+      // Must flush at least once, even if there were no writes. A held flush counts.
       if (i != 0 || !flushedOnce) {
-        PerfMark.startTask("WriteQueue.flush1");
-        try {
-          channel.flush();
-        } finally {
-          PerfMark.stopTask("WriteQueue.flush1");
+        if (mayCoalesce && shouldHoldFlush(commands)) {
+          if (pendingFlush == null) {
+            pendingFlush = channel.eventLoop()
+                .schedule(delayedFlush, maxFlushDelayNanos, TimeUnit.NANOSECONDS);
+          }
+        } else {
+          PerfMark.startTask("WriteQueue.flush1");
+          try {
+            flushChannel();
+          } finally {
+            PerfMark.stopTask("WriteQueue.flush1");
+          }
         }
       }
     } finally {
@@ -159,6 +215,27 @@ class WriteQueue {
     }
   }
 
+  /**
+   * Returns whether to hold back the flush of the writes just made, updating the observed
+   * number of {@code commands} per drain.
+   */
+  private boolean shouldHoldFlush(int commands) {
+    if (maxFlushDelayNanos == COALESCING_DISABLED) {
+      return false;
+    }
+    averageBatch = averageBatch * BATCH_DECAY + commands * (1 - BATCH_DECAY);
+    return averageBatch >= MIN_COALESCING_BATCH && unflushedBytes < flushThresholdBytes;
+  }
+
+  private void flushChannel() {
+    if (pendingFlush != null) {
+      pendingFlush.cancel(false);
+      pendingFlush = null;
+    }
+    unflushedBytes = 0;
+    channel.flush();
+  }
+
   private static class RunnableCommand implements QueuedCommand {
     private final Runnable runnable;
     private final Link link;
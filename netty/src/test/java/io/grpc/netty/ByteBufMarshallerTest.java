@@ -0,0 +1,139 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.netty;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+
+import io.grpc.Drainable;
+import io.grpc.internal.CompositeReadableBuffer;
+import io.grpc.internal.MessageFramer;
+import io.grpc.internal.ReadableBuffers;
+import io.grpc.internal.StatsTraceContext;
+import io.grpc.internal.WritableBuffer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Tests for {@link ByteBufMarshaller}.
+ */
+@RunWith(JUnit4.class)
+public class ByteBufMarshallerTest {
+  private final ByteBufMarshaller marshaller = new ByteBufMarshaller();
+
+  @Test
+  public void parse_wrapsTransportBuffersWithoutCopying() throws Exception {
+    ByteBuf first = Unpooled.copiedBuffer("hello ", UTF_8);
+    ByteBuf second = Unpooled.copiedBuffer("world", UTF_8);
+    CompositeReadableBuffer frame = new CompositeReadableBuffer();
+    frame.addBuffer(new NettyReadableBuffer(first));
+    frame.addBuffer(new NettyReadableBuffer(second));
+    InputStream stream = ReadableBuffers.openStream(frame, true);
+
+    ByteBuf message = marshaller.parse(stream);
+    // gRPC closes the stream once parse() returns
+    stream.close();
+    assertEquals(1, first.refCnt());
+    assertEquals(1, second.refCnt());
+    assertEquals("hello world", message.toString(UTF_8));
+
+    // The application shares the transport's buffers
+    second.setByte(0, 'W');
+    assertEquals("hello World", message.toString(UTF_8));
+
+    message.release();
+    assertEquals(0, first.refCnt());
+    assertEquals(0, second.refCnt());
+  }
+
+  @Test
+  public void parse_copiesOtherStreams() {
+    ByteBuf message = marshaller.parse(new ByteArrayInputStream("hello".getBytes(UTF_8)));
+    assertEquals("hello", message.toString(UTF_8));
+    message.release();
+  }
+
+  @Test
+  public void forwardsLargeMessageWithoutCopying() throws Exception {
+    ByteBuf first = Unpooled.directBuffer(32 * 1024).writeZero(32 * 1024);
+    ByteBuf second = Unpooled.directBuffer(32 * 1024).writeZero(32 * 1024);
+    CompositeReadableBuffer frame = new CompositeReadableBuffer();
+    frame.addBuffer(new NettyReadableBuffer(first));
+    frame.addBuffer(new NettyReadableBuffer(second));
+    InputStream inbound = ReadableBuffers.openStream(frame, true);
+    ByteBuf message = marshaller.parse(inbound);
+    inbound.close();
+
+    final List<WritableBuffer> frames = new ArrayList<>();
+    MessageFramer framer = new MessageFramer(
+        new MessageFramer.Sink() {
+          @Override
+          public void deliverFrame(
+              @Nullable WritableBuffer frame, boolean endOfStream, boolean flush,
+              int numMessages) {
+            if (frame != null) {
+              frames.add(frame);
+            }
+          }
+        },
+        new NettyWritableBufferAllocator(ByteBufAllocator.DEFAULT),
+        StatsTraceContext.NOOP);
+    framer.writePayload(marshaller.stream(message));
+    framer.flush();
+    assertEquals(2, frames.size());
+    assertEquals(5, frames.get(0).readableBytes());
+    assertEquals(64 * 1024, frames.get(1).readableBytes());
+
+    // The outbound frame shares the inbound buffers, which are released once it is written
+    first.setByte(0, 1);
+    second.setByte(0, 2);
+    ByteBuf outbound = ((NettyWritableBuffer) frames.get(1)).bytebuf();
+    assertEquals(1, outbound.getByte(0));
+    assertEquals(2, outbound.getByte(32 * 1024));
+    assertEquals(1, first.refCnt());
+    for (WritableBuffer written : frames) {
+      written.release();
+    }
+    assertEquals(0, first.refCnt());
+    assertEquals(0, second.refCnt());
+  }
+
+  @Test
+  public void stream_releasesBufferWhenClosed() throws Exception {
+    ByteBuf buf = Unpooled.copiedBuffer("hello", UTF_8);
+    InputStream stream = marshaller.stream(buf);
+    assertEquals(5, stream.available());
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    assertEquals(5, ((Drainable) stream).drainTo(out));
+    assertEquals("hello", new String(out.toByteArray(), UTF_8));
+    assertEquals(1, buf.refCnt());
+
+    stream.close();
+    assertEquals(0, buf.refCnt());
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.netty;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.common.collect.ImmutableMap;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.MethodDescriptor;
+import io.grpc.internal.NoopClientCall;
+import io.grpc.testing.TestMethodDescriptors;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link CallPriority}. */
+@RunWith(JUnit4.class)
+public class CallPriorityTest {
+  private final MethodDescriptor<Void, Void> method = TestMethodDescriptors.voidMethod();
+  private final RecordingChannel channel = new RecordingChannel();
+
+  @Test
+  public void forMethods_appliesPriorityOfListedMethod() {
+    ClientInterceptor interceptor =
+        CallPriority.forMethods(ImmutableMap.of(method.getFullMethodName(), CallPriority.HIGH));
+
+    interceptor.interceptCall(method, CallOptions.DEFAULT, channel);
+
+    assertEquals(CallPriority.HIGH, channel.callOptions.getOption(CallPriority.CALL_OPTION));
+  }
+
+  @Test
+  public void forMethods_leavesOtherMethodsAlone() {
+    ClientInterceptor interceptor =
+        CallPriority.forMethods(ImmutableMap.of("other/method", CallPriority.HIGH));
+
+    interceptor.interceptCall(method, CallOptions.DEFAULT, channel);
+
+    assertEquals(CallPriority.NORMAL, channel.callOptions.getOption(CallPriority.CALL_OPTION));
+  }
+
+  @Test
+  public void forMethods_keepsPrioritySetByCall() {
+    ClientInterceptor interceptor =
+        CallPriority.forMethods(ImmutableMap.of(method.getFullMethodName(), CallPriority.HIGH));
+
+    interceptor.interceptCall(
+        method, CallOptions.DEFAULT.withOption(CallPriority.CALL_OPTION, CallPriority.LOW),
+        channel);
+
+    assertEquals(CallPriority.LOW, channel.callOptions.getOption(CallPriority.CALL_OPTION));
+  }
+
+  private static final class RecordingChannel extends Channel {
+    CallOptions callOptions;
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> newCall(
+        MethodDescriptor<ReqT, RespT> method, CallOptions callOptions) {
+      this.callOptions = callOptions;
+      return new NoopClientCall<>();
+    }
+
+    @Override
+    public String authority() {
+      return "localhost";
+    }
+  }
+}
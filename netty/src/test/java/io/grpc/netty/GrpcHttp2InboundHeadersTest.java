@@ -16,12 +16,15 @@
 
 package io.grpc.netty;
 
+import static com.google.common.base.Charsets.US_ASCII;
 import static io.grpc.InternalMetadata.BASE64_ENCODING_OMIT_PADDING;
 import static io.netty.util.AsciiString.of;
 import static junit.framework.TestCase.assertNotSame;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
+import io.grpc.InternalMetadata;
 import io.grpc.netty.GrpcHttp2HeadersUtils.GrpcHttp2InboundHeaders;
 import io.grpc.netty.GrpcHttp2HeadersUtils.GrpcHttp2RequestHeaders;
 import io.grpc.netty.GrpcHttp2HeadersUtils.GrpcHttp2ResponseHeaders;
@@ -80,4 +83,18 @@ public class GrpcHttp2InboundHeadersTest {
     assertArrayEquals(data, namesAndValues[1]);
   }
 
+  @Test
+  public void wellKnownNamesAreCanonicalArrays() {
+    Http2Headers headers = new GrpcHttp2RequestHeaders(1);
+    // Sliced out of a larger array, as when decoded from a header block.
+    AsciiString block = of("xxgrpc-encodingfoo");
+    headers.add(block.subSequence(2, 15, false), of("gzip"));
+    headers.add(block.subSequence(15, 18, false), of("bar"));
+
+    byte[][] namesAndValues = ((GrpcHttp2InboundHeaders) headers).namesAndValues();
+
+    int index = InternalMetadata.wellKnownNameIndex("grpc-encoding".getBytes(US_ASCII));
+    assertSame(InternalMetadata.wellKnownName(index), namesAndValues[0]);
+    assertArrayEquals("foo".getBytes(US_ASCII), namesAndValues[2]);
+  }
 }
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.netty;
+
+import static com.google.common.truth.TruthJUnit.assume;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import io.grpc.internal.ObjectPool;
+import io.grpc.internal.SharedResourcePool;
+import io.grpc.internal.testing.TestUtils;
+import io.netty.handler.ssl.OpenSsl;
+import io.netty.handler.ssl.OpenSslSessionTicketKey;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslProvider;
+import java.io.File;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link GrpcSslContexts}. */
+@RunWith(JUnit4.class)
+public class GrpcSslContextsTest {
+  private static final OpenSslSessionTicketKey TICKET_KEY =
+      new OpenSslSessionTicketKey(new byte[16], new byte[16], new byte[16]);
+
+  @Test
+  public void sharedClientContext_sharedByAllUsers() {
+    ObjectPool<SslContext> pool =
+        SharedResourcePool.forResource(GrpcSslContexts.SHARED_CLIENT_CONTEXT);
+    SslContext first = pool.getObject();
+    SslContext second = pool.getObject();
+    try {
+      assertSame(first, second);
+      assertTrue(first.isClient());
+    } finally {
+      pool.returnObject(first);
+      pool.returnObject(second);
+    }
+  }
+
+  @Test
+  public void setTicketKeys_openSslServerContext() throws Exception {
+    assume().that(OpenSsl.isAvailable()).isTrue();
+    SslContext serverContext = GrpcSslContexts.configure(
+        SslContextBuilder.forServer(
+            TestUtils.loadCert("server1.pem"), TestUtils.loadCert("server1.key")),
+        SslProvider.OPENSSL).build();
+
+    GrpcSslContexts.setTicketKeys(serverContext, TICKET_KEY);
+  }
+
+  @Test
+  public void setTicketKeys_failsForJdkServerContext() throws Exception {
+    File serverCert = TestUtils.loadCert("server1.pem");
+    File serverKey = TestUtils.loadCert("server1.key");
+    SslContext serverContext =
+        SslContextBuilder.forServer(serverCert, serverKey).sslProvider(SslProvider.JDK).build();
+
+    try {
+      GrpcSslContexts.setTicketKeys(serverContext, TICKET_KEY);
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException expected) {
+      assertFalse(serverContext.isClient());
+    }
+  }
+
+  @Test
+  public void setTicketKeys_failsForClientContext() throws Exception {
+    SslContext clientContext = GrpcSslContexts.forClient().build();
+
+    try {
+      GrpcSslContexts.setTicketKeys(clientContext, TICKET_KEY);
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException expected) {
+      // expected
+    }
+  }
+}
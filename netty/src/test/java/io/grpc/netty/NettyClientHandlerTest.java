@@ -29,6 +29,7 @@ import static io.grpc.netty.Utils.STATUS_OK;
 import static io.grpc.netty.Utils.TE_HEADER;
 import static io.grpc.netty.Utils.TE_TRAILERS;
 import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_PRIORITY_WEIGHT;
+import static io.netty.handler.codec.http2.Http2CodecUtil.MAX_WEIGHT;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -214,6 +215,15 @@ public class NettyClientHandlerTest extends NettyHandlerTestBase<NettyClientHand
         eq(DEFAULT_PRIORITY_WEIGHT), eq(false), eq(0), eq(false), any(ChannelPromise.class));
   }
 
+  @Test
+  public void createStreamShouldSendCallPriorityAsWeight() throws Exception {
+    enqueue(new CreateStreamCommand(
+        grpcHeaders, streamTransportState, true, false, CallPriority.HIGH.weight()));
+
+    verifyWrite().writeHeaders(eq(ctx()), eq(3), eq(grpcHeaders), eq(0),
+        eq(MAX_WEIGHT), eq(false), eq(0), eq(false), any(ChannelPromise.class));
+  }
+
   @Test
   public void cancelShouldSucceed() throws Exception {
     createStream();
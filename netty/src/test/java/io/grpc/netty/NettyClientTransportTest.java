@@ -27,6 +27,7 @@ import static io.grpc.internal.GrpcUtil.USER_AGENT_KEY;
 import static io.grpc.netty.NettyServerBuilder.MAX_CONNECTION_AGE_GRACE_NANOS_INFINITE;
 import static io.grpc.netty.NettyServerBuilder.MAX_CONNECTION_AGE_NANOS_DISABLED;
 import static io.grpc.netty.NettyServerBuilder.MAX_CONNECTION_IDLE_NANOS_DISABLED;
+import static io.grpc.netty.NettyServerBuilder.STREAMING_DECOMPRESSION_DISABLED;
 import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_WINDOW_SIZE;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -35,6 +36,7 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeNoException;
 
 import com.google.common.io.ByteStreams;
 import com.google.common.util.concurrent.SettableFuture;
@@ -83,6 +85,8 @@ import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.http2.StreamBufferingEncoder;
 import io.netty.handler.ssl.ClientAuth;
 import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslProvider;
 import io.netty.handler.ssl.SupportedCipherSuiteFilter;
 import io.netty.util.AsciiString;
 import java.io.ByteArrayInputStream;
@@ -194,7 +198,7 @@ public class NettyClientTransportTest {
         newNegotiator(), false, DEFAULT_WINDOW_SIZE, DEFAULT_MAX_MESSAGE_SIZE,
         GrpcUtil.DEFAULT_MAX_HEADER_LIST_SIZE, KEEPALIVE_TIME_NANOS_DISABLED, 1L, false, authority,
         null /* user agent */, tooManyPingsRunnable, new TransportTracer(), Attributes.EMPTY,
-        new SocketPicker(), new FakeChannelLogger(), false);
+        new SocketPicker(), new FakeChannelLogger(), false, WriteQueue.COALESCING_DISABLED, 0);
     transports.add(transport);
     callMeMaybe(transport.start(clientTransportListener));
 
@@ -440,7 +444,7 @@ public class NettyClientTransportTest {
         newNegotiator(), false, DEFAULT_WINDOW_SIZE, DEFAULT_MAX_MESSAGE_SIZE,
         GrpcUtil.DEFAULT_MAX_HEADER_LIST_SIZE, KEEPALIVE_TIME_NANOS_DISABLED, 1, false, authority,
         null, tooManyPingsRunnable, new TransportTracer(), Attributes.EMPTY, new SocketPicker(),
-        new FakeChannelLogger(), false);
+        new FakeChannelLogger(), false, WriteQueue.COALESCING_DISABLED, 0);
     transports.add(transport);
 
     // Should not throw
@@ -717,6 +721,46 @@ public class NettyClientTransportTest {
     assertEquals(false, serverExecutorPool.isInUse());
   }
 
+  @Test
+  public void tlsSessionResumptionIsReportedPerTransport() throws Exception {
+    File serverCert = TestUtils.loadCert("server1.pem");
+    File serverKey = TestUtils.loadCert("server1.key");
+    // With TLS 1.2 the JDK client resumes sessions by their ID, which it can recognize.
+    SslContext sslContext = GrpcSslContexts.forServer(serverCert, serverKey)
+        .ciphers(TestUtils.preferredTestCiphers(), SupportedCipherSuiteFilter.INSTANCE)
+        .protocols("TLSv1.2")
+        .build();
+    negotiator = ProtocolNegotiators.serverTls(sslContext);
+    startServer();
+
+    // The OpenSSL client of this Netty version keeps no sessions to resume.
+    SslContextBuilder clientBuilder = SslContextBuilder.forClient();
+    try {
+      GrpcSslContexts.configure(clientBuilder, SslProvider.JDK);
+    } catch (IllegalArgumentException ex) {
+      assumeNoException("No JDK provider with ALPN", ex);
+    }
+    File caCert = TestUtils.loadCert("ca.pem");
+    SslContext clientContext = clientBuilder
+        .trustManager(caCert)
+        .ciphers(TestUtils.preferredTestCiphers(), SupportedCipherSuiteFilter.INSTANCE)
+        .protocols("TLSv1.2")
+        .build();
+    ProtocolNegotiator negotiator = ProtocolNegotiators.tls(clientContext);
+    long resumedHandshakes = TlsHandshakeStats.getResumedHandshakes();
+
+    NettyClientTransport first = newTransport(negotiator);
+    callMeMaybe(first.start(clientTransportListener));
+    new Rpc(first).halfClose().waitForResponse();
+    NettyClientTransport second = newTransport(negotiator);
+    callMeMaybe(second.start(clientTransportListener));
+    new Rpc(second).halfClose().waitForResponse();
+
+    assertFalse(first.getStats().get().security.tls.sessionResumed);
+    assertTrue(second.getStats().get().security.tls.sessionResumed);
+    assertThat(TlsHandshakeStats.getResumedHandshakes()).isAtLeast(resumedHandshakes + 1);
+  }
+
   private Throwable getRootCause(Throwable t) {
     if (t.getCause() == null) {
       return t;
@@ -755,7 +799,8 @@ public class NettyClientTransportTest {
         negotiator, false, DEFAULT_WINDOW_SIZE, maxMsgSize, maxHeaderListSize,
         keepAliveTimeNano, keepAliveTimeoutNano,
         false, authority, userAgent, tooManyPingsRunnable,
-        new TransportTracer(), eagAttributes, new SocketPicker(), new FakeChannelLogger(), false);
+        new TransportTracer(), eagAttributes, new SocketPicker(), new FakeChannelLogger(), false,
+        WriteQueue.COALESCING_DISABLED, 0);
     transports.add(transport);
     return transport;
   }
@@ -770,12 +815,14 @@ public class NettyClientTransportTest {
         new ReflectiveChannelFactory<>(NioServerSocketChannel.class),
         new HashMap<ChannelOption<?>, Object>(),
         new HashMap<ChannelOption<?>, Object>(),
-        new FixedObjectPool<>(group), new FixedObjectPool<>(group), false, negotiator,
+        new FixedObjectPool<>(group), new FixedObjectPool<>(group), false, 1, negotiator,
         Collections.<ServerStreamTracer.Factory>emptyList(),
         TransportTracer.getDefaultFactory(),
         maxStreamsPerConnection,
         false,
-        DEFAULT_WINDOW_SIZE, DEFAULT_MAX_MESSAGE_SIZE, maxHeaderListSize,
+        DEFAULT_WINDOW_SIZE, DEFAULT_WINDOW_SIZE, DEFAULT_MAX_MESSAGE_SIZE,
+        STREAMING_DECOMPRESSION_DISABLED,
+        WriteQueue.COALESCING_DISABLED, 0, maxHeaderListSize,
         DEFAULT_SERVER_KEEPALIVE_TIME_NANOS, DEFAULT_SERVER_KEEPALIVE_TIMEOUT_NANOS,
         MAX_CONNECTION_IDLE_NANOS_DISABLED,
         MAX_CONNECTION_AGE_NANOS_DISABLED, MAX_CONNECTION_AGE_GRACE_NANOS_INFINITE, true, 0,
@@ -67,6 +67,59 @@ public class NettyServerBuilderTest {
     builder.sslContext(sslContext);
   }
 
+  @Test
+  public void failIfStreamingDecompressionThresholdNotPositive() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("bytes must be positive");
+
+    builder.streamingDecompressionThreshold(0);
+  }
+
+  @Test
+  public void failIfMaxFlowControlWindowNotPositive() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("maxFlowControlWindow must be positive");
+
+    builder.maxFlowControlWindow(0);
+  }
+
+  @Test
+  public void failIfReusePortAcceptorsNotPositive() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("acceptors must be positive");
+
+    builder.reusePortAcceptors(0);
+  }
+
+  @Test
+  public void failIfReusePortAcceptorsWithNonEpollChannelType() {
+    EventLoopGroup mockEventLoopGroup = mock(EventLoopGroup.class);
+    builder.bossEventLoopGroup(mockEventLoopGroup);
+    builder.workerEventLoopGroup(mockEventLoopGroup);
+    builder.channelType(LocalServerChannel.class);
+    builder.reusePortAcceptors(2);
+
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("SO_REUSEPORT acceptors require an epoll server channel type");
+    builder.buildTransportServers(ImmutableList.<Factory>of());
+  }
+
+  @Test
+  public void failIfFlushCoalescingDelayNotPositive() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("maxDelay must be positive");
+
+    builder.flushCoalescing(0, TimeUnit.MICROSECONDS, 1024);
+  }
+
+  @Test
+  public void failIfFlushCoalescingThresholdNotPositive() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("thresholdBytes must be positive");
+
+    builder.flushCoalescing(50, TimeUnit.MICROSECONDS, 0);
+  }
+
   @Test
   public void failIfKeepAliveTimeNegative() {
     thrown.expect(IllegalArgumentException.class);
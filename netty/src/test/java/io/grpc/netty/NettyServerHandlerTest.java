@@ -23,6 +23,7 @@ import static io.grpc.internal.GrpcUtil.DEFAULT_SERVER_KEEPALIVE_TIME_NANOS;
 import static io.grpc.netty.NettyServerBuilder.MAX_CONNECTION_AGE_GRACE_NANOS_INFINITE;
 import static io.grpc.netty.NettyServerBuilder.MAX_CONNECTION_AGE_NANOS_DISABLED;
 import static io.grpc.netty.NettyServerBuilder.MAX_CONNECTION_IDLE_NANOS_DISABLED;
+import static io.grpc.netty.NettyServerBuilder.STREAMING_DECOMPRESSION_DISABLED;
 import static io.grpc.netty.Utils.CONTENT_TYPE_GRPC;
 import static io.grpc.netty.Utils.CONTENT_TYPE_HEADER;
 import static io.grpc.netty.Utils.HTTP_METHOD;
@@ -133,6 +134,7 @@ public class NettyServerHandlerTest extends NettyHandlerTestBase<NettyServerHand
 
   private int maxConcurrentStreams = Integer.MAX_VALUE;
   private int maxHeaderListSize = Integer.MAX_VALUE;
+  private int maxFlowControlWindow = AbstractNettyHandler.DEFAULT_MAX_FLOW_CONTROL_WINDOW;
   private boolean permitKeepAliveWithoutCalls = true;
   private long permitKeepAliveTimeInNanos = 0;
   private long maxConnectionIdleInNanos = MAX_CONNECTION_IDLE_NANOS_DISABLED;
@@ -409,6 +411,23 @@ public class NettyServerHandlerTest extends NettyHandlerTestBase<NettyServerHand
     assertEquals(flowControlWindow, actualInitialWindowSize);
   }
 
+  @Test
+  public void autoTunedWindowShouldRespectConfiguredMax() throws Exception {
+    maxFlowControlWindow = 16 * 1024 * 1024;
+    manualSetUp();
+    createStream();
+    handler().setAutoTuneFlowControl(true);
+    Http2Stream connectionStream = connection().connectionStream();
+    Http2LocalFlowController localFlowController = connection().local().flowController();
+
+    // Beyond the default maximum, but doubling it exceeds the configured one.
+    handler().flowControlPing().setDataSizeAndSincePing(12 * 1024 * 1024);
+    channelRead(pingFrame(true, handler().flowControlPing().payload()));
+
+    assertEquals(maxFlowControlWindow, localFlowController.initialWindowSize(connectionStream));
+    assertEquals(maxFlowControlWindow, handler().localFlowControlWindow());
+  }
+
   @Test
   public void cancelShouldSendRstStream() throws Exception {
     manualSetUp();
@@ -1118,8 +1137,11 @@ public class NettyServerHandlerTest extends NettyHandlerTestBase<NettyServerHand
         maxConcurrentStreams,
         autoFlowControl,
         flowControlWindow,
+        maxFlowControlWindow,
         maxHeaderListSize,
         DEFAULT_MAX_MESSAGE_SIZE,
+        STREAMING_DECOMPRESSION_DISABLED,
+        WriteQueue.COALESCING_DISABLED, 0,
         keepAliveTimeInNanos,
         keepAliveTimeoutInNanos,
         maxConnectionIdleInNanos,
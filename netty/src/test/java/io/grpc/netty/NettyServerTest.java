@@ -21,6 +21,7 @@ import static io.grpc.InternalChannelz.id;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assume.assumeTrue;
 
 import com.google.common.util.concurrent.SettableFuture;
 import io.grpc.Attributes;
@@ -34,6 +35,7 @@ import io.grpc.internal.ServerListener;
 import io.grpc.internal.ServerStream;
 import io.grpc.internal.ServerTransport;
 import io.grpc.internal.ServerTransportListener;
+import io.grpc.internal.SharedResourcePool;
 import io.grpc.internal.TransportTracer;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandler;
@@ -96,6 +98,7 @@ public class NettyServerTest {
         new FixedObjectPool<>(eventLoop),
         new FixedObjectPool<>(eventLoop),
         false,
+        1, // ignore
         protocolNegotiator,
         Collections.<ServerStreamTracer.Factory>emptyList(),
         TransportTracer.getDefaultFactory(),
@@ -104,6 +107,9 @@ public class NettyServerTest {
         1, // ignore
         1, // ignore
         1, // ignore
+        -1, // ignore
+        0, 0, // ignore
+        1, // ignore
         1, // ignore
         1, 1, // ignore
         1, 1, // ignore
@@ -143,6 +149,7 @@ public class NettyServerTest {
         new FixedObjectPool<>(eventLoop),
         new FixedObjectPool<>(eventLoop),
         false,
+        1, // ignore
         ProtocolNegotiators.plaintext(),
         Collections.<ServerStreamTracer.Factory>emptyList(),
         TransportTracer.getDefaultFactory(),
@@ -151,6 +158,9 @@ public class NettyServerTest {
         1, // ignore
         1, // ignore
         1, // ignore
+        -1, // ignore
+        0, 0, // ignore
+        1, // ignore
         1, // ignore
         1, 1, // ignore
         1, 1, // ignore
@@ -184,6 +194,7 @@ public class NettyServerTest {
         new FixedObjectPool<>(eventLoop),
         new FixedObjectPool<>(eventLoop),
         false,
+        1, // ignore
         ProtocolNegotiators.plaintext(),
         Collections.<ServerStreamTracer.Factory>emptyList(),
         TransportTracer.getDefaultFactory(),
@@ -192,6 +203,9 @@ public class NettyServerTest {
         1, // ignore
         1, // ignore
         1, // ignore
+        -1, // ignore
+        0, 0, // ignore
+        1, // ignore
         1, // ignore
         1, 1, // ignore
         1, 1, // ignore
@@ -237,6 +251,7 @@ public class NettyServerTest {
         new FixedObjectPool<>(eventLoop),
         new FixedObjectPool<>(eventLoop),
         false,
+        1, // ignore
         ProtocolNegotiators.plaintext(),
         Collections.<ServerStreamTracer.Factory>emptyList(),
         TransportTracer.getDefaultFactory(),
@@ -245,6 +260,9 @@ public class NettyServerTest {
         1, // ignore
         1, // ignore
         1, // ignore
+        -1, // ignore
+        0, 0, // ignore
+        1, // ignore
         1, // ignore
         1, 1, // ignore
         1, 1, // ignore
@@ -291,6 +309,65 @@ public class NettyServerTest {
     assertNull(channelz.getSocket(id(listenSocket)));
   }
 
+  @Test
+  public void reusePortAcceptors() throws Exception {
+    assumeTrue(Utils.maybeGetSoReusePortOption() != null);
+    NettyServer ns = new NettyServer(
+        new InetSocketAddress(0),
+        Utils.DEFAULT_SERVER_CHANNEL_FACTORY,
+        new HashMap<ChannelOption<?>, Object>(),
+        new HashMap<ChannelOption<?>, Object>(),
+        SharedResourcePool.forResource(Utils.DEFAULT_BOSS_EVENT_LOOP_GROUP),
+        SharedResourcePool.forResource(Utils.DEFAULT_WORKER_EVENT_LOOP_GROUP),
+        false,
+        2,
+        ProtocolNegotiators.plaintext(),
+        Collections.<ServerStreamTracer.Factory>emptyList(),
+        TransportTracer.getDefaultFactory(),
+        1, // ignore
+        false, // ignore
+        1, // ignore
+        1, // ignore
+        1, // ignore
+        -1, // ignore
+        0, 0, // ignore
+        1, // ignore
+        1, // ignore
+        1, 1, // ignore
+        1, 1, // ignore
+        true, 0, // ignore
+        channelz);
+    final int connections = 8;
+    final CountDownLatch transportsCreated = new CountDownLatch(connections);
+    final SettableFuture<Void> shutdownCompleted = SettableFuture.create();
+    ns.start(new ServerListener() {
+      @Override
+      public ServerTransportListener transportCreated(ServerTransport transport) {
+        transportsCreated.countDown();
+        return new NoopServerTransportListener();
+      }
+
+      @Override
+      public void serverShutdown() {
+        shutdownCompleted.set(null);
+      }
+    });
+
+    assertThat(((InetSocketAddress) ns.getListenSocketAddress()).getPort()).isGreaterThan(0);
+    Socket[] sockets = new Socket[connections];
+    for (int i = 0; i < connections; i++) {
+      sockets[i] = new Socket();
+      sockets[i].connect(ns.getListenSocketAddress(), /* timeout= */ 8000);
+    }
+    assertThat(transportsCreated.await(5, TimeUnit.SECONDS)).isTrue();
+    for (Socket socket : sockets) {
+      socket.close();
+    }
+
+    ns.shutdown();
+    shutdownCompleted.get(5, TimeUnit.SECONDS);
+  }
+
   private static class NoopServerTransportListener implements ServerTransportListener {
     @Override public void streamCreated(ServerStream stream, String method, Metadata headers) {}
 
@@ -17,11 +17,17 @@
 package io.grpc.netty;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import io.grpc.internal.WritableBuffer;
 import io.grpc.internal.WritableBufferAllocator;
 import io.grpc.internal.WritableBufferAllocatorTestBase;
 import io.netty.buffer.ByteBufAllocator;
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -61,4 +67,29 @@ public class NettyWritableBufferAllocatorTest extends WritableBufferAllocatorTes
     assertEquals(0, buffer.readableBytes());
     assertEquals(1024 * 1024, buffer.writableBytes());
   }
+
+  @Test
+  public void wrapRetainedSlicesIsFullAndShared() {
+    ByteBuffer first = ByteBuffer.allocate(100);
+    first.position(10);
+    ByteBuffer second = ByteBuffer.allocateDirect(50);
+    final AtomicBoolean ownerClosed = new AtomicBoolean();
+    Closeable owner = new Closeable() {
+      @Override
+      public void close() {
+        ownerClosed.set(true);
+      }
+    };
+    WritableBuffer buffer = allocator.wrapRetainedSlices(Arrays.asList(first, second), owner);
+    assertEquals(140, buffer.readableBytes());
+    assertEquals(0, buffer.writableBytes());
+
+    first.put(10, (byte) 42);
+    second.put(0, (byte) 43);
+    assertEquals(42, ((NettyWritableBuffer) buffer).bytebuf().getByte(0));
+    assertEquals(43, ((NettyWritableBuffer) buffer).bytebuf().getByte(90));
+    assertFalse(ownerClosed.get());
+    buffer.release();
+    assertTrue(ownerClosed.get());
+  }
 }
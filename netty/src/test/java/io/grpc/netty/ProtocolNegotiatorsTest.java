@@ -34,6 +34,7 @@ import io.grpc.Grpc;
 import io.grpc.InternalChannelz.Security;
 import io.grpc.SecurityLevel;
 import io.grpc.internal.GrpcAttributes;
+import io.grpc.internal.ObjectPool;
 import io.grpc.internal.testing.TestUtils;
 import io.grpc.netty.ProtocolNegotiators.ClientTlsHandler;
 import io.grpc.netty.ProtocolNegotiators.ClientTlsProtocolNegotiator;
@@ -564,6 +565,20 @@ public class ProtocolNegotiatorsTest {
     Object unused = ProtocolNegotiators.tls(null);
   }
 
+  @Test
+  public void tls_returnsPooledSslContextOnClose() {
+    @SuppressWarnings("unchecked")
+    ObjectPool<SslContext> sslContextPool = mock(ObjectPool.class);
+    Mockito.when(sslContextPool.getObject()).thenReturn(sslContext);
+
+    ProtocolNegotiator negotiator = ProtocolNegotiators.tls(sslContextPool, null);
+    Mockito.verify(sslContextPool).getObject();
+    Mockito.verify(sslContextPool, Mockito.never()).returnObject(any(SslContext.class));
+
+    negotiator.close();
+    Mockito.verify(sslContextPool).returnObject(sslContext);
+  }
+
   @Test
   public void tls_hostAndPort() {
     HostPort hostPort = ProtocolNegotiators.parseAuthority("authority:1234");
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.netty;
+
+import static com.google.common.truth.TruthJUnit.assume;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.grpc.internal.testing.TestUtils;
+import io.netty.handler.ssl.OpenSsl;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslProvider;
+import java.io.File;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSessionContext;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link TlsSessionTracker}. */
+@RunWith(JUnit4.class)
+public class TlsSessionTrackerTest {
+  private final SSLSessionContext context = mock(SSLSessionContext.class);
+
+  @Test
+  public void sameSessionIdIsResumed() {
+    assertFalse(TlsSessionTracker.recordHandshake(context, session(1, 2, 3)));
+    assertTrue(TlsSessionTracker.recordHandshake(context, session(1, 2, 3)));
+  }
+
+  @Test
+  public void newSessionIdIsFullHandshake() {
+    assertFalse(TlsSessionTracker.recordHandshake(context, session(1, 2, 3)));
+    assertFalse(TlsSessionTracker.recordHandshake(context, session(4, 5, 6)));
+  }
+
+  @Test
+  public void sessionIdsAreTrackedPerContext() {
+    SSLSessionContext otherContext = mock(SSLSessionContext.class);
+
+    assertFalse(TlsSessionTracker.recordHandshake(context, session(1, 2, 3)));
+    assertFalse(TlsSessionTracker.recordHandshake(otherContext, session(1, 2, 3)));
+  }
+
+  @Test
+  public void emptySessionIdIsFullHandshake() {
+    assertFalse(TlsSessionTracker.recordHandshake(context, session()));
+    assertFalse(TlsSessionTracker.recordHandshake(context, session()));
+  }
+
+  @Test
+  public void newResumptionsAreTakenByOneHandshakeEach() {
+    assertFalse(TlsSessionTracker.recordResumptions(context, 0));
+    assertTrue(TlsSessionTracker.recordResumptions(context, 1));
+    assertFalse(TlsSessionTracker.recordResumptions(context, 1));
+    assertTrue(TlsSessionTracker.recordResumptions(context, 3));
+    assertTrue(TlsSessionTracker.recordResumptions(context, 3));
+    assertFalse(TlsSessionTracker.recordResumptions(context, 3));
+  }
+
+  @Test
+  public void openSslContextWithoutResumptions_countsFullHandshake() throws Exception {
+    assume().that(OpenSsl.isAvailable()).isTrue();
+    File serverCert = TestUtils.loadCert("server1.pem");
+    File serverKey = TestUtils.loadCert("server1.key");
+    SslContext sslContext = SslContextBuilder.forServer(serverCert, serverKey)
+        .sslProvider(SslProvider.OPENSSL)
+        .build();
+    long full = TlsHandshakeStats.getFullHandshakes();
+
+    // The session ID is ignored in favor of the count of resumptions.
+    assertFalse(TlsSessionTracker.recordHandshake(sslContext.sessionContext(), session(1, 2, 3)));
+    assertFalse(TlsSessionTracker.recordHandshake(sslContext.sessionContext(), session(1, 2, 3)));
+    assertEquals(full + 2, TlsHandshakeStats.getFullHandshakes());
+  }
+
+  @Test
+  public void handshakesAreCounted() {
+    long resumed = TlsHandshakeStats.getResumedHandshakes();
+    long full = TlsHandshakeStats.getFullHandshakes();
+
+    TlsSessionTracker.recordHandshake(context, session(1, 2, 3));
+    TlsSessionTracker.recordHandshake(context, session(1, 2, 3));
+    TlsSessionTracker.recordHandshake(context, session(4, 5, 6));
+
+    assertEquals(resumed + 1, TlsHandshakeStats.getResumedHandshakes());
+    assertEquals(full + 2, TlsHandshakeStats.getFullHandshakes());
+  }
+
+  private static SSLSession session(int... id) {
+    byte[] bytes = new byte[id.length];
+    for (int i = 0; i < id.length; i++) {
+      bytes[i] = (byte) id[i];
+    }
+    SSLSession session = mock(SSLSession.class);
+    when(session.getId()).thenReturn(bytes);
+    return session;
+  }
+}
@@ -19,12 +19,14 @@ package io.grpc.netty;
 import static com.google.common.truth.Truth.assertThat;
 import static com.google.common.truth.TruthJUnit.assume;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 
 import com.google.common.base.MoreObjects;
 import io.grpc.InternalChannelz;
 import io.grpc.InternalChannelz.SocketOptions;
+import io.grpc.InternalStatus;
 import io.grpc.Metadata;
 import io.grpc.Status;
 import io.grpc.internal.GrpcUtil;
@@ -134,6 +136,60 @@ public class UtilsTest {
     assertEquals(Utils.CONTENT_TYPE_GRPC, headers.get(GrpcUtil.CONTENT_TYPE_KEY.name()));
   }
 
+  @Test
+  public void convertServerHeaders_sharesCommonHeaders() {
+    Metadata first = new Metadata();
+    first.put(GrpcUtil.MESSAGE_ENCODING_KEY, "gzip");
+    Metadata second = new Metadata();
+    second.put(GrpcUtil.MESSAGE_ENCODING_KEY, "gzip");
+    Metadata other = new Metadata();
+    other.put(GrpcUtil.MESSAGE_ENCODING_KEY, "identity");
+
+    Http2Headers headers = Utils.convertServerHeaders(first);
+    assertSame(headers, Utils.convertServerHeaders(second));
+    assertNotSame(headers, Utils.convertServerHeaders(other));
+    DefaultHttp2Headers copy = copyOf(headers);
+    assertEquals(3, copy.size());
+    assertEquals(Utils.STATUS_OK, copy.status());
+    assertEquals("gzip", copy.get(GrpcUtil.MESSAGE_ENCODING_KEY.name()).toString());
+  }
+
+  @Test
+  public void convertServerHeaders_doesNotShareCustomMetadata() {
+    Metadata first = new Metadata();
+    first.put(userKey, userValue);
+    Metadata second = new Metadata();
+    second.put(userKey, userValue);
+
+    assertNotSame(Utils.convertServerHeaders(first), Utils.convertServerHeaders(second));
+  }
+
+  @Test
+  public void convertTrailers_sharesStatusOnlyTrailers() {
+    Metadata first = new Metadata();
+    first.put(InternalStatus.CODE_KEY, Status.NOT_FOUND);
+    Metadata second = new Metadata();
+    second.put(InternalStatus.CODE_KEY, Status.NOT_FOUND);
+    Metadata withMessage = new Metadata();
+    withMessage.put(InternalStatus.CODE_KEY, Status.NOT_FOUND);
+    withMessage.put(InternalStatus.MESSAGE_KEY, "no such thing");
+
+    Http2Headers trailers = Utils.convertTrailers(first, true);
+    assertSame(trailers, Utils.convertTrailers(second, true));
+    assertNotSame(trailers, Utils.convertTrailers(withMessage, true));
+    DefaultHttp2Headers copy = copyOf(trailers);
+    assertEquals(1, copy.size());
+    assertEquals("5", copy.get(InternalStatus.CODE_KEY.name()).toString());
+  }
+
+  private static DefaultHttp2Headers copyOf(Http2Headers headers) {
+    DefaultHttp2Headers copy = new DefaultHttp2Headers();
+    for (Map.Entry<CharSequence, CharSequence> entry : headers) {
+      copy.add(entry.getKey(), entry.getValue());
+    }
+    return copy;
+  }
+
   @Test
   public void channelOptionsTest_noLinger() {
     Channel channel = new EmbeddedChannel();
@@ -218,6 +274,29 @@ public class UtilsTest {
         .isEqualTo("ReflectiveChannelFactory(EpollServerSocketChannel.class)");
   }
 
+  @Test
+  public void ioUringEventLoopGroup_whenIoUringIsAvailable() {
+    assume().that(Utils.isIoUringAvailable()).isTrue();
+
+    EventLoopGroup bossGroup = Utils.IO_URING_BOSS_EVENT_LOOP_GROUP.create();
+    EventLoopGroup workerGroup = Utils.IO_URING_WORKER_EVENT_LOOP_GROUP.create();
+    assertThat(bossGroup.getClass().getName())
+        .isEqualTo("io.netty.incubator.channel.uring.IOUringEventLoopGroup");
+    assertThat(workerGroup.getClass().getName())
+        .isEqualTo("io.netty.incubator.channel.uring.IOUringEventLoopGroup");
+
+    bossGroup.shutdownGracefully();
+    workerGroup.shutdownGracefully();
+  }
+
+  @Test
+  public void defaultEventLoopGroup_doesNotUseIoUringUnlessRequested() {
+    assume().that(Boolean.getBoolean("io.grpc.netty.useIoUring")).isFalse();
+
+    assertThat(Utils.DEFAULT_WORKER_EVENT_LOOP_GROUP)
+        .isNotSameInstanceAs(Utils.IO_URING_WORKER_EVENT_LOOP_GROUP);
+  }
+
   @Test
   public void maybeGetTcpUserTimeoutOption() {
     assume().that(Utils.isEpollAvailable()).isTrue();
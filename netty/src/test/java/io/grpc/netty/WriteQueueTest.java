@@ -18,9 +18,11 @@ package io.grpc.netty;
 
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isA;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -30,7 +32,9 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelPromise;
 import io.netty.channel.EventLoop;
+import io.netty.util.concurrent.ScheduledFuture;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.junit.Before;
 import org.junit.Rule;
@@ -58,6 +62,12 @@ public class WriteQueueTest {
   @Mock
   public ChannelPromise promise;
 
+  @Mock
+  public ScheduledFuture<?> scheduledFuture;
+
+  private EventLoop eventLoop;
+  private Runnable scheduledFlush;
+
   private long writeCalledNanos;
   private long flushCalledNanos = writeCalledNanos;
 
@@ -69,7 +79,7 @@ public class WriteQueueTest {
     MockitoAnnotations.initMocks(this);
     when(channel.newPromise()).thenReturn(promise);
 
-    EventLoop eventLoop = Mockito.mock(EventLoop.class);
+    eventLoop = Mockito.mock(EventLoop.class);
     doAnswer(new Answer<Void>() {
       @Override
       public Void answer(InvocationOnMock invocation) throws Throwable {
@@ -80,6 +90,13 @@ public class WriteQueueTest {
     }).when(eventLoop).execute(any(Runnable.class));
     when(eventLoop.inEventLoop()).thenReturn(true);
     when(channel.eventLoop()).thenReturn(eventLoop);
+    doAnswer(new Answer<ScheduledFuture<?>>() {
+      @Override
+      public ScheduledFuture<?> answer(InvocationOnMock invocation) throws Throwable {
+        scheduledFlush = (Runnable) invocation.getArguments()[0];
+        return scheduledFuture;
+      }
+    }).when(eventLoop).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
 
     when(channel.flush()).thenAnswer(new Answer<Channel>() {
       @Override
@@ -143,6 +160,73 @@ public class WriteQueueTest {
     verify(channel, times(2)).flush();
   }
 
+  @Test
+  public void coalescingDisabledShouldFlushEveryDrain() {
+    WriteQueue queue = new WriteQueue(channel);
+    int drains = 5;
+    for (int i = 0; i < drains; i++) {
+      enqueueBatch(queue, 2 * WriteQueue.MIN_COALESCING_BATCH);
+    }
+
+    verify(channel, times(drains)).flush();
+    verify(eventLoop, never()).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+  }
+
+  @Test
+  public void smallBatchesShouldNotBeCoalesced() {
+    WriteQueue queue = new WriteQueue(channel, TimeUnit.MILLISECONDS.toNanos(1), 1 << 20);
+    int drains = 10;
+    for (int i = 0; i < drains; i++) {
+      enqueueBatch(queue, 2);
+    }
+
+    verify(channel, times(drains)).flush();
+    verify(eventLoop, never()).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+  }
+
+  @Test
+  public void largeBatchesShouldBeCoalesced() {
+    long delayNanos = TimeUnit.MILLISECONDS.toNanos(1);
+    WriteQueue queue = new WriteQueue(channel, delayNanos, 1 << 20);
+    // The average batch size needs a few drains to reach the coalescing threshold.
+    int drains = 0;
+    while (scheduledFlush == null) {
+      if (++drains > 10) {
+        fail("flush was never held back");
+      }
+      enqueueBatch(queue, 2 * WriteQueue.MIN_COALESCING_BATCH);
+    }
+    verify(channel, times(drains - 1)).flush();
+    verify(eventLoop).schedule(any(Runnable.class), eq(delayNanos), eq(TimeUnit.NANOSECONDS));
+
+    // Further drains share the pending flush.
+    enqueueBatch(queue, 2 * WriteQueue.MIN_COALESCING_BATCH);
+    verify(eventLoop).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+    verify(channel, times(drains - 1)).flush();
+
+    scheduledFlush.run();
+    verify(channel, times(drains)).flush();
+  }
+
+  @Test
+  public void drainNowShouldNotBeCoalesced() {
+    WriteQueue queue = new WriteQueue(channel, TimeUnit.MILLISECONDS.toNanos(1), 1 << 20);
+    for (int i = 0; i < 10; i++) {
+      enqueueBatch(queue, 2 * WriteQueue.MIN_COALESCING_BATCH);
+    }
+    queue.enqueue(new CuteCommand(), false);
+    queue.drainNow();
+
+    verify(scheduledFuture).cancel(false);
+  }
+
+  private static void enqueueBatch(WriteQueue queue, int commands) {
+    for (int i = 0; i < commands; i++) {
+      queue.enqueue(new CuteCommand(), false);
+    }
+    queue.scheduleFlush();
+  }
+
   @Test
   public void concurrentWriteAndFlush() throws Throwable {
     final WriteQueue queue = new WriteQueue(channel);
@@ -24,6 +24,7 @@ IO_GRPC_GRPC_JAVA_ARTIFACTS = [
     "com.google.truth:truth:1.0.1",
     "com.squareup.okhttp:okhttp:2.7.4",
     "com.squareup.okio:okio:1.13.0",
+    "io.airlift:aircompressor:0.16",
     "io.netty:netty-buffer:4.1.48.Final",
     "io.netty:netty-codec-http2:4.1.48.Final",
     "io.netty:netty-codec-http:4.1.48.Final",
@@ -71,6 +72,7 @@ IO_GRPC_GRPC_JAVA_OVERRIDE_TARGETS = {
     "io.grpc:grpc-api": "@io_grpc_grpc_java//api",
     "io.grpc:grpc-auth": "@io_grpc_grpc_java//auth",
     "io.grpc:grpc-census": "@io_grpc_grpc_java//census",
+    "io.grpc:grpc-compression": "@io_grpc_grpc_java//compression",
     "io.grpc:grpc-context": "@io_grpc_grpc_java//context",
     "io.grpc:grpc-core": "@io_grpc_grpc_java//core:core_maven",
     "io.grpc:grpc-grpclb": "@io_grpc_grpc_java//grpclb",
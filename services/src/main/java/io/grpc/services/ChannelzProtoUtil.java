@@ -236,12 +236,18 @@ final class ChannelzProtoUtil {
               Int64Value.of(s.remoteFlowControlWindow));
     }
     builder.addAllOption(toSocketOptionsList(socketStats.socketOptions));
+    // The Security message has no place for it.
+    if (socketStats.security != null && socketStats.security.tls != null) {
+      builder.addOption(toSocketOptionAdditional(
+          TLS_SESSION_RESUMED, Boolean.toString(socketStats.security.tls.sessionResumed)));
+    }
     return builder.build();
   }
 
   public static final String SO_LINGER = "SO_LINGER";
   public static final String SO_TIMEOUT = "SO_TIMEOUT";
   public static final String TCP_INFO = "TCP_INFO";
+  public static final String TLS_SESSION_RESUMED = "TLS_SESSION_RESUMED";
 
   static SocketOption toSocketOptionLinger(int lingerSeconds) {
     final SocketOptionLinger lingerOpt;
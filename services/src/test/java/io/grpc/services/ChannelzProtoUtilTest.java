@@ -472,6 +472,33 @@ public final class ChannelzProtoUtilTest {
             ChannelzProtoUtil.toSocket(socket).getSecurity());
   }
 
+  @Test
+  public void socketSecurityTls_sessionResumed() throws Exception {
+    socket.security = new InternalChannelz.Security(
+        new InternalChannelz.Tls("TLS_NULL_WITH_NULL_NULL", null, null, true));
+    assertEquals(
+        socketDataWithDataNoSockOpts
+            .toBuilder()
+            .addOption(
+                SocketOption.newBuilder()
+                    .setName(ChannelzProtoUtil.TLS_SESSION_RESUMED)
+                    .setValue("true"))
+            .build(),
+        ChannelzProtoUtil.extractSocketData(socket.getStats().get()));
+
+    socket.security = new InternalChannelz.Security(
+        new InternalChannelz.Tls("TLS_NULL_WITH_NULL_NULL", null, null, false));
+    assertEquals(
+        socketDataWithDataNoSockOpts
+            .toBuilder()
+            .addOption(
+                SocketOption.newBuilder()
+                    .setName(ChannelzProtoUtil.TLS_SESSION_RESUMED)
+                    .setValue("false"))
+            .build(),
+        ChannelzProtoUtil.extractSocketData(socket.getStats().get()));
+  }
+
   @Test
   public void socketSecurityOther() throws Exception {
     // what is packed here is not important, just pick some proto message
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.xds;
+
+import io.grpc.xds.WeightedRoundRobinLoadBalancer.StaticStrideScheduler;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Measures the cost of a weighted_round_robin pick, which should not grow with the number of
+ * subchannels. The pickers of a channel are shared by all its calls, so picks also run from
+ * several threads at once.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+public class WeightedRoundRobinPickerBenchmark {
+
+  public enum Weights {
+    // All backends alike, as before any load report arrives.
+    EQUAL,
+    // Backends of a few hardware generations, up to four times faster than the slowest.
+    MIXED,
+    // One backend reporting far more capacity than the rest, so most turns are skipped.
+    SKEWED;
+
+    double[] newWeights(int count) {
+      Random random = new Random(1);
+      double[] weights = new double[count];
+      for (int i = 0; i < count; i++) {
+        switch (this) {
+          case EQUAL:
+            weights[i] = 1;
+            break;
+          case MIXED:
+            weights[i] = 1 + random.nextInt(4);
+            break;
+          case SKEWED:
+            weights[i] = i == 0 ? 1000 : 1;
+            break;
+          default:
+            throw new AssertionError();
+        }
+      }
+      return weights;
+    }
+  }
+
+  @Param({"10", "1000"})
+  public int subchannelCount;
+
+  @Param
+  public Weights weights;
+
+  private StaticStrideScheduler scheduler;
+
+  @Setup
+  public void setUp() {
+    scheduler = new StaticStrideScheduler(weights.newWeights(subchannelCount), new AtomicLong());
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public int pick() {
+    return scheduler.pick();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  @Threads(4)
+  public int pickConcurrently() {
+    return scheduler.pick();
+  }
+}
@@ -0,0 +1,438 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.xds;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static io.grpc.ConnectivityState.CONNECTING;
+import static io.grpc.ConnectivityState.IDLE;
+import static io.grpc.ConnectivityState.READY;
+
+import com.github.udpa.udpa.data.orca.v1.OrcaLoadReport;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Ticker;
+import io.grpc.ConnectivityState;
+import io.grpc.ConnectivityStateInfo;
+import io.grpc.InternalLogId;
+import io.grpc.LoadBalancer;
+import io.grpc.LoadBalancerProvider;
+import io.grpc.LoadBalancerRegistry;
+import io.grpc.SynchronizationContext;
+import io.grpc.SynchronizationContext.ScheduledHandle;
+import io.grpc.util.ForwardingLoadBalancer;
+import io.grpc.util.ForwardingLoadBalancerHelper;
+import io.grpc.util.ForwardingSubchannel;
+import io.grpc.xds.OrcaOobUtil.OrcaOobReportListener;
+import io.grpc.xds.OrcaOobUtil.OrcaReportingConfig;
+import io.grpc.xds.OrcaOobUtil.OrcaReportingHelperWrapper;
+import io.grpc.xds.OrcaPerRequestUtil.OrcaPerRequestReportListener;
+import io.grpc.xds.ThreadSafeRandom.ThreadSafeRandomImpl;
+import io.grpc.xds.WeightedRoundRobinLoadBalancerProvider.WeightedRoundRobinConfig;
+import io.grpc.xds.XdsLogger.XdsLogLevel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * Load balancer for weighted_round_robin policy. Calls are spread over the READY subchannels in
+ * proportion to weights taken from the ORCA load reports of their backends: the queries per second
+ * a backend serves divided by its CPU utilization, which estimates its capacity. Reports come with
+ * the responses to calls, or out-of-band if so configured.
+ *
+ * <p>Subchannels are managed by a round_robin balancer, whose picker is replaced whenever any
+ * subchannel is READY. The weights are recomputed periodically rather than on every report.
+ */
+final class WeightedRoundRobinLoadBalancer extends ForwardingLoadBalancer {
+
+  private final XdsLogger logger;
+  private final Helper helper;
+  private final SynchronizationContext syncContext;
+  private final ScheduledExecutorService timeService;
+  private final Ticker ticker;
+  private final ThreadSafeRandom random;
+  private final LoadBalancer delegate;
+  private final Set<WeightedSubchannel> subchannels = new HashSet<>();
+
+  private WeightedRoundRobinConfig config = WeightedRoundRobinConfig.DEFAULT;
+  // The round_robin balancer reports its new picker before shutting down the subchannels of
+  // removed addresses, so the picker is only rebuilt once it has finished handling addresses.
+  private boolean handlingAddresses;
+  private boolean pickerStale;
+  private ConnectivityState state = CONNECTING;
+  @Nullable
+  private SubchannelPicker delegatePicker;
+  @Nullable
+  private WeightedRoundRobinPicker currentPicker;
+  @Nullable
+  private ScheduledHandle weightUpdateTimer;
+
+  WeightedRoundRobinLoadBalancer(Helper helper) {
+    this(helper, Ticker.systemTicker(), ThreadSafeRandomImpl.instance);
+  }
+
+  @VisibleForTesting
+  WeightedRoundRobinLoadBalancer(Helper helper, Ticker ticker, ThreadSafeRandom random) {
+    this.helper = checkNotNull(helper, "helper");
+    this.syncContext = checkNotNull(helper.getSynchronizationContext(), "syncContext");
+    this.timeService = checkNotNull(helper.getScheduledExecutorService(), "timeService");
+    this.ticker = checkNotNull(ticker, "ticker");
+    this.random = checkNotNull(random, "random");
+    LoadBalancerProvider roundRobin =
+        LoadBalancerRegistry.getDefaultRegistry().getProvider("round_robin");
+    checkNotNull(roundRobin, "round_robin policy not found");
+    this.delegate = roundRobin.newLoadBalancer(new HelperImpl());
+    logger = XdsLogger.withLogId(
+        InternalLogId.allocate("weighted-round-robin-lb", helper.getAuthority()));
+    logger.log(XdsLogLevel.INFO, "Created");
+  }
+
+  @Override
+  protected LoadBalancer delegate() {
+    return delegate;
+  }
+
+  @Override
+  public void handleResolvedAddresses(ResolvedAddresses resolvedAddresses) {
+    WeightedRoundRobinConfig newConfig =
+        (WeightedRoundRobinConfig) resolvedAddresses.getLoadBalancingPolicyConfig();
+    if (newConfig == null) {
+      newConfig = WeightedRoundRobinConfig.DEFAULT;
+    }
+    if (!newConfig.equals(config)) {
+      logger.log(XdsLogLevel.INFO, "Config: {0}", newConfig);
+      config = newConfig;
+      for (WeightedSubchannel subchannel : subchannels) {
+        subchannel.applyConfig();
+      }
+      if (weightUpdateTimer != null) {
+        weightUpdateTimer.cancel();
+        weightUpdateTimer = null;
+      }
+    }
+    handlingAddresses = true;
+    try {
+      super.handleResolvedAddresses(resolvedAddresses);
+    } finally {
+      handlingAddresses = false;
+    }
+    if (pickerStale && delegatePicker != null) {
+      updatePicker();
+    }
+    if (weightUpdateTimer == null) {
+      weightUpdateTimer = syncContext.schedule(
+          new UpdateWeightsTask(), config.weightUpdatePeriodNanos, TimeUnit.NANOSECONDS,
+          timeService);
+    }
+  }
+
+  @Override
+  public void shutdown() {
+    logger.log(XdsLogLevel.INFO, "Shutdown");
+    if (weightUpdateTimer != null) {
+      weightUpdateTimer.cancel();
+      weightUpdateTimer = null;
+    }
+    super.shutdown();
+  }
+
+  private void updatePicker() {
+    pickerStale = false;
+    List<WeightedSubchannel> readyList = new ArrayList<>(subchannels.size());
+    for (WeightedSubchannel subchannel : subchannels) {
+      if (subchannel.state == READY) {
+        readyList.add(subchannel);
+      }
+    }
+    SubchannelPicker picker = delegatePicker;
+    if (readyList.isEmpty()) {
+      currentPicker = null;
+    } else {
+      currentPicker = new WeightedRoundRobinPicker(readyList, random.nextInt(Integer.MAX_VALUE));
+      currentPicker.updateWeights(ticker.read(), config);
+      picker = currentPicker;
+    }
+    helper.updateBalancingState(state, picker);
+  }
+
+  private final class UpdateWeightsTask implements Runnable {
+    @Override
+    public void run() {
+      if (currentPicker != null) {
+        currentPicker.updateWeights(ticker.read(), config);
+      }
+      weightUpdateTimer = syncContext.schedule(
+          this, config.weightUpdatePeriodNanos, TimeUnit.NANOSECONDS, timeService);
+    }
+  }
+
+  private final class HelperImpl extends ForwardingLoadBalancerHelper {
+    @Override
+    protected Helper delegate() {
+      return helper;
+    }
+
+    @Override
+    public Subchannel createSubchannel(CreateSubchannelArgs args) {
+      // Out-of-band reports come without the subchannel they are about, so each subchannel gets
+      // a helper of its own.
+      BackendWeight weight = new BackendWeight(ticker);
+      OrcaReportingHelperWrapper orcaHelper =
+          OrcaOobUtil.getInstance().newOrcaReportingHelperWrapper(helper, weight.oobListener);
+      WeightedSubchannel subchannel = new WeightedSubchannel(
+          orcaHelper.asHelper().createSubchannel(args), weight, orcaHelper);
+      subchannel.applyConfig();
+      subchannels.add(subchannel);
+      return subchannel;
+    }
+
+    @Override
+    public void updateBalancingState(ConnectivityState newState, SubchannelPicker newPicker) {
+      // The round_robin balancer updates its picker whenever a subchannel becomes or stops being
+      // READY, so the list built from it is current once any removed subchannels are shut down.
+      state = newState;
+      delegatePicker = newPicker;
+      pickerStale = true;
+      if (!handlingAddresses) {
+        updatePicker();
+      }
+    }
+  }
+
+  private final class WeightedSubchannel extends ForwardingSubchannel {
+    private final Subchannel delegate;
+    private final OrcaReportingHelperWrapper orcaHelper;
+    final BackendWeight weight;
+    ConnectivityState state = IDLE;
+    // Built once per config, so that picks don't allocate.
+    volatile PickResult pickResult;
+
+    WeightedSubchannel(
+        Subchannel delegate, BackendWeight weight, OrcaReportingHelperWrapper orcaHelper) {
+      this.delegate = checkNotNull(delegate, "subchannel");
+      this.weight = weight;
+      this.orcaHelper = orcaHelper;
+    }
+
+    @Override
+    protected Subchannel delegate() {
+      return delegate;
+    }
+
+    void applyConfig() {
+      // An out-of-band stream, once started, can't be stopped. Its reports are ignored instead.
+      weight.oobEnabled = config.enableOobLoadReport;
+      if (config.enableOobLoadReport) {
+        orcaHelper.setReportingConfig(OrcaReportingConfig.newBuilder()
+            .setReportInterval(config.oobReportingPeriodNanos, TimeUnit.NANOSECONDS)
+            .build());
+        pickResult = PickResult.withSubchannel(this);
+      } else {
+        pickResult = PickResult.withSubchannel(
+            this, OrcaPerRequestUtil.getInstance().newOrcaClientStreamTracerFactory(weight));
+      }
+    }
+
+    @Override
+    public void start(final SubchannelStateListener listener) {
+      delegate.start(new SubchannelStateListener() {
+          @Override
+          public void onSubchannelState(ConnectivityStateInfo newState) {
+            state = newState.getState();
+            listener.onSubchannelState(newState);
+          }
+        });
+    }
+
+    @Override
+    public void shutdown() {
+      subchannels.remove(this);
+      delegate.shutdown();
+    }
+  }
+
+  @VisibleForTesting
+  static final class WeightedRoundRobinPicker extends SubchannelPicker {
+    private final List<WeightedSubchannel> list; // non-empty
+    // Kept across weight updates, so that the rotation carries on where it was.
+    private final AtomicLong sequence;
+    private volatile StaticStrideScheduler scheduler;
+
+    WeightedRoundRobinPicker(List<WeightedSubchannel> list, long initialSequence) {
+      checkArgument(!list.isEmpty(), "empty list");
+      this.list = list;
+      this.sequence = new AtomicLong(initialSequence);
+    }
+
+    void updateWeights(long nowNanos, WeightedRoundRobinConfig config) {
+      double[] weights = new double[list.size()];
+      for (int i = 0; i < weights.length; i++) {
+        weights[i] = list.get(i).weight.getWeight(nowNanos, config);
+      }
+      scheduler = new StaticStrideScheduler(weights, sequence);
+    }
+
+    @Override
+    public PickResult pickSubchannel(PickSubchannelArgs args) {
+      return list.get(scheduler.pick()).pickResult;
+    }
+
+    @VisibleForTesting
+    List<? extends Subchannel> getList() {
+      return list;
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this).add("list", list).toString();
+    }
+  }
+
+  /**
+   * The weight of a backend, from the latest of its load reports.
+   */
+  @VisibleForTesting
+  static final class BackendWeight implements OrcaPerRequestReportListener {
+    private final Ticker ticker;
+    final OrcaOobReportListener oobListener = new OrcaOobReportListener() {
+      @Override
+      public void onLoadReport(OrcaLoadReport report) {
+        if (oobEnabled) {
+          update(report);
+        }
+      }
+    };
+    volatile boolean oobEnabled;
+
+    @GuardedBy("this")
+    private double weight;
+    @GuardedBy("this")
+    private long lastUpdatedNanos;
+    // The start of the current run of reports without a gap longer than the expiration period.
+    @GuardedBy("this")
+    private long nonEmptySinceNanos;
+    @GuardedBy("this")
+    private boolean hasWeight;
+
+    BackendWeight(Ticker ticker) {
+      this.ticker = ticker;
+    }
+
+    @Override
+    public void onLoadReport(OrcaLoadReport report) {
+      update(report);
+    }
+
+    private synchronized void update(OrcaLoadReport report) {
+      double utilization = report.getCpuUtilization();
+      double qps = report.getRps();
+      if (utilization <= 0 || qps <= 0) {
+        // Says nothing about the capacity of the backend.
+        return;
+      }
+      long nowNanos = ticker.read();
+      if (!hasWeight) {
+        hasWeight = true;
+        nonEmptySinceNanos = nowNanos;
+      }
+      weight = qps / utilization;
+      lastUpdatedNanos = nowNanos;
+    }
+
+    /**
+     * Returns the weight of the backend, or 0 if it has not reported recently, or only started
+     * reporting within the blackout period. Early reports tend to overstate the capacity of a
+     * backend, since it isn't loaded yet.
+     */
+    synchronized double getWeight(long nowNanos, WeightedRoundRobinConfig config) {
+      if (!hasWeight) {
+        return 0;
+      }
+      if (nowNanos - lastUpdatedNanos >= config.weightExpirationPeriodNanos) {
+        hasWeight = false;
+        return 0;
+      }
+      if (nowNanos - nonEmptySinceNanos < config.blackoutPeriodNanos) {
+        return 0;
+      }
+      return weight;
+    }
+  }
+
+  /**
+   * Picks indexes in proportion to fixed weights, lock-free and in O(1) amortized time. Every
+   * index is visited in turn, and skipped or taken based on its weight and on how many times the
+   * sequence wrapped around, so that each index is taken {@code weight / MAX_WEIGHT} of its turns.
+   * Indexes without a weight are given the mean weight.
+   */
+  @VisibleForTesting
+  static final class StaticStrideScheduler {
+    private static final int MAX_WEIGHT = 0xFFFF;
+    // Weights are raised to at least 1/MAX_RATIO of the largest, which bounds the turns a pick
+    // may skip on average.
+    private static final int MAX_RATIO = 10;
+    private static final int MIN_WEIGHT = MAX_WEIGHT / MAX_RATIO;
+
+    private final int[] scaledWeights;
+    private final AtomicLong sequence;
+
+    StaticStrideScheduler(double[] weights, AtomicLong sequence) {
+      checkArgument(weights.length > 0, "no weights");
+      this.sequence = checkNotNull(sequence, "sequence");
+      int weightedCount = 0;
+      double sumWeight = 0;
+      double maxWeight = 0;
+      for (double weight : weights) {
+        if (weight > 0) {
+          weightedCount++;
+          sumWeight += weight;
+          maxWeight = Math.max(maxWeight, weight);
+        }
+      }
+      // With no weights at all, this is plain round-robin.
+      double meanWeight = weightedCount == 0 ? 1 : sumWeight / weightedCount;
+      double scale = MAX_WEIGHT / Math.max(maxWeight, meanWeight);
+      scaledWeights = new int[weights.length];
+      for (int i = 0; i < weights.length; i++) {
+        double weight = weights[i] > 0 ? weights[i] : meanWeight;
+        scaledWeights[i] = Math.max(MIN_WEIGHT, (int) Math.round(weight * scale));
+      }
+    }
+
+    int pick() {
+      int size = scaledWeights.length;
+      while (true) {
+        long next = sequence.getAndIncrement() & Long.MAX_VALUE;
+        int index = (int) (next % size);
+        long generation = next / size;
+        int weight = scaledWeights[index];
+        // Offsets the indexes from each other, so that those with the same weight aren't all
+        // taken in the same generations.
+        long offset = (long) MAX_WEIGHT / 2 * index;
+        if ((weight * generation + offset) % MAX_WEIGHT >= MAX_WEIGHT - weight) {
+          return index;
+        }
+      }
+    }
+  }
+}
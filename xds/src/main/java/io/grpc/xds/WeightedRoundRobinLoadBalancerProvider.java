@@ -0,0 +1,160 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.xds;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.MoreObjects;
+import io.grpc.Internal;
+import io.grpc.LoadBalancer;
+import io.grpc.LoadBalancer.Helper;
+import io.grpc.LoadBalancerProvider;
+import io.grpc.LoadBalancerRegistry;
+import io.grpc.NameResolver.ConfigOrError;
+import io.grpc.Status;
+import io.grpc.internal.JsonUtil;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The provider for the weighted_round_robin balancing policy.  This class should not be
+ * directly referenced in code.  The policy should be accessed through {@link
+ * LoadBalancerRegistry#getProvider} with the name "weighted_round_robin_experimental".
+ */
+@Internal
+public final class WeightedRoundRobinLoadBalancerProvider extends LoadBalancerProvider {
+
+  @Override
+  public boolean isAvailable() {
+    return true;
+  }
+
+  @Override
+  public int getPriority() {
+    return 5;
+  }
+
+  @Override
+  public String getPolicyName() {
+    return XdsLbPolicies.WEIGHTED_ROUND_ROBIN_POLICY_NAME;
+  }
+
+  @Override
+  public LoadBalancer newLoadBalancer(Helper helper) {
+    return new WeightedRoundRobinLoadBalancer(helper);
+  }
+
+  @Override
+  public ConfigOrError parseLoadBalancingPolicyConfig(Map<String, ?> rawConfig) {
+    try {
+      WeightedRoundRobinConfig defaults = WeightedRoundRobinConfig.DEFAULT;
+      Boolean enableOobLoadReport = JsonUtil.getBoolean(rawConfig, "enableOobLoadReport");
+      Long oobReportingPeriod = JsonUtil.getStringAsDuration(rawConfig, "oobReportingPeriod");
+      Long blackoutPeriod = JsonUtil.getStringAsDuration(rawConfig, "blackoutPeriod");
+      Long weightExpirationPeriod =
+          JsonUtil.getStringAsDuration(rawConfig, "weightExpirationPeriod");
+      Long weightUpdatePeriod = JsonUtil.getStringAsDuration(rawConfig, "weightUpdatePeriod");
+      if ((oobReportingPeriod != null && oobReportingPeriod <= 0)
+          || (blackoutPeriod != null && blackoutPeriod < 0)
+          || (weightExpirationPeriod != null && weightExpirationPeriod <= 0)
+          || (weightUpdatePeriod != null && weightUpdatePeriod <= 0)) {
+        return ConfigOrError.fromError(Status.INTERNAL.withDescription(
+            "Invalid period in weighted_round_robin LB policy:\n " + rawConfig));
+      }
+      return ConfigOrError.fromConfig(new WeightedRoundRobinConfig(
+          enableOobLoadReport != null
+              ? enableOobLoadReport : defaults.enableOobLoadReport,
+          oobReportingPeriod != null
+              ? oobReportingPeriod : defaults.oobReportingPeriodNanos,
+          blackoutPeriod != null
+              ? blackoutPeriod : defaults.blackoutPeriodNanos,
+          weightExpirationPeriod != null
+              ? weightExpirationPeriod : defaults.weightExpirationPeriodNanos,
+          weightUpdatePeriod != null
+              ? weightUpdatePeriod : defaults.weightUpdatePeriodNanos));
+    } catch (RuntimeException e) {
+      return ConfigOrError.fromError(
+          Status.fromThrowable(e).withDescription(
+              "Failed to parse weighted_round_robin LB config: " + rawConfig));
+    }
+  }
+
+  /** The lb config for WeightedRoundRobinLoadBalancer. */
+  static final class WeightedRoundRobinConfig {
+
+    static final WeightedRoundRobinConfig DEFAULT = new WeightedRoundRobinConfig(
+        false,
+        TimeUnit.SECONDS.toNanos(10),
+        TimeUnit.SECONDS.toNanos(10),
+        TimeUnit.MINUTES.toNanos(3),
+        TimeUnit.SECONDS.toNanos(1));
+
+    final boolean enableOobLoadReport;
+    final long oobReportingPeriodNanos;
+    final long blackoutPeriodNanos;
+    final long weightExpirationPeriodNanos;
+    final long weightUpdatePeriodNanos;
+
+    @VisibleForTesting
+    WeightedRoundRobinConfig(
+        boolean enableOobLoadReport,
+        long oobReportingPeriodNanos,
+        long blackoutPeriodNanos,
+        long weightExpirationPeriodNanos,
+        long weightUpdatePeriodNanos) {
+      this.enableOobLoadReport = enableOobLoadReport;
+      this.oobReportingPeriodNanos = oobReportingPeriodNanos;
+      this.blackoutPeriodNanos = blackoutPeriodNanos;
+      this.weightExpirationPeriodNanos = weightExpirationPeriodNanos;
+      this.weightUpdatePeriodNanos = weightUpdatePeriodNanos;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      WeightedRoundRobinConfig that = (WeightedRoundRobinConfig) o;
+      return enableOobLoadReport == that.enableOobLoadReport
+          && oobReportingPeriodNanos == that.oobReportingPeriodNanos
+          && blackoutPeriodNanos == that.blackoutPeriodNanos
+          && weightExpirationPeriodNanos == that.weightExpirationPeriodNanos
+          && weightUpdatePeriodNanos == that.weightUpdatePeriodNanos;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(
+          enableOobLoadReport, oobReportingPeriodNanos, blackoutPeriodNanos,
+          weightExpirationPeriodNanos, weightUpdatePeriodNanos);
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+          .add("enableOobLoadReport", enableOobLoadReport)
+          .add("oobReportingPeriodNanos", oobReportingPeriodNanos)
+          .add("blackoutPeriodNanos", blackoutPeriodNanos)
+          .add("weightExpirationPeriodNanos", weightExpirationPeriodNanos)
+          .add("weightUpdatePeriodNanos", weightUpdatePeriodNanos)
+          .toString();
+    }
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.xds;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import io.grpc.LoadBalancerProvider;
+import io.grpc.LoadBalancerRegistry;
+import io.grpc.NameResolver.ConfigOrError;
+import io.grpc.Status;
+import io.grpc.internal.JsonParser;
+import io.grpc.xds.WeightedRoundRobinLoadBalancerProvider.WeightedRoundRobinConfig;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link WeightedRoundRobinLoadBalancerProvider}. */
+@RunWith(JUnit4.class)
+public class WeightedRoundRobinLoadBalancerProviderTest {
+
+  private final WeightedRoundRobinLoadBalancerProvider provider =
+      new WeightedRoundRobinLoadBalancerProvider();
+
+  @Test
+  public void providerRegistered() {
+    LoadBalancerProvider registered = LoadBalancerRegistry.getDefaultRegistry()
+        .getProvider(XdsLbPolicies.WEIGHTED_ROUND_ROBIN_POLICY_NAME);
+    assertThat(registered).isInstanceOf(WeightedRoundRobinLoadBalancerProvider.class);
+  }
+
+  @Test
+  public void parseEmptyConfig() throws Exception {
+    ConfigOrError parsedConfig = provider.parseLoadBalancingPolicyConfig(parse("{}"));
+
+    assertThat(parsedConfig.getConfig()).isEqualTo(WeightedRoundRobinConfig.DEFAULT);
+  }
+
+  @Test
+  public void parseWeightedRoundRobinConfig() throws Exception {
+    String rawConfig = "{"
+        + "\"enableOobLoadReport\" : true,"
+        + "\"oobReportingPeriod\" : \"5s\","
+        + "\"blackoutPeriod\" : \"0s\","
+        + "\"weightExpirationPeriod\" : \"60s\","
+        + "\"weightUpdatePeriod\" : \"0.5s\""
+        + "}";
+
+    ConfigOrError parsedConfig = provider.parseLoadBalancingPolicyConfig(parse(rawConfig));
+
+    assertThat(parsedConfig.getConfig()).isEqualTo(
+        new WeightedRoundRobinConfig(
+            true,
+            TimeUnit.SECONDS.toNanos(5),
+            0,
+            TimeUnit.SECONDS.toNanos(60),
+            TimeUnit.MILLISECONDS.toNanos(500)));
+  }
+
+  @Test
+  public void parseInvalidPeriod() throws Exception {
+    ConfigOrError parsedConfig =
+        provider.parseLoadBalancingPolicyConfig(parse("{\"weightUpdatePeriod\" : \"0s\"}"));
+
+    assertThat(parsedConfig.getError()).isNotNull();
+    assertThat(parsedConfig.getError().getCode()).isEqualTo(Status.Code.INTERNAL);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, ?> parse(String json) throws Exception {
+    return (Map<String, ?>) JsonParser.parse(json);
+  }
+}
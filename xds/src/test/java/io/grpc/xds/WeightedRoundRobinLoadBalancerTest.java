@@ -0,0 +1,455 @@
+/*
+ * Copyright 2020 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.xds;
+
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.truth.Truth.assertThat;
+import static io.grpc.ConnectivityState.READY;
+import static org.mockito.Mockito.mock;
+
+import com.github.udpa.udpa.data.orca.v1.OrcaLoadReport;
+import com.github.udpa.udpa.service.orca.v1.OpenRcaServiceGrpc;
+import com.github.udpa.udpa.service.orca.v1.OrcaLoadReportRequest;
+import com.google.protobuf.util.Durations;
+import io.grpc.Attributes;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ChannelLogger;
+import io.grpc.ClientStreamTracer;
+import io.grpc.ConnectivityState;
+import io.grpc.ConnectivityStateInfo;
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.LoadBalancer.CreateSubchannelArgs;
+import io.grpc.LoadBalancer.Helper;
+import io.grpc.LoadBalancer.PickResult;
+import io.grpc.LoadBalancer.PickSubchannelArgs;
+import io.grpc.LoadBalancer.ResolvedAddresses;
+import io.grpc.LoadBalancer.Subchannel;
+import io.grpc.LoadBalancer.SubchannelPicker;
+import io.grpc.LoadBalancer.SubchannelStateListener;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.NameResolver;
+import io.grpc.SynchronizationContext;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.internal.FakeClock;
+import io.grpc.stub.StreamObserver;
+import io.grpc.testing.GrpcCleanupRule;
+import io.grpc.xds.OrcaPerRequestUtil.OrcaReportingTracerFactory;
+import io.grpc.xds.WeightedRoundRobinLoadBalancer.BackendWeight;
+import io.grpc.xds.WeightedRoundRobinLoadBalancer.StaticStrideScheduler;
+import io.grpc.xds.WeightedRoundRobinLoadBalancer.WeightedRoundRobinPicker;
+import io.grpc.xds.WeightedRoundRobinLoadBalancerProvider.WeightedRoundRobinConfig;
+import java.net.SocketAddress;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link WeightedRoundRobinLoadBalancer}. */
+@RunWith(JUnit4.class)
+public class WeightedRoundRobinLoadBalancerTest {
+
+  private static final int NUM_BACKENDS = 3;
+  // Calls each backend could serve per second at full CPU utilization.
+  private static final double[] CAPACITIES = {100, 200, 300};
+  // CPU utilization of a backend serving no calls.
+  private static final double IDLE_UTILIZATION = 0.05;
+  private static final ClientStreamTracer.StreamInfo STREAM_INFO =
+      ClientStreamTracer.StreamInfo.newBuilder().setCallOptions(CallOptions.DEFAULT).build();
+
+  @Rule public final GrpcCleanupRule cleanupRule = new GrpcCleanupRule();
+
+  private final SynchronizationContext syncContext = new SynchronizationContext(
+      new Thread.UncaughtExceptionHandler() {
+        @Override
+        public void uncaughtException(Thread t, Throwable e) {
+          throw new AssertionError(e);
+        }
+      });
+  private final FakeClock fakeClock = new FakeClock();
+  private final List<EquivalentAddressGroup> servers = new ArrayList<>();
+  private final FakeSubchannel[] subchannels = new FakeSubchannel[NUM_BACKENDS];
+  private final ManagedChannel[] channels = new ManagedChannel[NUM_BACKENDS];
+  private final OpenRcaServiceImp[] orcaServiceImps = new OpenRcaServiceImp[NUM_BACKENDS];
+  private final PickSubchannelArgs pickArgs = mock(PickSubchannelArgs.class);
+  private final ThreadSafeRandom random = new ThreadSafeRandom() {
+    @Override
+    public int nextInt(int bound) {
+      return 0;
+    }
+  };
+  private SubchannelPicker currentPicker;
+  private WeightedRoundRobinLoadBalancer loadBalancer;
+
+  @Before
+  public void setUp() throws Exception {
+    for (int i = 0; i < NUM_BACKENDS; i++) {
+      orcaServiceImps[i] = new OpenRcaServiceImp();
+      cleanupRule.register(
+          InProcessServerBuilder.forName("wrr-test-" + i)
+              .addService(orcaServiceImps[i])
+              .directExecutor()
+              .build()
+              .start());
+      channels[i] = cleanupRule.register(
+          InProcessChannelBuilder.forName("wrr-test-" + i).directExecutor().build());
+      servers.add(new EquivalentAddressGroup(new FakeSocketAddress("address-" + i)));
+    }
+    loadBalancer =
+        new WeightedRoundRobinLoadBalancer(new FakeHelper(), fakeClock.getTicker(), random);
+  }
+
+  @After
+  public void tearDown() {
+    syncContext.execute(new Runnable() {
+      @Override
+      public void run() {
+        loadBalancer.shutdown();
+      }
+    });
+    assertThat(fakeClock.getPendingTasks()).isEmpty();
+  }
+
+  @Test
+  public void noReports_picksEvenly() {
+    allReady(WeightedRoundRobinConfig.DEFAULT);
+    assertThat(currentPicker).isInstanceOf(WeightedRoundRobinPicker.class);
+
+    int[] counts = new int[NUM_BACKENDS];
+    for (int i = 0; i < 300; i++) {
+      PickResult result = currentPicker.pickSubchannel(pickArgs);
+      assertThat(result.getStreamTracerFactory()).isNotNull();
+      counts[backendIndex(result)]++;
+    }
+    assertThat(counts).isEqualTo(new int[] {100, 100, 100});
+  }
+
+  @Test
+  public void perRequestReports_utilizationConverges() {
+    allReady(WeightedRoundRobinConfig.DEFAULT);
+
+    // Each backend reports with every response the calls it served in the previous second, and
+    // the CPU they took on top of its idle utilization.
+    int[] lastCounts = new int[NUM_BACKENDS];
+    int[] counts = new int[NUM_BACKENDS];
+    for (int second = 0; second < 40; second++) {
+      counts = new int[NUM_BACKENDS];
+      for (int i = 0; i < 300; i++) {
+        PickResult result = currentPicker.pickSubchannel(pickArgs);
+        int index = backendIndex(result);
+        counts[index]++;
+        Metadata trailers = new Metadata();
+        trailers.put(
+            OrcaReportingTracerFactory.ORCA_ENDPOINT_LOAD_METRICS_KEY,
+            loadReport(lastCounts[index], utilization(index, lastCounts[index])));
+        result.getStreamTracerFactory().newClientStreamTracer(STREAM_INFO, new Metadata())
+            .inboundTrailers(trailers);
+      }
+      lastCounts = counts;
+      fakeClock.forwardTime(1, TimeUnit.SECONDS);
+    }
+
+    // Traffic follows the capacities, which leaves all backends equally utilized.
+    assertThat(counts[0]).isWithin(2).of(50);
+    assertThat(counts[1]).isWithin(2).of(100);
+    assertThat(counts[2]).isWithin(2).of(150);
+    for (int i = 0; i < NUM_BACKENDS; i++) {
+      assertThat(utilization(i, counts[i])).isWithin(0.02).of(0.55);
+    }
+  }
+
+  @Test
+  public void oobReports_fromFakeOrcaServer() {
+    WeightedRoundRobinConfig config = new WeightedRoundRobinConfig(
+        true, TimeUnit.SECONDS.toNanos(5), 0, TimeUnit.MINUTES.toNanos(3),
+        TimeUnit.SECONDS.toNanos(1));
+    allReady(config);
+
+    for (int i = 0; i < NUM_BACKENDS; i++) {
+      assertThat(orcaServiceImps[i].calls).hasSize(1);
+      ServerSideCall call = orcaServiceImps[i].calls.peek();
+      assertThat(call.request.getReportInterval()).isEqualTo(Durations.fromSeconds(5));
+      call.responseObserver.onNext(loadReport(CAPACITIES[i] / 2, 0.5));
+    }
+    fakeClock.forwardTime(1, TimeUnit.SECONDS);
+
+    int[] counts = new int[NUM_BACKENDS];
+    for (int i = 0; i < 600; i++) {
+      PickResult result = currentPicker.pickSubchannel(pickArgs);
+      assertThat(result.getStreamTracerFactory()).isNull();
+      counts[backendIndex(result)]++;
+    }
+    assertThat(counts[0]).isWithin(2).of(100);
+    assertThat(counts[1]).isWithin(2).of(200);
+    assertThat(counts[2]).isWithin(2).of(300);
+  }
+
+  @Test
+  public void removedBackend_isNoLongerPicked() {
+    allReady(WeightedRoundRobinConfig.DEFAULT);
+    syncContext.execute(new Runnable() {
+      @Override
+      public void run() {
+        loadBalancer.handleResolvedAddresses(
+            ResolvedAddresses.newBuilder()
+                .setAddresses(servers.subList(1, NUM_BACKENDS))
+                .setLoadBalancingPolicyConfig(WeightedRoundRobinConfig.DEFAULT)
+                .build());
+      }
+    });
+    assertThat(((WeightedRoundRobinPicker) currentPicker).getList()).hasSize(NUM_BACKENDS - 1);
+
+    int[] counts = new int[NUM_BACKENDS];
+    for (int i = 0; i < 200; i++) {
+      counts[backendIndex(currentPicker.pickSubchannel(pickArgs))]++;
+    }
+    assertThat(counts).isEqualTo(new int[] {0, 100, 100});
+
+    // Weight updates keep to the backends that are left.
+    fakeClock.forwardTime(1, TimeUnit.SECONDS);
+    for (int i = 0; i < 200; i++) {
+      assertThat(backendIndex(currentPicker.pickSubchannel(pickArgs))).isNotEqualTo(0);
+    }
+  }
+
+  @Test
+  public void backendWeight_blackoutAndExpiration() {
+    WeightedRoundRobinConfig config = new WeightedRoundRobinConfig(
+        false, TimeUnit.SECONDS.toNanos(10), TimeUnit.SECONDS.toNanos(10),
+        TimeUnit.MINUTES.toNanos(3), TimeUnit.SECONDS.toNanos(1));
+    BackendWeight weight = new BackendWeight(fakeClock.getTicker());
+    weight.onLoadReport(loadReport(100, 0.5));
+    assertThat(weight.getWeight(fakeClock.getTicker().read(), config)).isEqualTo(0.0);
+
+    fakeClock.forwardTime(10, TimeUnit.SECONDS);
+    assertThat(weight.getWeight(fakeClock.getTicker().read(), config)).isEqualTo(200.0);
+
+    fakeClock.forwardTime(3, TimeUnit.MINUTES);
+    assertThat(weight.getWeight(fakeClock.getTicker().read(), config)).isEqualTo(0.0);
+
+    // Reporting again after expiring starts a new blackout period.
+    weight.onLoadReport(loadReport(100, 0.5));
+    assertThat(weight.getWeight(fakeClock.getTicker().read(), config)).isEqualTo(0.0);
+    fakeClock.forwardTime(10, TimeUnit.SECONDS);
+    assertThat(weight.getWeight(fakeClock.getTicker().read(), config)).isEqualTo(200.0);
+  }
+
+  @Test
+  public void backendWeight_ignoresReportsWithoutLoad() {
+    WeightedRoundRobinConfig config = new WeightedRoundRobinConfig(
+        false, TimeUnit.SECONDS.toNanos(10), 0, TimeUnit.MINUTES.toNanos(3),
+        TimeUnit.SECONDS.toNanos(1));
+    BackendWeight weight = new BackendWeight(fakeClock.getTicker());
+    weight.onLoadReport(loadReport(0, 0.5));
+    weight.onLoadReport(loadReport(100, 0));
+    assertThat(weight.getWeight(fakeClock.getTicker().read(), config)).isEqualTo(0.0);
+
+    weight.oobListener.onLoadReport(loadReport(100, 0.5));
+    assertThat(weight.getWeight(fakeClock.getTicker().read(), config)).isEqualTo(0.0);
+  }
+
+  @Test
+  public void scheduler_picksInProportionToWeights() {
+    StaticStrideScheduler scheduler =
+        new StaticStrideScheduler(new double[] {1, 2, 0, 3}, new AtomicLong());
+    int[] counts = new int[4];
+    for (int i = 0; i < 8000; i++) {
+      counts[scheduler.pick()]++;
+    }
+    // The backend without a weight gets the mean weight.
+    assertThat(counts[0]).isWithin(10).of(1000);
+    assertThat(counts[1]).isWithin(10).of(2000);
+    assertThat(counts[2]).isWithin(10).of(2000);
+    assertThat(counts[3]).isWithin(10).of(3000);
+  }
+
+  @Test
+  public void scheduler_raisesSmallWeights() {
+    StaticStrideScheduler scheduler =
+        new StaticStrideScheduler(new double[] {1, 1000}, new AtomicLong());
+    int[] counts = new int[2];
+    for (int i = 0; i < 11000; i++) {
+      counts[scheduler.pick()]++;
+    }
+    assertThat(counts[0]).isWithin(10).of(1000);
+  }
+
+  private void allReady(final WeightedRoundRobinConfig config) {
+    syncContext.execute(new Runnable() {
+      @Override
+      public void run() {
+        loadBalancer.handleResolvedAddresses(
+            ResolvedAddresses.newBuilder()
+                .setAddresses(servers)
+                .setLoadBalancingPolicyConfig(config)
+                .build());
+        for (FakeSubchannel subchannel : subchannels) {
+          subchannel.stateListener.onSubchannelState(ConnectivityStateInfo.forNonError(READY));
+        }
+      }
+    });
+  }
+
+  private int backendIndex(PickResult result) {
+    return servers.indexOf(result.getSubchannel().getAddresses());
+  }
+
+  private static double utilization(int index, int callsPerSecond) {
+    return IDLE_UTILIZATION + callsPerSecond / CAPACITIES[index];
+  }
+
+  private static OrcaLoadReport loadReport(double rps, double cpuUtilization) {
+    return OrcaLoadReport.newBuilder()
+        .setRps((long) rps)
+        .setCpuUtilization(cpuUtilization)
+        .build();
+  }
+
+  private static final class OpenRcaServiceImp extends OpenRcaServiceGrpc.OpenRcaServiceImplBase {
+    final Queue<ServerSideCall> calls = new ArrayDeque<>();
+
+    @Override
+    public void streamCoreMetrics(
+        OrcaLoadReportRequest request, StreamObserver<OrcaLoadReport> responseObserver) {
+      calls.add(new ServerSideCall(request, responseObserver));
+    }
+  }
+
+  private static final class ServerSideCall {
+    final OrcaLoadReportRequest request;
+    final StreamObserver<OrcaLoadReport> responseObserver;
+
+    ServerSideCall(OrcaLoadReportRequest request, StreamObserver<OrcaLoadReport> responseObserver) {
+      this.request = request;
+      this.responseObserver = responseObserver;
+    }
+  }
+
+  private static final class FakeSocketAddress extends SocketAddress {
+    final String name;
+
+    FakeSocketAddress(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+
+  private static final class FakeSubchannel extends Subchannel {
+    final List<EquivalentAddressGroup> eagList;
+    final Attributes attrs;
+    final Channel channel;
+    SubchannelStateListener stateListener;
+
+    FakeSubchannel(CreateSubchannelArgs args, Channel channel) {
+      this.eagList = args.getAddresses();
+      this.attrs = args.getAttributes();
+      this.channel = channel;
+    }
+
+    @Override
+    public void start(SubchannelStateListener listener) {
+      checkState(this.stateListener == null);
+      this.stateListener = listener;
+    }
+
+    @Override
+    public void shutdown() {
+    }
+
+    @Override
+    public void requestConnection() {
+    }
+
+    @Override
+    public List<EquivalentAddressGroup> getAllAddresses() {
+      return eagList;
+    }
+
+    @Override
+    public Attributes getAttributes() {
+      return attrs;
+    }
+
+    @Override
+    public Channel asChannel() {
+      return channel;
+    }
+
+    @Override
+    public ChannelLogger getChannelLogger() {
+      return mock(ChannelLogger.class);
+    }
+  }
+
+  private final class FakeHelper extends Helper {
+    @Override
+    public Subchannel createSubchannel(CreateSubchannelArgs args) {
+      int index = servers.indexOf(args.getAddresses().get(0));
+      checkState(index >= 0, "addrs " + args.getAddresses() + " not found");
+      FakeSubchannel subchannel = new FakeSubchannel(args, channels[index]);
+      subchannels[index] = subchannel;
+      return subchannel;
+    }
+
+    @Override
+    public void updateBalancingState(ConnectivityState newState, SubchannelPicker newPicker) {
+      currentPicker = newPicker;
+    }
+
+    @Override
+    public SynchronizationContext getSynchronizationContext() {
+      return syncContext;
+    }
+
+    @Override
+    public ScheduledExecutorService getScheduledExecutorService() {
+      return fakeClock.getScheduledExecutorService();
+    }
+
+    @Deprecated
+    @Override
+    public NameResolver.Factory getNameResolverFactory() {
+      throw new AssertionError("Should not be called");
+    }
+
+    @Override
+    public String getAuthority() {
+      return "fake-authority";
+    }
+
+    @Override
+    public ManagedChannel createOobChannel(EquivalentAddressGroup eag, String authority) {
+      throw new AssertionError("Should not be called");
+    }
+  }
+}